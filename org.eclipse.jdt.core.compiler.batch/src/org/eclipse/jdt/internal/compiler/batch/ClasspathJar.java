@@ -21,9 +21,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -52,6 +54,27 @@ protected ZipFile annotationZipFile;
 protected boolean closeZipFileAtEnd;
 protected Set<String> packageCache;
 protected List<String> annotationPaths;
+private SharedZipFile sharedZipFile;
+
+/*
+ * Zip files kept open across compilations of a resident compiler, see shareZipFiles().
+ * An entry is only reused while its file keeps the same time stamp and length. A replaced zip file
+ * is closed as soon as the last compilation which opened it is reset.
+ */
+private static final class SharedZipFile {
+	final ZipFile zipFile;
+	final long lastModified;
+	final long length;
+	int users; // number of jars using the zip file, not reset yet
+	boolean replaced;
+
+	SharedZipFile(ZipFile zipFile, long lastModified, long length) {
+		this.zipFile = zipFile;
+		this.lastModified = lastModified;
+		this.length = length;
+	}
+}
+private static Map<File, SharedZipFile> SharedZipFiles; // null unless shared
 
 public ClasspathJar(File file, boolean closeZipFileAtEnd,
 		AccessRuleSet accessRuleSet, String destinationPath) {
@@ -190,10 +213,53 @@ public char[][][] findTypeNames(final String qualifiedPackageName, String module
 	return null;
 }
 
+/**
+ * Lets the zip files of all jars opened from now on in this process be kept open and shared
+ * after their compilation ends, for the next compilations using them.
+ */
+public static synchronized void shareZipFiles() {
+	if (SharedZipFiles == null)
+		SharedZipFiles = new HashMap<>();
+}
+private static synchronized SharedZipFile acquireSharedZipFile(File file) throws IOException {
+	if (SharedZipFiles == null)
+		return null;
+	long lastModified = file.lastModified();
+	long length = file.length();
+	SharedZipFile shared = SharedZipFiles.get(file);
+	if (shared != null && (shared.lastModified != lastModified || shared.length != length)) {
+		SharedZipFiles.remove(file);
+		shared.replaced = true;
+		if (shared.users == 0)
+			closeQuietly(shared.zipFile);
+		shared = null;
+	}
+	if (shared == null) {
+		shared = new SharedZipFile(new ZipFile(file), lastModified, length);
+		SharedZipFiles.put(file, shared);
+	}
+	shared.users++;
+	return shared;
+}
+private static synchronized void releaseSharedZipFile(SharedZipFile shared) {
+	if (--shared.users == 0 && shared.replaced)
+		closeQuietly(shared.zipFile);
+}
+private static void closeQuietly(ZipFile zipFile) {
+	try {
+		zipFile.close();
+	} catch (IOException e) {
+		// ignore
+	}
+}
 @Override
 public void initialize() throws IOException {
 	if (this.zipFile == null) {
-		this.zipFile = new ZipFile(this.file);
+		if (this.closeZipFileAtEnd && (this.sharedZipFile = acquireSharedZipFile(this.file)) != null) {
+			this.zipFile = this.sharedZipFile.zipFile;
+		} else {
+			this.zipFile = new ZipFile(this.file);
+		}
 	}
 }
 void acceptModule(ClassFileReader reader) {
@@ -270,6 +336,11 @@ public char[][] listPackages() {
 @Override
 public void reset() {
 	super.reset();
+	if (this.sharedZipFile != null) {
+		releaseSharedZipFile(this.sharedZipFile);
+		this.sharedZipFile = null;
+		this.zipFile = null; // owned by SharedZipFiles
+	}
 	if (this.closeZipFileAtEnd) {
 		if (this.zipFile != null) {
 			try {
@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.internal.compiler.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+/**
+ * Keeps a batch compiler resident in a process, compiling the requests received on a local socket file,
+ * each request being a command line as accepted by {@link Main}.
+ * <p>
+ * Compared to starting {@link Main} for each compilation, the process keeps its compiled code, its
+ * JRT images and class cache, and the zip files of the jars on the classpath as long as they are
+ * unchanged on disk (see {@link ClasspathJar#shareZipFiles()}).
+ * <p>
+ * Requests are compiled one at a time, in the working directory of the server. A request sent from
+ * another working directory is rejected if any of its paths is relative, as it would be resolved
+ * against the wrong directory.
+ * <pre>
+ * java -cp ecj.jar org.eclipse.jdt.internal.compiler.batch.CompileServer &lt;socket file&gt;
+ * java -cp ecj.jar org.eclipse.jdt.internal.compiler.batch.CompileServer -connect &lt;socket file&gt; &lt;compiler arguments&gt;
+ * </pre>
+ */
+public class CompileServer implements Closeable {
+
+	// bounds of a valid request, so that a broken client can't get the server to allocate unbounded memory
+	private static final int MAX_ARGUMENTS = 1 << 20;
+	private static final int MAX_ARGUMENT_LENGTH = 1 << 16;
+
+	// options of Main followed by a path, by a list of paths, or by another value
+	private static final Set<String> PATH_OPTIONS = Set.of("-d", "-log", "-s", "-properties", "--system"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	private static final Set<String> PATH_LIST_OPTIONS = Set.of("-cp", "-classpath", "-bootclasspath", "-sourcepath", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			"-extdirs", "-endorseddirs", "-processorpath", "--module-path", "-p", "--module-source-path", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+			"--processor-module-path", "-annotationpath", "--patch-module"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	private static final Set<String> VALUE_OPTIONS = Set.of("-repeat", "-maxProblems", "--release", "-source", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			"-encoding", "-target", "--add-exports", "--add-reads", "--add-modules", "--limit-modules", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+			"--module-version", "-processor", "-classNames"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private final Path socketFile;
+	private final Path workingDirectory;
+	private final ServerSocketChannel server;
+
+	public static void main(String[] argv) throws IOException {
+		if (argv.length >= 2 && "-connect".equals(argv[0])) { //$NON-NLS-1$
+			PrintWriter out = new PrintWriter(System.out);
+			PrintWriter err = new PrintWriter(System.err);
+			boolean success = connect(Path.of(argv[1]), Path.of("").toAbsolutePath(), Arrays.copyOfRange(argv, 2, argv.length), out, err); //$NON-NLS-1$
+			System.exit(success ? 0 : -1);
+		} else if (argv.length == 1) {
+			try (CompileServer server = new CompileServer(Path.of(argv[0]))) {
+				server.serve();
+			}
+		} else {
+			System.err.println("Usage: CompileServer <socket file> | CompileServer -connect <socket file> <compiler arguments>"); //$NON-NLS-1$
+			System.exit(-1);
+		}
+	}
+
+	/**
+	 * Listens on the given socket file, which is replaced if left over by a server no longer running.
+	 *
+	 * @throws IOException if another server listens on the socket file, or it isn't a socket
+	 */
+	public CompileServer(Path socketFile) throws IOException {
+		if (Files.exists(socketFile)) {
+			if (Files.isRegularFile(socketFile) || Files.isDirectory(socketFile))
+				throw new IOException("Not a socket file: " + socketFile); //$NON-NLS-1$
+			try (SocketChannel probe = SocketChannel.open(UnixDomainSocketAddress.of(socketFile))) {
+				throw new IOException("A compile server already listens on " + socketFile); //$NON-NLS-1$
+			} catch (ConnectException e) {
+				Files.delete(socketFile); // left over by a previous server
+			}
+		}
+		ClasspathJar.shareZipFiles();
+		this.socketFile = socketFile;
+		this.workingDirectory = Path.of("").toAbsolutePath().normalize(); //$NON-NLS-1$
+		this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		try {
+			this.server.bind(UnixDomainSocketAddress.of(socketFile));
+		} catch (IOException e) {
+			this.server.close();
+			throw e;
+		}
+		socketFile.toFile().deleteOnExit();
+	}
+
+	/**
+	 * Compiles the requests received on the socket file, until this server is closed.
+	 */
+	public void serve() throws IOException {
+		while (true) {
+			SocketChannel channel;
+			try {
+				channel = this.server.accept();
+			} catch (ClosedChannelException e) {
+				return;
+			}
+			try (channel) {
+				compile(channel);
+			} catch (IOException | RuntimeException e) {
+				// a broken request or a client gone away, keep serving the next ones
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.server.close();
+		Files.deleteIfExists(this.socketFile);
+	}
+
+	private void compile(SocketChannel channel) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+		Path clientDirectory = Path.of(readString(in, MAX_ARGUMENT_LENGTH)).toAbsolutePath().normalize();
+		int count = in.readInt();
+		if (count < 0 || count > MAX_ARGUMENTS)
+			throw new IOException("Invalid number of arguments: " + count); //$NON-NLS-1$
+		String[] args = new String[count];
+		for (int i = 0; i < count; i++)
+			args[i] = readString(in, MAX_ARGUMENT_LENGTH);
+
+		StringWriter out = new StringWriter();
+		StringWriter err = new StringWriter();
+		boolean success = false;
+		String relativePath = clientDirectory.equals(this.workingDirectory) ? null : findRelativePath(args);
+		if (relativePath != null) {
+			err.write("The compile server runs in " + this.workingDirectory //$NON-NLS-1$
+					+ " and cannot resolve the relative path " + relativePath //$NON-NLS-1$
+					+ " from " + clientDirectory + ", use absolute paths\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		} else {
+			try (PrintWriter outWriter = new PrintWriter(out); PrintWriter errWriter = new PrintWriter(err)) {
+				success = new Main(outWriter, errWriter, false /* systemExit */, null /* options */, null /* progress */).compile(args);
+			}
+		}
+
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+		output.writeBoolean(success);
+		writeString(output, out.toString());
+		writeString(output, err.toString());
+		output.flush();
+	}
+
+	/*
+	 * Answers the first relative path found in the given arguments of Main, including the arguments
+	 * read from @files, or null if there is none.
+	 */
+	static String findRelativePath(String[] args) throws IOException {
+		List<String> expanded = new ArrayList<>(args.length);
+		for (String arg : args) {
+			arg = arg.trim();
+			if (arg.startsWith("@")) { //$NON-NLS-1$
+				File argumentFile = new File(arg.substring(1));
+				if (!argumentFile.isAbsolute())
+					return argumentFile.getPath();
+				expanded.addAll(Arrays.asList(Main.readArgumentFile(argumentFile)));
+			} else {
+				expanded.add(arg);
+			}
+		}
+		for (int i = 0, length = expanded.size(); i < length; i++) {
+			String arg = expanded.get(i);
+			String relativePath = null;
+			if (PATH_OPTIONS.contains(arg) || PATH_LIST_OPTIONS.contains(arg) || VALUE_OPTIONS.contains(arg)) {
+				if (++i == length)
+					break;
+				String value = expanded.get(i);
+				if (PATH_OPTIONS.contains(arg)) {
+					if (!Main.NONE.equals(value))
+						relativePath = findRelativeEntry(value);
+				} else if (PATH_LIST_OPTIONS.contains(arg)) {
+					if (!Main.ANNOTATION_SOURCE_CLASSPATH.equals(value))
+						relativePath = findRelativePathList(value.substring(value.indexOf('=') + 1)); // module=paths for --patch-module
+				}
+			} else if (arg.startsWith("-nowarn:[") && arg.endsWith("]")) { //$NON-NLS-1$ //$NON-NLS-2$
+				relativePath = findRelativePathList(arg.substring(9, arg.length() - 1));
+			} else if (!arg.startsWith("-")) { //$NON-NLS-1$
+				// source file or folder, possibly followed by [encoding] or [-d destination]
+				relativePath = findRelativeEntry(arg);
+				if (relativePath == null && arg.endsWith("[-d") && i + 1 < length) //$NON-NLS-1$
+					relativePath = findRelativeEntry(expanded.get(++i));
+			}
+			if (relativePath != null)
+				return relativePath;
+		}
+		return null;
+	}
+
+	private static String findRelativePathList(String paths) {
+		StringTokenizer tokenizer = new StringTokenizer(paths, File.pathSeparator);
+		while (tokenizer.hasMoreTokens()) {
+			String relativePath = findRelativeEntry(tokenizer.nextToken());
+			if (relativePath != null)
+				return relativePath;
+		}
+		return null;
+	}
+
+	/*
+	 * Checks a path followed by optional bracketed access rules, encoding or [-d destination].
+	 */
+	private static String findRelativeEntry(String entry) {
+		int bracket = entry.indexOf('[');
+		String path = (bracket == -1 ? entry : entry.substring(0, bracket)).replace("]", ""); //$NON-NLS-1$ //$NON-NLS-2$
+		if (!path.isEmpty() && !new File(path).isAbsolute())
+			return path;
+		while (bracket != -1) {
+			int end = entry.indexOf(']', bracket);
+			String bracketed = entry.substring(bracket + 1, end == -1 ? entry.length() : end).trim();
+			if (bracketed.startsWith("-d ")) { //$NON-NLS-1$
+				String destination = bracketed.substring(3).trim();
+				if (!Main.NONE.equals(destination) && !new File(destination).isAbsolute())
+					return destination;
+			}
+			bracket = end == -1 ? -1 : entry.indexOf('[', end);
+		}
+		return null;
+	}
+
+	/**
+	 * Sends the given compiler arguments to the server listening on the given socket file, and prints
+	 * the output of the compilation.
+	 *
+	 * @param workingDirectory the directory relative paths of the arguments are relative to
+	 * @return whether the compilation succeeded, as answered by {@link Main#compile(String[])}
+	 */
+	public static boolean connect(Path socketFile, Path workingDirectory, String[] args, PrintWriter out, PrintWriter err) throws IOException {
+		try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketFile))) {
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			writeString(output, workingDirectory.toAbsolutePath().toString());
+			output.writeInt(args.length);
+			for (String arg : args)
+				writeString(output, arg);
+			output.flush();
+
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			boolean success = in.readBoolean();
+			out.print(readString(in, Integer.MAX_VALUE));
+			out.flush();
+			err.print(readString(in, Integer.MAX_VALUE));
+			err.flush();
+			return success;
+		}
+	}
+
+	// not DataOutputStream#writeUTF(String), limited to 64K which compiler outputs may exceed
+	private static void writeString(DataOutputStream output, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static String readString(DataInputStream in, int maxLength) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > maxLength)
+			throw new IOException("Invalid string length: " + length); //$NON-NLS-1$
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -1306,7 +1306,7 @@ public class Main implements ProblemSeverities, SuffixConstants {
 	}
 
 	// used with -annotationpath to declare that annotations should be read from the classpath:
-	private static final String ANNOTATION_SOURCE_CLASSPATH = "CLASSPATH"; //$NON-NLS-1$
+	static final String ANNOTATION_SOURCE_CLASSPATH = "CLASSPATH"; //$NON-NLS-1$
 
 	// javadoc analysis tuning
 	boolean enableJavadocOn;
@@ -1718,6 +1718,22 @@ public boolean compile(String[] argv) {
 	return false;
 }
 
+/*
+ * Answers the arguments found in the given file, as expanded from an @file argument.
+ */
+static String[] readArgumentFile(File file) throws IOException {
+	LineNumberReader reader = new LineNumberReader(new StringReader(new String(Util.getFileCharContent(file, null))));
+	StringBuilder buffer = new StringBuilder();
+	String line;
+	while((line = reader.readLine()) != null) {
+		line = line.trim();
+		if (!line.startsWith("#")) { //$NON-NLS-1$
+			buffer.append(line).append(" "); //$NON-NLS-1$
+		}
+	}
+	return tokenize(buffer.toString());
+}
+
 /*
 Decode the command line arguments
  */
@@ -1810,16 +1826,7 @@ public void configure(String[] argv) {
 			String arg = argv[i].trim();
 			if (arg.startsWith("@")) { //$NON-NLS-1$
 				try {
-					LineNumberReader reader = new LineNumberReader(new StringReader(new String(Util.getFileCharContent(new File(arg.substring(1)), null))));
-					StringBuilder buffer = new StringBuilder();
-					String line;
-					while((line = reader.readLine()) != null) {
-						line = line.trim();
-						if (!line.startsWith("#")) { //$NON-NLS-1$
-							buffer.append(line).append(" "); //$NON-NLS-1$
-						}
-					}
-					newArgs = tokenize(buffer.toString());
+					newArgs = readArgumentFile(new File(arg.substring(1)));
 				} catch(IOException e) {
 					throw new IllegalArgumentException(
 						this.bind("configure.invalidexpansionargumentname", arg)); //$NON-NLS-1$
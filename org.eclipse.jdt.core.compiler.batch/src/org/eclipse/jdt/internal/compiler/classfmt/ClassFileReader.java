@@ -980,17 +980,17 @@ public long getVersion() {
 	return this.version;
 }
 
-private boolean hasNonSyntheticFieldChanges(FieldInfo[] currentFieldInfos, FieldInfo[] otherFieldInfos) {
+private boolean hasNonSyntheticFieldChanges(FieldInfo[] currentFieldInfos, FieldInfo[] otherFieldInfos, boolean excludesSynthetic, boolean excludesPrivate) {
 	int length1 = currentFieldInfos == null ? 0 : currentFieldInfos.length;
 	int length2 = otherFieldInfos == null ? 0 : otherFieldInfos.length;
 	int index1 = 0;
 	int index2 = 0;
 
 	end : while (index1 < length1 && index2 < length2) {
-		while (currentFieldInfos[index1].isSynthetic()) {
+		while (isExcluded(currentFieldInfos[index1], excludesSynthetic, excludesPrivate)) {
 			if (++index1 >= length1) break end;
 		}
-		while (otherFieldInfos[index2].isSynthetic()) {
+		while (isExcluded(otherFieldInfos[index2], excludesSynthetic, excludesPrivate)) {
 			if (++index2 >= length2) break end;
 		}
 		if (hasStructuralFieldChanges(currentFieldInfos[index1++], otherFieldInfos[index2++]))
@@ -998,26 +998,30 @@ private boolean hasNonSyntheticFieldChanges(FieldInfo[] currentFieldInfos, Field
 	}
 
 	while (index1 < length1) {
-		if (!currentFieldInfos[index1++].isSynthetic()) return true;
+		if (!isExcluded(currentFieldInfos[index1++], excludesSynthetic, excludesPrivate)) return true;
 	}
 	while (index2 < length2) {
-		if (!otherFieldInfos[index2++].isSynthetic()) return true;
+		if (!isExcluded(otherFieldInfos[index2++], excludesSynthetic, excludesPrivate)) return true;
 	}
 	return false;
 }
 
-private boolean hasNonSyntheticMethodChanges(MethodInfo[] currentMethodInfos, MethodInfo[] otherMethodInfos) {
+private static boolean isExcluded(FieldInfo fieldInfo, boolean excludesSynthetic, boolean excludesPrivate) {
+	return (excludesSynthetic && fieldInfo.isSynthetic())
+		|| (excludesPrivate && (fieldInfo.getModifiers() & ClassFileConstants.AccPrivate) != 0);
+}
+
+private boolean hasNonSyntheticMethodChanges(MethodInfo[] currentMethodInfos, MethodInfo[] otherMethodInfos, boolean excludesSynthetic, boolean excludesPrivate) {
 	int length1 = currentMethodInfos == null ? 0 : currentMethodInfos.length;
 	int length2 = otherMethodInfos == null ? 0 : otherMethodInfos.length;
 	int index1 = 0;
 	int index2 = 0;
 
-	MethodInfo m;
 	end : while (index1 < length1 && index2 < length2) {
-		while ((m = currentMethodInfos[index1]).isSynthetic() || m.isClinit()) {
+		while (isExcluded(currentMethodInfos[index1], excludesSynthetic, excludesPrivate)) {
 			if (++index1 >= length1) break end;
 		}
-		while ((m = otherMethodInfos[index2]).isSynthetic() || m.isClinit()) {
+		while (isExcluded(otherMethodInfos[index2], excludesSynthetic, excludesPrivate)) {
 			if (++index2 >= length2) break end;
 		}
 		if (hasStructuralMethodChanges(currentMethodInfos[index1++], otherMethodInfos[index2++]))
@@ -1025,14 +1029,19 @@ private boolean hasNonSyntheticMethodChanges(MethodInfo[] currentMethodInfos, Me
 	}
 
 	while (index1 < length1) {
-		if (!((m = currentMethodInfos[index1++]).isSynthetic() || m.isClinit())) return true;
+		if (!isExcluded(currentMethodInfos[index1++], excludesSynthetic, excludesPrivate)) return true;
 	}
 	while (index2 < length2) {
-		if (!((m = otherMethodInfos[index2++]).isSynthetic() || m.isClinit())) return true;
+		if (!isExcluded(otherMethodInfos[index2++], excludesSynthetic, excludesPrivate)) return true;
 	}
 	return false;
 }
 
+private static boolean isExcluded(MethodInfo methodInfo, boolean excludesSynthetic, boolean excludesPrivate) {
+	return (excludesSynthetic && (methodInfo.isSynthetic() || methodInfo.isClinit()))
+		|| (excludesPrivate && (methodInfo.getModifiers() & ClassFileConstants.AccPrivate) != 0);
+}
+
 /**
  * Check if the receiver has structural changes compare to the byte array in argument.
  * Structural changes are:
@@ -1069,6 +1078,21 @@ public boolean hasStructuralChanges(byte[] newBytes) {
  * @return boolean Returns true is there is a structural change between the two .class files, false otherwise
  */
 public boolean hasStructuralChanges(byte[] newBytes, boolean orderRequired, boolean excludesSynthetic) {
+	return hasStructuralChanges(newBytes, orderRequired, excludesSynthetic, false);
+}
+
+/**
+ * Check if the receiver has structural changes compare to the byte array in argument, as
+ * {@link #hasStructuralChanges(byte[], boolean, boolean)} does, optionally ignoring the private
+ * fields and methods: they can only be referenced from the compilation unit of the type, so
+ * their changes don't affect the other compilation units.
+ * @param newBytes the bytes of the .class file we want to compare the receiver to
+ * @param orderRequired a boolean indicating whether the members should be sorted or not
+ * @param excludesSynthetic a boolean indicating whether the synthetic members should be used in the comparison
+ * @param excludesPrivate a boolean indicating whether the private fields and methods should be used in the comparison
+ * @return boolean Returns true is there is a structural change between the two .class files, false otherwise
+ */
+public boolean hasStructuralChanges(byte[] newBytes, boolean orderRequired, boolean excludesSynthetic, boolean excludesPrivate) {
 	try {
 		ClassFileReader newClassFile =
 			new ClassFileReader(newBytes, this.classFileName);
@@ -1144,11 +1168,11 @@ public boolean hasStructuralChanges(byte[] newBytes, boolean orderRequired, bool
 			int i = 0;
 			for (; i < this.fieldsCount; i++)
 				if (hasStructuralFieldChanges(this.fields[i], otherFieldInfos[i])) break;
-			if ((compareFields = i != this.fieldsCount) && !orderRequired && !excludesSynthetic)
+			if ((compareFields = i != this.fieldsCount) && !orderRequired && !excludesSynthetic && !excludesPrivate)
 				return true;
 		}
 		if (compareFields) {
-			if (this.fieldsCount != otherFieldInfosLength && !excludesSynthetic)
+			if (this.fieldsCount != otherFieldInfosLength && !excludesSynthetic && !excludesPrivate)
 				return true;
 			if (orderRequired) {
 				if (this.fieldsCount != 0)
@@ -1156,8 +1180,8 @@ public boolean hasStructuralChanges(byte[] newBytes, boolean orderRequired, bool
 				if (otherFieldInfosLength != 0)
 					Arrays.sort(otherFieldInfos);
 			}
-			if (excludesSynthetic) {
-				if (hasNonSyntheticFieldChanges(this.fields, otherFieldInfos))
+			if (excludesSynthetic || excludesPrivate) {
+				if (hasNonSyntheticFieldChanges(this.fields, otherFieldInfos, excludesSynthetic, excludesPrivate))
 					return true;
 			} else {
 				for (int i = 0; i < this.fieldsCount; i++)
@@ -1174,11 +1198,11 @@ public boolean hasStructuralChanges(byte[] newBytes, boolean orderRequired, bool
 			int i = 0;
 			for (; i < this.methodsCount; i++)
 				if (hasStructuralMethodChanges(this.methods[i], otherMethodInfos[i])) break;
-			if ((compareMethods = i != this.methodsCount) && !orderRequired && !excludesSynthetic)
+			if ((compareMethods = i != this.methodsCount) && !orderRequired && !excludesSynthetic && !excludesPrivate)
 				return true;
 		}
 		if (compareMethods) {
-			if (this.methodsCount != otherMethodInfosLength && !excludesSynthetic)
+			if (this.methodsCount != otherMethodInfosLength && !excludesSynthetic && !excludesPrivate)
 				return true;
 			if (orderRequired) {
 				if (this.methodsCount != 0)
@@ -1186,8 +1210,8 @@ public boolean hasStructuralChanges(byte[] newBytes, boolean orderRequired, bool
 				if (otherMethodInfosLength != 0)
 					Arrays.sort(otherMethodInfos);
 			}
-			if (excludesSynthetic) {
-				if (hasNonSyntheticMethodChanges(this.methods, otherMethodInfos))
+			if (excludesSynthetic || excludesPrivate) {
+				if (hasNonSyntheticMethodChanges(this.methods, otherMethodInfos, excludesSynthetic, excludesPrivate))
 					return true;
 			} else {
 				for (int i = 0; i < this.methodsCount; i++)
@@ -14,10 +14,13 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -105,10 +108,18 @@ public class JavacBindingResolver extends BindingResolver {
 	// it will probably be better to run the `Enter` and then only extract interesting
 	// date from it.
 	public final Context context;
-	public Map<Symbol, ASTNode> symbolToDeclaration;
+	/// type declarations (including anonymous ones) by symbol, see [#findNode(Symbol)]
+	private Map<Symbol, ASTNode> typeDeclarations;
+	/// other declarations by symbol, indexed on demand for each type declaration
+	private final Map<Symbol, ASTNode> symbolToDeclaration = new HashMap<>();
+	private final Set<Symbol> indexedTypes = new HashSet<>();
+	private boolean bindingsPrefilled;
+	private volatile boolean resolved;
 	public final IJavaProject javaProject;
 	private JavacConverter converter;
 	boolean isRecoveringBindings = false;
+	/// keeps a pooled context leased as long as this resolver is in use
+	Object contextLease;
 
 	public static class BindingKeyException extends Exception {
 		private static final long serialVersionUID = -4468681148041117634L;
@@ -121,29 +132,36 @@ public class JavacBindingResolver extends BindingResolver {
 	}
 
 	public class Bindings {
-		private Map<String, JavacAnnotationBinding> annotationBindings = new HashMap<>();
+		/// binding keys, shared so equal keys are the same instance and compare quickly
+		private final Map<String, String> keys = new ConcurrentHashMap<>();
+		public String internKey(String key) {
+			String existing = keys.putIfAbsent(key, key);
+			return existing != null ? existing : key;
+		}
+		//
+		private final Map<String, JavacAnnotationBinding> annotationBindings = new ConcurrentHashMap<>();
 		public JavacAnnotationBinding getAnnotationBinding(Compound ann, IBinding recipient) {
 			JavacAnnotationBinding newInstance = new JavacAnnotationBinding(ann, JavacBindingResolver.this, recipient) { };
 			String k = newInstance.getKey();
 			if( k != null ) {
-				annotationBindings.putIfAbsent(k, newInstance);
-				return annotationBindings.get(k);
+				var existing = annotationBindings.putIfAbsent(k, newInstance);
+				return existing != null ? existing : newInstance;
 			}
 			return null;
 		}
 		//
-		private Map<String, JavacMemberValuePairBinding> memberValuePairBindings = new HashMap<>();
+		private final Map<String, JavacMemberValuePairBinding> memberValuePairBindings = new ConcurrentHashMap<>();
 		public JavacMemberValuePairBinding getMemberValuePairBinding(MethodSymbol key, Attribute value) {
 			JavacMemberValuePairBinding newInstance = new JavacMemberValuePairBinding(key, value, JavacBindingResolver.this) { };
 			String k = newInstance.getKey();
 			if( k != null ) {
-				memberValuePairBindings.putIfAbsent(k, newInstance);
-				return memberValuePairBindings.get(k);
+				var existing = memberValuePairBindings.putIfAbsent(k, newInstance);
+				return existing != null ? existing : newInstance;
 			}
 			return null;
 		}
 		//
-		private Map<JavacMethodBinding, JavacMethodBinding> methodBindings = new HashMap<>();
+		private final Map<JavacMethodBinding, JavacMethodBinding> methodBindings = new ConcurrentHashMap<>();
 		public JavacMethodBinding getMethodBinding(MethodType methodType, MethodSymbol sym, com.sun.tools.javac.code.Type type,
 				boolean isSynthetic, boolean isDeclaration) {
 			if( isSynthetic ) {
@@ -166,17 +184,17 @@ public class JavacBindingResolver extends BindingResolver {
 			return insertAndReturn(newInstance);
 		}
 		private JavacMethodBinding insertAndReturn(JavacMethodBinding newInstance) {
-			methodBindings.putIfAbsent(newInstance, newInstance);
-			return methodBindings.get(newInstance);
+			var existing = methodBindings.putIfAbsent(newInstance, newInstance);
+			return existing != null ? existing : newInstance;
 		}
 		//
-		private Map<String, JavacModuleBinding> moduleBindings = new HashMap<>();
+		private final Map<String, JavacModuleBinding> moduleBindings = new ConcurrentHashMap<>();
 		public JavacModuleBinding getModuleBinding(ModuleType moduleType) {
 			JavacModuleBinding newInstance = new JavacModuleBinding(moduleType, JavacBindingResolver.this) { };
 			String k = newInstance.getKey();
 			if( k != null ) {
-				moduleBindings.putIfAbsent(k, newInstance);
-				return moduleBindings.get(k);
+				var existing = moduleBindings.putIfAbsent(k, newInstance);
+				return existing != null ? existing : newInstance;
 			}
 			return null;
 		}
@@ -184,8 +202,8 @@ public class JavacBindingResolver extends BindingResolver {
 			JavacModuleBinding newInstance = new JavacModuleBinding(moduleSymbol, JavacBindingResolver.this) { };
 			String k = newInstance.getKey();
 			if( k != null ) {
-				moduleBindings.putIfAbsent(k, newInstance);
-				return moduleBindings.get(k);
+				var existing = moduleBindings.putIfAbsent(k, newInstance);
+				return existing != null ? existing : newInstance;
 			}
 			return null;
 		}
@@ -195,13 +213,13 @@ public class JavacBindingResolver extends BindingResolver {
 			String k = newInstance.getKey();
 			if( k != null ) {
 				moduleBindings.put(k, newInstance);
-				return moduleBindings.get(k);
+				return newInstance;
 			}
 			return null;
 		}
 
 		//
-		private Map<String, JavacPackageBinding> packageBindings = new HashMap<>();
+		private final Map<String, JavacPackageBinding> packageBindings = new ConcurrentHashMap<>();
 		public JavacPackageBinding getPackageBinding(PackageSymbol packageSymbol) {
 			if( packageSymbol.owner instanceof PackageSymbol parentPack) {
 				if( !(parentPack instanceof RootPackageSymbol) )
@@ -253,18 +271,17 @@ public class JavacBindingResolver extends BindingResolver {
 			// when a proper symbol is found, it should be added to that object. 
 			String k = newest == null ? null : newest.getKey();
 			if( k != null ) {
-				JavacPackageBinding current = packageBindings.get(k);
-				if( current == null ) {
-					packageBindings.putIfAbsent(k, newest);
-				} else if( current.getPackageSymbol() == null && newest.getPackageSymbol() != null) {
-					current.setPackageSymbol(newest.getPackageSymbol());
-				}
-				return packageBindings.get(k);
+				return packageBindings.merge(k, newest, (current, newer) -> {
+					if( current.getPackageSymbol() == null && newer.getPackageSymbol() != null) {
+						current.setPackageSymbol(newer.getPackageSymbol());
+					}
+					return current;
+				});
 			}
 			return null;
 		}
 		//
-		private Map<JavacTypeBinding, JavacTypeBinding> typeBinding = new HashMap<>();
+		private final Map<JavacTypeBinding, JavacTypeBinding> typeBinding = new ConcurrentHashMap<>();
 		public JavacTypeBinding getTypeBinding(JCTree tree, com.sun.tools.javac.code.Type type) {
 			return getTypeBinding(type, tree instanceof JCClassDecl);
 		}
@@ -288,16 +305,16 @@ public class JavacBindingResolver extends BindingResolver {
 						&& !(originalType instanceof com.sun.tools.javac.code.Type.ForAll)
 						&& !(originalType instanceof com.sun.tools.javac.code.Type.ErrorType)) {
 					JavacTypeBinding newInstance = new JavacTypeBinding(originalType, type.tsym, isDeclaration, JavacBindingResolver.this) { };
-					typeBinding.putIfAbsent(newInstance, newInstance);
-					JavacTypeBinding jcb = typeBinding.get(newInstance);
+					var existing = typeBinding.putIfAbsent(newInstance, newInstance);
+					JavacTypeBinding jcb = existing != null ? existing : newInstance;
 					jcb.setRecovered(true);
 					return jcb;
 				} else if (errorType.tsym instanceof ClassSymbol classErrorSymbol &&
 							Character.isJavaIdentifierStart(classErrorSymbol.getSimpleName().charAt(0))) {
 					// non usable original type: try symbol
 					JavacTypeBinding newInstance = new JavacTypeBinding(classErrorSymbol.type, classErrorSymbol, isDeclaration, JavacBindingResolver.this) { };
-					typeBinding.putIfAbsent(newInstance, newInstance);
-					JavacTypeBinding jcb = typeBinding.get(newInstance);
+					var existing = typeBinding.putIfAbsent(newInstance, newInstance);
+					JavacTypeBinding jcb = existing != null ? existing : newInstance;
 					jcb.setRecovered(true);
 					return jcb;
 				}
@@ -313,18 +330,18 @@ public class JavacBindingResolver extends BindingResolver {
 				type = type.tsym.type;
 			}
 			JavacTypeBinding newInstance = new JavacTypeBinding(type, type.tsym, isDeclaration, JavacBindingResolver.this) { };
-			typeBinding.putIfAbsent(newInstance, newInstance);
-			return typeBinding.get(newInstance);
+			var existing = typeBinding.putIfAbsent(newInstance, newInstance);
+			return existing != null ? existing : newInstance;
 		}
 		//
-		private Map<JavacTypeVariableBinding, JavacTypeVariableBinding> typeVariableBindings = new HashMap<>();
+		private final Map<JavacTypeVariableBinding, JavacTypeVariableBinding> typeVariableBindings = new ConcurrentHashMap<>();
 		public JavacTypeVariableBinding getTypeVariableBinding(TypeVar typeVar) {
 			JavacTypeVariableBinding newInstance = new JavacTypeVariableBinding(typeVar, (TypeVariableSymbol)typeVar.tsym, JavacBindingResolver.this) { };
-			typeVariableBindings.putIfAbsent(newInstance, newInstance);
-			return typeVariableBindings.get(newInstance);
+			var existing = typeVariableBindings.putIfAbsent(newInstance, newInstance);
+			return existing != null ? existing : newInstance;
 		}
 		//
-		private Map<String, JavacVariableBinding> variableBindings = new HashMap<>();
+		private final Map<String, JavacVariableBinding> variableBindings = new ConcurrentHashMap<>();
 		public JavacVariableBinding getVariableBinding(VarSymbol varSymbol) {
 			if (varSymbol == null) {
 				return null;
@@ -332,19 +349,19 @@ public class JavacBindingResolver extends BindingResolver {
 			JavacVariableBinding newInstance = new JavacVariableBinding(varSymbol, JavacBindingResolver.this) { };
 			String k = newInstance.getKey();
 			if( k != null ) {
-				variableBindings.putIfAbsent(k, newInstance);
-				return variableBindings.get(k);
+				var existing = variableBindings.putIfAbsent(k, newInstance);
+				return existing != null ? existing : newInstance;
 			}
 			return null;
 		}
 		//
-		private Map<String, JavacLambdaBinding> lambdaBindings = new HashMap<>();
+		private final Map<String, JavacLambdaBinding> lambdaBindings = new ConcurrentHashMap<>();
 		public JavacLambdaBinding getLambdaBinding(JavacMethodBinding javacMethodBinding, LambdaExpression lambda) {
 			JavacLambdaBinding newInstance = new JavacLambdaBinding(javacMethodBinding, lambda);
 			String k = newInstance.getKey();
 			if( k != null ) {
-				lambdaBindings.putIfAbsent(k, newInstance);
-				return lambdaBindings.get(k);
+				var existing = lambdaBindings.putIfAbsent(k, newInstance);
+				return existing != null ? existing : newInstance;
 			}
 			return null;
 		}
@@ -418,7 +435,7 @@ public class JavacBindingResolver extends BindingResolver {
 	}
 	public final Bindings bindings = new Bindings();
 	private WorkingCopyOwner owner;
-	private HashMap<ASTNode, IBinding> resolvedBindingsCache = new HashMap<>();
+	private final Map<ASTNode, IBinding> resolvedBindingsCache = new ConcurrentHashMap<>();
 
 	public JavacBindingResolver(IJavaProject javaProject, JavacTask javacTask, Context context, JavacConverter converter, WorkingCopyOwner owner) {
 		this.javac = javacTask;
@@ -429,46 +446,85 @@ public class JavacBindingResolver extends BindingResolver {
 	}
 
 	private void resolve() {
-		if (this.symbolToDeclaration != null) {
+		if (this.resolved) {
 			// already done and ready
 			return;
 		}
-		synchronized (this.javac) { // prevents from multiple `analyze` for the same task
-			boolean alreadyAnalyzed = this.converter.domToJavac.values().stream().map(TreeInfo::symbolFor).anyMatch(Objects::nonNull);
-			if (!alreadyAnalyzed) {
-				// symbols not already present: analyze
-				try {
-					this.javac.analyze();
-				} catch (IOException | IllegalStateException e) {
-					ILog.get().error(e.getMessage(), e);
+		JavacTask task = this.javac;
+		if (task != null) {
+			synchronized (task) { // prevents from multiple `analyze` for the same task
+				boolean alreadyAnalyzed = this.converter.domToJavac.values().stream().map(TreeInfo::symbolFor).anyMatch(Objects::nonNull);
+				if (!alreadyAnalyzed) {
+					// symbols not already present: analyze
+					try {
+						task.analyze();
+					} catch (IOException | IllegalStateException e) {
+						ILog.get().error(e.getMessage(), e);
+					}
 				}
+				// some cleanups to encourage garbage collection
+				JavacCompilationUnitResolver.cleanup(context);
 			}
-			// some cleanups to encourage garbage collection
-			JavacCompilationUnitResolver.cleanup(context);
-		}
-		this.javac = null;
-		synchronized (this) {
-			if (this.symbolToDeclaration == null) {
-				Map<Symbol, ASTNode> wipSymbolToDeclaration = new HashMap<>();
-				this.converter.domToJavac.forEach((jdt, javac) -> {
-					// We don't want FieldDeclaration (ref ASTConverterTest2.test0433)
-					if (jdt instanceof MethodDeclaration ||
-						jdt instanceof VariableDeclaration ||
-						jdt instanceof EnumConstantDeclaration ||
-						jdt instanceof AnnotationTypeMemberDeclaration ||
-						jdt instanceof AbstractTypeDeclaration ||
-						jdt instanceof AnonymousClassDeclaration ||
-						jdt instanceof TypeParameter) {
-						var symbol = TreeInfo.symbolFor(javac);
-						if (symbol != null) {
-							wipSymbolToDeclaration.put(symbol, jdt);
-						}
+			this.javac = null;
+		}
+		this.resolved = true;
+	}
+
+	private Map<Symbol, ASTNode> typeDeclarations() {
+		if (this.typeDeclarations == null) {
+			Map<Symbol, ASTNode> wipTypeDeclarations = new HashMap<>();
+			this.converter.domToJavac.forEach((jdt, javac) -> {
+				if (jdt instanceof AbstractTypeDeclaration || jdt instanceof AnonymousClassDeclaration) {
+					var symbol = TreeInfo.symbolFor(javac);
+					if (symbol != null) {
+						wipTypeDeclarations.put(symbol, jdt);
 					}
-				});
-				// prefill the binding so that they're already searchable by key
-				wipSymbolToDeclaration.keySet().forEach(sym -> this.bindings.getBinding(sym, null));
-				this.symbolToDeclaration = wipSymbolToDeclaration;
+				}
+			});
+			this.typeDeclarations = wipTypeDeclarations;
+		}
+		return this.typeDeclarations;
+	}
+
+	/// Indexes the declarations in the given type declaration, but not the ones of nested types
+	private void indexDeclarations(ASTNode typeDeclaration) {
+		typeDeclaration.accept(new ASTVisitor() {
+			@Override
+			public boolean preVisit2(ASTNode node) {
+				if (node != typeDeclaration && (node instanceof AbstractTypeDeclaration || node instanceof AnonymousClassDeclaration)) {
+					return false;
+				}
+				// We don't want FieldDeclaration (ref ASTConverterTest2.test0433)
+				if (node instanceof MethodDeclaration ||
+					node instanceof VariableDeclaration ||
+					node instanceof EnumConstantDeclaration ||
+					node instanceof AnnotationTypeMemberDeclaration ||
+					node instanceof TypeParameter) {
+					JCTree javac = JavacBindingResolver.this.converter.domToJavac.get(node);
+					var symbol = javac != null ? TreeInfo.symbolFor(javac) : null;
+					if (symbol != null) {
+						JavacBindingResolver.this.symbolToDeclaration.put(symbol, node);
+					}
+				}
+				return true;
 			}
+		});
+	}
+
+	/// Creates the bindings of all declarations so that they're searchable by key
+	private void prefillBindings() {
+		synchronized (this.context) {
+			if (this.bindingsPrefilled) {
+				return;
+			}
+			this.bindingsPrefilled = true;
+			typeDeclarations().forEach((symbol, node) -> {
+				if (this.indexedTypes.add(symbol)) {
+					indexDeclarations(node);
+				}
+			});
+			List.copyOf(typeDeclarations().keySet()).forEach(sym -> this.bindings.getBinding(sym, null));
+			List.copyOf(this.symbolToDeclaration.keySet()).forEach(sym -> this.bindings.getBinding(sym, null));
 		}
 	}
 
@@ -480,6 +536,7 @@ public class JavacBindingResolver extends BindingResolver {
 	@Override
 	public ASTNode findDeclaringNode(String bindingKey) {
 		resolve();
+		prefillBindings();
 		IBinding binding = this.bindings.getBinding(bindingKey);
 		if (binding == null) {
 			return null;
@@ -509,11 +566,33 @@ public class JavacBindingResolver extends BindingResolver {
 		return null;
 	}
 
+	/// @return the declaration of the given symbol in the converted units, if any.
+	/// Only the declarations of the type declaring the symbol get indexed.
 	public ASTNode findNode(Symbol symbol) {
-		if (this.symbolToDeclaration != null) {
+		if (symbol == null) {
+			return null;
+		}
+		resolve();
+		synchronized (this.context) {
+			ASTNode res = this.symbolToDeclaration.get(symbol);
+			if (res != null) {
+				return res;
+			}
+			res = typeDeclarations().get(symbol);
+			if (res != null) {
+				return res;
+			}
+			ClassSymbol enclosingType = symbol.enclClass();
+			if (enclosingType == null || !this.indexedTypes.add(enclosingType)) {
+				return null;
+			}
+			ASTNode enclosingDeclaration = typeDeclarations().get(enclosingType);
+			if (enclosingDeclaration == null) {
+				return null;
+			}
+			indexDeclarations(enclosingDeclaration);
 			return this.symbolToDeclaration.get(symbol);
 		}
-		return null;
 	}
 
 	@Override
@@ -937,11 +1016,20 @@ public class JavacBindingResolver extends BindingResolver {
 
 	IBinding resolveCached(ASTNode node, Function<ASTNode, IBinding> l) {
 		// Avoid using `computeIfAbsent` because it throws
-		// ConcurrentModificationException when nesting calls
+		// IllegalStateException when nesting calls
 		var res = resolvedBindingsCache.get(node);
 		if (res == null) {
-			res = l.apply(node);
-			resolvedBindingsCache.put(node, res);
+			// javac symbols and types are not thread-safe (lazy completion, caches in Types):
+			// computations are serialized per context, cached bindings are read without locking
+			synchronized (this.context) {
+				res = l.apply(node);
+			}
+			if (res != null) {
+				var existing = resolvedBindingsCache.putIfAbsent(node, res);
+				if (existing != null) {
+					res = existing;
+				}
+			}
 		}
 		return res;
 	}
@@ -12,6 +12,7 @@ package org.eclipse.jdt.core.dom;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.nio.CharBuffer;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -20,12 +21,25 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 
 import javax.lang.model.element.TypeElement;
@@ -50,7 +64,6 @@ import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.core.compiler.IProblem;
-import org.eclipse.jdt.core.compiler.InvalidInputException;
 import org.eclipse.jdt.internal.compiler.batch.FileSystem.Classpath;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
 import org.eclipse.jdt.internal.compiler.env.AccessRestriction;
@@ -71,6 +84,9 @@ import org.eclipse.jdt.internal.core.JavaProject;
 import org.eclipse.jdt.internal.core.dom.ICompilationUnitResolver;
 import org.eclipse.jdt.internal.core.util.BindingKeyParser;
 import org.eclipse.jdt.internal.javac.CachingJarsJavaFileManager;
+import org.eclipse.jdt.internal.javac.CommentRecordingScannerFactory;
+import org.eclipse.jdt.internal.javac.CommentRecordingScannerFactory.RecordedComment;
+import org.eclipse.jdt.internal.javac.JavacContextPool;
 import org.eclipse.jdt.internal.javac.JavacProblemConverter;
 import org.eclipse.jdt.internal.javac.JavacUtils;
 import org.eclipse.jdt.internal.javac.UnusedProblemFactory;
@@ -105,11 +121,32 @@ import com.sun.tools.javac.util.Options;
  */
 public class JavacCompilationUnitResolver implements ICompilationUnitResolver {
 
+	/// Whether [#toCompilationUnit] only parses the requested unit, other working copies being
+	/// read by javac only when it needs one of their types, using
+	/// `-DJavacCompilationUnitResolver.LAZY_WORKING_COPIES=true`
+	private static boolean isLazyWorkingCopies() {
+		return Boolean.getBoolean(JavacCompilationUnitResolver.class.getSimpleName() + ".LAZY_WORKING_COPIES"); //$NON-NLS-1$
+	}
+	/// Whether the javac trees of the different units are converted to DOM concurrently, on a pool
+	/// of at most as many threads as processors, using
+	/// `-DJavacCompilationUnitResolver.PARALLEL_CONVERSION=true`
+	private static boolean isParallelConversion() {
+		return Boolean.getBoolean(JavacCompilationUnitResolver.class.getSimpleName() + ".PARALLEL_CONVERSION"); //$NON-NLS-1$
+	}
+	/// How many units the `resolve` methods parse and analyze together in one javac task, the
+	/// task and its trees being released once they're handed to the requestor, using
+	/// `-DJavacCompilationUnitResolver.BATCH_SIZE=<n>`; all units are processed together by default.
+	private static int getBatchSize() {
+		return Integer.getInteger(JavacCompilationUnitResolver.class.getSimpleName() + ".BATCH_SIZE", 0).intValue(); //$NON-NLS-1$
+	}
+
 	private final class ForwardDiagnosticsAsDOMProblems implements DiagnosticListener<JavaFileObject> {
-		public final Map<JavaFileObject, CompilationUnit> filesToUnits;
+		/// DOM units are weakly referenced so the context (which may be pooled) doesn't
+		/// keep the ASTs it produced, and their binding resolvers, reachable.
+		public final Map<JavaFileObject, WeakReference<CompilationUnit>> filesToUnits;
 		private final JavacProblemConverter problemConverter;
 
-		private ForwardDiagnosticsAsDOMProblems(Map<JavaFileObject, CompilationUnit> filesToUnits,
+		private ForwardDiagnosticsAsDOMProblems(Map<JavaFileObject, WeakReference<CompilationUnit>> filesToUnits,
 				JavacProblemConverter problemConverter) {
 			this.filesToUnits = filesToUnits;
 			this.problemConverter = problemConverter;
@@ -128,12 +165,12 @@ public class JavacCompilationUnitResolver implements ICompilationUnitResolver {
 			});
 		}
 
-		private static Optional<CompilationUnit> findTargetDOM(Map<JavaFileObject, CompilationUnit> filesToUnits, Object obj) {
+		private static Optional<CompilationUnit> findTargetDOM(Map<JavaFileObject, WeakReference<CompilationUnit>> filesToUnits, Object obj) {
 			if (obj == null) {
 				return Optional.empty();
 			}
 			if (obj instanceof JavaFileObject o) {
-				return Optional.ofNullable(filesToUnits.get(o));
+				return Optional.ofNullable(filesToUnits.get(o)).map(WeakReference::get);
 			}
 			if (obj instanceof DiagnosticSource source) {
 				return findTargetDOM(filesToUnits, source.getFile());
@@ -184,6 +221,11 @@ public class JavacCompilationUnitResolver implements ICompilationUnitResolver {
 			int apiLevel, Map<String, String> compilerOptions, List<Classpath> classpaths, int flags,
 			IProgressMonitor monitor) {
 		List<org.eclipse.jdt.internal.compiler.env.ICompilationUnit> sourceUnitList = createSourceUnitList(sourceFilePaths, encodings);
+		int batchSize = getBatchSize();
+		if (batchSize > 0 && sourceUnitList.size() > batchSize) {
+			resolveInBatches(sourceUnitList, batchSize, bindingKeys, requestor, apiLevel, compilerOptions, classpaths, flags, monitor);
+			return;
+		}
 		JavacBindingResolver bindingResolver = null;
 
 		// parse source units
@@ -205,51 +247,78 @@ public class JavacCompilationUnitResolver implements ICompilationUnitResolver {
 				res.values(), null, new HashMap<>(), monitor);
 	}
 
+	/// Same as [#resolve(String[], String[], String[], FileASTRequestor, int, Map, List, int, IProgressMonitor)],
+	/// but parsing and analyzing `batchSize` units at a time, so only one batch of javac trees is
+	/// alive at once (unless the requestor keeps the ASTs).
+	private void resolveInBatches(List<org.eclipse.jdt.internal.compiler.env.ICompilationUnit> sourceUnitList, int batchSize, String[] bindingKeys, FileASTRequestor requestor,
+			int apiLevel, Map<String, String> compilerOptions, List<Classpath> classpaths, int flags,
+			IProgressMonitor monitor) {
+		JavacBindingResolver bindingResolver = null;
+		Map<String, IBinding> requestedBindings = new HashMap<>();
+		for (int start = 0; start < sourceUnitList.size(); start += batchSize) {
+			if (monitor != null && monitor.isCanceled()) {
+				return;
+			}
+			List<org.eclipse.jdt.internal.compiler.env.ICompilationUnit> batch = sourceUnitList.subList(start, Math.min(start + batchSize, sourceUnitList.size()));
+			Map<org.eclipse.jdt.internal.compiler.env.ICompilationUnit, CompilationUnit> res =
+					parse(batch.toArray(org.eclipse.jdt.internal.compiler.env.ICompilationUnit[]::new), apiLevel, compilerOptions, true, flags, (IJavaProject)null, null, -1, monitor);
+			// only the last batch's resolver is kept, for bindings that aren't from sources
+			bindingResolver = null;
+			for (var entry : res.entrySet()) {
+				CompilationUnit cu = entry.getValue();
+				requestor.acceptAST(new String(entry.getKey().getFileName()), cu);
+				if (bindingResolver == null && (JavacBindingResolver)cu.ast.getBindingResolver() != null) {
+					bindingResolver = (JavacBindingResolver)cu.ast.getBindingResolver();
+				}
+			}
+			collectRequestedBindings(res.values(), new HashMap<>(), bindingKeys, requestedBindings);
+		}
+
+		resolveRequestedBindingKeys(bindingResolver, bindingKeys,
+				(a,b) -> requestor.acceptBinding(a,b),
+				classpaths.stream().toArray(Classpath[]::new),
+				new CompilerOptions(compilerOptions),
+				List.of(), null, requestedBindings, monitor);
+	}
+
+	/// Keeps, from the bindings of the given units, the ones that may answer the requested binding
+	/// keys, so the units themselves don't need to be kept until all of them are processed.
+	/// @param unitBindings bindings already found in the given units, completed by this method
+	private static void collectRequestedBindings(Collection<CompilationUnit> units, Map<String, IBinding> unitBindings, String[] bindingKeys,
+			Map<String, IBinding> requestedBindings) {
+		if (bindingKeys.length == 0) {
+			return;
+		}
+		for (CompilationUnit cu : units) {
+			cu.accept(new BindingBuilder(unitBindings));
+		}
+		for (String bindingKey : bindingKeys) {
+			// array types are built from their element type
+			for (String key : new String[] { bindingKey, Signature.getElementType(bindingKey) }) {
+				IBinding binding = unitBindings.get(key);
+				if (binding != null) {
+					requestedBindings.put(key, binding);
+				}
+			}
+		}
+	}
+
 	@Override
 	public void resolve(ICompilationUnit[] compilationUnits, String[] bindingKeys, ASTRequestor requestor, int apiLevel,
 			Map<String, String> compilerOptions, IJavaProject project, WorkingCopyOwner workingCopyOwner, int flags,
 			IProgressMonitor monitor) {
-		Map<ICompilationUnit, CompilationUnit> units = parse(compilationUnits, apiLevel, compilerOptions, true, flags, workingCopyOwner, monitor);
+		int batchSize = getBatchSize();
+		if (requestor != null && batchSize > 0 && compilationUnits.length > batchSize) {
+			resolveInBatches(compilationUnits, batchSize, bindingKeys, requestor, apiLevel, compilerOptions, project, workingCopyOwner, flags, monitor);
+			return;
+		}
+		Map<ICompilationUnit, CompilationUnit> units = parse(compilationUnits, apiLevel, compilerOptions, true, flags, workingCopyOwner, null, monitor);
 		if (requestor != null) {
 			final JavacBindingResolver[] bindingResolver = new JavacBindingResolver[1];
 			bindingResolver[0] = null;
 
 			final Map<String, IBinding> bindingMap = new HashMap<>();
-			{
-				INameEnvironment environment = null;
-				if (project instanceof JavaProject javaProject) {
-					try {
-						environment = new CancelableNameEnvironment(javaProject, workingCopyOwner, monitor);
-					} catch (JavaModelException e) {
-						// fall through
-					}
-				}
-				if (environment == null) {
-					environment = new NameEnvironmentWithProgress(new Classpath[0], null, monitor);
-				}
-				LookupEnvironment lu = new LookupEnvironment(new ITypeRequestor() {
-
-					@Override
-					public void accept(IBinaryType binaryType, PackageBinding packageBinding,
-							AccessRestriction accessRestriction) {
-						// do nothing
-					}
-
-					@Override
-					public void accept(org.eclipse.jdt.internal.compiler.env.ICompilationUnit unit,
-							AccessRestriction accessRestriction) {
-						// do nothing
-					}
-
-					@Override
-					public void accept(ISourceType[] sourceType, PackageBinding packageBinding,
-							AccessRestriction accessRestriction) {
-						// do nothing
-					}
-
-				}, new CompilerOptions(compilerOptions), null, environment);
-				requestor.additionalBindingResolver = javacAdditionalBindingCreator(bindingMap, environment, lu, bindingResolver);
-			}
+			requestor.additionalBindingResolver = createAdditionalBindingResolver(project, workingCopyOwner, compilerOptions, bindingMap, bindingResolver, monitor);
 
 			units.forEach((a,b) -> {
 				if (bindingResolver[0] == null && (JavacBindingResolver)b.ast.getBindingResolver() != null) {
@@ -272,6 +341,84 @@ public class JavacCompilationUnitResolver implements ICompilationUnitResolver {
 		}
 	}
 
+	/// Same as [#resolve(ICompilationUnit[], String[], ASTRequestor, int, Map, IJavaProject, WorkingCopyOwner, int, IProgressMonitor)],
+	/// but parsing and analyzing `batchSize` units at a time, so only one batch of javac trees is
+	/// alive at once (unless the requestor keeps the ASTs).
+	/// Bindings created by the requestor from keys only come from the sources of the current batch,
+	/// or from binaries.
+	private void resolveInBatches(ICompilationUnit[] compilationUnits, int batchSize, String[] bindingKeys, ASTRequestor requestor, int apiLevel,
+			Map<String, String> compilerOptions, IJavaProject project, WorkingCopyOwner workingCopyOwner, int flags,
+			IProgressMonitor monitor) {
+		final JavacBindingResolver[] bindingResolver = new JavacBindingResolver[1];
+		// bindings of the current batch only, so previous ones can be released
+		final Map<String, IBinding> bindingMap = new HashMap<>();
+		requestor.additionalBindingResolver = createAdditionalBindingResolver(project, workingCopyOwner, compilerOptions, bindingMap, bindingResolver, monitor);
+		Map<String, IBinding> requestedBindings = new HashMap<>();
+		for (int start = 0; start < compilationUnits.length; start += batchSize) {
+			if (monitor != null && monitor.isCanceled()) {
+				return;
+			}
+			ICompilationUnit[] batch = Arrays.copyOfRange(compilationUnits, start, Math.min(start + batchSize, compilationUnits.length));
+			Map<ICompilationUnit, CompilationUnit> units = parse(batch, apiLevel, compilerOptions, true, flags, workingCopyOwner, null, monitor);
+			bindingResolver[0] = null;
+			bindingMap.clear();
+			units.forEach((a,b) -> {
+				if (bindingResolver[0] == null && (JavacBindingResolver)b.ast.getBindingResolver() != null) {
+					bindingResolver[0] = (JavacBindingResolver)b.ast.getBindingResolver();
+				}
+				requestor.acceptAST(a,b);
+				resolveBindings(b, bindingMap, apiLevel);
+			});
+			collectRequestedBindings(units.values(), new HashMap<>(bindingMap), bindingKeys, requestedBindings);
+		}
+		bindingMap.clear();
+
+		resolveRequestedBindingKeys(bindingResolver[0], bindingKeys,
+				(a,b) -> requestor.acceptBinding(a,b),
+				new Classpath[0], // as when not batched: the project's name environment is used when there's one
+				new CompilerOptions(compilerOptions),
+				List.of(), project, requestedBindings, monitor);
+	}
+
+	/// @param bindingMap bindings from the parsed sources, checked first
+	/// @param bindingResolverPointer the resolver for bindings that come from binaries
+	private static Function<String, IBinding> createAdditionalBindingResolver(IJavaProject project, WorkingCopyOwner workingCopyOwner,
+			Map<String, String> compilerOptions, Map<String, IBinding> bindingMap, BindingResolver[] bindingResolverPointer, IProgressMonitor monitor) {
+		INameEnvironment environment = null;
+		if (project instanceof JavaProject javaProject) {
+			try {
+				environment = new CancelableNameEnvironment(javaProject, workingCopyOwner, monitor);
+			} catch (JavaModelException e) {
+				// fall through
+			}
+		}
+		if (environment == null) {
+			environment = new NameEnvironmentWithProgress(new Classpath[0], null, monitor);
+		}
+		LookupEnvironment lu = new LookupEnvironment(new ITypeRequestor() {
+
+			@Override
+			public void accept(IBinaryType binaryType, PackageBinding packageBinding,
+					AccessRestriction accessRestriction) {
+				// do nothing
+			}
+
+			@Override
+			public void accept(org.eclipse.jdt.internal.compiler.env.ICompilationUnit unit,
+					AccessRestriction accessRestriction) {
+				// do nothing
+			}
+
+			@Override
+			public void accept(ISourceType[] sourceType, PackageBinding packageBinding,
+					AccessRestriction accessRestriction) {
+				// do nothing
+			}
+
+		}, new CompilerOptions(compilerOptions), null, environment);
+		return javacAdditionalBindingCreator(bindingMap, environment, lu, bindingResolverPointer);
+	}
+
 	private void resolveRequestedBindingKeys(JavacBindingResolver bindingResolver, String[] bindingKeys, GenericRequestor requestor,
 			Classpath[] cp,CompilerOptions opts,
 			Collection<CompilationUnit> units,
@@ -396,25 +543,32 @@ public class JavacCompilationUnitResolver implements ICompilationUnitResolver {
 					.filter(Objects::nonNull)
 					.findFirst()
 					.orElse(null);
-		Map<ICompilationUnit, CompilationUnit>  units = parse(compilationUnits, apiLevel, compilerOptions, false, flags, workingCopyOwner, monitor);
-		if (requestor != null) {
-			units.forEach(requestor::acceptAST);
-		}
+		// units are handed to the requestor as soon as they're converted
+		parse(compilationUnits, apiLevel, compilerOptions, false, flags, workingCopyOwner,
+			requestor != null ? requestor::acceptAST : null, monitor);
 	}
 
+	/// @param converted if not `null`, receives each unit with its type root set as soon as it's
+	///        successfully converted, before this method returns
 	private Map<ICompilationUnit, CompilationUnit> parse(ICompilationUnit[] compilationUnits, int apiLevel,
-			Map<String, String> compilerOptions, boolean resolveBindings, int flags, WorkingCopyOwner workingCopyOwner, IProgressMonitor monitor) {
+			Map<String, String> compilerOptions, boolean resolveBindings, int flags, WorkingCopyOwner workingCopyOwner,
+			BiConsumer<ICompilationUnit, CompilationUnit> converted, IProgressMonitor monitor) {
 		// TODO ECJCompilationUnitResolver has support for dietParse and ignore method body
 		// is this something we need?
 		if (compilationUnits.length > 0
 			&& Arrays.stream(compilationUnits).map(ICompilationUnit::getJavaProject).distinct().count() == 1
 			&& Arrays.stream(compilationUnits).allMatch(org.eclipse.jdt.internal.compiler.env.ICompilationUnit.class::isInstance)) {
 			// all in same project, build together
+			BiConsumer<org.eclipse.jdt.internal.compiler.env.ICompilationUnit, CompilationUnit> convertedUnit = converted == null ? null
+				: (unit, dom) -> {
+					dom.setTypeRoot((ICompilationUnit)unit);
+					converted.accept((ICompilationUnit)unit, dom);
+				};
 			Map<ICompilationUnit, CompilationUnit> res =
 				parse(Arrays.stream(compilationUnits)
 						.map(org.eclipse.jdt.internal.compiler.env.ICompilationUnit.class::cast)
 						.toArray(org.eclipse.jdt.internal.compiler.env.ICompilationUnit[]::new),
-					apiLevel, compilerOptions, resolveBindings, flags, compilationUnits[0].getJavaProject(), workingCopyOwner, -1, monitor)
+					List.of(), apiLevel, compilerOptions, resolveBindings, flags, compilationUnits[0].getJavaProject(), workingCopyOwner, -1, convertedUnit, monitor)
 				.entrySet().stream().collect(Collectors.toMap(entry -> (ICompilationUnit)entry.getKey(), entry -> entry.getValue()));
 			for (ICompilationUnit in : compilationUnits) {
 				res.get(in).setTypeRoot(in);
@@ -428,6 +582,9 @@ public class JavacCompilationUnitResolver implements ICompilationUnitResolver {
 				res.put(in, parse(new org.eclipse.jdt.internal.compiler.env.ICompilationUnit[] { compilerUnit },
 						apiLevel, compilerOptions, resolveBindings, flags, in.getJavaProject(), workingCopyOwner, -1, monitor).get(compilerUnit));
 				res.get(in).setTypeRoot(in);
+				if (converted != null) {
+					converted.accept(in, res.get(in));
+				}
 			}
 		}
 		return res;
@@ -534,8 +691,18 @@ public class JavacCompilationUnitResolver implements ICompilationUnitResolver {
 		}
 		
 		// TODO currently only parse
-		CompilationUnit res = parse(pathToUnit.values().toArray(org.eclipse.jdt.internal.compiler.env.ICompilationUnit[]::new),
-				apiLevel, compilerOptions, resolveBindings, flags, project, workingCopyOwner, focalPoint, monitor).get(sourceUnit);
+		CompilationUnit res;
+		if (isLazyWorkingCopies()) {
+			// other working copies are only served to javac on demand, and never converted to DOM
+			List<org.eclipse.jdt.internal.compiler.env.ICompilationUnit> otherUnits = pathToUnit.values().stream()
+					.filter(unit -> unit != sourceUnit)
+					.toList();
+			res = parse(new org.eclipse.jdt.internal.compiler.env.ICompilationUnit[] { sourceUnit }, otherUnits,
+					apiLevel, compilerOptions, resolveBindings, flags, project, workingCopyOwner, focalPoint, null, monitor).get(sourceUnit);
+		} else {
+			res = parse(pathToUnit.values().toArray(org.eclipse.jdt.internal.compiler.env.ICompilationUnit[]::new),
+					apiLevel, compilerOptions, resolveBindings, flags, project, workingCopyOwner, focalPoint, monitor).get(sourceUnit);
+		}
 		if (resolveBindings) {
 			resolveBindings(res, apiLevel);
 		}
@@ -555,263 +722,390 @@ public class JavacCompilationUnitResolver implements ICompilationUnitResolver {
 	private Map<org.eclipse.jdt.internal.compiler.env.ICompilationUnit, CompilationUnit> parse(org.eclipse.jdt.internal.compiler.env.ICompilationUnit[] sourceUnits, int apiLevel, 
 			Map<String, String> compilerOptions, boolean resolveBindings, int flags, IJavaProject javaProject, WorkingCopyOwner workingCopyOwner, 
 			int focalPoint, IProgressMonitor monitor) {
+		return parse(sourceUnits, List.of(), apiLevel, compilerOptions, resolveBindings, flags, javaProject, workingCopyOwner, focalPoint, null, monitor);
+	}
+
+	private static Path toPath(org.eclipse.jdt.internal.compiler.env.ICompilationUnit sourceUnit, IJavaProject javaProject) {
+		File unitFile;
+		if (javaProject != null && javaProject.getResource() != null) {
+			// path is relative to the workspace, make it absolute
+			IResource asResource = javaProject.getProject().getParent().findMember(new String(sourceUnit.getFileName()));
+			if (asResource != null) {
+				unitFile = asResource.getLocation().toFile();
+			} else {
+				unitFile = new File(new String(sourceUnit.getFileName()));
+			}
+		} else {
+			unitFile = new File(new String(sourceUnit.getFileName()));
+		}
+		Path sourceUnitPath = null;
+		if (!unitFile.getName().endsWith(".java") || sourceUnit.getFileName() == null || sourceUnit.getFileName().length == 0) {
+			String uri1 = unitFile.toURI().toString().replaceAll("%7C", "/");
+			if( uri1.endsWith(".class")) {
+				String[] split= uri1.split("/");
+				String lastSegment = split[split.length-1].replace(".class", ".java");
+				sourceUnitPath = Path.of(lastSegment);
+			}
+			if( sourceUnitPath == null ) 
+				sourceUnitPath = Path.of(new File("whatever.java").toURI());
+		} else {
+			sourceUnitPath = Path.of(unitFile.toURI());
+		}
+		return sourceUnitPath;
+	}
+
+	/// @param lazyUnits units that are not parsed nor converted, but that javac reads in place of
+	///        the matching source or class file when it needs one of their types
+	/// @param converted if not `null`, receives each unit as soon as it's successfully converted, on the
+	///        calling thread, before this method returns
+	private Map<org.eclipse.jdt.internal.compiler.env.ICompilationUnit, CompilationUnit> parse(org.eclipse.jdt.internal.compiler.env.ICompilationUnit[] sourceUnits,
+			List<org.eclipse.jdt.internal.compiler.env.ICompilationUnit> lazyUnits, int apiLevel,
+			Map<String, String> compilerOptions, boolean resolveBindings, int flags, IJavaProject javaProject, WorkingCopyOwner workingCopyOwner, 
+			int focalPoint, BiConsumer<org.eclipse.jdt.internal.compiler.env.ICompilationUnit, CompilationUnit> converted, IProgressMonitor monitor) {
 		if (sourceUnits.length == 0) {
 			return Collections.emptyMap();
 		}
 		var compiler = ToolProvider.getSystemJavaCompiler();
-		Context context = new Context();
-		CachingJarsJavaFileManager.preRegister(context);
-		Map<org.eclipse.jdt.internal.compiler.env.ICompilationUnit, CompilationUnit> result = new HashMap<>(sourceUnits.length, 1.f);
-		Map<JavaFileObject, CompilationUnit> filesToUnits = new HashMap<>();
-		final UnusedProblemFactory unusedProblemFactory = new UnusedProblemFactory(new DefaultProblemFactory(), compilerOptions);
-		var problemConverter = new JavacProblemConverter(compilerOptions, context);
-		DiagnosticListener<JavaFileObject> diagnosticListener = new ForwardDiagnosticsAsDOMProblems(filesToUnits, problemConverter);
-		MultiTaskListener.instance(context).add(new TaskListener() {
-			@Override
-			public void finished(TaskEvent e) {
-				if (e.getCompilationUnit() instanceof JCCompilationUnit u) {
-					problemConverter.registerUnit(e.getSourceFile(), u);
-				}
-
-				if (e.getKind() == TaskEvent.Kind.ANALYZE) {
-					final JavaFileObject file = e.getSourceFile();
-					final CompilationUnit dom = filesToUnits.get(file);
-					if (dom == null) {
-						return;
+		boolean isTest = JavacUtils.isTest(javaProject, sourceUnits);
+		Context context;
+		boolean pooled = JavacContextPool.isEnabled();
+		if (pooled) {
+			context = JavacContextPool.getDefault().acquire(javaProject, compilerOptions, isTest);
+		} else {
+			context = new Context();
+			CachingJarsJavaFileManager.preRegister(context);
+			if (CommentRecordingScannerFactory.isEnabled()) {
+				CommentRecordingScannerFactory.preRegister(context);
+			}
+		}
+		// released on every exit, unless handed over to the binding resolvers
+		boolean contextHandedOver = false;
+		try {
+			Map<org.eclipse.jdt.internal.compiler.env.ICompilationUnit, CompilationUnit> result = new HashMap<>(sourceUnits.length, 1.f);
+			Map<JavaFileObject, WeakReference<CompilationUnit>> filesToUnits = new HashMap<>();
+			final UnusedProblemFactory unusedProblemFactory = new UnusedProblemFactory(new DefaultProblemFactory(), compilerOptions);
+			var problemConverter = new JavacProblemConverter(compilerOptions, context);
+			DiagnosticListener<JavaFileObject> diagnosticListener = new ForwardDiagnosticsAsDOMProblems(filesToUnits, problemConverter);
+			MultiTaskListener.instance(context).add(new TaskListener() {
+				@Override
+				public void finished(TaskEvent e) {
+					if (e.getCompilationUnit() instanceof JCCompilationUnit u) {
+						problemConverter.registerUnit(e.getSourceFile(), u);
 					}
 
-					final TypeElement currentTopLevelType = e.getTypeElement();
-					UnusedTreeScanner<Void, Void> scanner = new UnusedTreeScanner<>() {
-						@Override
-						public Void visitClass(ClassTree node, Void p) {
-							if (node instanceof JCClassDecl classDecl) {
-								/**
-								 * If a Java file contains multiple top-level types, it will
-								 * trigger multiple ANALYZE taskEvents for the same compilation
-								 * unit. Each ANALYZE taskEvent corresponds to the completion
-								 * of analysis for a single top-level type. Therefore, in the
-								 * ANALYZE task event listener, we only visit the class and nested
-								 * classes that belong to the currently analyzed top-level type.
-								 */
-								if (Objects.equals(currentTopLevelType, classDecl.sym)
-									|| !(classDecl.sym.owner instanceof PackageSymbol)) {
-									return super.visitClass(node, p);
-								} else {
-									return null; // Skip if it does not belong to the currently analyzed top-level type.
+					if (e.getKind() == TaskEvent.Kind.ANALYZE) {
+						final JavaFileObject file = e.getSourceFile();
+						final CompilationUnit dom = Optional.ofNullable(filesToUnits.get(file)).map(WeakReference::get).orElse(null);
+						if (dom == null) {
+							return;
+						}
+
+						final TypeElement currentTopLevelType = e.getTypeElement();
+						UnusedTreeScanner<Void, Void> scanner = new UnusedTreeScanner<>() {
+							@Override
+							public Void visitClass(ClassTree node, Void p) {
+								if (node instanceof JCClassDecl classDecl) {
+									/**
+									 * If a Java file contains multiple top-level types, it will
+									 * trigger multiple ANALYZE taskEvents for the same compilation
+									 * unit. Each ANALYZE taskEvent corresponds to the completion
+									 * of analysis for a single top-level type. Therefore, in the
+									 * ANALYZE task event listener, we only visit the class and nested
+									 * classes that belong to the currently analyzed top-level type.
+									 */
+									if (Objects.equals(currentTopLevelType, classDecl.sym)
+										|| !(classDecl.sym.owner instanceof PackageSymbol)) {
+										return super.visitClass(node, p);
+									} else {
+										return null; // Skip if it does not belong to the currently analyzed top-level type.
+									}
 								}
-							}
 
-							return super.visitClass(node, p);
+								return super.visitClass(node, p);
+							}
+						};
+						final CompilationUnitTree unit = e.getCompilationUnit();
+						try {
+							scanner.scan(unit, null);
+						} catch (Exception ex) {
+							ILog.get().error("Internal error when visiting the AST Tree. " + ex.getMessage(), ex);
 						}
-					};
-					final CompilationUnitTree unit = e.getCompilationUnit();
-					try {
-						scanner.scan(unit, null);
-					} catch (Exception ex) {
-						ILog.get().error("Internal error when visiting the AST Tree. " + ex.getMessage(), ex);
-					}
 
-					List<CategorizedProblem> unusedProblems = scanner.getUnusedPrivateMembers(unusedProblemFactory);
-					if (!unusedProblems.isEmpty()) {
-						addProblemsToDOM(dom, unusedProblems);
-					}
+						List<CategorizedProblem> unusedProblems = scanner.getUnusedPrivateMembers(unusedProblemFactory);
+						if (!unusedProblems.isEmpty()) {
+							addProblemsToDOM(dom, unusedProblems);
+						}
 
-					List<CategorizedProblem> unusedImports = scanner.getUnusedImports(unusedProblemFactory);
-					List<? extends Tree> topTypes = unit.getTypeDecls();
-					int typeCount = topTypes.size();
-					// Once all top level types of this Java file have been resolved,
-					// we can report the unused import to the DOM.
-					if (typeCount <= 1) {
-						addProblemsToDOM(dom, unusedImports);
-					} else if (typeCount > 1 && topTypes.get(typeCount - 1) instanceof JCClassDecl lastType) {
-						if (Objects.equals(currentTopLevelType, lastType.sym)) {
+						List<CategorizedProblem> unusedImports = scanner.getUnusedImports(unusedProblemFactory);
+						List<? extends Tree> topTypes = unit.getTypeDecls();
+						int typeCount = topTypes.size();
+						// Once all top level types of this Java file have been resolved,
+						// we can report the unused import to the DOM.
+						if (typeCount <= 1) {
 							addProblemsToDOM(dom, unusedImports);
+						} else if (typeCount > 1 && topTypes.get(typeCount - 1) instanceof JCClassDecl lastType) {
+							if (Objects.equals(currentTopLevelType, lastType.sym)) {
+								addProblemsToDOM(dom, unusedImports);
+							}
 						}
 					}
 				}
-			}
-		});
-		// must be 1st thing added to context
-		context.put(DiagnosticListener.class, diagnosticListener);
-		boolean docEnabled = JavaCore.ENABLED.equals(compilerOptions.get(JavaCore.COMPILER_DOC_COMMENT_SUPPORT));
-		JavacUtils.configureJavacContext(context, compilerOptions, javaProject, JavacUtils.isTest(javaProject, sourceUnits));
-		Options.instance(context).put(Option.PROC, "only");
-		Optional.ofNullable(Platform.getProduct())
-				.map(IProduct::getApplication)
-				// if application is not a test runner (so we don't have regressions with JDT test suite because of too many problems
-				.or(() -> Optional.ofNullable(System.getProperty("eclipse.application")))
-				.filter(name -> !name.contains("test") && !name.contains("junit"))
-				 // continue as far as possible to get extra warnings about unused
-				.ifPresent(id -> Options.instance(context).put("should-stop.ifError", CompileState.GENERATE.toString()));
-		var fileManager = (JavacFileManager)context.get(JavaFileManager.class);
-		List<JavaFileObject> fileObjects = new ArrayList<>(); // we need an ordered list of them
-		for (var sourceUnit : sourceUnits) {
-			File unitFile;
-			if (javaProject != null && javaProject.getResource() != null) {
-				// path is relative to the workspace, make it absolute
-				IResource asResource = javaProject.getProject().getParent().findMember(new String(sourceUnit.getFileName()));
-				if (asResource != null) {
-					unitFile = asResource.getLocation().toFile();
-				} else {
-					unitFile = new File(new String(sourceUnit.getFileName()));
+			});
+			// must be 1st thing added to context
+			context.put(DiagnosticListener.class, diagnosticListener);
+			boolean docEnabled = JavaCore.ENABLED.equals(compilerOptions.get(JavaCore.COMPILER_DOC_COMMENT_SUPPORT));
+			JavacUtils.configureJavacContext(context, compilerOptions, javaProject, isTest);
+			Options.instance(context).put(Option.PROC, "only");
+			Optional.ofNullable(Platform.getProduct())
+					.map(IProduct::getApplication)
+					// if application is not a test runner (so we don't have regressions with JDT test suite because of too many problems
+					.or(() -> Optional.ofNullable(System.getProperty("eclipse.application")))
+					.filter(name -> !name.contains("test") && !name.contains("junit"))
+					 // continue as far as possible to get extra warnings about unused
+					.ifPresent(id -> Options.instance(context).put("should-stop.ifError", CompileState.GENERATE.toString()));
+			var fileManager = (JavacFileManager)context.get(JavaFileManager.class);
+			List<JavaFileObject> fileObjects = new ArrayList<>(); // we need an ordered list of them
+			for (var sourceUnit : sourceUnits) {
+				var fileObject = fileManager.getJavaFileObject(toPath(sourceUnit, javaProject));
+				fileManager.cache(fileObject, CharBuffer.wrap(sourceUnit.getContents()));
+				if (pooled) {
+					JavacContextPool.getDefault().cached(context, fileObject);
 				}
-			} else {
-				unitFile = new File(new String(sourceUnit.getFileName()));
+				AST ast = createAST(compilerOptions, apiLevel, context, flags);
+				CompilationUnit res = ast.newCompilationUnit();
+				result.put(sourceUnit, res);
+				filesToUnits.put(fileObject, new WeakReference<>(res));
+				fileObjects.add(fileObject);
 			}
-			Path sourceUnitPath = null;
-			if (!unitFile.getName().endsWith(".java") || sourceUnit.getFileName() == null || sourceUnit.getFileName().length == 0) {
-				String uri1 = unitFile.toURI().toString().replaceAll("%7C", "/");
-				if( uri1.endsWith(".class")) {
-					String[] split= uri1.split("/");
-					String lastSegment = split[split.length-1].replace(".class", ".java");
-					sourceUnitPath = Path.of(lastSegment);
+			if (!lazyUnits.isEmpty() && fileManager instanceof CachingJarsJavaFileManager cachingFileManager) {
+				Set<String> lazyPackages = new HashSet<>();
+				for (var lazyUnit : lazyUnits) {
+					String packageName = CharOperation.toString(lazyUnit.getPackageName());
+					cachingFileManager.addWorkingCopy(packageName, fileManager.getJavaFileObject(toPath(lazyUnit, javaProject)), lazyUnit.getContents());
+					lazyPackages.add(packageName);
+				}
+				if (pooled) {
+					JavacContextPool.getDefault().workingCopiesAdded(context, lazyPackages);
 				}
-				if( sourceUnitPath == null ) 
-					sourceUnitPath = Path.of(new File("whatever.java").toURI());
-			} else {
-				sourceUnitPath = Path.of(unitFile.toURI());
 			}
-			var fileObject = fileManager.getJavaFileObject(sourceUnitPath);
-			fileManager.cache(fileObject, CharBuffer.wrap(sourceUnit.getContents()));
-			AST ast = createAST(compilerOptions, apiLevel, context, flags);
-			CompilationUnit res = ast.newCompilationUnit();
-			result.put(sourceUnit, res);
-			filesToUnits.put(fileObject, res);
-			fileObjects.add(fileObject);
-		}
-
 
-		JCCompilationUnit javacCompilationUnit = null;
-		Iterable<String> options = configureAPIfNecessary(fileManager) ? null : Arrays.asList("-proc:none");
-		JavacTask task = ((JavacTool)compiler).getTask(null, fileManager, null /* already added to context */, options, List.of() /* already set */, fileObjects, context);
-		{
-			// don't know yet a better way to ensure those necessary flags get configured
-			var javac = com.sun.tools.javac.main.JavaCompiler.instance(context);
-			javac.keepComments = true;
-			javac.genEndPos = true;
-			javac.lineDebugInfo = true;
-		}
 
-		try {
-			var elements = task.parse().iterator();
-			var aptPath = fileManager.getLocation(StandardLocation.ANNOTATION_PROCESSOR_PATH);
-			if ((flags & ICompilationUnit.FORCE_PROBLEM_DETECTION) != 0
-				|| (aptPath != null && aptPath.iterator().hasNext())) {
-				task.analyze();
+			// null if the context, maybe pooled from before the flag changed, doesn't record comments
+			CommentRecordingScannerFactory commentRecorder = CommentRecordingScannerFactory.instance(context);
+			if (commentRecorder != null) {
+				fileObjects.forEach(commentRecorder::record);
 			}
 
-			Throwable cachedThrown = null;
+			Iterable<String> options = configureAPIfNecessary(fileManager) ? null : Arrays.asList("-proc:none");
+			JavacTask task = ((JavacTool)compiler).getTask(null, fileManager, null /* already added to context */, options, List.of() /* already set */, fileObjects, context);
+			{
+				// don't know yet a better way to ensure those necessary flags get configured
+				var javac = com.sun.tools.javac.main.JavaCompiler.instance(context);
+				javac.keepComments = true;
+				javac.genEndPos = true;
+				javac.lineDebugInfo = true;
+			}
 
-			for (int i = 0 ; i < sourceUnits.length; i++) {
-				if (elements.hasNext() && elements.next() instanceof JCCompilationUnit u) {
-					javacCompilationUnit = u;
-				} else {
-					return Map.of();
+			try {
+				var elements = task.parse().iterator();
+				var aptPath = fileManager.getLocation(StandardLocation.ANNOTATION_PROCESSOR_PATH);
+				if ((flags & ICompilationUnit.FORCE_PROBLEM_DETECTION) != 0
+					|| (aptPath != null && aptPath.iterator().hasNext())) {
+					task.analyze();
 				}
-				try {
-					String rawText = null;
+
+				AtomicReference<Throwable> cachedThrown = new AtomicReference<>();
+				// shared by all resolvers of this context, so the context can be released once they're all gone
+				Object contextLease = new Object();
+
+				JCCompilationUnit[] javacCompilationUnits = new JCCompilationUnit[sourceUnits.length];
+				String[] rawTexts = new String[sourceUnits.length];
+				for (int i = 0 ; i < sourceUnits.length; i++) {
+					if (elements.hasNext() && elements.next() instanceof JCCompilationUnit u) {
+						javacCompilationUnits[i] = u;
+					} else {
+						return Map.of();
+					}
 					try {
-						rawText = fileObjects.get(i).getCharContent(true).toString();
+						rawTexts[i] = fileObjects.get(i).getCharContent(true).toString();
 					} catch( IOException ioe) {
 						ILog.get().error(ioe.getMessage(), ioe);
 						return null;
 					}
-					CompilationUnit res = result.get(sourceUnits[i]);
-					AST ast = res.ast;
-					JavacConverter converter = new JavacConverter(ast, javacCompilationUnit, context, rawText, docEnabled, focalPoint);
-					converter.populateCompilationUnit(res, javacCompilationUnit);
-					// javadoc problems explicitly set as they're not sent to DiagnosticListener (maybe find a flag to do it?)
-					var javadocProblems = converter.javadocDiagnostics.stream()
-							.map(problemConverter::createJavacProblem)
-							.filter(Objects::nonNull)
-							.toArray(IProblem[]::new);
-					if (javadocProblems.length > 0) {
-						int initialSize = res.getProblems().length;
-						var newProblems = Arrays.copyOf(res.getProblems(), initialSize + javadocProblems.length);
-						System.arraycopy(javadocProblems, 0, newProblems, initialSize, javadocProblems.length);
-						res.setProblems(newProblems);
-					}
-					List<org.eclipse.jdt.core.dom.Comment> javadocComments = new ArrayList<>();
-					res.accept(new ASTVisitor(true) {
-						@Override
-						public void postVisit(ASTNode node) { // fix some positions
-							if( node.getParent() != null ) {
-								if( node.getStartPosition() < node.getParent().getStartPosition()) {
-									int parentEnd = node.getParent().getStartPosition() + node.getParent().getLength();
-									if( node.getStartPosition() >= 0 ) {
-										node.getParent().setSourceRange(node.getStartPosition(), parentEnd - node.getStartPosition());
-									}
-								}
-							}
+				}
+
+				// only touches the given unit, its AST and converter; shared javac state is locked on the context
+				IntPredicate convertUnit = i -> {
+					try {
+						JCCompilationUnit javacCompilationUnit = javacCompilationUnits[i];
+						String rawText = rawTexts[i];
+						CompilationUnit res = result.get(sourceUnits[i]);
+						AST ast = res.ast;
+						JavacConverter converter = new JavacConverter(ast, javacCompilationUnit, context, rawText, docEnabled, focalPoint);
+						converter.populateCompilationUnit(res, javacCompilationUnit);
+						// javadoc problems explicitly set as they're not sent to DiagnosticListener (maybe find a flag to do it?)
+						IProblem[] javadocProblems;
+						synchronized (context) {
+							javadocProblems = converter.javadocDiagnostics.stream()
+								.map(problemConverter::createJavacProblem)
+								.filter(Objects::nonNull)
+								.toArray(IProblem[]::new);
 						}
-						@Override
-						public boolean visit(Javadoc javadoc) {
-							javadocComments.add(javadoc);
-							return true;
+						if (javadocProblems.length > 0) {
+							int initialSize = res.getProblems().length;
+							var newProblems = Arrays.copyOf(res.getProblems(), initialSize + javadocProblems.length);
+							System.arraycopy(javadocProblems, 0, newProblems, initialSize, javadocProblems.length);
+							res.setProblems(newProblems);
 						}
-					});
-					addCommentsToUnit(javadocComments, res);
-					addCommentsToUnit(converter.notAttachedComments, res);
-					attachMissingComments(res, context, rawText, converter, compilerOptions);
-					if ((flags & ICompilationUnit.ENABLE_STATEMENTS_RECOVERY) == 0) {
-						// remove all possible RECOVERED node
-						res.accept(new ASTVisitor(false) {
-							private boolean reject(ASTNode node) {
-								return (node.getFlags() & ASTNode.RECOVERED) != 0
-									|| (node instanceof FieldDeclaration field && field.fragments().isEmpty())
-									|| (node instanceof VariableDeclarationStatement decl && decl.fragments().isEmpty());
-							}
-
+						List<org.eclipse.jdt.core.dom.Comment> javadocComments = new ArrayList<>();
+						res.accept(new ASTVisitor(true) {
 							@Override
-							public boolean preVisit2(ASTNode node) {
-								if (reject(node)) {
-									StructuralPropertyDescriptor prop = node.getLocationInParent();
-									if ((prop instanceof SimplePropertyDescriptor simple && !simple.isMandatory())
-										|| (prop instanceof ChildPropertyDescriptor child && !child.isMandatory())
-										|| (prop instanceof ChildListPropertyDescriptor)) {
-										node.delete();
-									} else if (node.getParent() != null) {
-										node.getParent().setFlags(node.getParent().getFlags() | ASTNode.RECOVERED);
+							public void postVisit(ASTNode node) { // fix some positions
+								if( node.getParent() != null ) {
+									if( node.getStartPosition() < node.getParent().getStartPosition()) {
+										int parentEnd = node.getParent().getStartPosition() + node.getParent().getLength();
+										if( node.getStartPosition() >= 0 ) {
+											node.getParent().setSourceRange(node.getStartPosition(), parentEnd - node.getStartPosition());
+										}
 									}
-									return false; // branch will be cut, no need to inspect deeper
 								}
-								return true;
 							}
-
 							@Override
-							public void postVisit(ASTNode node) {
-								// repeat on postVisit so trimming applies bottom-up
-								preVisit2(node);
+							public boolean visit(Javadoc javadoc) {
+								javadocComments.add(javadoc);
+								return true;
 							}
 						});
+						addCommentsToUnit(javadocComments, res);
+						addCommentsToUnit(converter.notAttachedComments, res);
+						attachMissingComments(res, context, rawText, converter, compilerOptions,
+							commentRecorder != null ? commentRecorder.take(fileObjects.get(i)) : null);
+						if ((flags & ICompilationUnit.ENABLE_STATEMENTS_RECOVERY) == 0) {
+							// remove all possible RECOVERED node
+							res.accept(new ASTVisitor(false) {
+								private boolean reject(ASTNode node) {
+									return (node.getFlags() & ASTNode.RECOVERED) != 0
+										|| (node instanceof FieldDeclaration field && field.fragments().isEmpty())
+										|| (node instanceof VariableDeclarationStatement decl && decl.fragments().isEmpty());
+								}
+
+								@Override
+								public boolean preVisit2(ASTNode node) {
+									if (reject(node)) {
+										StructuralPropertyDescriptor prop = node.getLocationInParent();
+										if ((prop instanceof SimplePropertyDescriptor simple && !simple.isMandatory())
+											|| (prop instanceof ChildPropertyDescriptor child && !child.isMandatory())
+											|| (prop instanceof ChildListPropertyDescriptor)) {
+											node.delete();
+										} else if (node.getParent() != null) {
+											node.getParent().setFlags(node.getParent().getFlags() | ASTNode.RECOVERED);
+										}
+										return false; // branch will be cut, no need to inspect deeper
+									}
+									return true;
+								}
+
+								@Override
+								public void postVisit(ASTNode node) {
+									// repeat on postVisit so trimming applies bottom-up
+									preVisit2(node);
+								}
+							});
+						}
+						if (resolveBindings) {
+							JavacBindingResolver resolver = new JavacBindingResolver(javaProject, task, context, converter, workingCopyOwner);
+							resolver.isRecoveringBindings = (flags & ICompilationUnit.ENABLE_BINDINGS_RECOVERY) != 0;
+							resolver.contextLease = contextLease;
+							ast.setBindingResolver(resolver);
+						}
+						//
+						ast.setOriginalModificationCount(ast.modificationCount()); // "un-dirty" AST so Rewrite can process it
+						ast.setDefaultNodeFlag(ast.getDefaultNodeFlag() & ~ASTNode.ORIGINAL);
+						return true;
+					} catch (Throwable thrown) {
+						cachedThrown.compareAndSet(null, thrown);
+						ILog.get().error("Internal failure while parsing or converting AST for unit " + new String(sourceUnits[i].getFileName()));
+						ILog.get().error(thrown.getMessage(), thrown);
+						return false;
 					}
-					if (resolveBindings) {
-						JavacBindingResolver resolver = new JavacBindingResolver(javaProject, task, context, converter, workingCopyOwner);
-						resolver.isRecoveringBindings = (flags & ICompilationUnit.ENABLE_BINDINGS_RECOVERY) != 0;
-						ast.setBindingResolver(resolver);
+				};
+				IntConsumer acceptUnit = converted == null ? i -> {} : i -> converted.accept(sourceUnits[i], result.get(sourceUnits[i]));
+				if (isParallelConversion() && sourceUnits.length > 1) {
+					convertInParallel(sourceUnits.length, convertUnit, acceptUnit);
+				} else {
+					for (int i = 0 ; i < sourceUnits.length; i++) {
+						if (convertUnit.test(i)) {
+							acceptUnit.accept(i);
+						}
 					}
-					//
-					ast.setOriginalModificationCount(ast.modificationCount()); // "un-dirty" AST so Rewrite can process it
-					ast.setDefaultNodeFlag(ast.getDefaultNodeFlag() & ~ASTNode.ORIGINAL);
-				} catch (Throwable thrown) {
-					if (cachedThrown == null) {
-						cachedThrown = thrown;
+				}
+				if (resolveBindings) {
+					// the binding resolvers keep using the context, it's released once they're all unreachable
+					if (pooled) {
+						JavacContextPool.getDefault().releaseWhenUnreachable(contextLease, context);
 					}
-					ILog.get().error("Internal failure while parsing or converting AST for unit " + new String(sourceUnits[i].getFileName()));
-					ILog.get().error(thrown.getMessage(), thrown);
+					contextHandedOver = true;
+				}
+				if (cachedThrown.get() != null) {
+					throw new RuntimeException(cachedThrown.get());
+				}
+			} catch (IOException ex) {
+				ILog.get().error(ex.getMessage(), ex);
+			} finally {
+				if (commentRecorder != null) {
+					// forget about units that weren't converted
+					fileObjects.forEach(commentRecorder::take);
 				}
 			}
-			if (!resolveBindings) {
+
+			return result;
+		} finally {
+			if (!contextHandedOver) {
 				destroy(context);
 			}
-			if (cachedThrown != null) {
-				throw new RuntimeException(cachedThrown);
-			}
-		} catch (IOException ex) {
-			ILog.get().error(ex.getMessage(), ex);
 		}
+	}
 
-		return result;
+	/// Threads of [#convertInParallel], as many as processors, created on first use and shared by all
+	/// the conversions
+	private static final class ConversionExecutor {
+		private static final ExecutorService INSTANCE;
+		static {
+			AtomicInteger threadCount = new AtomicInteger();
+			INSTANCE = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+				Thread t = new Thread(runnable, "Javac DOM conversion #" + threadCount.incrementAndGet()); //$NON-NLS-1$
+				t.setDaemon(true);
+				t.setContextClassLoader(JavacCompilationUnitResolver.class.getClassLoader());
+				return t;
+			});
+		}
+	}
+
+	/// Converts the units with the given indexes concurrently, on a shared pool of as many threads as
+	/// processors, and accepts each successfully converted one on the calling thread as soon as it's done.
+	private static void convertInParallel(int unitCount, IntPredicate convertUnit, IntConsumer acceptUnit) {
+		CompletionService<Integer> conversions = new ExecutorCompletionService<>(ConversionExecutor.INSTANCE);
+		List<Future<Integer>> submitted = new ArrayList<>(unitCount);
+		try {
+			for (int i = 0; i < unitCount; i++) {
+				int index = i;
+				submitted.add(conversions.submit(() -> convertUnit.test(index) ? index : -1));
+			}
+			for (int i = 0; i < unitCount; i++) {
+				int converted = conversions.take().get();
+				if (converted >= 0) {
+					acceptUnit.accept(converted);
+				}
+			}
+		} catch (ExecutionException e) {
+			// failures are already caught and reported by the conversion itself
+			ILog.get().error(e.getMessage(), e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			// the pool is shared, only this call's pending conversions are stopped
+			submitted.forEach(conversion -> conversion.cancel(true));
+		}
 	}
 
 	/// cleans up context after analysis (nothing left to process)
@@ -823,8 +1117,12 @@ public class JavacCompilationUnitResolver implements ICompilationUnitResolver {
 		}
 	}
 	/// destroys the context, it's not usable at all after
+	/// (a pooled context gets returned to the pool instead)
 	public void destroy(Context context) {
 		cleanup(context);
+		if (JavacContextPool.getDefault().release(context)) {
+			return;
+		}
 		try {
 			context.get(JavaFileManager.class).close();
 		} catch (IOException e) {
@@ -870,71 +1168,96 @@ public class JavacCompilationUnitResolver implements ICompilationUnitResolver {
 
 //
 	/**
-	 * Currently re-scans the doc to build the list of comments and then
-	 * attach them to the already built AST.
-	 * @param res
+	 * Adds the comments that weren't attached to the AST by the converter, and initializes the
+	 * comment mapper.
+	 * @param unit
 	 * @param context
-	 * @param fileObject
+	 * @param rawText
 	 * @param converter
 	 * @param compilerOptions
+	 * @param recordedComments the comments met while javac parsed the unit, or <code>null</code> to
+	 *        re-scan the text to find them
 	 */
-	private void attachMissingComments(CompilationUnit unit, Context context, String rawText, JavacConverter converter, Map<String, String> compilerOptions) {
-		ScannerFactory scannerFactory = ScannerFactory.instance(context);
+	private void attachMissingComments(CompilationUnit unit, Context context, String rawText, JavacConverter converter, Map<String, String> compilerOptions,
+			List<RecordedComment> recordedComments) {
+		List<Comment> existingComments = unit.getCommentList() == null ? List.of() : (List<Comment>)unit.getCommentList();
 		List<Comment> missingComments = new ArrayList<>();
-		JavadocTokenizer commentTokenizer = new JavadocTokenizer(scannerFactory, rawText.toCharArray(), rawText.length()) {
-			@Override
-			protected com.sun.tools.javac.parser.Tokens.Comment processComment(int pos, int endPos, CommentStyle style) {
-				// workaround Java bug 9077218
-				if (style == CommentStyle.JAVADOC_BLOCK && endPos - pos <= 4) {
-					style = CommentStyle.BLOCK;
-				}
-				var res = super.processComment(pos, endPos, style);
-				if (noCommentAt(unit, pos)) { // not already processed
-					var comment = converter.convert(res, pos, endPos);
-					missingComments.add(comment);
+		if (recordedComments != null) {
+			for (RecordedComment recorded : recordedComments) {
+				if (noCommentAt(existingComments, recorded.pos())) { // not already processed
+					missingComments.add(converter.convert(recorded.comment(), recorded.pos(), recorded.endPos()));
 				}
-				return res;
 			}
-		};
-		Scanner javacScanner = new Scanner(scannerFactory, commentTokenizer) {
-			// subclass just to access constructor
-			// TODO DefaultCommentMapper.this.scanner.linePtr == -1?
-		};
-		do { // consume all tokens to populate comments
-			javacScanner.nextToken();
-		} while (javacScanner.token() != null && javacScanner.token().kind != TokenKind.EOF);
+		} else {
+			synchronized (context) { // the tokenizer enters names in the shared table
+				ScannerFactory scannerFactory = ScannerFactory.instance(context);
+				JavadocTokenizer commentTokenizer = new JavadocTokenizer(scannerFactory, rawText.toCharArray(), rawText.length()) {
+					@Override
+					protected com.sun.tools.javac.parser.Tokens.Comment processComment(int pos, int endPos, CommentStyle style) {
+						// workaround Java bug 9077218
+						if (style == CommentStyle.JAVADOC_BLOCK && endPos - pos <= 4) {
+							style = CommentStyle.BLOCK;
+						}
+						var res = super.processComment(pos, endPos, style);
+						if (noCommentAt(existingComments, pos)) { // not already processed
+							var comment = converter.convert(res, pos, endPos);
+							missingComments.add(comment);
+						}
+						return res;
+					}
+				};
+				Scanner javacScanner = new Scanner(scannerFactory, commentTokenizer) {
+					// subclass just to access constructor
+				};
+				do { // consume all tokens to populate comments
+					javacScanner.nextToken();
+				} while (javacScanner.token() != null && javacScanner.token().kind != TokenKind.EOF);
+			}
+		}
+		addCommentsToUnit(missingComments, unit);
+
+		// the comment mapper reads line ends from the scanner, which are the ones computed by javac
+		// (without the extra entry for the end of file) instead of scanning the text once more
 		org.eclipse.jdt.internal.compiler.parser.Scanner ecjScanner = new ASTConverter(compilerOptions, false, null).scanner;
-		ecjScanner.recordLineSeparator = true;
 		ecjScanner.skipComments = false;
-		try {
-			ecjScanner.setSource(rawText.toCharArray());
-			do {
-				ecjScanner.getNextToken();
-			} while (!ecjScanner.atEnd());
-		} catch (InvalidInputException ex) {
-			JavaCore.getPlugin().getLog().log(org.eclipse.core.runtime.Status.error(ex.getMessage(), ex));
+		ecjScanner.setSource(rawText.toCharArray());
+		int[] lineEndTable = converter.lineEndTable;
+		if (lineEndTable != null && lineEndTable.length > 0) {
+			ecjScanner.lineEnds = Arrays.copyOf(lineEndTable, lineEndTable.length - 1);
+			ecjScanner.linePtr = ecjScanner.lineEnds.length - 1;
 		}
-
-		// need to scan with ecjScanner first to populate some line indexes used by the CommentMapper
-		// on longer-term, implementing an alternative comment mapper based on javac scanner might be best
-		addCommentsToUnit(missingComments, unit);
 		unit.initCommentMapper(ecjScanner);
 	}
 
 	static void addCommentsToUnit(Collection<Comment> comments, CompilationUnit res) {
-		List<Comment> before = res.getCommentList() == null ? new ArrayList<>() : new ArrayList<>(res.getCommentList());
-		comments.stream().filter(comment -> comment.getStartPosition() >= 0 && JavacCompilationUnitResolver.noCommentAt(res, comment.getStartPosition()))
-			.forEach(before::add);
+		List<Comment> existing = res.getCommentList() == null ? List.of() : (List<Comment>)res.getCommentList();
+		List<Comment> before = new ArrayList<>(existing.size() + comments.size());
+		before.addAll(existing);
+		for (Comment comment : comments) {
+			if (comment.getStartPosition() >= 0 && noCommentAt(existing, comment.getStartPosition())) {
+				before.add(comment);
+			}
+		}
 		before.sort(Comparator.comparingInt(Comment::getStartPosition));
 		res.setCommentTable(before.toArray(Comment[]::new));
 	}
 
-	private static boolean noCommentAt(CompilationUnit unit, int pos) {
-		if (unit.getCommentList() == null) {
-			return true;
+	/// @param comments comments sorted by position, without overlap, as in a comment table
+	private static boolean noCommentAt(List<Comment> comments, int pos) {
+		int low = 0;
+		int high = comments.size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			Comment other = comments.get(middle);
+			if (pos < other.getStartPosition()) {
+				high = middle - 1;
+			} else if (pos >= other.getStartPosition() + other.getLength()) {
+				low = middle + 1;
+			} else {
+				return false;
+			}
 		}
-		return ((List<Comment>)unit.getCommentList()).stream()
-				.allMatch(other -> pos < other.getStartPosition() || pos >= other.getStartPosition() + other.getLength());
+		return true;
 	}
 
 	private static class BindingBuilder extends ASTVisitor {
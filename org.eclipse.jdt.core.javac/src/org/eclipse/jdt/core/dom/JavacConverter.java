@@ -149,6 +149,8 @@ class JavacConverter {
 	final Set<JCDiagnostic> javadocDiagnostics = new HashSet<>();
 	private final List<JavadocConverter> javadocConverters = new ArrayList<>();
 	final List<org.eclipse.jdt.core.dom.Comment> notAttachedComments = new ArrayList<>();
+	/// line end table of the unit, as set by [#populateCompilationUnit(CompilationUnit, JCCompilationUnit)]
+	int[] lineEndTable;
 	private boolean buildJavadoc;
 	private int focalPoint;
 
@@ -179,7 +181,8 @@ class JavacConverter {
 	void populateCompilationUnit(CompilationUnit res, JCCompilationUnit javacCompilationUnit) {
 		commonSettings(res, javacCompilationUnit);
 		res.setSourceRange(0, this.rawText.length());
-		res.setLineEndTable(toLineEndPosTable(javacCompilationUnit.getLineMap(), res.getLength()));
+		this.lineEndTable = toLineEndPosTable(javacCompilationUnit.getLineMap(), res.getLength());
+		res.setLineEndTable(this.lineEndTable);
 		if (javacCompilationUnit.getPackage() != null) {
 			res.setPackage(convert(javacCompilationUnit.getPackage()));
 		} else if( javacCompilationUnit.defs != null && javacCompilationUnit.defs.size() > 0 && javacCompilationUnit.defs.get(0) instanceof JCErroneous jcer) {
@@ -242,6 +245,27 @@ class JavacConverter {
 		return lineEnds.stream().mapToInt(Integer::intValue).toArray();
 	}
 
+	/// Looks up the source in place, rather than copying its tail to trim it.
+	/// @return the position of the first non whitespace character from the given position, or the
+	///         length of the source if there is none
+	int skipWhitespace(int pos) {
+		int res = Math.max(pos, 0);
+		while (res < this.rawText.length() && Character.isWhitespace(this.rawText.charAt(res))) {
+			res++;
+		}
+		return res;
+	}
+
+	/// @return the position following the last non whitespace character before the given position,
+	///         or `0` if there is none
+	int skipWhitespaceBackward(int pos) {
+		int res = Math.min(pos, this.rawText.length());
+		while (res > 0 && Character.isWhitespace(this.rawText.charAt(res - 1))) {
+			res--;
+		}
+		return res;
+	}
+
 	private PackageDeclaration convert(JCPackageDecl javac) {
 		PackageDeclaration res = this.ast.newPackageDeclaration();
 		res.setName(toName(javac.getPackageName()));
@@ -273,16 +297,13 @@ class JavacConverter {
 		commonSettings(res, javac);
 		if( isOpen ) {
 			int start = res.getStartPosition();
-			if( !this.rawText.substring(start).trim().startsWith("open")) {
+			if( !this.rawText.startsWith("open", skipWhitespace(start))) {
 				// we are open but we don't start with open... so... gotta look backwards
-				String prefix =  this.rawText.substring(0,start);
-				if( prefix.trim().endsWith("open")) {
+				int openStart = skipWhitespaceBackward(start) - "open".length();
+				if( this.rawText.startsWith("open", openStart)) {
 					// previous token is open
-					int ind = new StringBuffer().append(prefix).reverse().toString().indexOf("nepo");
-					if( ind != -1 ) {
-						int gap = ind + 4;
-						res.setSourceRange(res.getStartPosition() - gap, res.getLength() + gap);
-					}
+					int gap = start - openStart;
+					res.setSourceRange(res.getStartPosition() - gap, res.getLength() + gap);
 				}
 			}
 		}
@@ -353,19 +374,17 @@ class JavacConverter {
 		List<ASTNode> modifiersToAdd = new ArrayList<>();
 		if (javac.isTransitive()) {
 			ModuleModifier trans = this.ast.newModuleModifier(ModuleModifierKeyword.TRANSITIVE_KEYWORD);
-			int transStart = this.rawText.substring(javacStart).indexOf(ModuleModifierKeyword.TRANSITIVE_KEYWORD.toString());
+			int transStart = this.rawText.indexOf(ModuleModifierKeyword.TRANSITIVE_KEYWORD.toString(), javacStart);
 			if( transStart != -1 ) {
-				int trueStart = javacStart + transStart;
-				trans.setSourceRange(trueStart, ModuleModifierKeyword.TRANSITIVE_KEYWORD.toString().length());
+				trans.setSourceRange(transStart, ModuleModifierKeyword.TRANSITIVE_KEYWORD.toString().length());
 			}
 			modifiersToAdd.add(trans);
 		}
 		if (javac.isStatic()) {
 			ModuleModifier stat = this.ast.newModuleModifier(ModuleModifierKeyword.STATIC_KEYWORD);
-			int statStart = this.rawText.substring(javacStart).indexOf(ModuleModifierKeyword.STATIC_KEYWORD.toString());
+			int statStart = this.rawText.indexOf(ModuleModifierKeyword.STATIC_KEYWORD.toString(), javacStart);
 			if( statStart != -1 ) {
-				int trueStart = javacStart + statStart;
-				stat.setSourceRange(trueStart, ModuleModifierKeyword.STATIC_KEYWORD.toString().length());
+				stat.setSourceRange(statStart, ModuleModifierKeyword.STATIC_KEYWORD.toString().length());
 			}
 			modifiersToAdd.add(stat);
 		}
@@ -613,8 +632,10 @@ class JavacConverter {
 						.filter(Objects::nonNull)
 						.forEach(typeDeclaration.permittedTypes()::add);
 					if (!javacClassDecl.getPermitsClause().isEmpty()) {
-						int permitsOffset = this.rawText.substring(javacClassDecl.pos).indexOf("permits") + javacClassDecl.pos;
-						typeDeclaration.setRestrictedIdentifierStartPosition(permitsOffset);
+						int permitsOffset = this.rawText.indexOf("permits", javacClassDecl.pos);
+						if (permitsOffset >= 0) {
+							typeDeclaration.setRestrictedIdentifierStartPosition(permitsOffset);
+						}
 					}
 				}
 			}
@@ -840,9 +861,8 @@ class JavacConverter {
 		if( javacIsConstructor) {
 			// sometimes javac mistakes a method with no return type as a constructor
 			String parentName = getNodeName(parent);
-			String tmpString1 = this.rawText.substring(javac.pos);
-			int openParen = tmpString1.indexOf("(");
-			int openBrack = tmpString1.indexOf("{");
+			int openParen = this.rawText.indexOf('(', javac.pos);
+			int openBrack = this.rawText.indexOf('{', javac.pos);
 			int endPos = -1;
 			if( openParen != -1 ) {
 				endPos = openParen;
@@ -851,7 +871,7 @@ class JavacConverter {
 				endPos = endPos == -1 ? openBrack : Math.min(openBrack, endPos);
 			}
 			if( endPos != -1 ) {
-				String methodName = tmpString1.substring(0, endPos).trim();
+				String methodName = this.rawText.substring(javac.pos, endPos).trim();
 				if (!methodName.isEmpty() &&
 					Character.isJavaIdentifierStart(methodName.charAt(0)) &&
 					methodName.substring(1).chars().allMatch(Character::isJavaIdentifierPart) &&
@@ -890,9 +910,8 @@ class JavacConverter {
 		}
 		boolean isCompactConstructor = false;
 		if(isConstructor && parent instanceof RecordDeclaration) {
-			String postName = this.rawText.substring(javac.pos + methodDeclName.length()).trim();
-			String firstChar = postName != null && postName.length() > 0 ? postName.substring(0,1) : null;
-			isCompactConstructor = ("{".equals(firstChar));
+			int postName = skipWhitespace(javac.pos + methodDeclName.length());
+			isCompactConstructor = postName < this.rawText.length() && this.rawText.charAt(postName) == '{';
 			if( this.ast.apiLevel >= AST.JLS16_INTERNAL) {
 				res.setCompactConstructor(isCompactConstructor);
 			}
@@ -1110,8 +1129,9 @@ class JavacConverter {
 					res.setType(converted);
 				}
 			}
-		} else if (javac.getStartPosition() != javac.getPreferredPosition()
-					&& this.rawText.substring(javac.getStartPosition(), javac.getPreferredPosition()).matches("var(\\s)+")) {
+		} else if (javac.getStartPosition() + "var".length() < javac.getPreferredPosition()
+					&& this.rawText.startsWith("var", javac.getStartPosition())
+					&& skipWhitespace(javac.getStartPosition() + "var".length()) == javac.getPreferredPosition()) {
 			SimpleName varName = this.ast.newSimpleName("var");
 			varName.setSourceRange(javac.getStartPosition(), varName.getIdentifier().length());
 			Type varType = this.ast.newSimpleType(varName);
@@ -3394,7 +3414,10 @@ class JavacConverter {
 
 	public org.eclipse.jdt.core.dom.Comment convert(Comment javac, JCTree context) {
 		if ((javac.getStyle() == CommentStyle.JAVADOC_BLOCK || javac.getStyle() == CommentStyle.JAVADOC_LINE) && context != null) {
-			var docCommentTree = this.javacCompilationUnit.docComments.getCommentTree(context);
+			DCDocComment docCommentTree;
+			synchronized (this.context) { // parsing enters names in the shared table
+				docCommentTree = this.javacCompilationUnit.docComments.getCommentTree(context);
+			}
 			if (docCommentTree instanceof DCDocComment dcDocComment) {
 				JavadocConverter javadocConverter = new JavadocConverter(this, dcDocComment, TreePath.getPath(this.javacCompilationUnit, context), this.buildJavadoc);
 				this.javadocConverters.add(javadocConverter);
@@ -3420,8 +3443,12 @@ class JavacConverter {
 	public org.eclipse.jdt.core.dom.Comment convert(Comment javac, int pos, int endPos) {
 		// testBug113108b expects /// comments to be Line comments, not Javadoc comments
 		if (javac.getStyle() == CommentStyle.JAVADOC_BLOCK || javac.getStyle() == CommentStyle.JAVADOC_LINE) {
-			var parser = new com.sun.tools.javac.parser.DocCommentParser(ParserFactory.instance(this.context), Log.instance(this.context).currentSource(), javac);
-			JavadocConverter javadocConverter = new JavadocConverter(this, parser.parse(), pos, endPos, this.buildJavadoc);
+			DCDocComment docComment;
+			synchronized (this.context) { // parsing enters names in the shared table
+				var parser = new com.sun.tools.javac.parser.DocCommentParser(ParserFactory.instance(this.context), Log.instance(this.context).currentSource(), javac);
+				docComment = parser.parse();
+			}
+			JavadocConverter javadocConverter = new JavadocConverter(this, docComment, pos, endPos, this.buildJavadoc);
 			this.javadocConverters.add(javadocConverter);
 			Javadoc javadoc = javadocConverter.convertJavadoc();
 			if (this.ast.apiLevel() >= AST.JLS23) {
@@ -3575,9 +3602,8 @@ class JavacConverter {
 						AnonymousClassDeclaration e = createAnonymousClassDeclaration(jccd, enumConstantDeclaration);
 						if( e != null ) {
 							if( enumName != null ) {
-								String preTrim = this.rawText.substring(e.getStartPosition() + enumName.length());
-								String trimmed = preTrim.stripLeading();
-								int toSkip = preTrim.length() - trimmed.length();
+								int afterName = e.getStartPosition() + enumName.length();
+								int toSkip = skipWhitespace(afterName) - afterName;
 								e.setSourceRange(e.getStartPosition() + enumName.length() + toSkip, e.getLength() - enumName.length() - toSkip);
 							}
 							enumConstantDeclaration.setAnonymousClassDeclaration(e);
@@ -118,7 +118,8 @@ class JavadocConverter {
 			throw new IllegalArgumentException("Doc comment has no start position");
 		}
 		this.initialOffset = startPos;
-		this.endOffset = startPos + this.javacConverter.rawText.substring(startPos).indexOf("*/") + "*/".length();
+		int closing = this.javacConverter.rawText.indexOf("*/", startPos);
+		this.endOffset = (closing >= 0 ? closing : startPos - 1) + "*/".length();
 	}
 
 	JavadocConverter(JavacConverter javacConverter, DCDocComment docComment, int initialOffset, int endPos, boolean buildJavadoc) {
@@ -9,21 +9,33 @@
 *******************************************************************************/
 package org.eclipse.jdt.internal.javac;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.CharBuffer;
 import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.ServiceLoader;
 import java.util.Set;
 
+import javax.tools.FileObject;
 import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 
 import org.eclipse.core.runtime.ILog;
 
 import com.sun.tools.javac.api.ClientCodeWrapper;
 import com.sun.tools.javac.file.FSInfo;
 import com.sun.tools.javac.file.JavacFileManager;
+import com.sun.tools.javac.platform.PlatformDescription;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Context.Factory;
 
@@ -32,18 +44,37 @@ import com.sun.tools.javac.util.Context.Factory;
 /// 
 /// Note that the main goal is to override the [#close()] method so it does _not_ close
 /// the underlying ZipFileSystem which might still be in use. 
+///
+/// It can also serve working copies lazily (see [#addWorkingCopy(String, JavaFileObject, char\[\])]):
+/// they're listed as part of the source path, and shadow the matching class files, so javac
+/// only reads them when it actually needs one of their types.
+///
+/// When compiling for a `--release` (see [CachingReleaseArguments]), it also serves the platform
+/// classes itself, through the file manager of the platform, rather than being wrapped in a
+/// delegating file manager for every task.
 public class CachingJarsJavaFileManager extends JavacFileManager {
 
 	private static final ZipFileSystemProviderWithCache zipCache = new ZipFileSystemProviderWithCache();
 
+	/// working copies served lazily, by package name then by top-level binary name
+	private final Map<String, Map<String, JavaFileObject>> workingCopies = new HashMap<>();
+	private final Map<JavaFileObject, String> workingCopyBinaryNames = new HashMap<>();
+	private JavacClassOutput classOutput;
+	/// the view of [#zipCache] through which this file manager opens archives
+	private final java.nio.file.spi.FileSystemProvider zipLease;
+	/// the platform of the `--release` in use, if any, and the file manager for its classes
+	private PlatformDescription releasePlatform;
+	private JavacFileManager releaseFileManager;
+
 	/**
 	 * Register a Context.Factory to create a JavacFileManager.
 	 */
 	public static void preRegister(Context context) {
+		java.nio.file.spi.FileSystemProvider zipLease = zipCache.newLease();
 		context.put(FSInfo.class, new FSInfo() {
 			@Override
 			public synchronized java.nio.file.spi.FileSystemProvider getJarFSProvider() {
-				return CachingJarsJavaFileManager.zipCache;
+				return zipLease;
 			}
 		});
 		context.put(ClientCodeWrapper.class, new ClientCodeWrapper(context) {
@@ -53,6 +84,9 @@ public class CachingJarsJavaFileManager extends JavacFileManager {
 				}
 			});
 		context.put(JavaFileManager.class, (Factory<JavaFileManager>)c -> new CachingJarsJavaFileManager(c));
+		if (CachingReleaseArguments.isEnabled()) {
+			CachingReleaseArguments.preRegister(context);
+		}
 	}
 
 	/**
@@ -61,7 +95,8 @@ public class CachingJarsJavaFileManager extends JavacFileManager {
 	 */
 	public CachingJarsJavaFileManager(Context context) {
 		super(context, true, null);
-		zipCache.register(this);
+		this.zipLease = FSInfo.instance(context).getJarFSProvider();
+		zipCache.register(this, this.zipLease);
 	}
 
 	@Override
@@ -72,7 +107,226 @@ public class CachingJarsJavaFileManager extends JavacFileManager {
 		flush();
 		locations.close();
 		resetOutputFilesWritten();
-		zipCache.closeFileManager(System.identityHashCode(this));
+		zipCache.release(this.zipLease);
+		setRelease(null);
+	}
+
+	/// @return statistics about the archives opened by all the caching file managers
+	public static ZipFileSystemProviderWithCache.Statistics getArchiveStatistics() {
+		return zipCache.getStatistics();
+	}
+
+	/// Makes the given working copy available on the source path with the given content, in
+	/// place of the matching file or class file, without it being a compilation root.
+	/// @param packageName the package of the unit, `""` for the default package
+	/// @param file the file object for the unit, as returned by [#getJavaFileObject(java.nio.file.Path)]
+	/// @param contents the content of the working copy
+	public void addWorkingCopy(String packageName, JavaFileObject file, char[] contents) {
+		String simpleName = file.getName();
+		simpleName = simpleName.substring(simpleName.lastIndexOf(File.separatorChar) + 1);
+		if (simpleName.endsWith(JavaFileObject.Kind.SOURCE.extension)) {
+			simpleName = simpleName.substring(0, simpleName.length() - JavaFileObject.Kind.SOURCE.extension.length());
+		}
+		cache(file, CharBuffer.wrap(contents));
+		this.workingCopies.computeIfAbsent(packageName, p -> new HashMap<>()).put(simpleName, file);
+		this.workingCopyBinaryNames.put(file, packageName.isEmpty() ? simpleName : packageName + '.' + simpleName);
+	}
+
+	/// Stops serving the working copies added with [#addWorkingCopy(String, JavaFileObject, char\[\])].
+	/// @return the packages that contained working copies
+	public Set<String> clearWorkingCopies() {
+		Set<String> res = new HashSet<>(this.workingCopies.keySet());
+		this.workingCopyBinaryNames.keySet().forEach(this::flushCache);
+		this.workingCopyBinaryNames.clear();
+		this.workingCopies.clear();
+		return res;
+	}
+
+	@Override
+	public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+		JavacFileManager release = releaseFileManager(location);
+		if (release != null) {
+			return release.list(location, packageName, kinds, recurse);
+		}
+		Iterable<JavaFileObject> res = super.list(location, packageName, kinds, recurse);
+		if (this.workingCopies.isEmpty()) {
+			return res;
+		}
+		if (location == StandardLocation.SOURCE_PATH && kinds.contains(JavaFileObject.Kind.SOURCE)) {
+			// files are compared by path, so working copies already on disk aren't duplicated
+			Set<JavaFileObject> withWorkingCopies = new LinkedHashSet<>();
+			res.forEach(withWorkingCopies::add);
+			this.workingCopies.forEach((pack, units) -> {
+				if (pack.equals(packageName) || (recurse && (packageName.isEmpty() || pack.startsWith(packageName + '.')))) {
+					withWorkingCopies.addAll(units.values());
+				}
+			});
+			return withWorkingCopies;
+		}
+		if (location == StandardLocation.CLASS_PATH && kinds.contains(JavaFileObject.Kind.CLASS)) {
+			// hide class files of working copies so javac doesn't pick a possibly outdated one
+			List<JavaFileObject> withoutShadowed = new ArrayList<>();
+			for (JavaFileObject file : res) {
+				if (file.getKind() != JavaFileObject.Kind.CLASS || !isShadowedByWorkingCopy(inferBinaryName(location, file))) {
+					withoutShadowed.add(file);
+				}
+			}
+			return withoutShadowed;
+		}
+		return res;
+	}
+
+	private boolean isShadowedByWorkingCopy(String binaryName) {
+		if (binaryName == null) {
+			return false;
+		}
+		int lastDot = binaryName.lastIndexOf('.');
+		String packageName = lastDot < 0 ? "" : binaryName.substring(0, lastDot); //$NON-NLS-1$
+		Map<String, JavaFileObject> units = this.workingCopies.get(packageName);
+		if (units == null) {
+			return false;
+		}
+		String topLevelName = binaryName.substring(lastDot + 1);
+		int dollar = topLevelName.indexOf('$');
+		return units.containsKey(dollar < 0 ? topLevelName : topLevelName.substring(0, dollar));
+	}
+
+	/// Keeps generated class files in the given output instead of writing them to the
+	/// [StandardLocation#CLASS_OUTPUT] folder.
+	/// @param classOutput the in-memory output, or `null` to write class files to disk
+	public void setClassOutput(JavacClassOutput classOutput) {
+		this.classOutput = classOutput;
+	}
+
+	@Override
+	public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+		if (this.classOutput != null && location == StandardLocation.CLASS_OUTPUT && kind == JavaFileObject.Kind.CLASS) {
+			return this.classOutput.getJavaFileForOutput(className);
+		}
+		return super.getJavaFileForOutput(location, className, kind, sibling);
+	}
+
+	/// Serves the platform classes (system modules or platform class path) from the given
+	/// release platform. The file manager of the platform is kept until another platform is set.
+	/// @param platform the platform, or `null` to use the one of the current JDK
+	/// @return whether the platform can be served by this file manager
+	public boolean setRelease(PlatformDescription platform) {
+		if (platform == this.releasePlatform) {
+			return true;
+		}
+		if (this.releaseFileManager != null) {
+			try {
+				this.releaseFileManager.close();
+			} catch (IOException ex) {
+				ILog.get().error(ex.getMessage(), ex);
+			}
+			this.releaseFileManager = null;
+			this.releasePlatform = null;
+		}
+		if (platform == null) {
+			return true;
+		}
+		JavaFileManager platformFileManager;
+		synchronized (platform) { // the platform caches its ct.sym filesystem in a plain map
+			platformFileManager = platform.getFileManager();
+		}
+		if (platformFileManager instanceof JavacFileManager javacFileManager) {
+			this.releaseFileManager = javacFileManager;
+			this.releasePlatform = platform;
+			return true;
+		}
+		try {
+			platformFileManager.close();
+		} catch (IOException ex) {
+			ILog.get().error(ex.getMessage(), ex);
+		}
+		return false;
+	}
+
+	/// @return the release file manager if it handles the given location, `null` otherwise
+	private JavacFileManager releaseFileManager(Location location) {
+		return this.releaseFileManager != null && this.releaseFileManager.hasLocation(location) ? this.releaseFileManager : null;
+	}
+
+	@Override
+	public boolean hasLocation(Location location) {
+		return releaseFileManager(location) != null || super.hasLocation(location);
+	}
+
+	@Override
+	public ClassLoader getClassLoader(Location location) {
+		JavacFileManager release = releaseFileManager(location);
+		return release != null ? release.getClassLoader(location) : super.getClassLoader(location);
+	}
+
+	@Override
+	public JavaFileObject getJavaFileForInput(Location location, String className, JavaFileObject.Kind kind) throws IOException {
+		JavacFileManager release = releaseFileManager(location);
+		return release != null ? release.getJavaFileForInput(location, className, kind) : super.getJavaFileForInput(location, className, kind);
+	}
+
+	@Override
+	public FileObject getFileForInput(Location location, String packageName, String relativeName) throws IOException {
+		JavacFileManager release = releaseFileManager(location);
+		return release != null ? release.getFileForInput(location, packageName, relativeName) : super.getFileForInput(location, packageName, relativeName);
+	}
+
+	@Override
+	public Iterable<? extends File> getLocation(Location location) {
+		JavacFileManager release = releaseFileManager(location);
+		return release != null ? release.getLocation(location) : super.getLocation(location);
+	}
+
+	@Override
+	public Collection<? extends Path> getLocationAsPaths(Location location) {
+		JavacFileManager release = releaseFileManager(location);
+		return release != null ? release.getLocationAsPaths(location) : super.getLocationAsPaths(location);
+	}
+
+	@Override
+	public boolean contains(Location location, FileObject fo) throws IOException {
+		JavacFileManager release = releaseFileManager(location);
+		return release != null ? release.contains(location, fo) : super.contains(location, fo);
+	}
+
+	@Override
+	public Location getLocationForModule(Location location, String moduleName) throws IOException {
+		JavacFileManager release = releaseFileManager(location);
+		return release != null ? release.getLocationForModule(location, moduleName) : super.getLocationForModule(location, moduleName);
+	}
+
+	@Override
+	public Location getLocationForModule(Location location, JavaFileObject fo) throws IOException {
+		JavacFileManager release = releaseFileManager(location);
+		return release != null ? release.getLocationForModule(location, fo) : super.getLocationForModule(location, fo);
+	}
+
+	@Override
+	public <S> ServiceLoader<S> getServiceLoader(Location location, Class<S> service) throws IOException {
+		JavacFileManager release = releaseFileManager(location);
+		return release != null ? release.getServiceLoader(location, service) : super.getServiceLoader(location, service);
+	}
+
+	@Override
+	public String inferModuleName(Location location) {
+		JavacFileManager release = releaseFileManager(location);
+		return release != null ? release.inferModuleName(location) : super.inferModuleName(location);
+	}
+
+	@Override
+	public Iterable<Set<Location>> listLocationsForModules(Location location) throws IOException {
+		JavacFileManager release = releaseFileManager(location);
+		return release != null ? release.listLocationsForModules(location) : super.listLocationsForModules(location);
+	}
+
+	@Override
+	public String inferBinaryName(Location location, JavaFileObject file) {
+		JavacFileManager release = releaseFileManager(location);
+		if (release != null) {
+			return release.inferBinaryName(location, file);
+		}
+		String res = this.workingCopyBinaryNames.get(file);
+		return res != null ? res : super.inferBinaryName(location, file);
 	}
 
 	Collection<FileSystem> listFilesystemsInArchiveContainers() {
@@ -0,0 +1,82 @@
+/*******************************************************************************
+* Copyright (c) 2024 Red Hat, Inc. and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License 2.0
+* which accompanies this distribution, and is available at
+* https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*******************************************************************************/
+package org.eclipse.jdt.internal.javac;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import javax.tools.JavaFileManager;
+
+import com.sun.tools.javac.main.Arguments;
+import com.sun.tools.javac.main.Option;
+import com.sun.tools.javac.platform.PlatformDescription;
+import com.sun.tools.javac.platform.PlatformUtils;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Context.Factory;
+import com.sun.tools.javac.util.Options;
+
+/// Handles `--release` without looking up a new [PlatformDescription] on each task: the
+/// stock implementation opens `ct.sym` again for every task, and wraps the file manager of the
+/// context into a delegating one.
+///
+/// Here, the platform descriptions are shared per release, so `ct.sym` is opened once, and the
+/// platform classes are served by the [CachingJarsJavaFileManager] itself (see
+/// [CachingJarsJavaFileManager#setRelease(PlatformDescription)]), which keeps its platform file
+/// manager as long as it lives, eg in a pooled context.
+///
+/// The platform description isn't registered in the context as it must not be closed by the
+/// compiler; JDK platforms have no plugins nor annotation processors anyway.
+public class CachingReleaseArguments extends Arguments {
+
+	/// Whether release arguments are cached, using `-DCachingReleaseArguments.ENABLED=true`
+	public static boolean isEnabled() {
+		return Boolean.getBoolean(CachingReleaseArguments.class.getSimpleName() + ".ENABLED"); //$NON-NLS-1$
+	}
+
+	/// platform descriptions by release, kept open for the whole session
+	private static final Map<String, PlatformDescription> platforms = new ConcurrentHashMap<>();
+
+	private final Context context;
+	private final Options options;
+
+	/// Registers a factory for the arguments of the given context, which must not have created
+	/// its arguments yet.
+	public static void preRegister(Context context) {
+		context.put(Arguments.argsKey, (Factory<Arguments>)CachingReleaseArguments::new);
+	}
+
+	protected CachingReleaseArguments(Context context) {
+		super(context);
+		this.context = context;
+		this.options = Options.instance(context);
+	}
+
+	@Override
+	public boolean handleReleaseOptions(Predicate<Iterable<String>> additionalOptions) {
+		String release = this.options.get(Option.RELEASE);
+		if (release == null
+			|| !(this.context.get(JavaFileManager.class) instanceof CachingJarsJavaFileManager fileManager)) {
+			return super.handleReleaseOptions(additionalOptions);
+		}
+		PlatformDescription platform = platforms.computeIfAbsent(release, PlatformUtils::lookupPlatformDescription);
+		if (platform == null || !platform.getAdditionalOptions().isEmpty()) {
+			// let javac report unsupported releases
+			return super.handleReleaseOptions(additionalOptions);
+		}
+		// options conflicting with --release are not checked as they're never set together by JavacUtils
+		if (!fileManager.setRelease(platform)) {
+			return super.handleReleaseOptions(additionalOptions);
+		}
+		this.options.put(Option.SOURCE, platform.getSourceVersion());
+		this.options.put(Option.TARGET, platform.getTargetVersion());
+		return true;
+	}
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+* Copyright (c) 2024 Red Hat, Inc. and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License 2.0
+* which accompanies this distribution, and is available at
+* https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*******************************************************************************/
+package org.eclipse.jdt.internal.javac;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.tools.JavaFileObject;
+
+import com.sun.tools.javac.parser.JavadocTokenizer;
+import com.sun.tools.javac.parser.Scanner;
+import com.sun.tools.javac.parser.ScannerFactory;
+import com.sun.tools.javac.parser.Tokens.Comment;
+import com.sun.tools.javac.parser.Tokens.Comment.CommentStyle;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Context.Factory;
+import com.sun.tools.javac.util.Log;
+
+/// Records all the comments met by javac while parsing some given files, so they don't need to be
+/// found again by scanning the whole file another time once converted to DOM.
+///
+/// Only the files passed to [#record(JavaFileObject)] are recorded, and only when javac keeps
+/// the doc comments (as done for DOM), so other tasks sharing the context aren't affected.
+public class CommentRecordingScannerFactory extends ScannerFactory {
+
+	/// Whether new contexts record comments, using `-DCommentRecordingScannerFactory.ENABLED=true`
+	public static boolean isEnabled() {
+		return Boolean.getBoolean(CommentRecordingScannerFactory.class.getSimpleName() + ".ENABLED"); //$NON-NLS-1$
+	}
+
+	/// A comment as met by the tokenizer, with its bounds in the source
+	public record RecordedComment(Comment comment, int pos, int endPos) {
+	}
+
+	private final Log log;
+	private final Map<JavaFileObject, List<RecordedComment>> comments = new ConcurrentHashMap<>();
+
+	/// Registers a factory for the scanner factory of the given context, which must not have
+	/// created its scanner factory yet.
+	public static void preRegister(Context context) {
+		context.put(scannerFactoryKey, (Factory<ScannerFactory>)CommentRecordingScannerFactory::new);
+	}
+
+	/// @return the factory of the given context, or `null` if it doesn't record comments
+	public static CommentRecordingScannerFactory instance(Context context) {
+		return ScannerFactory.instance(context) instanceof CommentRecordingScannerFactory res ? res : null;
+	}
+
+	protected CommentRecordingScannerFactory(Context context) {
+		super(context);
+		this.log = Log.instance(context);
+	}
+
+	/// Starts recording the comments of the given file, for its next parse.
+	public void record(JavaFileObject file) {
+		// replaced by a mutable list once parsing starts
+		this.comments.put(file, List.of());
+	}
+
+	/// Stops recording the comments of the given file.
+	/// @return the comments met during the last parse of the file, in source order, or `null` if
+	///         the file wasn't parsed with comments recorded
+	public List<RecordedComment> take(JavaFileObject file) {
+		List<RecordedComment> res = this.comments.remove(file);
+		return res == null || res instanceof ArrayList ? res : null;
+	}
+
+	@Override
+	public Scanner newScanner(CharSequence input, boolean keepDocComments) {
+		List<RecordedComment> recorded = recorder(keepDocComments);
+		if (recorded == null) {
+			return super.newScanner(input, keepDocComments);
+		}
+		if (input instanceof CharBuffer charBuffer) {
+			return new RecordingScanner(this, new RecordingTokenizer(this, charBuffer, recorded));
+		}
+		char[] array = input.toString().toCharArray();
+		return new RecordingScanner(this, new RecordingTokenizer(this, array, array.length, recorded));
+	}
+
+	@Override
+	public Scanner newScanner(char[] input, int inputLength, boolean keepDocComments) {
+		List<RecordedComment> recorded = recorder(keepDocComments);
+		if (recorded == null) {
+			return super.newScanner(input, inputLength, keepDocComments);
+		}
+		return new RecordingScanner(this, new RecordingTokenizer(this, input, inputLength, recorded));
+	}
+
+	/// @return the list to record the comments of the file being parsed into, or `null`
+	private List<RecordedComment> recorder(boolean keepDocComments) {
+		JavaFileObject file = this.log.currentSourceFile();
+		if (!keepDocComments || file == null) {
+			return null;
+		}
+		// reset in case the same file is parsed again
+		return this.comments.computeIfPresent(file, (f, previous) -> new ArrayList<>());
+	}
+
+	private static class RecordingScanner extends Scanner {
+		RecordingScanner(ScannerFactory factory, JavadocTokenizer tokenizer) {
+			// subclass just to access constructor
+			super(factory, tokenizer);
+		}
+	}
+
+	private static class RecordingTokenizer extends JavadocTokenizer {
+		private final List<RecordedComment> recorded;
+
+		RecordingTokenizer(ScannerFactory factory, CharBuffer input, List<RecordedComment> recorded) {
+			super(factory, input);
+			this.recorded = recorded;
+		}
+
+		RecordingTokenizer(ScannerFactory factory, char[] input, int inputLength, List<RecordedComment> recorded) {
+			super(factory, input, inputLength);
+			this.recorded = recorded;
+		}
+
+		@Override
+		protected Comment processComment(int pos, int endPos, CommentStyle style) {
+			Comment res = super.processComment(pos, endPos, style);
+			// workaround Java bug 9077218: `/**/` isn't a doc comment, but the parser is left unchanged
+			Comment recordedComment = style == CommentStyle.JAVADOC_BLOCK && endPos - pos <= 4
+				? super.processComment(pos, endPos, CommentStyle.BLOCK)
+				: res;
+			this.recorded.add(new RecordedComment(recordedComment, pos, endPos));
+			return res;
+		}
+	}
+}
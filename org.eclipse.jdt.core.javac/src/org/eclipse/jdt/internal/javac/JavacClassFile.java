@@ -34,20 +34,32 @@ public class JavacClassFile extends ClassFile {
 	private IContainer outputDir;
 	private byte[] bytes = null;
 	private File proxyFile = null;
+	/// where to get the bytes from, if class files are kept in memory
+	private final JavacClassOutput classOutput;
 
 	public JavacClassFile(String qualifiedName, ClassFile enclosingClass, IContainer outputDir) {
+		this(qualifiedName, enclosingClass, outputDir, null);
+	}
+
+	public JavacClassFile(String qualifiedName, ClassFile enclosingClass, IContainer outputDir, JavacClassOutput classOutput) {
 		this.fullName = qualifiedName;
 		this.isNestedType = enclosingClass != null;
 		this.enclosingClassFile = enclosingClass;
 		this.outputDir = outputDir;
+		this.classOutput = classOutput;
 	}
 
 	public JavacClassFile(JCModuleDecl moduleDecl, IContainer outputDir) {
+		this(moduleDecl, outputDir, null);
+	}
+
+	public JavacClassFile(JCModuleDecl moduleDecl, IContainer outputDir, JavacClassOutput classOutput) {
 		// TODO: moduleDecl probably needs to be used, but how?
 		this.fullName = "module-info";
 		this.isNestedType = false;
 		this.enclosingClassFile = null;
 		this.outputDir = outputDir;
+		this.classOutput = classOutput;
 	}
 
 	@Override
@@ -69,6 +81,10 @@ public class JavacClassFile extends ClassFile {
 
 	@Override
 	public byte[] getBytes() {
+		if (this.bytes == null && this.classOutput != null) {
+			byte[] inMemory = this.classOutput.remove(this.outputDir, this.fullName);
+			this.bytes = inMemory != null ? inMemory : new byte[0];
+		}
 		if (this.bytes == null) {
 			File tempClassFile = this.getProxyTempClassFile();
 			if (tempClassFile == null || !tempClassFile.exists()) {
@@ -94,6 +110,10 @@ public class JavacClassFile extends ClassFile {
 	}
 
 	void deleteTempClassFile() {
+		if (this.classOutput != null) {
+			this.classOutput.remove(this.outputDir, this.fullName);
+			return;
+		}
 		File tempClassFile = this.getProxyTempClassFile();
 		if (tempClassFile != null && tempClassFile.exists()) {
 			tempClassFile.delete();
@@ -0,0 +1,85 @@
+/*******************************************************************************
+* Copyright (c) 2024 Red Hat, Inc. and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License 2.0
+* which accompanies this distribution, and is available at
+* https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*******************************************************************************/
+package org.eclipse.jdt.internal.javac;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+import org.eclipse.core.resources.IContainer;
+
+/// Keeps the class files generated by javac in memory, so they're handed to the image builder
+/// through [JavacClassFile#getBytes()] without being written to, and read back from, the
+/// temporary output folder (see [JavacClassFile#getMappedTempOutput(IContainer)]).
+///
+/// Used by [CachingJarsJavaFileManager] for the [javax.tools.StandardLocation#CLASS_OUTPUT] location
+/// once set with [CachingJarsJavaFileManager#setClassOutput(JavacClassOutput)].
+public class JavacClassOutput {
+
+	private static final AtomicLong bytesAvoided = new AtomicLong();
+
+	private final Map<IContainer, Map<String, byte[]>> classes = new ConcurrentHashMap<>();
+	private volatile IContainer outputDir;
+
+	/// Sets the output folder the next generated class files are meant to
+	public void setOutputDir(IContainer outputDir) {
+		this.outputDir = outputDir;
+	}
+
+	JavaFileObject getJavaFileForOutput(String className) {
+		IContainer currentOutputDir = this.outputDir;
+		File tempFile = JavacClassFile.computeMappedTempClassFile(currentOutputDir, className);
+		URI uri = tempFile != null ? tempFile.toURI() : URI.create("mem:///" + className.replace('.', '/') + JavaFileObject.Kind.CLASS.extension); //$NON-NLS-1$
+		return new SimpleJavaFileObject(uri, JavaFileObject.Kind.CLASS) {
+			@Override
+			public OutputStream openOutputStream() {
+				return new ByteArrayOutputStream() {
+					@Override
+					public void close() {
+						byte[] bytes = toByteArray();
+						JavacClassOutput.this.classes.computeIfAbsent(currentOutputDir, dir -> new ConcurrentHashMap<>()).put(className, bytes);
+						bytesAvoided.addAndGet(bytes.length);
+					}
+				};
+			}
+
+			@Override
+			public boolean delete() {
+				return remove(currentOutputDir, className) != null;
+			}
+		};
+	}
+
+	/// @param className the flat name of the class, with `.` as separator
+	/// @return the bytes generated for the given class, or `null` if it wasn't generated
+	byte[] get(IContainer outputDir, String className) {
+		Map<String, byte[]> inOutputDir = this.classes.get(outputDir);
+		return inOutputDir != null ? inOutputDir.get(className) : null;
+	}
+
+	/// Forgets about the given class once it's been handed to the builder.
+	byte[] remove(IContainer outputDir, String className) {
+		Map<String, byte[]> inOutputDir = this.classes.get(outputDir);
+		return inOutputDir != null ? inOutputDir.remove(className) : null;
+	}
+
+	/// @return the total size of the class files that were kept in memory instead of going through
+	///         the temporary output folder
+	public static long getBytesAvoided() {
+		return bytesAvoided.get();
+	}
+}
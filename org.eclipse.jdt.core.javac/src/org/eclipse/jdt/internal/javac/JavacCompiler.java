@@ -14,11 +14,19 @@ import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -41,6 +49,7 @@ import org.eclipse.jdt.internal.compiler.IErrorHandlingPolicy;
 import org.eclipse.jdt.internal.compiler.IProblemFactory;
 import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
 import org.eclipse.jdt.internal.compiler.env.INameEnvironment;
+import org.eclipse.jdt.internal.compiler.problem.ProblemSeverities;
 import org.eclipse.jdt.internal.core.JavaProject;
 import org.eclipse.jdt.internal.core.builder.SourceFile;
 
@@ -58,10 +67,22 @@ import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Pair;
 
 public class JavacCompiler extends Compiler {
+
+	/// Whether builds reuse a warm javac context per project, using `-DJavacCompiler.INCREMENTAL=true`.
+	/// Only the symbols of the compiled units, and of types whose class files changed, are then
+	/// read again, instead of the whole classpath.
+	private final boolean incremental = Boolean.getBoolean(JavacCompiler.class.getSimpleName() + ".INCREMENTAL"); //$NON-NLS-1$
+	/// Whether generated class files are kept in memory instead of going through a temporary folder
+	/// (see [JavacClassOutput]), using `-DJavacCompiler.IN_MEMORY_CLASS_OUTPUT=true`
+	private final boolean inMemoryClassOutput = Boolean.getBoolean(JavacCompiler.class.getSimpleName() + ".IN_MEMORY_CLASS_OUTPUT"); //$NON-NLS-1$
+	/// Whether the output folders of a project (main, test, generated...) are compiled concurrently,
+	/// each with its own context, using `-DJavacCompiler.PARALLEL=true`
+	private final boolean parallel = Boolean.getBoolean(JavacCompiler.class.getSimpleName() + ".PARALLEL"); //$NON-NLS-1$
+
 	JavacConfig compilerConfig;
 	IProblemFactory problemFactory;
 
-	Map<JavaFileObject, ICompilationUnit> fileObjectToCUMap = new HashMap<>();
+	Map<JavaFileObject, ICompilationUnit> fileObjectToCUMap = new ConcurrentHashMap<>();
 
 	public JavacCompiler(INameEnvironment environment, IErrorHandlingPolicy policy, CompilerConfiguration compilerConfig,
 			ICompilerRequestor requestor, IProblemFactory problemFactory) {
@@ -72,27 +93,6 @@ public class JavacCompiler extends Compiler {
 
 	@Override
 	public void compile(ICompilationUnit[] sourceUnits) {
-		Context javacContext = new Context();
-		Map<ICompilationUnit, List<IProblem>> javacProblems = new HashMap<>();
-		JavacProblemConverter problemConverter = new JavacProblemConverter(this.compilerConfig.compilerOptions(), javacContext);
-		javacContext.put(DiagnosticListener.class, diagnostic -> {
-			if (diagnostic.getSource() instanceof JavaFileObject fileObject) {
-				JavacProblem javacProblem = problemConverter.createJavacProblem(diagnostic);
-				if (javacProblem != null) {
-					ICompilationUnit originalUnit = this.fileObjectToCUMap.get(fileObject);
-					if (originalUnit == null) {
-						return;
-					}
-					List<IProblem> previous = javacProblems.get(originalUnit);
-					if (previous == null) {
-						previous = new ArrayList<>();
-						javacProblems.put(originalUnit, previous);
-					}
-					previous.add(javacProblem);
-				}
-			}
-		});
-
 		IJavaProject javaProject = Stream.of(sourceUnits).filter(SourceFile.class::isInstance).map(
 		        SourceFile.class::cast).map(source -> source.resource).map(IResource::getProject).filter(
 		                JavaProject::hasJavaNature).map(JavaCore::create).findFirst().orElse(null);
@@ -118,133 +118,413 @@ public class JavacCompiler extends Compiler {
 			})
 			.collect(Collectors.groupingBy(this::computeOutputDirectory));
 
-		// Register listener to intercept intermediate results from Javac task.
-		JavacTaskListener javacListener = new JavacTaskListener(this.compilerConfig, outputSourceMapping, this.problemFactory, this.fileObjectToCUMap);
-		MultiTaskListener mtl = MultiTaskListener.instance(javacContext);
-		mtl.add(javacListener);
-		mtl.add(new TaskListener() {
-			@Override
-			public void finished(TaskEvent e) {
-				if (e.getSourceFile() != null && fileObjectToCUMap.get(e.getSourceFile()) instanceof JCCompilationUnit u) {
-					problemConverter.registerUnit(e.getSourceFile(), u);
-				}
+		if (this.parallel && outputSourceMapping.size() > 1) {
+			var waves = orderByDependencies(javaProject, outputSourceMapping);
+			if (waves != null) {
+				compileInParallel(sourceUnits, javaProject, waves);
+				return;
 			}
-		});
+			// folders referencing each other are compiled in turn, sharing a context
+		}
+		Context javacContext = createContext(javaProject);
+		try {
+			compile(sourceUnits, javaProject, javacContext, outputSourceMapping);
+		} finally {
+			releaseContext(javacContext);
+		}
+	}
+
+	private Context createContext(IJavaProject javaProject) {
+		Context javacContext;
+		if (this.incremental && javaProject != null) {
+			javacContext = JavacContextPool.getDefault().acquireForBuild(javaProject, this.compilerConfig.compilerOptions().getMap(), BuildJavaCompiler::new);
+		} else {
+			javacContext = new Context();
+			javacContext.put(JavaCompiler.compilerKey, (Context.Factory<JavaCompiler>)BuildJavaCompiler::new);
+			if (this.inMemoryClassOutput) {
+				CachingJarsJavaFileManager.preRegister(javacContext);
+			}
+		}
+		return javacContext;
+	}
+
+	private static void releaseContext(Context javacContext) {
+		if (javacContext.get(JavaFileManager.class) instanceof CachingJarsJavaFileManager fileManager) {
+			fileManager.setClassOutput(null);
+		}
+		// pooled context is kept warm for next build
+		if (!JavacContextPool.getDefault().release(javacContext)) {
+			((BuildJavaCompiler)JavaCompiler.instance(javacContext)).dispose();
+		}
+	}
+
+	private void compile(ICompilationUnit[] sourceUnits, IJavaProject javaProject, Context javacContext,
+			Map<IContainer, List<ICompilationUnit>> outputSourceMapping) {
+		// Register listener to intercept intermediate results from Javac task.
+		JavacClassOutput classOutput = this.inMemoryClassOutput ? new JavacClassOutput() : null;
+		JavacTaskListener javacListener = new JavacTaskListener(this.compilerConfig, outputSourceMapping, this.problemFactory, this.fileObjectToCUMap, classOutput);
+		Map<ICompilationUnit, List<IProblem>> javacProblems = registerListeners(javacContext, javacListener);
 
 		for (Entry<IContainer, List<ICompilationUnit>> outputSourceSet : outputSourceMapping.entrySet()) {
-			// Configure Javac to generate the class files in a mapped temporary location
-			var outputDir = JavacClassFile.getMappedTempOutput(outputSourceSet.getKey()).toFile();
-			javacListener.setOutputDir(outputSourceSet.getKey());
-			JavacUtils.configureJavacContext(javacContext, this.compilerConfig, javaProject, outputDir, true);
-			JavaCompiler javac = new JavaCompiler(javacContext) {
-				boolean isInGeneration = false;
-
-				@Override
-				protected boolean shouldStop(CompileState cs) {
-					// Never stop
-					return false;
-				}
+			compileOutputFolder(javacContext, javacListener, classOutput, javaProject, outputSourceSet.getKey(), outputSourceSet.getValue());
+			for (int i = 0; i < sourceUnits.length; i++) {
+				acceptResult(toResult(sourceUnits, i, javacListener, javacProblems));
+			}
+		}
+	}
 
-				@Override
-				public void generate(Queue<Pair<Env<AttrContext>, JCClassDecl>> queue, Queue<JavaFileObject> results) {
+	/// Compiles the units of each output folder with its own context, concurrently. An output folder is
+	/// only compiled once the folders it depends on (see [#orderByDependencies(IJavaProject, Map)]) are
+	/// done and their results accepted, so it sees their up-to-date class files on its classpath.
+	/// Results are handed to the requestor in the order of the source units, so they don't depend on
+	/// which compilation ends first.
+	private void compileInParallel(ICompilationUnit[] sourceUnits, IJavaProject javaProject,
+			List<List<Entry<IContainer, List<ICompilationUnit>>>> waves) {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(waves.stream().mapToInt(List::size).max().orElse(1), Runtime.getRuntime().availableProcessors()));
+		try {
+			Set<ICompilationUnit> accepted = new HashSet<>();
+			for (List<Entry<IContainer, List<ICompilationUnit>>> wave : waves) {
+				List<Future<OutputFolderCompilation>> compilations = wave.stream()
+					.map(entry -> executor.submit(() -> compileOutputFolder(javaProject, entry.getKey(), entry.getValue())))
+					.toList();
+				Map<ICompilationUnit, OutputFolderCompilation> unitCompilations = new HashMap<>();
+				Map<ICompilationUnit, List<IProblem>> failures = new HashMap<>();
+				for (int j = 0; j < compilations.size(); j++) {
 					try {
-						this.isInGeneration = true;
-						super.generate(queue, results);
-					} catch (Throwable ex) {
-						// TODO error handling
-					} finally {
-						this.isInGeneration = false;
+						OutputFolderCompilation done = compilations.get(j).get();
+						// resources can only be modified from the builder thread
+						done.listener().writeDeferredClassFiles();
+						done.units().forEach(unit -> unitCompilations.put(unit, done));
+					} catch (ExecutionException e) {
+						ILog.get().error("compilation failed", e.getCause()); //$NON-NLS-1$
+						// the units must not look like they compiled cleanly
+						for (ICompilationUnit unit : wave.get(j).getValue()) {
+							failures.put(unit, List.of(compilationFailure(unit, e.getCause())));
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
 					}
 				}
-
-				@Override
-				protected void desugar(Env<AttrContext> env, Queue<Pair<Env<AttrContext>, JCClassDecl>> results) {
-					try {
-						super.desugar(env, results);
-					} catch (Throwable ex) {
-						// TODO error handling
+				for (int i = 0; i < sourceUnits.length; i++) {
+					OutputFolderCompilation compilation = unitCompilations.get(sourceUnits[i]);
+					if (compilation != null) {
+						acceptResult(toResult(sourceUnits, i, compilation.listener(), compilation.problems()));
+						accepted.add(sourceUnits[i]);
+					} else if (failures.containsKey(sourceUnits[i])) {
+						acceptResult(toResult(sourceUnits, i, null, failures));
+						accepted.add(sourceUnits[i]);
 					}
 				}
+			}
+			// units that weren't compiled (eg generated sources) still need a result
+			for (int i = 0; i < sourceUnits.length; i++) {
+				if (!accepted.contains(sourceUnits[i])) {
+					acceptResult(toResult(sourceUnits, i, null, Map.of()));
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
 
-				@Override
-				public int errorCount() {
-					// See JavaCompiler.genCode(Env<AttrContext> env, JCClassDecl cdef),
-					// it stops writeClass if errorCount is not zero.
-					// Force it to return 0 if we are in generation phase, and keeping
-					// generating class files for those files without errors.
-					return this.isInGeneration ? 0 : super.errorCount();
+	/// An error at the start of the unit, reporting that its compilation failed with the given exception
+	private CategorizedProblem compilationFailure(ICompilationUnit unit, Throwable failure) {
+		String message = "Compilation failed: " + failure; //$NON-NLS-1$
+		return this.problemFactory.createProblem(unit.getFileName(), IProblem.Unclassified,
+				new String[] { message }, new String[] { message }, ProblemSeverities.Error, 0, 0, 1, 1);
+	}
+
+	/// Groups the output folders in waves so each folder comes after the folders it depends on, and
+	/// folders of a same wave can be compiled concurrently. Output folders of test sources depend on
+	/// all the other ones; otherwise a folder depends on another one when its units mention a type
+	/// name declared by the units of the other one. This is an over-approximation (names in comments,
+	/// same simple names in different packages...), which only costs some concurrency.
+	/// @return the waves, or `null` if some folders depend on each other so they can't be compiled
+	///         separately from the class files of the others
+	static List<List<Entry<IContainer, List<ICompilationUnit>>>> orderByDependencies(IJavaProject javaProject,
+			Map<IContainer, List<ICompilationUnit>> outputSourceMapping) {
+		List<Entry<IContainer, List<ICompilationUnit>>> outputs = new ArrayList<>(outputSourceMapping.entrySet());
+		int count = outputs.size();
+		boolean[] tests = new boolean[count];
+		List<Set<String>> declaredTypes = new ArrayList<>(count);
+		List<Set<String>> usedNames = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			List<ICompilationUnit> units = outputs.get(i).getValue();
+			tests[i] = JavacUtils.isTest(javaProject, units.toArray(ICompilationUnit[]::new));
+			Set<String> declared = new HashSet<>();
+			Set<String> used = new HashSet<>();
+			for (ICompilationUnit unit : units) {
+				scanNames(unit, declared, used);
+			}
+			declaredTypes.add(declared);
+			usedNames.add(used);
+		}
+		// dependencies[i] lists the folders i must wait for
+		List<Set<Integer>> dependencies = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Set<Integer> dependsOn = new HashSet<>();
+			for (int j = 0; j < count; j++) {
+				if (i == j || (tests[j] && !tests[i])) {
+					// main sources can't see test sources
+					continue;
+				}
+				if ((tests[i] && !tests[j]) || !Collections.disjoint(usedNames.get(i), declaredTypes.get(j))) {
+					dependsOn.add(j);
+				}
+			}
+			dependencies.add(dependsOn);
+		}
+		List<List<Entry<IContainer, List<ICompilationUnit>>>> waves = new ArrayList<>();
+		Set<Integer> done = new HashSet<>();
+		while (done.size() < count) {
+			List<Integer> wave = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				if (!done.contains(i) && done.containsAll(dependencies.get(i))) {
+					wave.add(i);
 				}
-			};
-			javacContext.put(JavaCompiler.compilerKey, javac);
-			javac.shouldStopPolicyIfError = CompileState.GENERATE;
-			JavacFileManager fileManager = (JavacFileManager)javacContext.get(JavaFileManager.class);
-			try {
-				javac.compile(com.sun.tools.javac.util.List.from(outputSourceSet.getValue().stream()
-						.filter(SourceFile.class::isInstance).map(SourceFile.class::cast).map(source -> {
-							File unitFile;
-							// path is relative to the workspace, make it absolute
-							IResource asResource = javaProject.getProject().getParent()
-									.findMember(new String(source.getFileName()));
-							if (asResource != null) {
-								unitFile = asResource.getLocation().toFile();
-							} else {
-								unitFile = new File(new String(source.getFileName()));
-							}
-							JavaFileObject jfo = fileManager.getJavaFileObject(unitFile.getAbsolutePath());
-							fileObjectToCUMap.put(jfo, source);
-							return jfo;
-						}).toList()));
-			} catch (Throwable e) {
-				// TODO fail
-				ILog.get().error("compilation failed", e);
 			}
+			if (wave.isEmpty()) {
+				return null;
+			}
+			done.addAll(wave);
+			waves.add(wave.stream().map(outputs::get).toList());
+		}
+		return waves;
+	}
 
-			for (int i = 0; i < sourceUnits.length; i++) {
-				ICompilationUnit in = sourceUnits[i];
-				CompilationResult result = new CompilationResult(in, i, sourceUnits.length, Integer.MAX_VALUE);
-				List<IProblem> problems = new ArrayList<>();
-				if (javacListener.getResults().containsKey(in)) {
-					result = javacListener.getResults().get(in);
-					((JavacCompilationResult) result).migrateReferenceInfo();
-					result.unitIndex = i;
-					result.totalUnitsKnown = sourceUnits.length;
-					List<CategorizedProblem> additionalProblems = ((JavacCompilationResult) result).getAdditionalProblems();
-					if (additionalProblems != null && !additionalProblems.isEmpty()) {
-						problems.addAll(additionalProblems);
+	/// Collects the names of the types declared by the unit, and all the identifiers it uses
+	private static void scanNames(ICompilationUnit unit, Set<String> declared, Set<String> used) {
+		char[] mainTypeName = unit.getMainTypeName();
+		if (mainTypeName != null) {
+			declared.add(new String(mainTypeName));
+		}
+		char[] contents = unit.getContents();
+		boolean afterTypeKeyword = false;
+		for (int i = 0; i < contents.length;) {
+			if (!Character.isJavaIdentifierStart(contents[i])) {
+				if (!Character.isWhitespace(contents[i])) {
+					afterTypeKeyword = false;
+				}
+				i++;
+				continue;
+			}
+			int start = i++;
+			while (i < contents.length && Character.isJavaIdentifierPart(contents[i])) {
+				i++;
+			}
+			String identifier = new String(contents, start, i - start);
+			if (afterTypeKeyword) {
+				declared.add(identifier);
+			} else {
+				used.add(identifier);
+			}
+			afterTypeKeyword = switch (identifier) {
+				case "class", "interface", "enum", "record" -> true; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				default -> false;
+			};
+		}
+	}
+
+	private record OutputFolderCompilation(List<ICompilationUnit> units, JavacTaskListener listener, Map<ICompilationUnit, List<IProblem>> problems) {
+	}
+
+	private OutputFolderCompilation compileOutputFolder(IJavaProject javaProject, IContainer output, List<ICompilationUnit> units) {
+		Context javacContext = createContext(javaProject);
+		try {
+			JavacClassOutput classOutput = this.inMemoryClassOutput ? new JavacClassOutput() : null;
+			JavacTaskListener javacListener = new JavacTaskListener(this.compilerConfig, Map.of(output, units), this.problemFactory, this.fileObjectToCUMap, classOutput);
+			javacListener.deferClassFileWrites();
+			Map<ICompilationUnit, List<IProblem>> javacProblems = registerListeners(javacContext, javacListener);
+			compileOutputFolder(javacContext, javacListener, classOutput, javaProject, output, units);
+			return new OutputFolderCompilation(units, javacListener, javacProblems);
+		} finally {
+			releaseContext(javacContext);
+		}
+	}
+
+	/// Forwards diagnostics and task events of the context to the listener and problem converter.
+	/// @return the problems reported by javac, by unit
+	private Map<ICompilationUnit, List<IProblem>> registerListeners(Context javacContext, JavacTaskListener javacListener) {
+		Map<ICompilationUnit, List<IProblem>> javacProblems = new HashMap<>();
+		JavacProblemConverter problemConverter = new JavacProblemConverter(this.compilerConfig.compilerOptions(), javacContext);
+		javacContext.put(DiagnosticListener.class, diagnostic -> {
+			if (diagnostic.getSource() instanceof JavaFileObject fileObject) {
+				JavacProblem javacProblem = problemConverter.createJavacProblem(diagnostic);
+				if (javacProblem != null) {
+					ICompilationUnit originalUnit = this.fileObjectToCUMap.get(fileObject);
+					if (originalUnit == null) {
+						return;
+					}
+					List<IProblem> previous = javacProblems.get(originalUnit);
+					if (previous == null) {
+						previous = new ArrayList<>();
+						javacProblems.put(originalUnit, previous);
 					}
+					previous.add(javacProblem);
 				}
+			}
+		});
 
-				if (javacProblems.containsKey(in)) {
-					problems.addAll(javacProblems.get(in));
+		MultiTaskListener mtl = MultiTaskListener.instance(javacContext);
+		mtl.add(javacListener);
+		mtl.add(new TaskListener() {
+			@Override
+			public void finished(TaskEvent e) {
+				if (e.getSourceFile() != null && fileObjectToCUMap.get(e.getSourceFile()) instanceof JCCompilationUnit u) {
+					problemConverter.registerUnit(e.getSourceFile(), u);
 				}
-				// JavaBuilder is responsible for converting the problems to IMarkers
-				result.problems = problems.toArray(new CategorizedProblem[0]);
-				result.problemCount = problems.size();
-				this.requestor.acceptResult(result);
-				if (result.compiledTypes != null) {
-					for (Object type : result.compiledTypes.values()) {
-						if (type instanceof JavacClassFile classFile) {
-							// Delete the temporary class file generated by Javac
-							classFile.deleteTempClassFile();
-							/**
-							 * Javac does not generate class files for files with errors.
-							 * However, we return 0 bytes to the CompilationResult to
-							 * prevent NPE when the ImageBuilder writes failed class files.
-							 * These 0-byte class files are empty and meaningless, which
-							 * can confuse subsequent compilations since they are included
-							 * in the classpath. Therefore, they should be deleted after
-							 * compilation.
-							 */
-							if (classFile.getBytes().length == 0) {
-								classFile.deleteExpectedClassFile();
-							}
+			}
+		});
+		return javacProblems;
+	}
+
+	private void compileOutputFolder(Context javacContext, JavacTaskListener javacListener, JavacClassOutput classOutput,
+			IJavaProject javaProject, IContainer output, List<ICompilationUnit> units) {
+		// Configure Javac to generate the class files in a mapped temporary location
+		var outputDir = JavacClassFile.getMappedTempOutput(output).toFile();
+		javacListener.setOutputDir(output);
+		JavacUtils.configureJavacContext(javacContext, this.compilerConfig, javaProject, outputDir, true);
+		JavaCompiler javac = JavaCompiler.instance(javacContext);
+		javac.newRound();
+		javac.shouldStopPolicyIfError = CompileState.GENERATE;
+		JavacFileManager fileManager = (JavacFileManager)javacContext.get(JavaFileManager.class);
+		if (classOutput != null && fileManager instanceof CachingJarsJavaFileManager cachingFileManager) {
+			classOutput.setOutputDir(output);
+			cachingFileManager.setClassOutput(classOutput);
+		}
+		try {
+			javac.compile(com.sun.tools.javac.util.List.from(units.stream()
+					.filter(SourceFile.class::isInstance).map(SourceFile.class::cast).map(source -> {
+						File unitFile;
+						// path is relative to the workspace, make it absolute
+						IResource asResource = javaProject.getProject().getParent()
+								.findMember(new String(source.getFileName()));
+						if (asResource != null) {
+							unitFile = asResource.getLocation().toFile();
+						} else {
+							unitFile = new File(new String(source.getFileName()));
 						}
+						JavaFileObject jfo = fileManager.getJavaFileObject(unitFile.getAbsolutePath());
+						fileObjectToCUMap.put(jfo, source);
+						return jfo;
+					}).toList()));
+		} catch (Throwable e) {
+			// TODO fail
+			ILog.get().error("compilation failed", e);
+		}
+	}
+
+	/// @param javacListener the listener that got the results, `null` if the unit wasn't compiled
+	private static CompilationResult toResult(ICompilationUnit[] sourceUnits, int i, JavacTaskListener javacListener,
+			Map<ICompilationUnit, List<IProblem>> javacProblems) {
+		ICompilationUnit in = sourceUnits[i];
+		CompilationResult result = new CompilationResult(in, i, sourceUnits.length, Integer.MAX_VALUE);
+		List<IProblem> problems = new ArrayList<>();
+		if (javacListener != null && javacListener.getResults().containsKey(in)) {
+			result = javacListener.getResults().get(in);
+			((JavacCompilationResult) result).migrateReferenceInfo();
+			result.unitIndex = i;
+			result.totalUnitsKnown = sourceUnits.length;
+			List<CategorizedProblem> additionalProblems = ((JavacCompilationResult) result).getAdditionalProblems();
+			if (additionalProblems != null && !additionalProblems.isEmpty()) {
+				problems.addAll(additionalProblems);
+			}
+		}
+
+		if (javacProblems.containsKey(in)) {
+			problems.addAll(javacProblems.get(in));
+		}
+		// JavaBuilder is responsible for converting the problems to IMarkers
+		result.problems = problems.toArray(new CategorizedProblem[0]);
+		result.problemCount = problems.size();
+		return result;
+	}
+
+	private void acceptResult(CompilationResult result) {
+		this.requestor.acceptResult(result);
+		if (result.compiledTypes != null) {
+			for (Object type : result.compiledTypes.values()) {
+				if (type instanceof JavacClassFile classFile) {
+					// Delete the temporary class file generated by Javac
+					classFile.deleteTempClassFile();
+					/**
+					 * Javac does not generate class files for files with errors.
+					 * However, we return 0 bytes to the CompilationResult to
+					 * prevent NPE when the ImageBuilder writes failed class files.
+					 * These 0-byte class files are empty and meaningless, which
+					 * can confuse subsequent compilations since they are included
+					 * in the classpath. Therefore, they should be deleted after
+					 * compilation.
+					 */
+					if (classFile.getBytes().length == 0) {
+						classFile.deleteExpectedClassFile();
 					}
 				}
 			}
 		}
 	}
 
+	/// The compiler used for builds: it keeps generating class files for units without errors,
+	/// and can be reused for several output folders, or several builds with `-DJavacCompiler.INCREMENTAL=true`.
+	private static class BuildJavaCompiler extends JavaCompiler {
+		boolean isInGeneration = false;
+
+		BuildJavaCompiler(Context context) {
+			super(context);
+		}
+
+		@Override
+		protected boolean shouldStop(CompileState cs) {
+			// Never stop
+			return false;
+		}
+
+		@Override
+		public void generate(Queue<Pair<Env<AttrContext>, JCClassDecl>> queue, Queue<JavaFileObject> results) {
+			try {
+				this.isInGeneration = true;
+				super.generate(queue, results);
+			} catch (Throwable ex) {
+				// TODO error handling
+			} finally {
+				this.isInGeneration = false;
+			}
+		}
+
+		@Override
+		protected void desugar(Env<AttrContext> env, Queue<Pair<Env<AttrContext>, JCClassDecl>> results) {
+			try {
+				super.desugar(env, results);
+			} catch (Throwable ex) {
+				// TODO error handling
+			}
+		}
+
+		@Override
+		public int errorCount() {
+			// See JavaCompiler.genCode(Env<AttrContext> env, JCClassDecl cdef),
+			// it stops writeClass if errorCount is not zero.
+			// Force it to return 0 if we are in generation phase, and keeping
+			// generating class files for those files without errors.
+			return this.isInGeneration ? 0 : super.errorCount();
+		}
+
+		@Override
+		protected void checkReusable() {
+			// components are kept between compilations
+		}
+
+		@Override
+		public void close() {
+			// do nothing, components are kept for next output folder or build
+		}
+
+		void dispose() {
+			super.close();
+		}
+	}
+
 	private IContainer computeOutputDirectory(ICompilationUnit unit) {
 		if (unit instanceof SourceFile sf) {
 			IContainer sourceDirectory = sf.resource.getParent();
@@ -0,0 +1,623 @@
+/*******************************************************************************
+* Copyright (c) 2024 Red Hat, Inc. and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License 2.0
+* which accompanies this distribution, and is available at
+* https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*******************************************************************************/
+package org.eclipse.jdt.internal.javac;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.ILog;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import com.sun.source.util.JavacTask;
+import com.sun.tools.javac.api.JavacTrees;
+import com.sun.tools.javac.api.MultiTaskListener;
+import com.sun.tools.javac.code.ClassFinder;
+import com.sun.tools.javac.code.Preview;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.ModuleSymbol;
+import com.sun.tools.javac.code.Symbol.PackageSymbol;
+import com.sun.tools.javac.code.Symtab;
+import com.sun.tools.javac.code.Types;
+import com.sun.tools.javac.comp.Annotate;
+import com.sun.tools.javac.comp.Check;
+import com.sun.tools.javac.comp.CompileStates;
+import com.sun.tools.javac.comp.Enter;
+import com.sun.tools.javac.comp.Modules;
+import com.sun.tools.javac.file.BaseFileManager;
+import com.sun.tools.javac.main.Arguments;
+import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.model.JavacElements;
+import com.sun.tools.javac.platform.PlatformDescription;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Context.Factory;
+import com.sun.tools.javac.util.Log;
+import com.sun.tools.javac.util.Names;
+import com.sun.tools.javac.util.Options;
+
+/// A pool of warm javac [Context]s for local parsing/resolution, keyed by project,
+/// compiler options and resolved classpath.
+///
+/// Reusing a context keeps the symbols loaded from the JDK and libraries ([Symtab],
+/// [ClassFinder], opened archives...) so subsequent parses of the same project don't
+/// pay again for completing them. Symbols originating from sources are reset when
+/// a context is returned to the pool so they get re-entered on next use; symbols read
+/// from class files of output folders that changed meanwhile are reset when the
+/// context is acquired again. Symbols are reset in place, so the symbols that were
+/// kept and refer to them remain consistent.
+///
+/// The approach is similar to `com.sun.tools.javac.api.JavacTaskPool`, but works with
+/// contexts that are configured directly (see [JavacUtils#configureJavacContext]) rather
+/// than through command-line options.
+///
+/// Caveats:
+/// - A context is leased exclusively: it goes back to the pool only when the caller
+///   [#release(Context)]s it, which, for resolved ASTs, happens when the binding
+///   resolvers using it become unreachable (see [#releaseWhenUnreachable(Object, Context)]).
+/// - Idle contexts are softly referenced so they can be reclaimed under memory pressure.
+/// - Contexts are invalidated when the classpath or the structure of the project changes.
+///
+/// Contexts can also be acquired for builds (see [#acquireForBuild(IJavaProject, Map, Factory)]),
+/// so incremental builds of a project start from a warm context.
+public class JavacContextPool {
+
+	private static final int MAX_SIZE = Integer.getInteger(JavacContextPool.class.getSimpleName() + ".MAX_SIZE", 4); //$NON-NLS-1$
+	/// file timestamps may be truncated by the filesystem
+	private static final long TIMESTAMP_TOLERANCE_MS = 2000;
+
+	private static JavacContextPool instance;
+
+	private final Cleaner cleaner = Cleaner.create();
+	private final int maxSize;
+	/// idle contexts, most recently released first
+	private final LinkedList<SoftReference<ReusableContext>> idle = new LinkedList<>();
+	/// bumped whenever the classpath or structure of the project changes
+	private final Map<String, Integer> projectGenerations = new HashMap<>();
+	/// bumped whenever the output of the project changes (as seen by dependent projects)
+	private final Map<String, Integer> outputGenerations = new HashMap<>();
+
+	private int statReused;
+	private int statNew;
+	private int statDiscarded;
+
+	/// Whether pooling is enabled, using `-DJavacContextPool.ENABLED=true`
+	public static boolean isEnabled() {
+		return Boolean.getBoolean(JavacContextPool.class.getSimpleName() + ".ENABLED"); //$NON-NLS-1$
+	}
+
+	public static synchronized JavacContextPool getDefault() {
+		if (instance == null) {
+			instance = new JavacContextPool(MAX_SIZE);
+			instance.listenToChanges();
+		}
+		return instance;
+	}
+
+	JavacContextPool(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	private record PoolKey(String projectName, Map<String, String> compilerOptions, List<?> resolvedClasspath, boolean isTest, boolean build) {
+	}
+
+	/// Returns a context suitable for parsing units of the given project with the given options. The
+	/// context may be reused from a previous parse; it still needs to be configured as a new one (with
+	/// [JavacUtils#configureJavacContext]) as per-parse state has been dropped.
+	/// @return a context with [CachingJarsJavaFileManager] already registered
+	public Context acquire(IJavaProject javaProject, Map<String, String> compilerOptions, boolean isTest) {
+		return acquire(createKey(javaProject, compilerOptions, isTest, false), javaProject, ReusableJavaCompiler.factory);
+	}
+
+	/// Returns a context suitable for building the given project with the given options, reusing the
+	/// context of a previous build if possible. As for [#acquire(IJavaProject, Map, boolean)], the context
+	/// still needs to be configured, and should be [#release(Context)]d once the build is over.
+	/// @param compilerFactory creates the compiler of the context; the compiler is kept across builds so
+	///        it must support being reused (not closing its components, nor failing on [JavaCompiler#checkReusable()])
+	/// @return a context with [CachingJarsJavaFileManager] already registered
+	public Context acquireForBuild(IJavaProject javaProject, Map<String, String> compilerOptions, Factory<JavaCompiler> compilerFactory) {
+		return acquire(createKey(javaProject, compilerOptions, true, true), javaProject, compilerFactory);
+	}
+
+	private Context acquire(PoolKey key, IJavaProject javaProject, Factory<JavaCompiler> compilerFactory) {
+		Map<String, Integer> outputGenerations = snapshotGenerations(javaProject);
+		ReusableContext res = null;
+		synchronized (this) {
+			for (Iterator<SoftReference<ReusableContext>> it = this.idle.iterator(); it.hasNext();) {
+				ReusableContext candidate = it.next().get();
+				if (candidate == null) {
+					it.remove();
+				} else if (candidate.key.equals(key) && !isStale(candidate)) {
+					it.remove();
+					this.statReused++;
+					res = candidate;
+					break;
+				}
+			}
+			if (res == null) {
+				this.statNew++;
+				res = new ReusableContext(key,
+					key.projectName() == null ? 0 : this.projectGenerations.getOrDefault(key.projectName(), 0),
+					compilerFactory);
+				CachingJarsJavaFileManager.preRegister(res);
+				if (CommentRecordingScannerFactory.isEnabled()) {
+					CommentRecordingScannerFactory.preRegister(res);
+				}
+			}
+		}
+		if (res.outputGenerations != null && !res.outputGenerations.equals(outputGenerations)) {
+			try {
+				res.evictChangedClassFiles();
+			} catch (Exception ex) {
+				ILog.get().warn("Could not evict outdated symbols from javac context", ex); //$NON-NLS-1$
+				dispose(res);
+				return acquire(key, javaProject, compilerFactory);
+			}
+		}
+		res.startRound(outputGenerations);
+		return res;
+	}
+
+	/// Records a source file whose content was cached in the file manager of the context, so
+	/// it can be flushed when the context is returned to the pool.
+	public void cached(Context context, JavaFileObject file) {
+		if (context instanceof ReusableContext reusable) {
+			reusable.cachedFiles.add(file);
+		}
+	}
+
+	/// Records that working copies of the given packages are served lazily by the file manager of
+	/// the context (see [CachingJarsJavaFileManager#addWorkingCopy(String, JavaFileObject, char\[\])]);
+	/// those packages are reset if they were completed by a previous round, so their content gets
+	/// listed again.
+	public void workingCopiesAdded(Context context, Set<String> packageNames) {
+		if (context instanceof ReusableContext reusable && !packageNames.isEmpty() && reusable.isReused()) {
+			reusable.resetPackages(packageNames);
+		}
+	}
+
+	/// Returns the context to the pool, or disposes it if it's not suitable for reuse.
+	/// @return `true` if the context was handled by the pool, `false` if
+	///         the context doesn't originate from the pool (caller remains responsible for it)
+	public boolean release(Context context) {
+		if (!(context instanceof ReusableContext reusable)) {
+			return false;
+		}
+		boolean reusableState = false;
+		try {
+			reusableState = reusable.clear();
+		} catch (Exception ex) {
+			// the context may be in a broken state, don't reuse it
+			ILog.get().warn("Could not clean javac context for reuse", ex); //$NON-NLS-1$
+		}
+		List<ReusableContext> toDispose = new ArrayList<>();
+		synchronized (this) {
+			if (!reusableState || isStale(reusable) || this.maxSize <= 0) {
+				toDispose.add(reusable);
+			} else {
+				this.idle.addFirst(new SoftReference<>(reusable));
+				while (this.idle.size() > this.maxSize) {
+					ReusableContext evicted = this.idle.removeLast().get();
+					if (evicted != null) {
+						toDispose.add(evicted);
+					}
+				}
+			}
+			this.statDiscarded += toDispose.size();
+		}
+		toDispose.forEach(JavacContextPool::dispose);
+		return true;
+	}
+
+	/// Releases the context once the given owner (typically an object shared by all the
+	/// binding resolvers built on top of the context) becomes unreachable.
+	/// The context must not keep a strong reference to the owner.
+	public void releaseWhenUnreachable(Object owner, Context context) {
+		if (context instanceof ReusableContext) {
+			this.cleaner.register(owner, () -> release(context));
+		}
+	}
+
+	private static void dispose(Context context) {
+		try {
+			context.get(JavaFileManager.class).close();
+		} catch (IOException ex) {
+			ILog.get().error(ex.getMessage(), ex);
+		}
+	}
+
+	/// Drops the pooled contexts for the given project.
+	public void invalidate(IJavaProject javaProject) {
+		if (javaProject != null) {
+			bump(this.projectGenerations, javaProject.getElementName());
+		}
+	}
+
+	private synchronized void bump(Map<String, Integer> generations, String projectName) {
+		generations.merge(projectName, 1, Integer::sum);
+		List<ReusableContext> toDispose = new ArrayList<>();
+		for (Iterator<SoftReference<ReusableContext>> it = this.idle.iterator(); it.hasNext();) {
+			ReusableContext candidate = it.next().get();
+			if (candidate == null) {
+				it.remove();
+			} else if (isStale(candidate)) {
+				it.remove();
+				toDispose.add(candidate);
+			}
+		}
+		this.statDiscarded += toDispose.size();
+		if (!toDispose.isEmpty()) {
+			CompletableFuture.runAsync(() -> toDispose.forEach(JavacContextPool::dispose));
+		}
+	}
+
+	private synchronized boolean isStale(ReusableContext context) {
+		return context.key.projectName() != null
+			&& context.projectGeneration != this.projectGenerations.getOrDefault(context.key.projectName(), 0);
+	}
+
+	/// @return the generations of the output of the project and of the projects it requires
+	private synchronized Map<String, Integer> snapshotGenerations(IJavaProject javaProject) {
+		Map<String, Integer> res = new HashMap<>();
+		if (javaProject != null) {
+			res.put(javaProject.getElementName(), this.outputGenerations.getOrDefault(javaProject.getElementName(), 0));
+			try {
+				for (String required : javaProject.getRequiredProjectNames()) {
+					res.put(required, this.outputGenerations.getOrDefault(required, 0));
+				}
+			} catch (JavaModelException ex) {
+				ILog.get().error(ex.getMessage(), ex);
+			}
+		}
+		return res;
+	}
+
+	private static PoolKey createKey(IJavaProject javaProject, Map<String, String> compilerOptions, boolean isTest, boolean build) {
+		List<?> classpath = List.of();
+		if (javaProject != null && javaProject.getProject() != null) {
+			try {
+				classpath = Arrays.asList(javaProject.getResolvedClasspath(true));
+			} catch (JavaModelException ex) {
+				ILog.get().error(ex.getMessage(), ex);
+			}
+		}
+		return new PoolKey(javaProject != null ? javaProject.getElementName() : null, Map.copyOf(compilerOptions), classpath, isTest, build);
+	}
+
+	private void listenToChanges() {
+		try {
+			JavaCore.addElementChangedListener(event -> invalidate(event.getDelta()), ElementChangedEvent.POST_CHANGE);
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(event -> {
+				if (event.getDelta() != null) {
+					for (IResourceDelta projectDelta : event.getDelta().getAffectedChildren()) {
+						bump(this.outputGenerations, projectDelta.getResource().getName());
+					}
+				}
+			}, IResourceChangeEvent.POST_BUILD);
+		} catch (IllegalStateException ex) {
+			// workspace not available, rely on key only
+			ILog.get().warn(ex.getMessage(), ex);
+		}
+	}
+
+	private void invalidate(IJavaElementDelta delta) {
+		IJavaElement element = delta.getElement();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL -> {
+				for (IJavaElementDelta child : delta.getAffectedChildren()) {
+					invalidate(child);
+				}
+			}
+			case IJavaElement.JAVA_PROJECT -> {
+				if (delta.getKind() != IJavaElementDelta.CHANGED
+					|| (delta.getFlags() & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+						| IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED)) != 0) {
+					invalidate(element.getJavaProject());
+				} else {
+					for (IJavaElementDelta child : delta.getAffectedChildren()) {
+						invalidate(child);
+					}
+				}
+			}
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT -> {
+				if (delta.getKind() != IJavaElementDelta.CHANGED
+					|| (delta.getFlags() & (IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_ADDED_TO_CLASSPATH
+						| IJavaElementDelta.F_REMOVED_FROM_CLASSPATH)) != 0) {
+					invalidate(element.getJavaProject());
+				} else {
+					for (IJavaElementDelta child : delta.getAffectedChildren()) {
+						invalidate(child);
+					}
+				}
+			}
+			case IJavaElement.PACKAGE_FRAGMENT, IJavaElement.COMPILATION_UNIT -> {
+				// content changes are fine as source symbols are dropped on release,
+				// but added/removed files change the content of packages
+				if (delta.getKind() != IJavaElementDelta.CHANGED) {
+					invalidate(element.getJavaProject());
+				} else if (element.getElementType() == IJavaElement.PACKAGE_FRAGMENT) {
+					for (IJavaElementDelta child : delta.getAffectedChildren()) {
+						invalidate(child);
+					}
+				}
+			}
+			default -> {
+				// nothing to invalidate
+			}
+		}
+	}
+
+	/// @return the number of contexts waiting in the pool to be reused
+	public synchronized int idleCount() {
+		this.idle.removeIf(ref -> ref.get() == null);
+		return this.idle.size();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return getClass().getSimpleName() + " [" + this.idle.size() + " idle, " //$NON-NLS-1$ //$NON-NLS-2$
+			+ this.statReused + " reused, " + this.statNew + " created, " + this.statDiscarded + " discarded]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/// A context that can be cleaned up from leftovers of a previous parse.
+	/// Modeled after `JavacTaskPool.ReusableContext`.
+	private static class ReusableContext extends Context {
+
+		final PoolKey key;
+		final int projectGeneration;
+		final Set<JavaFileObject> cachedFiles = new HashSet<>();
+		/// generations of the outputs the context may have read class files from, as of the current round
+		Map<String, Integer> outputGenerations;
+		/// when the current round started, files modified after may have been read before the change
+		private long roundStart;
+		private boolean reused;
+
+		ReusableContext(PoolKey key, int projectGeneration, Factory<JavaCompiler> compilerFactory) {
+			this.key = key;
+			this.projectGeneration = projectGeneration;
+			put(Log.logKey, ReusableLog.factory);
+			put(JavaCompiler.compilerKey, compilerFactory);
+		}
+
+		void startRound(Map<String, Integer> outputGenerations) {
+			this.outputGenerations = outputGenerations;
+			this.roundStart = System.currentTimeMillis();
+		}
+
+		/// @return whether the context can be reused
+		boolean clear() {
+			var fileManager = get(JavaFileManager.class);
+			// symbols read from patched modules can hardly be reset
+			boolean polluted = fileManager.hasLocation(StandardLocation.PATCH_MODULE_PATH)
+				// wrapped for --release, can't be put back in place
+				|| !(fileManager instanceof CachingJarsJavaFileManager);
+			if (fileManager instanceof BaseFileManager baseFileManager) {
+				this.cachedFiles.forEach(baseFileManager::flushCache);
+			}
+			this.cachedFiles.clear();
+			Set<String> workingCopyPackages = fileManager instanceof CachingJarsJavaFileManager cachingFileManager
+				? cachingFileManager.clearWorkingCopies()
+				: Set.of();
+			drop(Arguments.argsKey);
+			if (CachingReleaseArguments.isEnabled()) {
+				CachingReleaseArguments.preRegister(this);
+			}
+			drop(DiagnosticListener.class);
+			drop(Log.outKey);
+			drop(Log.errKey);
+			drop(JavacTask.class);
+			drop(JavacTrees.class);
+			drop(JavacElements.class);
+			drop(PlatformDescription.class);
+			// file manager is kept: it's configured identically for a given key
+
+			this.reused = true;
+			if (this.ht.get(Log.logKey) instanceof ReusableLog log) {
+				// log already initialized: not first round
+				log.clear();
+				Enter.instance(this).newRound();
+				JavaCompiler.instance(this).newRound();
+				Types.instance(this).newRound();
+				Check.instance(this).newRound();
+				Check.instance(this).clear();
+				Preview.instance(this).clear();
+				Modules.instance(this).newRound();
+				Annotate.instance(this).newRound();
+				CompileStates.instance(this).clear();
+				MultiTaskListener.instance(this).clear();
+				Options.instance(this).clear();
+				polluted |= dropSourceSymbols();
+				resetPackages(workingCopyPackages);
+			}
+			return !polluted;
+		}
+
+		/// @return whether the context was already used for a round
+		boolean isReused() {
+			return this.reused;
+		}
+
+		/// Resets the symbols of the given packages, in any module, so their content is listed and read again
+		void resetPackages(Set<String> packageNames) {
+			Symtab syms = Symtab.instance(this);
+			Names names = Names.instance(this);
+			Set<PackageSymbol> packages = new HashSet<>();
+			for (String packageName : packageNames) {
+				syms.getPackagesForName(names.fromString(packageName)).forEach(packages::add);
+			}
+			Set<ClassSymbol> topLevelClasses = new HashSet<>();
+			for (ClassSymbol clazz : syms.getAllClasses()) {
+				if (packages.contains(clazz.packge())) {
+					topLevelClasses.add(clazz.outermostClass());
+				}
+			}
+			resetSymbols(syms, topLevelClasses, packages);
+		}
+
+		/// Resets symbols that were entered from sources, so they're re-read on next use.
+		/// @return whether the symbol table is polluted and cannot be reused
+		private boolean dropSourceSymbols() {
+			Symtab syms = Symtab.instance(this);
+			for (ModuleSymbol module : syms.getAllModules()) {
+				if (module.module_info != null && isFromSource(module.module_info)) {
+					// module graph depends on sources
+					return true;
+				}
+			}
+			Set<ClassSymbol> sourceClasses = new HashSet<>();
+			for (ClassSymbol clazz : syms.getAllClasses()) {
+				if (isFromSource(clazz)) {
+					if (clazz.flatName().toString().startsWith("java.")) { //$NON-NLS-1$
+						return true;
+					}
+					sourceClasses.add(clazz.outermostClass());
+				}
+			}
+			resetSymbols(syms, sourceClasses, new HashSet<>());
+			return false;
+		}
+
+		/// Resets the symbols read from class files of directories (typically project output folders)
+		/// that were modified since the previous round started. Packages containing such class files
+		/// are reset as well so added or removed types are seen.
+		void evictChangedClassFiles() {
+			long since = this.roundStart - TIMESTAMP_TOLERANCE_MS;
+			Symtab syms = Symtab.instance(this);
+			Set<ClassSymbol> changed = new HashSet<>();
+			Set<PackageSymbol> packages = new HashSet<>();
+			for (ClassSymbol clazz : syms.getAllClasses()) {
+				JavaFileObject classfile = clazz.classfile;
+				if (classfile != null && classfile.getKind() == JavaFileObject.Kind.CLASS
+					&& "file".equals(classfile.toUri().getScheme())) { //$NON-NLS-1$
+					packages.add(clazz.packge());
+					if (classfile.getLastModified() >= since) {
+						changed.add(clazz.outermostClass());
+					}
+				}
+			}
+			resetSymbols(syms, changed, packages);
+		}
+
+		/// Resets the given top-level classes, their nested classes, and the given packages, so they
+		/// get completed again. Symbols are kept in the symbol table and reused when completed
+		/// again, so other symbols referring to them don't end up with outdated copies.
+		/// Packages of the reset classes are reset too so their content gets listed again
+		/// (they may contain new, removed or edited types).
+		private void resetSymbols(Symtab syms, Set<ClassSymbol> topLevelClasses, Set<PackageSymbol> packages) {
+			if (topLevelClasses.isEmpty() && packages.isEmpty()) {
+				return;
+			}
+			ClassFinder classFinder = ClassFinder.instance(this);
+			for (ClassSymbol clazz : syms.getAllClasses()) {
+				if (topLevelClasses.contains(clazz.outermostClass())) {
+					clazz.reset();
+					clazz.classfile = null;
+					clazz.completer = classFinder.getCompleter();
+					packages.add(clazz.packge());
+				}
+			}
+			for (PackageSymbol pack : packages) {
+				pack.members_field = null;
+				pack.package_info = null;
+				pack.completer = classFinder.getCompleter();
+			}
+		}
+
+		private static boolean isFromSource(ClassSymbol clazz) {
+			return clazz.classfile != null ? clazz.classfile.getKind() == JavaFileObject.Kind.SOURCE
+				: clazz.sourcefile != null;
+		}
+
+		<T> void drop(Key<T> k) {
+			this.ht.remove(k);
+		}
+
+		<T> void drop(Class<T> c) {
+			this.ht.remove(key(c));
+		}
+	}
+
+	private static class ReusableJavaCompiler extends JavaCompiler {
+
+		static final Context.Factory<JavaCompiler> factory = ReusableJavaCompiler::new;
+
+		ReusableJavaCompiler(Context context) {
+			super(context);
+		}
+
+		@Override
+		public void close() {
+			// do nothing, components are kept for next round
+		}
+
+		@Override
+		protected void checkReusable() {
+			// do nothing, it's OK to reuse the compiler
+		}
+	}
+
+	private static class ReusableLog extends Log {
+
+		static final Context.Factory<Log> factory = ReusableLog::new;
+
+		private final Context context;
+
+		ReusableLog(Context context) {
+			super(context);
+			this.context = context;
+		}
+
+		void clear() {
+			this.recorded.clear();
+			this.sourceMap.clear();
+			this.nerrors = 0;
+			this.nwarnings = 0;
+			// the listener field is never updated when a new task is created on the
+			// same context, so lazily lookup the one of the current round
+			this.diagListener = new DiagnosticListener<JavaFileObject>() {
+				private DiagnosticListener<JavaFileObject> cachedListener;
+
+				@Override
+				@SuppressWarnings("unchecked")
+				public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+					if (this.cachedListener == null) {
+						this.cachedListener = ReusableLog.this.context.get(DiagnosticListener.class);
+					}
+					if (this.cachedListener != null) {
+						this.cachedListener.report(diagnostic);
+					}
+				}
+			};
+		}
+	}
+}
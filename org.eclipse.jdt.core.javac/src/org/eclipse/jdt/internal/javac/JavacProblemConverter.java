@@ -14,6 +14,7 @@
 package org.eclipse.jdt.internal.javac;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -53,6 +54,7 @@ import com.sun.tools.javac.code.Type.ClassType;
 import com.sun.tools.javac.code.TypeTag;
 import com.sun.tools.javac.parser.Scanner;
 import com.sun.tools.javac.parser.ScannerFactory;
+import com.sun.tools.javac.parser.Tokens;
 import com.sun.tools.javac.parser.Tokens.Token;
 import com.sun.tools.javac.parser.Tokens.TokenKind;
 import com.sun.tools.javac.tree.EndPosTable;
@@ -87,6 +89,7 @@ public class JavacProblemConverter {
 	private final CompilerOptions compilerOptions;
 	private final Context context;
 	private final Map<JavaFileObject, JCCompilationUnit> units = new HashMap<>();
+	private final Map<JavaFileObject, SourceIndex> sourceIndexes = new HashMap<>();
 
 	public JavacProblemConverter(Map<String, String> options, Context context) {
 		this(new CompilerOptions(options), context);
@@ -291,8 +294,7 @@ public class JavacProblemConverter {
 						if (unit != null && tree instanceof JCMethodDecl methodDecl) {
 							try {
 								int startPosition = methodDecl.pos;
-								var lastParenthesisIndex = unit.getSourceFile()
-										.getCharContent(false).toString()
+								var lastParenthesisIndex = getSourceIndex(unit.getSourceFile()).content
 										.indexOf(')', startPosition);
 								return new org.eclipse.jface.text.Position(startPosition, lastParenthesisIndex - startPosition + 1);
 							} catch (IOException e) {
@@ -374,7 +376,7 @@ public class JavacProblemConverter {
 						}
 					// else: fail-through
 					default:
-						org.eclipse.jface.text.Position result = getMissingReturnMethodDiagnostic(jcDiagnostic, context);
+						org.eclipse.jface.text.Position result = getMissingReturnMethodDiagnostic(jcDiagnostic);
 						if (result != null) {
 							return result;
 						}
@@ -415,8 +417,7 @@ public class JavacProblemConverter {
 				if (includeLastParenthesis) {
 					var unit = this.units.get(jcDiagnostic.getSource());
 					if (unit != null) {
-						var lastParenthesisIndex = unit.getSourceFile()
-								.getCharContent(false).toString()
+						var lastParenthesisIndex = getSourceIndex(unit.getSourceFile()).content
 								.indexOf(')', startPosition);
 						return new org.eclipse.jface.text.Position(startPosition, lastParenthesisIndex - startPosition + 1);
 					}
@@ -453,55 +454,43 @@ public class JavacProblemConverter {
 	private org.eclipse.jface.text.Position getPositionUsingScanner(JCDiagnostic jcDiagnostic) {
 		try {
 			int preferedOffset = jcDiagnostic.getDiagnosticPosition().getPreferredPosition();
-			DiagnosticSource source = jcDiagnostic.getDiagnosticSource();
-			JavaFileObject fileObject = source.getFile();
-			CharSequence charContent = fileObject.getCharContent(true);
-			Context scanContext = new Context();
-			ScannerFactory scannerFactory = ScannerFactory.instance(scanContext);
-			Log log = Log.instance(scanContext);
-			log.useSource(fileObject);
-			Scanner javacScanner = scannerFactory.newScanner(charContent, true);
-			Token t = javacScanner.token();
-			while (t != null && t.kind != TokenKind.EOF && t.endPos <= preferedOffset) {
-				javacScanner.nextToken();
-				t = javacScanner.token();
-				Token prev = javacScanner.prevToken();
-				if( prev != null ) {
-					if( t.endPos == prev.endPos && t.pos == prev.pos && t.kind.equals(prev.kind)) {
-						t = null; // We're stuck in a loop. Give up.
-					}
-				}
-			}
-			Token toHighlight = javacScanner.token();
-			if (isTokenBadChoiceForHighlight(t) && !isTokenBadChoiceForHighlight(javacScanner.prevToken())) {
-				toHighlight = javacScanner.prevToken();
+			SourceIndex index = getSourceIndex(jcDiagnostic.getDiagnosticSource().getFile());
+			int tokenIndex = index.indexOfTokenEndingAfter(preferedOffset);
+			Token toHighlight = index.token(tokenIndex);
+			if (isTokenBadChoiceForHighlight(toHighlight) && !isTokenBadChoiceForHighlight(index.token(tokenIndex - 1))) {
+				toHighlight = index.token(tokenIndex - 1);
 			}
-			return new org.eclipse.jface.text.Position(Math.min(charContent.length() - 1, toHighlight.pos), Math.max(1, toHighlight.endPos - toHighlight.pos - 1));
+			return new org.eclipse.jface.text.Position(Math.min(index.content.length() - 1, toHighlight.pos), Math.max(1, toHighlight.endPos - toHighlight.pos - 1));
 		} catch (IOException ex) {
 			ILog.get().error(ex.getMessage(), ex);
 		}
 		return getDefaultPosition(jcDiagnostic);
 	}
 
-	private org.eclipse.jface.text.Position getMissingReturnMethodDiagnostic(JCDiagnostic jcDiagnostic, Context context) {
+	private org.eclipse.jface.text.Position getMissingReturnMethodDiagnostic(JCDiagnostic jcDiagnostic) {
 		// https://github.com/eclipse-jdtls/eclipse-jdt-core-incubator/issues/313
 		if (COMPILER_ERR_MISSING_RET_STMT.equals(jcDiagnostic.getCode())) {
 			JCTree tree = jcDiagnostic.getDiagnosticPosition().getTree();
 			if (tree instanceof JCBlock) {
 				try {
 					int startOffset = tree.getStartPosition();
-					DiagnosticSource source = jcDiagnostic.getDiagnosticSource();
-					JavaFileObject fileObject = source.getFile();
-					CharSequence charContent = fileObject.getCharContent(true);
-					ScannerFactory scannerFactory = ScannerFactory.instance(context);
-					Scanner javacScanner = scannerFactory.newScanner(charContent, true);
-					Token t = javacScanner.token();
+					SourceIndex index = getSourceIndex(jcDiagnostic.getDiagnosticSource().getFile());
+					// look for `name(...)` in the tokens following the first one, up to the first token
+					// ending after the block start; `}` and `;` reset the search so start after the last one
+					int last = index.indexOfTokenEndingAfter(startOffset);
+					int first = 1;
+					for (int i = last; i >= 1; i--) {
+						TokenKind kind = index.token(i).kind;
+						if (kind == TokenKind.RBRACE || kind == TokenKind.SEMI) {
+							first = i + 1;
+							break;
+						}
+					}
 					Token lparen = null;
 					Token rparen = null;
 					Token name = null;
-					while (t.kind != TokenKind.EOF && t.endPos <= startOffset) {
-						javacScanner.nextToken();
-						t = javacScanner.token();
+					for (int i = first; i <= last; i++) {
+						Token t = index.token(i);
 						switch (t.kind) {
 						case TokenKind.IDENTIFIER: {
 							if (lparen == null) {
@@ -519,19 +508,12 @@ public class JavacProblemConverter {
 							}
 							break;
 						}
-						case TokenKind.RBRACE:
-						case TokenKind.SEMI: {
-							name = null;
-							lparen = null;
-							rparen = null;
-							break;
-						}
 						default:
 							break;
 						}
 					}
 					if (lparen != null && name != null && rparen != null) {
-						return new org.eclipse.jface.text.Position(Math.min(charContent.length() - 1, name.pos), Math.max(0, rparen.endPos - name.pos - 1));
+						return new org.eclipse.jface.text.Position(Math.min(index.content.length() - 1, name.pos), Math.max(0, rparen.endPos - name.pos - 1));
 					}
 				} catch (IOException ex) {
 					ILog.get().error(ex.getMessage(), ex);
@@ -596,10 +578,8 @@ public class JavacProblemConverter {
 		if (name != null && !name.isEmpty()) {
 			String content = loadDocumentText(jcDiagnostic);
 			if (content != null && content.length() > startPosition) {
-				String temp = content.substring(startPosition);
-				int ind = temp.indexOf(name);
-				if (ind >= 0) {
-					int offset = startPosition + ind;
+				int offset = content.indexOf(name, startPosition);
+				if (offset >= 0) {
 					int length = name.length();
 					return new org.eclipse.jface.text.Position(offset, length);
 				}
@@ -607,17 +587,80 @@ public class JavacProblemConverter {
 		}
 		return getDefaultPosition(jcDiagnostic);
 	}
-	private static String loadDocumentText(Diagnostic<?> diagnostic) throws IOException {
+	private String loadDocumentText(Diagnostic<?> diagnostic) throws IOException {
 		if (diagnostic instanceof JCDiagnostic jcDiagnostic) {
 			DiagnosticSource source = jcDiagnostic.getDiagnosticSource();
-			JavaFileObject fileObject = source.getFile();
-			CharSequence charContent = fileObject.getCharContent(true);
-			String content = charContent.toString();
-			return content;
+			return getSourceIndex(source.getFile()).content;
 		}
 		return null;
 	}
 
+	private SourceIndex getSourceIndex(JavaFileObject fileObject) throws IOException {
+		SourceIndex res = this.sourceIndexes.get(fileObject);
+		if (res == null) {
+			res = new SourceIndex(fileObject, fileObject.getCharContent(true).toString());
+			this.sourceIndexes.put(fileObject, res);
+		}
+		return res;
+	}
+
+	/// The content of a source file, and its tokens, read once for all the diagnostics
+	/// of the file so positions are looked up by binary search instead of rescanning the file.
+	private static final class SourceIndex {
+		private final JavaFileObject fileObject;
+		final String content;
+		/// scanned on first use, ends with the EOF token
+		private Token[] tokens;
+
+		SourceIndex(JavaFileObject fileObject, String content) {
+			this.fileObject = fileObject;
+			this.content = content;
+		}
+
+		private Token[] tokens() {
+			if (this.tokens == null) {
+				Context scanContext = new Context();
+				Log.instance(scanContext).useSource(this.fileObject);
+				Scanner javacScanner = ScannerFactory.instance(scanContext).newScanner(this.content, true);
+				List<Token> res = new ArrayList<>();
+				Token t = javacScanner.token();
+				res.add(t);
+				while (t.kind != TokenKind.EOF) {
+					javacScanner.nextToken();
+					Token next = javacScanner.token();
+					if (next.endPos == t.endPos && next.pos == t.pos && next.kind.equals(t.kind)) {
+						break; // We're stuck in a loop. Give up.
+					}
+					res.add(next);
+					t = next;
+				}
+				this.tokens = res.toArray(Token[]::new);
+			}
+			return this.tokens;
+		}
+
+		/// @return the index of the first token ending after the given offset, or of the last token
+		int indexOfTokenEndingAfter(int offset) {
+			Token[] all = tokens();
+			int low = 0;
+			int high = all.length - 1;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (all[mid].endPos <= offset) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/// @return the token at the given index, a dummy token before the first one
+		Token token(int index) {
+			return index < 0 ? Tokens.DUMMY : tokens()[index];
+		}
+	}
+
 	private int toSeverity(int jdtProblemId, Diagnostic<? extends JavaFileObject> diagnostic) {
 		if (jdtProblemId != 0) {
 			int irritant = ProblemReporter.getIrritant(jdtProblemId);
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -69,6 +70,9 @@ public class JavacTaskListener implements TaskListener {
 	private JavacConfig config;
 	private IContainer outputDir;
 	private final Map<JavaFileObject, ICompilationUnit> fileObjectToCUMap;
+	private final JavacClassOutput classOutput;
+	/// flat names of the classes of generated sources to write later, `null` to write them right away
+	private List<String> deferredClassFiles;
 	private static final Set<String> PRIMITIVE_TYPES = new HashSet<String>(Arrays.asList(
 		"byte",
 		"short",
@@ -84,7 +88,15 @@ public class JavacTaskListener implements TaskListener {
 
 	public JavacTaskListener(JavacConfig config, Map<IContainer, List<ICompilationUnit>> outputSourceMapping,
 			IProblemFactory problemFactory, Map<JavaFileObject, ICompilationUnit> fileObjectToCUMap) {
+		this(config, outputSourceMapping, problemFactory, fileObjectToCUMap, null);
+	}
+
+	/// @param classOutput where generated class files are kept, or `null` if they're written to
+	///        the temporary output folder
+	public JavacTaskListener(JavacConfig config, Map<IContainer, List<ICompilationUnit>> outputSourceMapping,
+			IProblemFactory problemFactory, Map<JavaFileObject, ICompilationUnit> fileObjectToCUMap, JavacClassOutput classOutput) {
 		this.config = config;
+		this.classOutput = classOutput;
 		this.problemFactory = new UnusedProblemFactory(problemFactory, config.compilerOptions());
 		this.fileObjectToCUMap = fileObjectToCUMap;
 		for (Entry<IContainer, List<ICompilationUnit>> entry : outputSourceMapping.entrySet()) {
@@ -101,9 +113,13 @@ public class JavacTaskListener implements TaskListener {
 			if (cu == null && e.getTypeElement() instanceof ClassSymbol clazz && isGeneratedSource(file)) {
 				try {
 					// Write the class files for the generated sources.
-					writeClassFile(clazz);
+					if (this.deferredClassFiles != null) {
+						this.deferredClassFiles.add(clazz.flatName().toString());
+					} else {
+						writeClassFile(clazz.flatName().toString());
+					}
 				} catch (CoreException e1) {
-					// TODO
+					ILog.get().error("Could not write class file of " + clazz.flatName(), e1); //$NON-NLS-1$
 				}
 			}
 		} else if (e.getKind() == TaskEvent.Kind.ANALYZE) {
@@ -123,7 +139,7 @@ public class JavacTaskListener implements TaskListener {
 				public Void visitModule(com.sun.source.tree.ModuleTree node, Void p) {
 					if (node instanceof JCModuleDecl moduleDecl) {
 						IContainer expectedOutputDir = sourceOutputMapping.get(cu);
-						ClassFile currentClass = new JavacClassFile(moduleDecl, expectedOutputDir);
+						ClassFile currentClass = new JavacClassFile(moduleDecl, expectedOutputDir, classOutput);
 						result.record(MODULE_INFO_NAME, currentClass);
 					}
 					return super.visitModule(node, p);
@@ -147,7 +163,7 @@ public class JavacTaskListener implements TaskListener {
 							Symbol enclosingClassSymbol = this.getEnclosingClass(classDecl.sym);
 							ClassFile enclosingClassFile = enclosingClassSymbol == null ? null : visitedClasses.get(enclosingClassSymbol);
 							IContainer expectedOutputDir = sourceOutputMapping.get(cu);
-							ClassFile currentClass = new JavacClassFile(fullName, enclosingClassFile, expectedOutputDir);
+							ClassFile currentClass = new JavacClassFile(fullName, enclosingClassFile, expectedOutputDir, classOutput);
 							visitedClasses.put(classDecl.sym, currentClass);
 							result.record(compoundName.toCharArray(), currentClass);
 							recordTypeHierarchy(classDecl.sym);
@@ -298,12 +314,32 @@ public class JavacTaskListener implements TaskListener {
 		return false;
 	}
 
-	private void writeClassFile(ClassSymbol clazz) throws CoreException {
+	/// Makes the class files of generated sources be written only on [#writeDeferredClassFiles()],
+	/// for when javac doesn't run in a thread that is allowed to modify the workspace.
+	public void deferClassFileWrites() {
+		this.deferredClassFiles = new ArrayList<>();
+	}
+
+	public void writeDeferredClassFiles() {
+		if (this.deferredClassFiles == null) {
+			return;
+		}
+		for (String flatName : this.deferredClassFiles) {
+			try {
+				writeClassFile(flatName);
+			} catch (CoreException e) {
+				ILog.get().error("Could not write class file of " + flatName, e); //$NON-NLS-1$
+			}
+		}
+		this.deferredClassFiles.clear();
+	}
+
+	private void writeClassFile(String flatName) throws CoreException {
 		if (this.outputDir == null) {
 			return;
 		}
 
-		String qualifiedName = clazz.flatName().toString().replace('.', '/');
+		String qualifiedName = flatName.replace('.', '/');
 		IPath filePath = new org.eclipse.core.runtime.Path(qualifiedName);
 		IContainer fileFolder = this.outputDir;
 		if (filePath.segmentCount() > 1) {
@@ -312,6 +348,13 @@ public class JavacTaskListener implements TaskListener {
 		}
 
 		IFile classFile = fileFolder.getFile(filePath.addFileExtension(SuffixConstants.EXTENSION_class));
+		if (this.classOutput != null) {
+			byte[] bytes = this.classOutput.remove(this.outputDir, flatName);
+			if (bytes != null) {
+				classFile.write(bytes, true, true, false, null);
+			}
+			return;
+		}
 		File tmpJavacClassFile = JavacClassFile.computeMappedTempClassFile(this.outputDir, qualifiedName);
 		if (tmpJavacClassFile == null || !tmpJavacClassFile.exists()) {
 			return;
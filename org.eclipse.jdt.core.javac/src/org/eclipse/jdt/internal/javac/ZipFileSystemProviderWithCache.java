@@ -28,65 +28,215 @@ import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.FileAttributeView;
 import java.nio.file.attribute.FileTime;
 import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.core.runtime.ILog;
 
 import com.sun.tools.javac.file.CacheFSInfo;
-import com.sun.tools.javac.file.JavacFileManager;
 
 /// A filesystem provider for Zip/Jar files that is capable of caching content so it
 /// can be reused by multiple contexts (as long as the cached objects don't get close
 /// while still in use).
 ///
-/// Caveats:
-/// - cached objects are currenlty never released (some commented code attempts it, but
-///   it requires the consumers to declare they consume a particular path/filesystem).
-/// - This is currently only hooked for the main JavacFileManager. Some other filemanagers
-///   are used (eg `JDKPlatformProvider.getFileManager()`) which don't take advantage of caching
+/// Each file manager gets its own view of the cache (see [#newLease()]) so the cache knows
+/// which file managers use which filesystem: a filesystem is only closed once none of the
+/// file managers that opened it is still open (or reachable). Unused filesystems are kept
+/// open for reuse, up to `-DZipFileSystemProviderWithCache.MAX_OPEN` (default 256) open archives,
+/// least recently used ones being closed first; filesystems of archives that changed on disk
+/// are closed as soon as they're not used any more.
+///
+/// This is only hooked for the main JavacFileManager: the file managers of `--release` platforms
+/// (`JDKPlatformProvider.getFileManager()`) only read folders of `ct.sym` and of the JRT image,
+/// `ct.sym` being opened once per release when [CachingReleaseArguments] is enabled.
 public class ZipFileSystemProviderWithCache extends FileSystemProvider {
 
+	private static final int MAX_OPEN = Integer.getInteger(ZipFileSystemProviderWithCache.class.getSimpleName() + ".MAX_OPEN", 256); //$NON-NLS-1$
+
 	private final Cleaner cleaner = Cleaner.create();
-	private final Map<Path, FileSystem> cachedFilesystems = new HashMap<>();
-	private final Map<FileSystem, FileTime> lastModificationOfCache = new HashMap<>();
+	/// up-to-date filesystem by archive path
+	private final Map<Path, CachedFileSystem> cachedFilesystems = new HashMap<>();
+	/// filesystems of archives that changed on disk, still in use
+	private final Set<CachedFileSystem> superseded = new HashSet<>();
 	private final FileSystemProvider delegate = new CacheFSInfo().getJarFSProvider();
-	/// a Set of int for output of `System.identityHashCode()` for given
-	/// active {@link JavacFileManager}s.
-	/// We actually store `int` instead of an actual reference to allow the underlying
-	/// file managers to be garbage collected (and closed).
-	private final Set<Integer> fileManagersIdentitieis = new HashSet<>();
-	
-	public void closeFileManager(int cachingJarsJavaFileManagerIdentityHashCode) {
-		// We cannot keep a reference to JavaFileManager easily or it create leak in the context
-		// we instead keep refs to ids
-		
-		// One important limitation is that we can only clear the cache when we know that
-		// no relevant filesystem is still in use (called `.close()` or got GCed).
-		// Ideally, we would have finer grain cache that would clear the unused filesystems
-		// according to the filemanagers still in use. But as we can't keep ref on FileManagers
-		// to not block GC, that seems impossible.
-		Set<FileSystem> toClear = new HashSet<>();
+	private final int maxOpen;
+
+	public ZipFileSystemProviderWithCache() {
+		this(MAX_OPEN);
+	}
+
+	/// @param maxOpen the number of open archives above which the unused ones get closed
+	public ZipFileSystemProviderWithCache(int maxOpen) {
+		this.maxOpen = maxOpen;
+	}
+
+	private static final class CachedFileSystem {
+		final FileSystem fileSystem;
+		final FileTime lastModified;
+		final long size;
+		/// leases of the file managers using this filesystem
+		final Set<Lease> users = new HashSet<>();
+		long lastUsed;
+
+		CachedFileSystem(FileSystem fileSystem, FileTime lastModified, long size) {
+			this.fileSystem = fileSystem;
+			this.lastModified = lastModified;
+			this.size = size;
+		}
+	}
+
+	/// Statistics about the archives currently open
+	/// @param openArchives the number of open archives, including superseded ones
+	/// @param inUseArchives the number of open archives used by at least one file manager
+	/// @param supersededArchives the number of archives that changed on disk, but whose former
+	///        version is still in use
+	/// @param openArchivesSize the size, in bytes, of the open archives
+	public record Statistics(int openArchives, int inUseArchives, int supersededArchives, long openArchivesSize) {
+	}
+
+	/// The view of the cache for a given file manager, which records the filesystems it opened.
+	/// It doesn't reference the file manager, so it can be released once the file manager is
+	/// garbage collected.
+	private final class Lease extends FileSystemProvider {
+		final Set<CachedFileSystem> used = new HashSet<>();
+
+		@Override
+		public String getScheme() {
+			return ZipFileSystemProviderWithCache.this.getScheme();
+		}
+
+		@Override
+		public FileSystem newFileSystem(URI uri, Map<String, ?> env) throws IOException {
+			return newFileSystem(getPath(uri), env);
+		}
+
+		@Override
+		public FileSystem newFileSystem(Path path, Map<String, ?> env) throws IOException {
+			return ZipFileSystemProviderWithCache.this.newFileSystem(path, env, this);
+		}
+
+		@Override
+		public FileSystem getFileSystem(URI uri) {
+			return ZipFileSystemProviderWithCache.this.getFileSystem(uri);
+		}
+
+		@Override
+		public Path getPath(URI uri) {
+			return ZipFileSystemProviderWithCache.this.getPath(uri);
+		}
+
+		@Override
+		public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+			return ZipFileSystemProviderWithCache.this.newByteChannel(path, options, attrs);
+		}
+
+		@Override
+		public DirectoryStream<Path> newDirectoryStream(Path dir, Filter<? super Path> filter) throws IOException {
+			return ZipFileSystemProviderWithCache.this.newDirectoryStream(dir, filter);
+		}
+
+		@Override
+		public void createDirectory(Path dir, FileAttribute<?>... attrs) throws IOException {
+			ZipFileSystemProviderWithCache.this.createDirectory(dir, attrs);
+		}
+
+		@Override
+		public void delete(Path path) throws IOException {
+			ZipFileSystemProviderWithCache.this.delete(path);
+		}
+
+		@Override
+		public void copy(Path source, Path target, CopyOption... options) throws IOException {
+			ZipFileSystemProviderWithCache.this.copy(source, target, options);
+		}
+
+		@Override
+		public void move(Path source, Path target, CopyOption... options) throws IOException {
+			ZipFileSystemProviderWithCache.this.move(source, target, options);
+		}
+
+		@Override
+		public boolean isSameFile(Path path, Path path2) throws IOException {
+			return ZipFileSystemProviderWithCache.this.isSameFile(path, path2);
+		}
+
+		@Override
+		public boolean isHidden(Path path) throws IOException {
+			return ZipFileSystemProviderWithCache.this.isHidden(path);
+		}
+
+		@Override
+		public FileStore getFileStore(Path path) throws IOException {
+			return ZipFileSystemProviderWithCache.this.getFileStore(path);
+		}
+
+		@Override
+		public void checkAccess(Path path, AccessMode... modes) throws IOException {
+			ZipFileSystemProviderWithCache.this.checkAccess(path, modes);
+		}
+
+		@Override
+		public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+			return ZipFileSystemProviderWithCache.this.getFileAttributeView(path, type, options);
+		}
+
+		@Override
+		public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+			return ZipFileSystemProviderWithCache.this.readAttributes(path, type, options);
+		}
+
+		@Override
+		public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
+			return ZipFileSystemProviderWithCache.this.readAttributes(path, attributes, options);
+		}
+
+		@Override
+		public void setAttribute(Path path, String attribute, Object value, LinkOption... options) throws IOException {
+			ZipFileSystemProviderWithCache.this.setAttribute(path, attribute, value, options);
+		}
+	}
+
+	/// @return a view of this provider to be used by a single file manager (typically through
+	///         [com.sun.tools.javac.file.FSInfo#getJarFSProvider()]), so the filesystems it opens
+	///         are kept open as long as the file manager is in use. See [#register(CachingJarsJavaFileManager, FileSystemProvider)].
+	public FileSystemProvider newLease() {
+		return new Lease();
+	}
+
+	/// Releases the filesystems opened through the given lease, once the file manager using it is
+	/// garbage collected.
+	public void register(CachingJarsJavaFileManager cachingJarsJavaFileManager, FileSystemProvider lease) {
+		if (lease instanceof Lease) {
+			this.cleaner.register(cachingJarsJavaFileManager, () -> release(lease));
+		}
+	}
+
+	/// Releases the filesystems opened through the given lease, typically when the file manager
+	/// using it gets closed. Filesystems that are not used by other file managers become candidates
+	/// for eviction.
+	public void release(FileSystemProvider lease) {
+		if (!(lease instanceof Lease actualLease)) {
+			return;
+		}
+		List<CachedFileSystem> toClose = new ArrayList<>();
 		synchronized (this) {
-			this.fileManagersIdentitieis.remove(cachingJarsJavaFileManagerIdentityHashCode);
-			if (this.fileManagersIdentitieis.isEmpty()) {
-				toClear.addAll(lastModificationOfCache.keySet());
-				toClear.addAll(cachedFilesystems.values());
-				lastModificationOfCache.clear();
-				cachedFilesystems.clear();
-				// GC can then happen
+			for (CachedFileSystem cached : actualLease.used) {
+				cached.users.remove(actualLease);
+				if (cached.users.isEmpty() && this.superseded.remove(cached)) {
+					toClose.add(cached);
+				}
 			}
+			actualLease.used.clear();
+			evictLeastRecentlyUsed(toClose);
 		}
-		CompletableFuture.runAsync(() -> toClear.forEach(fs -> {
-			try {
-				fs.close();
-			} catch (IOException ex) {
-				ILog.get().error(ex.getMessage(), ex);
-			}
-		}));
+		close(toClose);
 	}
 
 	@Override
@@ -100,51 +250,119 @@ public class ZipFileSystemProviderWithCache extends FileSystemProvider {
 	}
 	@Override
 	public FileSystem newFileSystem(Path path, Map<String,?> env) throws IOException {
-		synchronized (this) {
-			var cached = getCachedFileSystem(path);
-			if (cached != null) {
-				return cached;
+		return newFileSystem(path, env, null);
+	}
+
+	private FileSystem newFileSystem(Path path, Map<String,?> env, Lease lease) throws IOException {
+		List<CachedFileSystem> toClose = new ArrayList<>();
+		try {
+			synchronized (this) {
+				var cached = getCachedFileSystem(path, toClose);
+				if (cached == null) {
+					var lastMod = Files.getLastModifiedTime(path);
+					cached = new CachedFileSystem(delegate.newFileSystem(path, env), lastMod, Files.size(path));
+					this.cachedFilesystems.put(path, cached);
+				}
+				cached.lastUsed = System.nanoTime();
+				if (lease != null) {
+					cached.users.add(lease);
+					lease.used.add(cached);
+				}
+				evictLeastRecentlyUsed(toClose);
+				return cached.fileSystem;
 			}
-			var lastMod = Files.getLastModifiedTime(path);
-			var res = delegate.newFileSystem(path, env);
-			this.cachedFilesystems.put(path, res);
-			this.lastModificationOfCache.put(res, lastMod);
-			return res;
+		} finally {
+			close(toClose);
 		}
 	}
 	
 	@Override
 	public FileSystem getFileSystem(URI uri) {
-		var res = getCachedFileSystem(getPath(uri));
-		if (res == null) {
-			res = delegate.getFileSystem(uri);
+		List<CachedFileSystem> toClose = new ArrayList<>();
+		CachedFileSystem res;
+		synchronized (this) {
+			res = getCachedFileSystem(getPath(uri), toClose);
 		}
-		return res;
+		close(toClose);
+		return res != null ? res.fileSystem : delegate.getFileSystem(uri);
 	}
+
 	/// Get the cached FileSystem for given path
 	/// @param file the path of the archive
+	/// @param toClose collects the filesystems to close because they're outdated and not used anymore
 	/// @return the cache filesystem, or `null` is filesystem
 	///         was not requested yet, or if the cached filesystem
 	///         is outdated and not suitable for usage any more.
-	private FileSystem getCachedFileSystem(Path file) { 
+	private synchronized CachedFileSystem getCachedFileSystem(Path file, List<CachedFileSystem> toClose) { 
 		var cached = this.cachedFilesystems.get(file);
 		if (cached == null) {
 			return null;
 		}
-		var cacheLastMod = this.lastModificationOfCache.get(cached);
-		FileTime lastMod;
-		try {
-			lastMod = Files.getLastModifiedTime(file);
-		} catch (IOException e) {
-			return null;
+		boolean upToDate = cached.fileSystem.isOpen();
+		if (upToDate) {
+			try {
+				// file changed, cache is not valid
+				upToDate = Files.getLastModifiedTime(file).compareTo(cached.lastModified) <= 0;
+			} catch (IOException e) {
+				upToDate = false;
+			}
 		}
-		if (lastMod.compareTo(cacheLastMod) > 0) { // file changed, cache is not valid
-			// create and use a new container/filesystem
+		if (!upToDate) {
+			// create and use a new container/filesystem, close the former one once not used anymore
+			this.cachedFilesystems.remove(file);
+			if (cached.users.isEmpty() || !cached.fileSystem.isOpen()) {
+				toClose.add(cached);
+			} else {
+				this.superseded.add(cached);
+			}
 			return null;
 		}
 		return cached;
 	}
 
+	/// Collects the least recently used filesystems that are not in use anymore, until there are
+	/// no more than `maxOpen` open filesystems.
+	private synchronized void evictLeastRecentlyUsed(List<CachedFileSystem> toClose) {
+		int open = this.cachedFilesystems.size() + this.superseded.size();
+		if (open <= this.maxOpen) {
+			return;
+		}
+		List<Entry<Path, CachedFileSystem>> unused = this.cachedFilesystems.entrySet().stream()
+			.filter(entry -> entry.getValue().users.isEmpty())
+			.sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+			.limit(open - this.maxOpen)
+			.toList();
+		for (Entry<Path, CachedFileSystem> entry : unused) {
+			this.cachedFilesystems.remove(entry.getKey());
+			toClose.add(entry.getValue());
+		}
+	}
+
+	private static void close(List<CachedFileSystem> toClose) {
+		if (toClose.isEmpty()) {
+			return;
+		}
+		CompletableFuture.runAsync(() -> toClose.forEach(cached -> {
+			try {
+				cached.fileSystem.close();
+			} catch (IOException ex) {
+				ILog.get().error(ex.getMessage(), ex);
+			}
+		}));
+	}
+
+	public synchronized Statistics getStatistics() {
+		int inUse = (int)this.cachedFilesystems.values().stream().filter(cached -> !cached.users.isEmpty()).count();
+		long size = this.cachedFilesystems.values().stream().mapToLong(cached -> cached.size).sum()
+			+ this.superseded.stream().mapToLong(cached -> cached.size).sum();
+		return new Statistics(this.cachedFilesystems.size() + this.superseded.size(), inUse + this.superseded.size(), this.superseded.size(), size);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " " + getStatistics(); //$NON-NLS-1$
+	}
+
 	@Override
 	public Path getPath(URI uri) {
 		return delegate.getPath(uri);
@@ -221,13 +439,4 @@ public class ZipFileSystemProviderWithCache extends FileSystemProvider {
 	public void setAttribute(Path path, String attribute, Object value, LinkOption... options) throws IOException {
 		delegate.setAttribute(path, attribute, value, options);
 	}
-
-	public void register(CachingJarsJavaFileManager cachingJarsJavaFileManager) {
-		int id = System.identityHashCode(cachingJarsJavaFileManager);
-		cleaner.register(cachingJarsJavaFileManager, () -> closeFileManager(id));
-		synchronized (this) {
-			this.fileManagersIdentitieis.add(id);
-		}
-	}
-
 }
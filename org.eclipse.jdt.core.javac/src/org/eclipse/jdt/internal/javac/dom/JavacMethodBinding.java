@@ -70,6 +70,7 @@ public abstract class JavacMethodBinding implements IMethodBinding {
 	final boolean explicitSynthetic;
 	// allows to discriminate generic vs parameterized
 	private final boolean isDeclaration;
+	private String key;
 
 	/**
 	 *
@@ -326,13 +327,16 @@ public abstract class JavacMethodBinding implements IMethodBinding {
 
 	@Override
 	public String getKey() {
-		try {
-			StringBuilder builder = new StringBuilder();
-			getKey(builder, this.methodSymbol, this.methodType, this.parentType, this.resolver);
-			return builder.toString();
-		} catch(BindingKeyException bke) {
-			return null;
+		if (this.key == null) {
+			try {
+				StringBuilder builder = new StringBuilder();
+				getKey(builder, this.methodSymbol, this.methodType, this.parentType, this.resolver);
+				this.key = this.resolver.bindings.internKey(builder.toString());
+			} catch(BindingKeyException bke) {
+				return null;
+			}
 		}
+		return this.key;
 	}
 
 	static void getKey(StringBuilder builder, MethodSymbol methodSymbol, MethodType methodType, Type parentType, JavacBindingResolver resolver) throws BindingKeyException {
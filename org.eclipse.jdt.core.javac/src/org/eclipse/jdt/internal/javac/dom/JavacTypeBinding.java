@@ -98,6 +98,7 @@ public abstract class JavacTypeBinding implements ITypeBinding {
 	public final Type type;
 	private final boolean isGeneric; // only relevent for parameterized types
 	private boolean recovered = false;
+	private String key;
 
 	public JavacTypeBinding(Type type, final TypeSymbol typeSymbol, boolean isDeclaration, JavacBindingResolver resolver) {
 		if (!JavacBindingResolver.isTypeOfType(type)) {
@@ -258,25 +259,45 @@ public abstract class JavacTypeBinding implements ITypeBinding {
 	}
 
 	@Override
-	public String getKey() {
-		if (isGenericType()) {
-			return removeTrailingSemicolon(getKey(false)) + '<'
-				+ Arrays.stream(getTypeParameters())
-					.map(ITypeBinding::getName)
-					.map(name -> 'T' + name + ';')
-					.collect(Collectors.joining())
-				+ ">;";
-		} else if (isParameterizedType()) {
-			return removeTrailingSemicolon(getKey(false)) + '<'
-				+ Arrays.stream(getTypeArguments()).map(ITypeBinding::getKey).collect(Collectors.joining())
-				+ ">;";
+	public final String getKey() {
+		String res = this.key;
+		if (res == null) {
+			res = computeKey();
+			if (res != null) {
+				res = this.resolver.bindings.internKey(res);
+				this.key = res;
+			}
 		}
-		return getKey(this.type, this.typeSymbol.flatName());
+		return res;
 	}
 
-
-	private static String removeTrailingSemicolon(String key) {
-		return key.endsWith(";") ? key.substring(0, key.length() - 1) : key;
+	/// Computes the key of the binding, which is then cached by [#getKey()]
+	/// @return the key, or `null` if it can't be computed
+	protected String computeKey() {
+		boolean genericType = isGenericType();
+		if (!genericType && !isParameterizedType()) {
+			return getKey(this.type, this.typeSymbol.flatName());
+		}
+		StringBuilder builder = new StringBuilder();
+		try {
+			getKey(builder, this.type, this.typeSymbol.flatName(), false, false, this.resolver);
+		} catch (BindingKeyException e) {
+			return null;
+		}
+		if (builder.length() > 0 && builder.charAt(builder.length() - 1) == ';') {
+			builder.setLength(builder.length() - 1);
+		}
+		builder.append('<');
+		if (genericType) {
+			for (ITypeBinding typeParameter : getTypeParameters()) {
+				builder.append('T').append(typeParameter.getName()).append(';');
+			}
+		} else {
+			for (ITypeBinding typeArgument : getTypeArguments()) {
+				builder.append(typeArgument.getKey());
+			}
+		}
+		return builder.append(">;").toString();
 	}
 
 	private String getKey(Type t) {
@@ -556,7 +577,7 @@ public abstract class JavacTypeBinding implements ITypeBinding {
 	}
 
 	private IMethodBinding[] getDeclaredMethodsForRecords(ArrayList<Symbol> l) {
-		ASTNode node = this.resolver.symbolToDeclaration.get(this.typeSymbol);
+		ASTNode node = this.resolver.findNode(this.typeSymbol);
 		boolean isRecord = this.isRecord() && node instanceof RecordDeclaration;
 		if( !isRecord )
 			return null;
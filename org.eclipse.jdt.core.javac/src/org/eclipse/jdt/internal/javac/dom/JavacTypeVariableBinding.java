@@ -38,7 +38,7 @@ public abstract class JavacTypeVariableBinding extends JavacTypeBinding {
 	}
 
 	@Override
-	public String getKey() {
+	protected String computeKey() {
 		StringBuilder builder = new StringBuilder();
 		if (this.typeVar instanceof Type.CapturedType capturedType) {
 			try {
@@ -54,6 +54,7 @@ public abstract class JavacVariableBinding implements IVariableBinding {
 
 	public final VarSymbol variableSymbol;
 	private final JavacBindingResolver resolver;
+	private String key;
 
 	public JavacVariableBinding(VarSymbol sym, JavacBindingResolver resolver) {
 		this.variableSymbol = sym;
@@ -155,11 +156,14 @@ public abstract class JavacVariableBinding implements IVariableBinding {
 
 	@Override
 	public String getKey() {
-		try {
-			return getKeyImpl();
-		} catch(BindingKeyException bke) {
-			return null;
+		if (this.key == null) {
+			try {
+				this.key = this.resolver.bindings.internKey(getKeyImpl());
+			} catch(BindingKeyException bke) {
+				return null;
+			}
 		}
+		return this.key;
 	}
 	private String getKeyImpl() throws BindingKeyException {
 		StringBuilder builder = new StringBuilder();
@@ -258,7 +262,7 @@ public abstract class JavacVariableBinding implements IVariableBinding {
 
 	@Override
 	public int getVariableId() {
-		if (this.resolver.symbolToDeclaration.get(this.variableSymbol) instanceof VariableDeclaration decl) {
+		if (this.resolver.findNode(this.variableSymbol) instanceof VariableDeclaration decl) {
 			return decl.getStartPosition();
 		}
 		// FIXME: since we are not running code generation,
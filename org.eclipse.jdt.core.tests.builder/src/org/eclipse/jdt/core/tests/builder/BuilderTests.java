@@ -539,6 +539,7 @@ public class BuilderTests extends TestCase {
 			FriendDependencyTests.class,
 			ReferenceCollectionTest.class,
 			StateTest.class,
+			ReferenceIndexTest.class,
 			CompressedWriterTest.class,
 			TestAttributeBuilderTests.class,
 			Bug530366Test.class,
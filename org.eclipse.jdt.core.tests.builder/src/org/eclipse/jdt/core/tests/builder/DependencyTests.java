@@ -21,6 +21,7 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.tests.util.Util;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.core.builder.IncrementalImageBuilder;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class DependencyTests extends BuilderTests {
@@ -1256,4 +1257,89 @@ public void test0100() throws JavaModelException {
 		new Problem("",	"The method foo() from the type N1.N2.N3 is deprecated",
 			M1Path, 217, 222, CategorizedProblem.CAT_DEPRECATION, IMarker.SEVERITY_WARNING));
 }
+
+// private fields and methods can only be used from their own compilation unit
+public void testPrivateMemberChanges() throws JavaModelException {
+	IPath projectPath = env.addProject("P");
+	env.addExternalJars(projectPath, Util.getJavaClassLibs());
+	IPath rootPath = env.getPackageFragmentRootPath(projectPath, "");
+	env.addClass(rootPath, "p", "A",
+		"package p;\n" +
+		"public class A {\n" +
+		"  private int f;\n" +
+		"  public int m() { return helper(); }\n" +
+		"  private int helper() { return this.f; }\n" +
+		"  class Nested { int n = helper(); }\n" +
+		"}\n"
+	);
+	env.addClass(rootPath, "q", "B",
+		"package q;\n" +
+		"public class B {\n" +
+		"  int i = new p.A().m();\n" +
+		"}\n"
+	);
+	env.addClass(rootPath, "q", "C",
+		"package q;\n" +
+		"public class C extends p.A {\n" +
+		"}\n"
+	);
+	fullBuild(projectPath);
+	expectingNoProblems();
+
+	String property = IncrementalImageBuilder.class.getSimpleName() + ".IGNORE_PRIVATE_CHANGES";
+	String ignoredPrivateChanges = System.getProperty(property);
+	try {
+		System.setProperty(property, "true");
+		env.addClass(rootPath, "p", "A",
+			"package p;\n" +
+			"public class A {\n" +
+			"  private long f;\n" +
+			"  public int m() { return helper() + added(); }\n" +
+			"  private int helper() { return (int) this.f; }\n" +
+			"  private int added() { return 0; }\n" +
+			"  class Nested { int n = helper() + added(); }\n" +
+			"}\n"
+		);
+		incrementalBuild(projectPath);
+		expectingNoProblems();
+		expectingCompiledClasses(new String[] { "p.A", "p.A$Nested" });
+
+		// non-private changes still recompile the dependents
+		env.addClass(rootPath, "p", "A",
+			"package p;\n" +
+			"public class A {\n" +
+			"  private long f;\n" +
+			"  public int m() { return helper() + added(); }\n" +
+			"  private int helper() { return (int) this.f; }\n" +
+			"  int added() { return 0; }\n" +
+			"  class Nested { int n = helper() + added(); }\n" +
+			"}\n"
+		);
+		incrementalBuild(projectPath);
+		expectingNoProblems();
+		expectingCompiledClasses(new String[] { "p.A", "p.A$Nested", "q.B", "q.C" });
+
+		System.setProperty(property, "false");
+		env.addClass(rootPath, "p", "A",
+			"package p;\n" +
+			"public class A {\n" +
+			"  private long f;\n" +
+			"  public int m() { return helper() + added(); }\n" +
+			"  private int helper() { return (int) this.f; }\n" +
+			"  private int other() { return 1; }\n" +
+			"  int added() { return other(); }\n" +
+			"  class Nested { int n = helper() + added(); }\n" +
+			"}\n"
+		);
+		incrementalBuild(projectPath);
+		expectingNoProblems();
+		expectingCompiledClasses(new String[] { "p.A", "p.A$Nested", "q.B", "q.C" });
+	} finally {
+		if (ignoredPrivateChanges == null) {
+			System.clearProperty(property);
+		} else {
+			System.setProperty(property, ignoredPrivateChanges);
+		}
+	}
+}
 }
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.builder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.Test;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.builder.IncrementalImageBuilder;
+import org.eclipse.jdt.internal.core.builder.JavaBuilder;
+import org.eclipse.jdt.internal.core.builder.State;
+
+/**
+ * The reference index of the built state must find the same affected files as a scan of all the references.
+ */
+public class ReferenceIndexTest extends BuilderTests {
+
+	private static final String USE_REFERENCE_INDEX = IncrementalImageBuilder.class.getSimpleName() + ".USE_REFERENCE_INDEX";
+
+	public ReferenceIndexTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return buildTestSuite(ReferenceIndexTest.class);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		System.clearProperty(USE_REFERENCE_INDEX);
+		super.tearDown();
+	}
+
+	/*
+	 * Runs a series of incremental builds, and answers the classes compiled and the problems found by each of them.
+	 */
+	private List<String> buildSteps() throws Exception {
+		List<String> steps = new ArrayList<>();
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		env.addClass(root, "p", "A", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n" +
+			"public class A {\n" +
+			"	public static int m() { return 1; }\n" +
+			"	public static class Inner {}\n" +
+			"}"
+		);
+		env.addClass(root, "p", "B", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n" +
+			"public class B {\n" +
+			"	int i = A.m();\n" +
+			"}"
+		);
+		env.addClass(root, "q", "C", //$NON-NLS-1$ //$NON-NLS-2$
+			"package q;\n" +
+			"import p.A;\n" +
+			"public class C {\n" +
+			"	public A a;\n" +
+			"}"
+		);
+		env.addClass(root, "q", "D", //$NON-NLS-1$ //$NON-NLS-2$
+			"package q;\n" +
+			"import p.*;\n" +
+			"public class D {\n" +
+			"	A.Inner inner;\n" +
+			"}"
+		);
+		env.addClass(root, "r", "E", //$NON-NLS-1$ //$NON-NLS-2$
+			"package r;\n" +
+			"public class E {\n" +
+			"	int i = p.A.m();\n" +
+			"}"
+		);
+		env.addClass(root, "r", "F", //$NON-NLS-1$ //$NON-NLS-2$
+			"package r;\n" +
+			"public class F {\n" +
+			"	static int m() { return 2; }\n" +
+			"}"
+		);
+		env.addClass(root, "s", "G", //$NON-NLS-1$ //$NON-NLS-2$
+			"package s;\n" +
+			"public class G extends q.C {\n" +
+			"}"
+		);
+		env.addClass(root, "s", "H", //$NON-NLS-1$ //$NON-NLS-2$
+			"package s;\n" +
+			"public class H {\n" +
+			"}\n" +
+			"class Secondary {\n" +
+			"}"
+		);
+		env.addClass(root, "s", "I", //$NON-NLS-1$ //$NON-NLS-2$
+			"package s;\n" +
+			"public class I {\n" +
+			"	Secondary secondary;\n" +
+			"}"
+		);
+		env.addClass(root, "t", "J", //$NON-NLS-1$ //$NON-NLS-2$
+			"package t;\n" +
+			"import p.*;\n" +
+			"public class J {\n" +
+			"	K k;\n" +
+			"}"
+		);
+		fullBuild(projectPath);
+		steps.add(step(projectPath));
+
+		// the index of a state read back from the disk is rebuilt on first use
+		IProject project = env.getProject(projectPath);
+		JavaModelManager manager = JavaModelManager.getJavaModelManager();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		JavaBuilder.writeState(manager.getLastBuiltState(project, null), new DataOutputStream(outputStream));
+		State readState = JavaBuilder.readState(project, new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray())));
+		manager.setLastBuiltState(project, readState);
+
+		// structural change of a type referenced in many ways
+		env.addClass(root, "p", "A", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n" +
+			"public class A {\n" +
+			"	public static int m() { return 1; }\n" +
+			"	public static int n() { return 2; }\n" +
+			"	public static class Inner {}\n" +
+			"}"
+		);
+		incrementalBuild(projectPath);
+		steps.add(step(projectPath));
+
+		// structural change of a supertype
+		env.addClass(root, "q", "C", //$NON-NLS-1$ //$NON-NLS-2$
+			"package q;\n" +
+			"import p.A;\n" +
+			"public class C {\n" +
+			"	public A a;\n" +
+			"	protected int c;\n" +
+			"}"
+		);
+		incrementalBuild(projectPath);
+		steps.add(step(projectPath));
+
+		// new type resolving a missing reference
+		env.addClass(root, "p", "K", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n" +
+			"public class K {\n" +
+			"}"
+		);
+		incrementalBuild(projectPath);
+		steps.add(step(projectPath));
+
+		// removed member type and method
+		env.addClass(root, "p", "A", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n" +
+			"public class A {\n" +
+			"	public static int n() { return 2; }\n" +
+			"}"
+		);
+		incrementalBuild(projectPath);
+		steps.add(step(projectPath));
+
+		// removed secondary type
+		env.addClass(root, "s", "H", //$NON-NLS-1$ //$NON-NLS-2$
+			"package s;\n" +
+			"public class H {\n" +
+			"}"
+		);
+		incrementalBuild(projectPath);
+		steps.add(step(projectPath));
+
+		// removed type, then added back
+		env.removeClass(env.getPackagePath(root, "p"), "K"); //$NON-NLS-1$ //$NON-NLS-2$
+		incrementalBuild(projectPath);
+		steps.add(step(projectPath));
+		env.addClass(root, "p", "K", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n" +
+			"public class K {\n" +
+			"}"
+		);
+		incrementalBuild(projectPath);
+		steps.add(step(projectPath));
+
+		// changes fixing the references to the removed types
+		env.addClass(root, "p", "A", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n" +
+			"public class A {\n" +
+			"	public static int m() { return 1; }\n" +
+			"	public static int n() { return 2; }\n" +
+			"	public static class Inner {}\n" +
+			"}"
+		);
+		env.addClass(root, "s", "H", //$NON-NLS-1$ //$NON-NLS-2$
+			"package s;\n" +
+			"public class H {\n" +
+			"}\n" +
+			"class Secondary {\n" +
+			"}"
+		);
+		incrementalBuild(projectPath);
+		steps.add(step(projectPath));
+
+		// body change only
+		env.addClass(root, "p", "B", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n" +
+			"public class B {\n" +
+			"	int i = A.m() + 1;\n" +
+			"}"
+		);
+		incrementalBuild(projectPath);
+		steps.add(step(projectPath));
+
+		env.removeProject(projectPath);
+		return steps;
+	}
+
+	private String step(IPath projectPath) {
+		String[] compiled = this.debugRequestor.getCompiledClasses();
+		Arrays.sort(compiled);
+		return "compiled: " + Arrays.toString(compiled) + "\nproblems:\n" + arrayToString(allSortedProblems(new IPath[] { projectPath }));
+	}
+
+	public void testSameAffectedFilesAsFullScan() throws Exception {
+		System.setProperty(USE_REFERENCE_INDEX, "false");
+		List<String> scanned = buildSteps();
+		System.setProperty(USE_REFERENCE_INDEX, "true");
+		List<String> indexed = buildSteps();
+		assertEquals(scanned.size(), indexed.size());
+		for (int i = 0; i < scanned.size(); i++)
+			assertEquals("Build " + i, scanned.get(i), indexed.get(i));
+
+		// and those are the dependents of the changed types only
+		assertTrue(indexed.get(1), indexed.get(1).startsWith("compiled: [p.A, p.A$Inner, p.B, q.C, q.D, r.E]\n")); //$NON-NLS-1$
+		assertTrue(indexed.get(2), indexed.get(2).startsWith("compiled: [q.C, s.G]\n")); //$NON-NLS-1$
+		assertEquals("compiled: [p.B]\nproblems:\n", indexed.get(9)); //$NON-NLS-1$
+	}
+}
@@ -15,12 +15,17 @@ package org.eclipse.jdt.core.tests.builder;
 
 import static org.junit.Assert.assertArrayEquals;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
@@ -223,6 +228,168 @@ public class StateTest extends BuilderTests {
 		writeReadAndCompareExternalAnnotationLocations(project.getProject());
 	}
 
+	public void testWriteAndReadMappedState() throws JavaModelException, Exception {
+		if (File.separatorChar != '/')
+			return; // states are never mapped on Windows
+		IPath interfaceProjectPath = env.addProject("Interface"); //$NON-NLS-1$
+		env.addExternalJars(interfaceProjectPath, Util.getJavaClassLibs());
+
+		IPath implementationProjectPath = env.addProject("Implementation"); //$NON-NLS-1$
+		env.addExternalJars(implementationProjectPath, Util.getJavaClassLibs());
+		env.addClassFolder(implementationProjectPath, interfaceProjectPath, false);
+
+		env.addClass(interfaceProjectPath, "a", "Interfaze", //$NON-NLS-1$ //$NON-NLS-2$
+			"package a;\n" +
+			"public interface Interfaze {\n" +
+			"	void callMe();\n" +
+			"}" //$NON-NLS-1$
+		);
+
+		env.addClass(interfaceProjectPath, "c", "Impl1", //$NON-NLS-1$ //$NON-NLS-2$
+			"package c;\n" +
+			"import a.Interfaze;\n" +
+			"public class Impl1 implements Interfaze {\n" +
+			"	@Override\n" +
+			"	public void callMe() {\n" +
+			"	}\n" +
+			"}"
+		);
+
+		env.addClass(implementationProjectPath, "b", "Impl2", //$NON-NLS-1$ //$NON-NLS-2$
+				"package b;\n" +
+				"import a.Interfaze;\n" +
+				"public class Impl2 implements Interfaze {\n" +
+				"	@Override\n" +
+				"	public void callMe() {\n" +
+				"	}\n" +
+				"}" //$NON-NLS-1$
+			);
+		fullBuild();
+
+		writeMappedReadAndCompareReferences(interfaceProjectPath);
+		writeMappedReadAndCompareReferences(implementationProjectPath);
+	}
+
+	public void testIncrementalBuildsOnMappedState() throws JavaModelException, Exception {
+		if (File.separatorChar != '/')
+			return; // states are never mapped on Windows
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		env.addClass(root, "p", "A", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n" +
+			"public class A {\n" +
+			"	public int m() { return 1; }\n" +
+			"}"
+		);
+		IPath bPath = env.addClass(root, "p", "B", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n" +
+			"public class B {\n" +
+			"	int i = new A().m();\n" +
+			"}"
+		);
+		env.addClass(root, "q", "C", //$NON-NLS-1$ //$NON-NLS-2$
+			"package q;\n" +
+			"public class C {\n" +
+			"	p.A a;\n" +
+			"}"
+		);
+		env.addClass(root, "r", "D", //$NON-NLS-1$ //$NON-NLS-2$
+			"package r;\n" +
+			"public class D {\n" +
+			"}"
+		);
+		fullBuild(projectPath);
+		expectingNoProblems();
+
+		IProject project = env.getProject(projectPath);
+		File file = File.createTempFile("state", ".dat"); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			JavaModelManager manager = JavaModelManager.getJavaModelManager();
+			manager.setLastBuiltState(project, writeAndReadMapped(project, (State) manager.getLastBuiltState(project, null), file));
+
+			// the dependents are found from the mapped references
+			env.addClass(root, "p", "A", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p;\n" +
+				"public class A {\n" +
+				"	public int m() { return 1; }\n" +
+				"	public int n() { return 2; }\n" +
+				"}"
+			);
+			incrementalBuild(projectPath);
+			expectingNoProblems();
+			expectingCompiledClasses(new String[] { "p.A", "p.B", "q.C" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+			// state built on top of the mapped one, with both decoded and still mapped references, saved again
+			manager.setLastBuiltState(project, writeAndReadMapped(project, (State) manager.getLastBuiltState(project, null), file));
+			env.addClass(root, "r", "D", //$NON-NLS-1$ //$NON-NLS-2$
+				"package r;\n" +
+				"public class D {\n" +
+				"	int i = new p.A().n();\n" +
+				"}"
+			);
+			incrementalBuild(projectPath);
+			expectingNoProblems();
+			expectingCompiledClasses(new String[] { "r.D" }); //$NON-NLS-1$
+
+			env.addClass(root, "p", "A", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p;\n" +
+				"public class A {\n" +
+				"	public int n() { return 2; }\n" +
+				"}"
+			);
+			incrementalBuild(projectPath);
+			expectingCompiledClasses(new String[] { "p.A", "p.B", "q.C", "r.D" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			expectingOnlyProblemsFor(bPath);
+		} finally {
+			file.delete();
+		}
+	}
+
+	/*
+	 * Writes the given state in the layout saved with -Dorg.eclipse.jdt.map_state=true, and reads it back from the
+	 * memory mapping of the file.
+	 */
+	private State writeAndReadMapped(IProject project, State state, File file) throws IOException, CoreException {
+		File tempFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			JavaBuilder.writeMappedState(state, out);
+		}
+		// replaced like JavaModelManager does, so that the states mapped from the previous file remain valid
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return JavaBuilder.readMappedState(project, file);
+	}
+
+	private void writeMappedReadAndCompareReferences(IPath projectPath)
+			throws JavaModelException, IOException, CoreException {
+		JavaModelManager javaModelManager = JavaModelManager.getJavaModelManager();
+		IProject project = env.getProject(projectPath);
+		PerProjectInfo info = javaModelManager.getPerProjectInfoCheckExistence(project);
+		State savedState = (State) info.savedState;
+		File file = File.createTempFile("state", ".dat"); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			State readState = writeAndReadMapped(project, savedState, file);
+			// written again before any reference is decoded, then compared once the first mapping is replaced
+			State rereadState = writeAndReadMapped(project, readState, file);
+			for (State state : new State[] { readState, rereadState }) {
+				assertEqualLookupTables(savedState.getReferences(), state.getReferences());
+				assertEqualTypeLocators(savedState.typeLocators, state.typeLocators);
+				assertEquals(state, savedState);
+			}
+
+			// and back to the compressed format
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			JavaBuilder.writeState(rereadState, new DataOutputStream(outputStream));
+			State streamState = JavaBuilder.readState(project, new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray())));
+			assertEqualLookupTables(savedState.getReferences(), streamState.getReferences());
+		} finally {
+			file.delete();
+		}
+	}
+
 	private void writeReadAndCompareTestBinaryLocations(IPath projectPath)
 			throws JavaModelException, IOException, CoreException {
 		JavaModelManager javaModelManager = JavaModelManager.getJavaModelManager();
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.compiler.regression;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import junit.framework.Test;
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.compiler.batch.CompileServer;
+
+public class CompileServerTest extends AbstractBatchCompilerTest {
+
+	/**
+	 * This test suite only needs to be run on one compliance.
+	 *
+	 * @see TestAll
+	 */
+	public static Test suite() {
+		return buildMinimalComplianceTestSuite(testClass(), F_17);
+	}
+
+	public static Class<CompileServerTest> testClass() {
+		return CompileServerTest.class;
+	}
+
+	public CompileServerTest(String name) {
+		super(name);
+	}
+
+	private Path root;
+	private Path socketFile;
+	private CompileServer server;
+	private Thread serverThread;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.root = Files.createDirectories(Path.of(OUTPUT_DIR, "server"));
+		Util.flushDirectoryContent(this.root.toFile());
+		// socket file paths are limited to about 100 characters
+		this.socketFile = Files.createTempDirectory("ecj").resolve("server.sock");
+		startServer();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		stopServer();
+		Files.deleteIfExists(this.socketFile.getParent());
+		super.tearDown();
+	}
+
+	private void startServer() throws IOException {
+		this.server = new CompileServer(this.socketFile);
+		this.serverThread = new Thread(() -> {
+			try {
+				this.server.serve();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}, "Compile Server"); //$NON-NLS-1$
+		this.serverThread.start();
+	}
+
+	private void stopServer() throws Exception {
+		this.server.close();
+		this.serverThread.join(10000);
+		assertFalse("Server should stop once closed", this.serverThread.isAlive());
+	}
+
+	private Path writeFile(String path, String contents) throws IOException {
+		Path file = this.root.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, contents);
+		return file;
+	}
+
+	private boolean compile(Path workingDirectory, StringWriter out, StringWriter err, String... args) throws IOException {
+		return CompileServer.connect(this.socketFile, workingDirectory, args, new PrintWriter(out), new PrintWriter(err));
+	}
+
+	public void testCompile() throws IOException {
+		Path source = writeFile("src/p/X.java",
+				"package p;\n" +
+				"public class X {\n" +
+				"	String s = 1;\n" +
+				"}\n");
+		StringWriter out = new StringWriter();
+		StringWriter err = new StringWriter();
+		boolean success = compile(this.root, out, err, "-17", "-proc:none", "-d", this.root.resolve("bin").toString(), source.toString());
+		assertFalse("Compilation should fail", success);
+		assertEquals("", out.toString());
+		assertTrue("Unexpected error output: " + err, err.toString().contains("Type mismatch: cannot convert from int to String"));
+
+		writeFile("src/p/X.java",
+				"package p;\n" +
+				"public class X {\n" +
+				"	String s = \"1\";\n" +
+				"}\n");
+		out = new StringWriter();
+		err = new StringWriter();
+		success = compile(this.root, out, err, "-17", "-proc:none", "-d", this.root.resolve("bin").toString(), source.toString());
+		assertTrue("Unexpected problems: " + err, success);
+		assertTrue("Class file should be generated", Files.isRegularFile(this.root.resolve("bin/p/X.class")));
+	}
+
+	public void testInvalidRequests() throws IOException {
+		// negative and huge argument counts, then a string length beyond the stream
+		for (int count : new int[] { -1, Integer.MAX_VALUE }) {
+			try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(this.socketFile))) {
+				DataOutputStream output = new DataOutputStream(Channels.newOutputStream(channel));
+				byte[] directory = this.root.toString().getBytes();
+				output.writeInt(directory.length);
+				output.write(directory);
+				output.writeInt(count);
+				output.flush();
+				assertEquals("Server should close the connection", -1, Channels.newInputStream(channel).read());
+			}
+		}
+		try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(this.socketFile))) {
+			DataOutputStream output = new DataOutputStream(Channels.newOutputStream(channel));
+			output.writeInt(-5);
+			output.flush();
+			assertEquals("Server should close the connection", -1, Channels.newInputStream(channel).read());
+		}
+		assertTrue("Server should keep running", this.serverThread.isAlive());
+
+		Path source = writeFile("X.java", "public class X {}\n");
+		StringWriter err = new StringWriter();
+		boolean success = compile(this.root, new StringWriter(), err, "-17", "-proc:none", "-d", "none", source.toString());
+		assertTrue("Unexpected problems: " + err, success);
+	}
+
+	public void testRelativePathsFromOtherDirectory() throws IOException {
+		Path source = writeFile("src/p/X.java", "package p;\npublic class X {}\n");
+		Path otherDirectory = Files.createDirectories(this.root.resolve("other"));
+
+		StringWriter err = new StringWriter();
+		boolean success = compile(otherDirectory, new StringWriter(), err, "-17", "-proc:none", "-d", "bin", source.toString());
+		assertFalse("Relative destination should be rejected", success);
+		assertTrue("Unexpected error output: " + err, err.toString().contains("cannot resolve the relative path bin from "));
+
+		err = new StringWriter();
+		success = compile(otherDirectory, new StringWriter(), err, "-17", "-proc:none", "-d", "none", "src/p");
+		assertFalse("Relative source folder should be rejected", success);
+		assertTrue("Unexpected error output: " + err, err.toString().contains("cannot resolve the relative path src" + File.separator + "p")
+				|| err.toString().contains("cannot resolve the relative path src/p"));
+
+		err = new StringWriter();
+		success = compile(otherDirectory, new StringWriter(), err, "-17", "-proc:none", "-cp", "lib.jar", "-d", "none", source.toString());
+		assertFalse("Relative classpath should be rejected", success);
+		assertTrue("Unexpected error output: " + err, err.toString().contains("cannot resolve the relative path lib.jar"));
+
+		Path argumentFile = writeFile("args.txt", "-d bin\n" + source + "\n");
+		err = new StringWriter();
+		success = compile(otherDirectory, new StringWriter(), err, "-17", "-proc:none", "@" + argumentFile);
+		assertFalse("Relative path of an argument file should be rejected", success);
+		assertTrue("Unexpected error output: " + err, err.toString().contains("cannot resolve the relative path bin"));
+
+		err = new StringWriter();
+		success = compile(otherDirectory, new StringWriter(), err, "-17", "-proc:none", "-d", this.root.resolve("bin").toString(), source.toString());
+		assertTrue("Absolute paths should be accepted: " + err, success);
+		assertTrue("Class file should be generated", Files.isRegularFile(this.root.resolve("bin/p/X.class")));
+	}
+
+	public void testSocketInUse() throws Exception {
+		try {
+			new CompileServer(this.socketFile).close();
+			fail("A second server shouldn't replace the running one");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("already listens"));
+		}
+		assertTrue("Server should keep running", this.serverThread.isAlive());
+
+		// a socket file left over by a server no longer running is replaced
+		stopServer();
+		try (ServerSocketChannel stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+			stale.bind(UnixDomainSocketAddress.of(this.socketFile));
+		}
+		assertTrue("Closing a channel should leave its socket file", Files.exists(this.socketFile));
+		startServer();
+		StringWriter err = new StringWriter();
+		Path source = writeFile("X.java", "public class X {}\n");
+		assertTrue("Unexpected problems: " + err, compile(this.root, new StringWriter(), err, "-17", "-proc:none", "-d", "none", source.toString()));
+	}
+
+	public void testReplacedJar() throws IOException {
+		String jar = this.root.resolve("lib.jar").toString();
+		Util.createJar(new String[] {
+				"l/L.java",
+				"package l;\n" +
+				"public class L {\n" +
+				"	public static int v() { return 1; }\n" +
+				"}\n"
+			}, jar, "17");
+		Path source = writeFile("X.java",
+				"public class X {\n" +
+				"	int x = l.L.v();\n" +
+				"}\n");
+		StringWriter err = new StringWriter();
+		boolean success = compile(this.root, new StringWriter(), err, "-17", "-proc:none", "-cp", jar, "-d", "none", source.toString());
+		assertTrue("Unexpected problems: " + err, success);
+
+		new File(jar).delete();
+		Util.createJar(new String[] {
+				"l/L.java",
+				"package l;\n" +
+				"public class L {\n" +
+				"	public static int value() { return 1; }\n" +
+				"}\n"
+			}, jar, "17");
+		err = new StringWriter();
+		success = compile(this.root, new StringWriter(), err, "-17", "-proc:none", "-cp", jar, "-d", "none", source.toString());
+		assertFalse("The replaced jar should be read again", success);
+		assertTrue("Unexpected error output: " + err, err.toString().contains("The method v() is undefined for the type L"));
+	}
+}
@@ -231,6 +231,7 @@ public static Test suite() {
 	 since_17.add(SealedTypesSpecReviewTest.class);
 	 since_17.add(InstanceofPrimaryPatternTest.class);
 	 since_17.add(BatchCompilerTest_17.class);
+	 since_17.add(CompileServerTest.class);
 
 	 // add 18 specific test here (check duplicates)
 	 ArrayList since_18 = new ArrayList();
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2024, Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.javac;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class JavacBindingResolverTests {
+
+	private static final String SOURCE = """
+		import java.util.List;
+		public class Resolved<T> {
+			int field;
+			List<String> strings;
+			List<Integer> integers;
+			T value;
+			public int m(int param) {
+				int local = param + field;
+				return local + strings.size() + integers.get(0);
+			}
+			class Inner {
+				String s;
+				void n() { m(s.length()); }
+			}
+			static class Nested<U> extends Resolved<U> {
+				U nestedValue() { return value; }
+			}
+			Runnable r = new Runnable() {
+				public void run() {
+					int anonymousLocal = field;
+					new Inner().n();
+				}
+			};
+		}
+		""";
+
+	private static IJavaProject javaProject;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject("sandboxJava");
+		javaProject = JavaCore.create(project.exists() ? project : RegressionTests.importProject("projects/dummy"));
+	}
+
+	private static CompilationUnit parse() {
+		ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
+		parser.setProject(javaProject);
+		parser.setUnitName("Resolved.java");
+		parser.setSource(SOURCE.toCharArray());
+		parser.setResolveBindings(true);
+		return (CompilationUnit)parser.createAST(null);
+	}
+
+	private static List<SimpleName> names(CompilationUnit unit) {
+		List<SimpleName> res = new ArrayList<>();
+		unit.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(SimpleName node) {
+				res.add(node);
+				return true;
+			}
+		});
+		return res;
+	}
+
+	private static List<SimpleName> declarations(CompilationUnit unit) {
+		return names(unit).stream().filter(SimpleName::isDeclaration).toList();
+	}
+
+	private static boolean isLocal(IBinding binding) {
+		return binding instanceof IVariableBinding variable && !variable.isField();
+	}
+
+	@Test
+	public void testFindDeclaringNode() {
+		// members looked up first, or declarations of nested types first: each type gets indexed on demand
+		for (boolean reverse : new boolean[] { false, true }) {
+			CompilationUnit unit = parse();
+			assertFalse(List.of(unit.getProblems()).toString(), List.of(unit.getProblems()).stream().anyMatch(IProblem::isError));
+			List<SimpleName> declarations = new ArrayList<>(declarations(unit));
+			if (reverse) {
+				Collections.reverse(declarations);
+			}
+			for (SimpleName declaration : declarations) {
+				IBinding binding = declaration.resolveBinding();
+				assertNotNull(declaration.getIdentifier(), binding);
+				assertSame(declaration.getIdentifier(), declaration.getParent(), unit.findDeclaringNode(binding));
+			}
+			// references find the declaration too
+			for (SimpleName name : names(unit)) {
+				IBinding binding = name.resolveBinding();
+				if (name.isDeclaration() || binding == null) {
+					continue;
+				}
+				for (SimpleName declaration : declarations) {
+					if (binding.isEqualTo(declaration.resolveBinding())) {
+						assertSame(name.getIdentifier(), declaration.getParent(), unit.findDeclaringNode(binding));
+					}
+				}
+			}
+		}
+
+		// by key, which needs all the bindings of the unit
+		CompilationUnit unit = parse();
+		for (SimpleName declaration : declarations(unit)) {
+			IBinding binding = declaration.resolveBinding();
+			if (!isLocal(binding)) {
+				assertSame(binding.getKey(), declaration.getParent(), unit.findDeclaringNode(binding.getKey()));
+			}
+		}
+	}
+
+	private static IBinding binding(CompilationUnit unit, String identifier) {
+		return names(unit).stream().filter(name -> name.getIdentifier().equals(identifier))
+			.map(SimpleName::resolveBinding).findFirst().orElseThrow();
+	}
+
+	@Test
+	public void testBindingKeys() {
+		CompilationUnit unit = parse();
+		for (SimpleName name : names(unit)) {
+			IBinding binding = name.resolveBinding();
+			if (binding != null && binding.getKey() != null) {
+				// computed once
+				assertSame(name.getIdentifier(), binding.getKey(), binding.getKey());
+			}
+		}
+
+		// equal keys are shared between bindings, whatever the node they're resolved from
+		List<SimpleName> fields = names(unit).stream().filter(name -> name.getIdentifier().equals("field")).toList();
+		assertEquals(3, fields.size());
+		String key = fields.get(0).resolveBinding().getKey();
+		for (SimpleName field : fields) {
+			assertSame(key, field.resolveBinding().getKey());
+			assertTrue(field.resolveBinding().isEqualTo(fields.get(0).resolveBinding()));
+		}
+
+		// generic and parameterized types
+		ITypeBinding resolved = (ITypeBinding)binding(unit, "Resolved");
+		assertTrue(resolved.isGenericType());
+		assertEquals("LResolved<TT;>;", resolved.getKey());
+		ITypeBinding strings = ((IVariableBinding)binding(unit, "strings")).getType();
+		ITypeBinding integers = ((IVariableBinding)binding(unit, "integers")).getType();
+		assertEquals("Ljava/util/List<Ljava/lang/String;>;", strings.getKey());
+		assertEquals("Ljava/util/List<Ljava/lang/Integer;>;", integers.getKey());
+		assertFalse(strings.isEqualTo(integers));
+		assertEquals("Ljava/util/List;", strings.getErasure().getKey());
+		assertTrue(strings.getErasure().isEqualTo(integers.getErasure()));
+		ITypeBinding nestedSuperclass = ((ITypeBinding)binding(unit, "Nested")).getSuperclass();
+		assertTrue(nestedSuperclass.isParameterizedType());
+		assertNotNull(nestedSuperclass.getKey());
+		assertTrue(nestedSuperclass.getKey(), nestedSuperclass.getKey().startsWith("LResolved<"));
+		assertNotEquals(resolved.getKey(), nestedSuperclass.getKey());
+		assertEquals(resolved.getKey(), nestedSuperclass.getTypeDeclaration().getKey());
+	}
+
+	private static String describe(IBinding binding) {
+		return binding == null ? null : binding.getKind() + " " + binding.getKey();
+	}
+
+	@Test
+	public void testConcurrentResolution() throws Exception {
+		List<String> expected = names(parse()).stream().map(SimpleName::resolveBinding).map(JavacBindingResolverTests::describe).toList();
+
+		CompilationUnit unit = parse();
+		List<SimpleName> names = names(unit);
+		int threads = 8;
+		CyclicBarrier start = new CyclicBarrier(threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<IBinding[]>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				// each thread resolves the names in a different order
+				List<Integer> order = new ArrayList<>(IntStream.range(0, names.size()).boxed().toList());
+				Collections.shuffle(order, new Random(i));
+				results.add(executor.submit(() -> {
+					start.await();
+					IBinding[] bindings = new IBinding[names.size()];
+					for (int index : order) {
+						bindings[index] = names.get(index).resolveBinding();
+						if (bindings[index] instanceof ITypeBinding type) {
+							type.getKey();
+							type.getSuperclass();
+							type.getDeclaredMethods();
+						}
+					}
+					return bindings;
+				}));
+			}
+			IBinding[] first = results.get(0).get(1, TimeUnit.MINUTES);
+			for (int i = 0; i < names.size(); i++) {
+				assertEquals(names.get(i).getIdentifier(), expected.get(i), describe(first[i]));
+			}
+			for (Future<IBinding[]> result : results) {
+				IBinding[] bindings = result.get(1, TimeUnit.MINUTES);
+				for (int i = 0; i < names.size(); i++) {
+					// all threads get the same binding instance
+					assertSame(names.get(i).getIdentifier(), first[i], bindings[i]);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		// and the declarations are still found
+		for (SimpleName declaration : declarations(unit)) {
+			assertSame(declaration.getIdentifier(), declaration.getParent(), unit.findDeclaringNode(declaration.resolveBinding()));
+		}
+	}
+}
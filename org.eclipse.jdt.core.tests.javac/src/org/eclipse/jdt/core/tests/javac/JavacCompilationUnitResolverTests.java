@@ -0,0 +1,466 @@
+/*******************************************************************************
+ * Copyright (c) 2024, Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.javac;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IWorkspaceDescription;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Comment;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.JavacCompilationUnitResolver;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.internal.javac.CachingReleaseArguments;
+import org.eclipse.jdt.internal.javac.CommentRecordingScannerFactory;
+import org.eclipse.jdt.internal.javac.JavacContextPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class JavacCompilationUnitResolverTests {
+
+	private IProject project;
+	private IJavaProject javaProject;
+	private final List<ICompilationUnit> workingCopies = new ArrayList<>();
+	private final SystemProperties properties = new SystemProperties();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		IWorkspaceDescription wsDesc = ResourcesPlugin.getWorkspace().getDescription();
+		wsDesc.setAutoBuilding(false);
+		ResourcesPlugin.getWorkspace().setDescription(wsDesc);
+	}
+
+	@Before
+	public void setUp() throws CoreException {
+		this.project = ResourcesPlugin.getWorkspace().getRoot().getProject("resolver");
+		this.project.create(null);
+		this.project.open(null);
+		IProjectDescription description = this.project.getDescription();
+		description.setNatureIds(new String[] { JavaCore.NATURE_ID });
+		this.project.setDescription(description, null);
+		this.project.getFolder("src").create(true, true, null);
+		this.javaProject = JavaCore.create(this.project);
+		this.javaProject.setRawClasspath(new IClasspathEntry[] {
+				JavaCore.newContainerEntry(new Path("org.eclipse.jdt.launching.JRE_CONTAINER")),
+				JavaCore.newSourceEntry(this.project.getFolder("src").getFullPath()) },
+			this.project.getFolder("bin").getFullPath(), null);
+	}
+
+	@After
+	public void tearDown() throws CoreException {
+		this.properties.restore();
+		for (ICompilationUnit workingCopy : this.workingCopies) {
+			workingCopy.discardWorkingCopy();
+		}
+		this.workingCopies.clear();
+		this.project.delete(true, null);
+	}
+
+	private void writeFile(String path, String contents) throws CoreException {
+		IFile file = this.project.getFile(path);
+		createFolders(file.getParent());
+		var source = new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+		if (file.exists()) {
+			file.setContents(source, true, false, null);
+		} else {
+			file.create(source, true, null);
+		}
+	}
+
+	private static void createFolders(IContainer container) throws CoreException {
+		if (container instanceof IFolder folder && !folder.exists()) {
+			createFolders(folder.getParent());
+			folder.create(true, true, null);
+		}
+	}
+
+	/// Opens a working copy of the given file, with the given unsaved contents
+	private ICompilationUnit workingCopy(String path, String contents) throws CoreException {
+		ICompilationUnit unit = JavaCore.createCompilationUnitFrom(this.project.getFile(path));
+		if (!unit.isWorkingCopy()) {
+			unit.becomeWorkingCopy(null);
+			this.workingCopies.add(unit);
+		}
+		unit.getBuffer().setContents(contents);
+		return unit;
+	}
+
+	private static CompilationUnit reconcile(ICompilationUnit unit) throws CoreException {
+		return unit.reconcile(AST.getJLSLatest(), true, unit.getOwner(), null);
+	}
+
+	private static List<IMethodBinding> invokedMethods(CompilationUnit unit) {
+		List<IMethodBinding> res = new ArrayList<>();
+		unit.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(MethodInvocation node) {
+				res.add(node.resolveMethodBinding());
+				return true;
+			}
+		});
+		return res;
+	}
+
+	private static String errors(CompilationUnit unit) {
+		return Arrays.stream(unit.getProblems()).filter(IProblem::isError).map(IProblem::getMessage).toList().toString();
+	}
+
+	@Test
+	public void testLazyWorkingCopies() throws CoreException {
+		writeFile("src/p/A.java", "package p;\npublic class A { public int m() { return 1; } }\n");
+		writeFile("src/p/B.java", "package p;\npublic class B { int i = new A().m(); }\n");
+		this.project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		assertTrue(this.project.getFile("bin/p/A.class").exists());
+
+		for (boolean pooled : new boolean[] { false, true }) {
+			this.properties.set(JavacContextPool.class, "ENABLED", pooled);
+			for (boolean lazy : new boolean[] { false, true }) {
+				this.properties.set(JavacCompilationUnitResolver.class, "LAZY_WORKING_COPIES", lazy);
+				String mode = "pooled: " + pooled + ", lazy: " + lazy;
+				// the unsaved contents of A shadow its class file
+				workingCopy("src/p/A.java", "package p;\npublic class A { public int n() { return 1; } }\n");
+				ICompilationUnit b = workingCopy("src/p/B.java", "package p;\npublic class B { int i = new A().n(); }\n");
+				CompilationUnit ast = reconcile(b);
+				assertEquals(mode, "[]", errors(ast));
+				IMethodBinding n = invokedMethods(ast).get(0);
+				assertNotNull(mode, n);
+				assertEquals(mode, "n", n.getName());
+				assertEquals(mode, "p.A", n.getDeclaringClass().getQualifiedName());
+
+				// and are read again on the next reconcile, even from a pooled context
+				workingCopy("src/p/A.java", "package p;\npublic class A { public int o() { return 1; } }\n");
+				ast = reconcile(b);
+				assertNotEquals(mode, "[]", errors(ast));
+				workingCopy("src/p/A.java", "package p;\npublic class A { public int m() { return 1; } public int n() { return 2; } }\n");
+				ast = reconcile(b);
+				assertEquals(mode, "[]", errors(ast));
+			}
+		}
+	}
+
+	@Test
+	public void testReleaseArguments() throws CoreException {
+		this.javaProject.setOption(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_11);
+		this.javaProject.setOption(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_11);
+		this.javaProject.setOption(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_11);
+		this.javaProject.setOption(JavaCore.COMPILER_RELEASE, JavaCore.ENABLED);
+		writeFile("src/p/A.java", "");
+
+		for (boolean pooled : new boolean[] { false, true }) {
+			this.properties.set(JavacContextPool.class, "ENABLED", pooled);
+			for (boolean caching : new boolean[] { false, true }) {
+				this.properties.set(CachingReleaseArguments.class, "ENABLED", caching);
+				String mode = "pooled: " + pooled + ", caching: " + caching;
+				// twice, so a pooled context is reused
+				for (int round = 0; round < 2; round++) {
+					// APIs of the release are found
+					CompilationUnit ast = reconcile(workingCopy("src/p/A.java",
+						"package p;\npublic class A { boolean b = \"\".isBlank(); }\n"));
+					assertEquals(mode, "[]", errors(ast));
+					IMethodBinding isBlank = invokedMethods(ast).get(0);
+					assertNotNull(mode, isBlank);
+					assertEquals(mode, "java.lang.String", isBlank.getDeclaringClass().getQualifiedName());
+
+					// APIs added after the release are not
+					ast = reconcile(workingCopy("src/p/A.java",
+						"package p;\npublic class A { Object o = java.util.List.of(1).getFirst(); }\n"));
+					assertNotEquals(mode, "[]", errors(ast));
+					// nor are language features added after the release
+					ast = reconcile(workingCopy("src/p/A.java",
+						"package p;\npublic record A(int i) { }\n"));
+					assertNotEquals(mode, "[]", errors(ast));
+				}
+			}
+		}
+	}
+
+	private List<IProblem> sortedErrors(String path, String source) throws CoreException {
+		writeFile(path, "");
+		return Arrays.stream(reconcile(workingCopy(path, source)).getProblems())
+			.filter(IProblem::isError)
+			.sorted(Comparator.comparingInt(IProblem::getSourceStart))
+			.toList();
+	}
+
+	@Test
+	public void testDiagnosticPositions() throws CoreException {
+		// all the positions of a file are computed from a single scan: they must still be those of their own diagnostic
+		String source = """
+			package p;
+			public class Positions {
+				int f = 1;
+				int first() { }
+				String second(int a, String b) { if (a > 0) { return b; } }
+				java.util.List<String> third() { int x = 0; while (x < 1) x++; }
+				class Inner { int fourth(int... values) { for (int v : values) { } } }
+			}
+			""";
+		List<IProblem> errors = sortedErrors("src/p/Positions.java", source);
+		assertEquals(errors.toString(), 4, errors.size());
+		String[] methods = { "first", "second", "third", "fourth" };
+		for (int i = 0; i < methods.length; i++) {
+			IProblem missingReturn = errors.get(i);
+			int start = source.indexOf(methods[i] + "(");
+			assertEquals(missingReturn.toString(), start, missingReturn.getSourceStart());
+			assertTrue(missingReturn.toString(), missingReturn.getSourceEnd() > start + methods[i].length());
+			assertTrue(missingReturn.toString(), missingReturn.getSourceEnd() <= source.indexOf(')', start));
+		}
+
+		// positions looked up by name
+		source = """
+			package p;
+			public class Names {
+				void first() { String dup = ""; String dup = ""; }
+				void second() { int dup; int other; int dup; }
+			}
+			""";
+		errors = sortedErrors("src/p/Names.java", source);
+		assertEquals(errors.toString(), 2, errors.size());
+		int[] duplicates = { source.indexOf("dup", source.indexOf("dup") + 1), source.lastIndexOf("dup") };
+		for (int i = 0; i < duplicates.length; i++) {
+			assertEquals(errors.get(i).toString(), duplicates[i], errors.get(i).getSourceStart());
+			assertEquals(errors.get(i).toString(), duplicates[i] + 2, errors.get(i).getSourceEnd());
+		}
+	}
+
+	/// The comments of the unit, and the extended ranges of the nodes they're mapped to
+	private static List<String> comments(CompilationUnit unit, String source) {
+		List<String> res = new ArrayList<>();
+		for (Object comment : unit.getCommentList()) {
+			Comment node = (Comment)comment;
+			res.add(node.getClass().getSimpleName() + ' ' + source.substring(node.getStartPosition(), node.getStartPosition() + node.getLength()));
+		}
+		unit.accept(new ASTVisitor(true) {
+			@Override
+			public void preVisit(ASTNode node) {
+				res.add(node.getClass().getSimpleName() + " [" + unit.getExtendedStartPosition(node) + ", " + unit.getExtendedLength(node) + ']');
+			}
+		});
+		return res;
+	}
+
+	@Test
+	public void testRecordedComments() throws CoreException {
+		String source = """
+			// header line comment
+			/* header block */
+			package p;
+			/** Javadoc of Comments */
+			public class Comments { // trailing line comment
+				/** field doc */ int f = /* inline */ 1; // after field
+				int g = 1 /* before semicolon */;
+				/*
+				 * multi-line block
+				 */
+				void m(/* param comment */ int a) {
+					// statement comment
+					int x = a /* operand */ + 1; /* trailing */
+					String s = "/* not a comment */ // nor this";
+					char c = '/';
+				}
+				// dangling comment at end of type
+			}
+			// comment at end of file
+			""";
+		writeFile("src/p/Comments.java", "");
+		List<String> expected = null;
+		for (boolean pooled : new boolean[] { false, true }) {
+			this.properties.set(JavacContextPool.class, "ENABLED", pooled);
+			for (boolean recording : new boolean[] { false, true }) {
+				this.properties.set(CommentRecordingScannerFactory.class, "ENABLED", recording);
+				// pooled contexts get the comment recorder when created
+				JavacContextPool.getDefault().invalidate(this.javaProject);
+				String mode = "pooled: " + pooled + ", recording: " + recording;
+				// twice, so a pooled context is reused
+				for (int round = 0; round < 2; round++) {
+					CompilationUnit unit = reconcile(workingCopy("src/p/Comments.java", source));
+					assertEquals(mode, "[]", errors(unit));
+					List<String> actual = comments(unit, source);
+					if (expected == null) {
+						expected = actual;
+						assertEquals(mode, 15, unit.getCommentList().size());
+					}
+					assertEquals(mode, expected, actual);
+				}
+			}
+		}
+	}
+
+	/// Writes units referencing each other, with comments and problems, to be converted together
+	private ICompilationUnit[] writeUnits(int count) throws CoreException {
+		ICompilationUnit[] res = new ICompilationUnit[count];
+		for (int i = 0; i < count; i++) {
+			String previous = i == 0 ? "Object" : "U" + (i - 1);
+			writeFile("src/p/U" + i + ".java", """
+				package p;
+				import java.util.List;
+				/** Unit %1$d */
+				public class U%1$d extends %2$s {
+					// field
+					List<String> values%1$d = List.of("%1$d");
+					/* method */ public int m%1$d(int a) {
+						return a + values%1$d.size() %3$s;
+					}
+				}
+				""".formatted(i, previous, i % 3 == 2 ? "+ undefined" + i : ""));
+			res[i] = JavaCore.createCompilationUnitFrom(this.project.getFile("src/p/U" + i + ".java"));
+		}
+		return res;
+	}
+
+	/// The problems, comments and node ranges of the unit, and the binding keys of its names
+	private static String describe(CompilationUnit unit) {
+		StringBuilder res = new StringBuilder();
+		for (IProblem problem : unit.getProblems()) {
+			res.append(problem.getID()).append(' ').append(problem.getSourceStart()).append(' ').append(problem.getSourceEnd()).append('\n');
+		}
+		for (Object comment : unit.getCommentList()) {
+			ASTNode node = (ASTNode)comment;
+			res.append(node.getClass().getSimpleName()).append(" [").append(node.getStartPosition()).append(", ").append(node.getLength()).append("]\n");
+		}
+		unit.accept(new ASTVisitor(true) {
+			@Override
+			public void preVisit(ASTNode node) {
+				res.append(node.getClass().getSimpleName()).append(" [").append(node.getStartPosition()).append(", ").append(node.getLength()).append(']');
+				IBinding binding = node instanceof Name name ? name.resolveBinding() : null;
+				if (binding != null) {
+					res.append(' ').append(binding.getKey());
+				}
+				res.append('\n');
+			}
+		});
+		return res.toString();
+	}
+
+	private Map<String, String> createASTs(ICompilationUnit[] units, boolean resolveBindings) {
+		ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
+		parser.setProject(this.javaProject);
+		parser.setResolveBindings(resolveBindings);
+		Map<String, String> res = new TreeMap<>();
+		parser.createASTs(units, new String[0], new ASTRequestor() {
+			@Override
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				res.put(source.getElementName(), describe(ast));
+			}
+		}, null);
+		return res;
+	}
+
+	@Test
+	public void testParallelConversion() throws CoreException {
+		ICompilationUnit[] units = writeUnits(12);
+		for (boolean resolveBindings : new boolean[] { false, true }) {
+			this.properties.set(JavacCompilationUnitResolver.class, "PARALLEL_CONVERSION", false);
+			Map<String, String> sequential = createASTs(units, resolveBindings);
+			assertEquals(units.length, sequential.size());
+			assertTrue(sequential.get("U2.java"), sequential.get("U2.java").contains("Javadoc"));
+			this.properties.set(JavacCompilationUnitResolver.class, "PARALLEL_CONVERSION", true);
+			// several times, as the conversions interleave differently
+			for (int round = 0; round < 3; round++) {
+				assertEquals("Bindings: " + resolveBindings, sequential, createASTs(units, resolveBindings));
+			}
+		}
+	}
+
+	private static String describe(IBinding binding) {
+		return binding == null ? null : binding.getKind() + " " + binding.getKey();
+	}
+
+	@Test
+	public void testBatchedResolution() throws CoreException {
+		ICompilationUnit[] units = writeUnits(7);
+		String[] paths = Arrays.stream(units).map(unit -> unit.getResource().getLocation().toOSString()).toArray(String[]::new);
+		String[] keys = { "Lp/U0;", "Lp/U6;", "Lp/U3;.m3(I)I", "Ljava/lang/String;" };
+		Map<String, String> expected = null;
+		Map<String, String> expectedFromFiles = null;
+		for (int batchSize : new int[] { 0, 2, 3, 7 }) {
+			this.properties.set(JavacCompilationUnitResolver.class, "BATCH_SIZE", batchSize);
+			Map<String, String> actual = new TreeMap<>();
+			ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
+			parser.setProject(this.javaProject);
+			parser.setResolveBindings(true);
+			parser.createASTs(units, keys, new ASTRequestor() {
+				@Override
+				public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+					actual.put(source.getElementName(), describe(ast));
+				}
+				@Override
+				public void acceptBinding(String bindingKey, IBinding binding) {
+					actual.put(bindingKey, describe(binding));
+				}
+			}, null);
+
+			Map<String, String> actualFromFiles = new TreeMap<>();
+			parser = ASTParser.newParser(AST.getJLSLatest());
+			parser.setEnvironment(null, new String[] { this.project.getFolder("src").getLocation().toOSString() }, null, true);
+			parser.setResolveBindings(true);
+			parser.createASTs(paths, null, keys, new FileASTRequestor() {
+				@Override
+				public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+					actualFromFiles.put(new java.io.File(sourceFilePath).getName(), describe(ast));
+				}
+				@Override
+				public void acceptBinding(String bindingKey, IBinding binding) {
+					actualFromFiles.put(bindingKey, describe(binding));
+				}
+			}, null);
+
+			if (expected == null) {
+				expected = actual;
+				expectedFromFiles = actualFromFiles;
+				assertEquals(expected.keySet().toString(), units.length + keys.length, expected.size());
+				// types of the first and last batches, and of the JDK
+				for (String key : new String[] { "Lp/U0;", "Lp/U6;", "Ljava/lang/String;" }) {
+					assertNotNull(key, expected.get(key));
+					assertNotNull(key, expectedFromFiles.get(key));
+				}
+			}
+			assertEquals("Batch size: " + batchSize, expected, actual);
+			assertEquals("Batch size: " + batchSize, expectedFromFiles, actualFromFiles);
+		}
+	}
+}
@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2024, Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.javac;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceDescription;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaModelMarker;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.internal.javac.JavacClassOutput;
+import org.eclipse.jdt.internal.javac.JavacCompiler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class JavacCompilerTests {
+
+	private IProject project;
+	private IProject library;
+	private final SystemProperties properties = new SystemProperties();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		IWorkspaceDescription wsDesc = ResourcesPlugin.getWorkspace().getDescription();
+		wsDesc.setAutoBuilding(false);
+		ResourcesPlugin.getWorkspace().setDescription(wsDesc);
+	}
+
+	@Before
+	public void setUp() {
+		this.properties.set(JavacCompiler.class, "PARALLEL", true);
+	}
+
+	@After
+	public void tearDown() throws CoreException {
+		this.properties.restore();
+		if (this.project != null) {
+			this.project.delete(true, null);
+		}
+		if (this.library != null) {
+			this.library.delete(true, null);
+		}
+	}
+
+	/// Creates a project where each source folder has its own output folder
+	private IProject createProject(String name, String... sourceFolders) throws CoreException {
+		IProject res = ResourcesPlugin.getWorkspace().getRoot().getProject(name);
+		res.create(null);
+		res.open(null);
+		IProjectDescription description = res.getDescription();
+		description.setNatureIds(new String[] { JavaCore.NATURE_ID });
+		res.setDescription(description, null);
+		List<IClasspathEntry> entries = new ArrayList<>();
+		entries.add(JavaCore.newContainerEntry(new Path("org.eclipse.jdt.launching.JRE_CONTAINER")));
+		for (String sourceFolder : sourceFolders) {
+			res.getFolder(sourceFolder).create(true, true, null);
+			entries.add(JavaCore.newSourceEntry(res.getFolder(sourceFolder).getFullPath(), null,
+					res.getFolder("bin-" + sourceFolder).getFullPath()));
+		}
+		JavaCore.create(res).setRawClasspath(entries.toArray(IClasspathEntry[]::new), res.getFolder("bin").getFullPath(), null);
+		return res;
+	}
+
+	private void writeFile(String path, String contents) throws CoreException {
+		writeFile(this.project, path, contents);
+	}
+
+	private static void writeFile(IProject project, String path, String contents) throws CoreException {
+		IFile file = project.getFile(path);
+		createFolders(file.getParent());
+		var source = new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+		if (file.exists()) {
+			file.setContents(source, true, false, null);
+		} else {
+			file.create(source, true, null);
+		}
+	}
+
+	private static void createFolders(IContainer container) throws CoreException {
+		if (container instanceof IFolder folder && !folder.exists()) {
+			createFolders(folder.getParent());
+			folder.create(true, true, null);
+		}
+	}
+
+	private List<String> errors() throws CoreException {
+		return Arrays.stream(this.project.findMarkers(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER, true, IResource.DEPTH_INFINITE))
+				.filter(marker -> marker.getAttribute(IMarker.SEVERITY, -1) == IMarker.SEVERITY_ERROR)
+				.map(marker -> marker.getResource().getName() + ": " + marker.getAttribute(IMarker.MESSAGE, "")).toList();
+	}
+
+	private void assertNoErrors() throws CoreException {
+		assertEquals(List.of(), errors());
+	}
+
+	private void assertErrorsOnlyIn(String fileName) throws CoreException {
+		List<String> errors = errors();
+		assertFalse("Expected errors in " + fileName, errors.isEmpty());
+		for (String error : errors) {
+			assertTrue(error, error.startsWith(fileName + ": "));
+		}
+	}
+
+	private static void build(int kind) throws CoreException {
+		ResourcesPlugin.getWorkspace().build(kind, null);
+	}
+
+	@Test
+	public void testParallelOutputFoldersAfterDependencies() throws CoreException {
+		this.project = createProject("parallelOutputs", "api", "impl", "other");
+		writeFile("api/p/A.java", "package p;\npublic class A { public static int m() { return 1; } }\n");
+		writeFile("impl/q/B.java", "package q;\npublic class B { int i = p.A.m(); }\n");
+		writeFile("other/r/C.java", "package r;\npublic class C { }\n");
+		this.project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		assertNoErrors();
+		assertTrue(this.project.getFile("bin-impl/q/B.class").exists());
+
+		// both sides of the dependency change in the same build: B must see the new A
+		writeFile("api/p/A.java", "package p;\npublic class A { public static int n() { return 1; } }\n");
+		writeFile("impl/q/B.java", "package q;\npublic class B { int i = p.A.n(); }\n");
+		this.project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null);
+		assertNoErrors();
+	}
+
+	@Test
+	public void testParallelOutputFoldersReferencingEachOther() throws CoreException {
+		this.project = createProject("cyclicOutputs", "one", "two");
+		writeFile("one/p/A.java", "package p;\npublic class A { q.B b; }\n");
+		writeFile("two/q/B.java", "package q;\npublic class B { p.A a; }\n");
+		this.project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		assertNoErrors();
+		assertTrue(this.project.getFile("bin-one/p/A.class").exists());
+		assertTrue(this.project.getFile("bin-two/q/B.class").exists());
+	}
+
+	@Test
+	public void testIncrementalBuildsWithWarmContext() throws CoreException {
+		this.properties.set(JavacCompiler.class, "INCREMENTAL", true);
+		this.properties.set(JavacCompiler.class, "PARALLEL", false);
+		this.library = createProject("warmLibrary", "src");
+		writeFile(this.library, "src/l/L.java", "package l;\npublic class L { public static int v() { return 1; } }\n");
+		this.project = createProject("warmApplication", "src");
+		IJavaProject javaProject = JavaCore.create(this.project);
+		List<IClasspathEntry> entries = new ArrayList<>(Arrays.asList(javaProject.getRawClasspath()));
+		entries.add(JavaCore.newProjectEntry(this.library.getFullPath()));
+		javaProject.setRawClasspath(entries.toArray(IClasspathEntry[]::new), null);
+		writeFile("src/a/App.java", "package a;\npublic class App { int i = l.L.v() + new Other().o(); }\n");
+		writeFile("src/a/Other.java", "package a;\npublic class Other { int o() { return 1; } }\n");
+		build(IncrementalProjectBuilder.FULL_BUILD);
+		assertNoErrors();
+
+		// the class files of the required project changed: what was read from them must be read again
+		writeFile(this.library, "src/l/L.java", "package l;\npublic class L { public static int value() { return 1; } }\n");
+		build(IncrementalProjectBuilder.INCREMENTAL_BUILD);
+		assertErrorsOnlyIn("App.java");
+		writeFile("src/a/App.java", "package a;\npublic class App { int i = l.L.value() + new Other().o(); }\n");
+		build(IncrementalProjectBuilder.INCREMENTAL_BUILD);
+		assertNoErrors();
+
+		// the units compiled by the previous build must be read again too
+		writeFile("src/a/Other.java", "package a;\npublic class Other { int p() { return 1; } }\n");
+		build(IncrementalProjectBuilder.INCREMENTAL_BUILD);
+		assertErrorsOnlyIn("App.java");
+		writeFile("src/a/Other.java", "package a;\npublic class Other { int o() { return 1; } }\n");
+		build(IncrementalProjectBuilder.INCREMENTAL_BUILD);
+		assertNoErrors();
+		assertTrue(this.project.getFile("bin-src/a/App.class").exists());
+	}
+
+	private Map<String, byte[]> buildClassFiles(boolean inMemory, boolean parallel) throws CoreException {
+		this.properties.set(JavacCompiler.class, "IN_MEMORY_CLASS_OUTPUT", inMemory);
+		this.properties.set(JavacCompiler.class, "PARALLEL", parallel);
+		this.project.build(IncrementalProjectBuilder.CLEAN_BUILD, null);
+		this.project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		assertNoErrors();
+		Map<String, byte[]> classFiles = new TreeMap<>();
+		for (String path : new String[] { "bin-main/p/A.class", "bin-main/p/A$Inner.class", "bin-test/q/ATest.class" }) {
+			IFile file = this.project.getFile(path);
+			assertTrue(path, file.exists());
+			try (InputStream contents = file.getContents()) {
+				classFiles.put(path, contents.readAllBytes());
+			} catch (IOException e) {
+				throw new AssertionError(e);
+			}
+		}
+		return classFiles;
+	}
+
+	@Test
+	public void testInMemoryClassOutput() throws CoreException {
+		this.project = createProject("inMemoryOutput", "main", "test");
+		writeFile("main/p/A.java", "package p;\npublic class A { public static class Inner {} public int m() { return 1; } }\n");
+		writeFile("test/q/ATest.java", "package q;\npublic class ATest { int i = new p.A().m(); p.A.Inner inner; }\n");
+		Map<String, byte[]> expected = buildClassFiles(false, false);
+		for (boolean parallel : new boolean[] { false, true }) {
+			long bytesAvoided = JavacClassOutput.getBytesAvoided();
+			Map<String, byte[]> actual = buildClassFiles(true, parallel);
+			for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+				assertArrayEquals("Parallel: " + parallel + ", " + entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+			}
+			long size = expected.values().stream().mapToLong(bytes -> bytes.length).sum();
+			assertTrue("Parallel: " + parallel, JavacClassOutput.getBytesAvoided() - bytesAvoided >= size);
+		}
+	}
+}
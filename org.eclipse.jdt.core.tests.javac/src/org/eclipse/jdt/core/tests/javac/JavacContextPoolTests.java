@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2024, Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.javac;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jdt.internal.javac.JavacContextPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.tools.javac.util.Context;
+
+public class JavacContextPoolTests {
+
+	private static IJavaProject javaProject;
+	private final SystemProperties properties = new SystemProperties();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject("sandboxJava");
+		javaProject = JavaCore.create(project.exists() ? project : RegressionTests.importProject("projects/dummy"));
+	}
+
+	@Before
+	public void setUp() {
+		this.properties.set(JavacContextPool.class, "ENABLED", true);
+		// start from an empty pool
+		JavacContextPool.getDefault().invalidate(javaProject);
+	}
+
+	@After
+	public void tearDown() {
+		this.properties.restore();
+	}
+
+	private CompilationUnit parse(String source, boolean resolveBindings) {
+		ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
+		parser.setProject(javaProject);
+		parser.setUnitName("A.java");
+		parser.setSource(source.toCharArray());
+		parser.setResolveBindings(resolveBindings);
+		return (CompilationUnit)parser.createAST(null);
+	}
+
+	@Test
+	public void testReleasedContextIsReused() {
+		JavacContextPool pool = JavacContextPool.getDefault();
+		Map<String, String> options = javaProject.getOptions(true);
+		Context context = pool.acquire(javaProject, options, false);
+		assertTrue(pool.release(context));
+		assertEquals(1, pool.idleCount());
+		assertSame(context, pool.acquire(javaProject, options, false));
+		assertTrue(pool.release(context));
+		Context testContext = pool.acquire(javaProject, options, true);
+		assertNotSame("Test sources need their own context", context, testContext);
+		pool.release(testContext);
+	}
+
+	@Test
+	public void testInvalidatedContextIsDropped() {
+		JavacContextPool pool = JavacContextPool.getDefault();
+		Map<String, String> options = javaProject.getOptions(true);
+		Context context = pool.acquire(javaProject, options, false);
+		pool.invalidate(javaProject);
+		pool.release(context);
+		assertEquals("Contexts leased before invalidation shouldn't return to the pool", 0, pool.idleCount());
+		Context newContext = pool.acquire(javaProject, options, false);
+		assertNotSame(context, newContext);
+		pool.release(newContext);
+	}
+
+	@Test
+	public void testParseWithoutBindingsReleasesContext() {
+		JavacContextPool pool = JavacContextPool.getDefault();
+		CompilationUnit unit = parse("public class A { String s = \"\"; }", false);
+		assertEquals(1, unit.types().size());
+		assertEquals(1, pool.idleCount());
+		// broken sources still give the context back
+		parse("public class A { void m() { int } ", false);
+		parse("", false);
+		assertEquals(1, pool.idleCount());
+	}
+
+	@Test
+	public void testParseWithBindingsReleasesContextOnceUnreachable() throws InterruptedException {
+		JavacContextPool pool = JavacContextPool.getDefault();
+		CompilationUnit unit = parse("public class A { String s = \"\"; }", true);
+		assertNotNull(((TypeDeclaration)unit.types().get(0)).resolveBinding());
+		assertEquals("Context is still used by the binding resolver", 0, pool.idleCount());
+		unit = null;
+		for (int i = 0; i < 100 && pool.idleCount() == 0; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		assertEquals(1, pool.idleCount());
+	}
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2024, Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.javac;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
+import org.eclipse.jdt.core.dom.EnumDeclaration;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.ModuleDeclaration;
+import org.eclipse.jdt.core.dom.ModuleModifier;
+import org.eclipse.jdt.core.dom.RecordDeclaration;
+import org.eclipse.jdt.core.dom.RequiresDirective;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class JavacConverterTests {
+
+	private static IJavaProject javaProject;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject("sandboxJava");
+		javaProject = JavaCore.create(project.exists() ? project : RegressionTests.importProject("projects/dummy"));
+	}
+
+	private static CompilationUnit parse(String unitName, String source) {
+		ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
+		parser.setProject(javaProject);
+		parser.setUnitName(unitName);
+		parser.setSource(source.toCharArray());
+		return (CompilationUnit)parser.createAST(null);
+	}
+
+	private static String text(String source, ASTNode node) {
+		return source.substring(node.getStartPosition(), node.getStartPosition() + node.getLength());
+	}
+
+	@Test
+	public void testModulePositions() {
+		String source = """
+			// header
+			open   module m {
+				requires transitive  static java.sql;
+			}
+			""";
+		ModuleDeclaration module = parse("module-info.java", source).getModule();
+		assertTrue(module.isOpen());
+		assertEquals(source.indexOf("open"), module.getStartPosition());
+		assertEquals(source.lastIndexOf('}') + 1, module.getStartPosition() + module.getLength());
+		RequiresDirective requires = (RequiresDirective)module.moduleStatements().get(0);
+		List<String> modifiers = new ArrayList<>();
+		for (Object modifier : requires.modifiers()) {
+			ModuleModifier moduleModifier = (ModuleModifier)modifier;
+			modifiers.add(moduleModifier.getKeyword() + " " + text(source, moduleModifier));
+			assertEquals(source.indexOf(moduleModifier.getKeyword().toString()), moduleModifier.getStartPosition());
+		}
+		assertEquals(List.of("transitive transitive", "static static"), modifiers);
+	}
+
+	@Test
+	public void testDeclarationPositions() {
+		String source = """
+			import java.util.function.BinaryOperator;
+			/** sealed */
+			public sealed class S   permits S.A, S.B {
+				final class A extends S {}
+				non-sealed class B extends S {}
+				record R(int a) {
+					R { }
+					R(String s) { this(1); }
+				}
+				enum E { C   { void m() { } }, D }
+				void m() {
+					var   x = 1;
+					BinaryOperator<Integer> sum = (var a, var   b) -> a + b;
+				}
+			}
+			""";
+		CompilationUnit unit = parse("S.java", source);
+		TypeDeclaration type = (TypeDeclaration)unit.types().get(0);
+		assertEquals(source.indexOf("permits"), type.getRestrictedIdentifierStartPosition());
+		assertEquals("/** sealed */", text(source, type.getJavadoc()));
+
+		List<MethodDeclaration> constructors = new ArrayList<>();
+		List<SimpleType> varTypes = new ArrayList<>();
+		List<EnumConstantDeclaration> enumConstants = new ArrayList<>();
+		unit.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(MethodDeclaration node) {
+				if (node.isConstructor() && node.getParent() instanceof RecordDeclaration) {
+					constructors.add(node);
+				}
+				return true;
+			}
+			@Override
+			public boolean visit(SimpleType node) {
+				if (node.isVar()) {
+					varTypes.add(node);
+				}
+				return true;
+			}
+			@Override
+			public boolean visit(EnumConstantDeclaration node) {
+				enumConstants.add(node);
+				return true;
+			}
+		});
+		assertEquals(2, constructors.size());
+		assertTrue(constructors.get(0).isCompactConstructor());
+		assertFalse(constructors.get(1).isCompactConstructor());
+
+		assertEquals(3, varTypes.size());
+		int var = -1;
+		for (SimpleType varType : varTypes) {
+			var = source.indexOf("var", var + 1);
+			assertEquals(var, varType.getStartPosition());
+			assertEquals("var", text(source, varType));
+		}
+
+		assertEquals(2, enumConstants.size());
+		assertTrue(enumConstants.get(0).getParent() instanceof EnumDeclaration);
+		ASTNode body = enumConstants.get(0).getAnonymousClassDeclaration();
+		assertEquals("{ void m() { } }", text(source, body));
+	}
+}
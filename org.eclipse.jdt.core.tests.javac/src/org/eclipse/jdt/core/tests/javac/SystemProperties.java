@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2024, Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.javac;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/// Sets the system properties selecting the modes of the javac support during a test, and restores
+/// their former values afterwards
+class SystemProperties {
+
+	private final Map<String, String> previous = new HashMap<>();
+
+	/// Sets `-D<owner simple name>.<name>=<value>`
+	void set(Class<?> owner, String name, Object value) {
+		String key = owner.getSimpleName() + '.' + name;
+		if (!this.previous.containsKey(key)) {
+			this.previous.put(key, System.getProperty(key));
+		}
+		System.setProperty(key, String.valueOf(value));
+	}
+
+	void restore() {
+		this.previous.forEach((key, value) -> {
+			if (value == null) {
+				System.clearProperty(key);
+			} else {
+				System.setProperty(key, value);
+			}
+		});
+		this.previous.clear();
+	}
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2024, Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.javac;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+import org.eclipse.jdt.internal.javac.ZipFileSystemProviderWithCache;
+import org.eclipse.jdt.internal.javac.ZipFileSystemProviderWithCache.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZipFileSystemProviderWithCacheTests {
+
+	private Path folder;
+
+	@Before
+	public void setUp() throws IOException {
+		this.folder = Files.createTempDirectory("zipCache");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(this.folder)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	/// Writes the jar next to its final location then moves it, as builds do, so that filesystems
+	/// opened on the former archive can still be read
+	private Path writeJar(String name, String contents, long lastModified) throws IOException {
+		Path tmp = this.folder.resolve(name + ".tmp");
+		try (OutputStream output = Files.newOutputStream(tmp); JarOutputStream jarOutput = new JarOutputStream(output)) {
+			jarOutput.putNextEntry(new ZipEntry("content.txt"));
+			jarOutput.write(contents.getBytes(StandardCharsets.UTF_8));
+			jarOutput.closeEntry();
+		}
+		Files.setLastModifiedTime(tmp, FileTime.fromMillis(lastModified));
+		return Files.move(tmp, this.folder.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static String read(FileSystem fileSystem) throws IOException {
+		return Files.readString(fileSystem.getPath("content.txt"));
+	}
+
+	/// Filesystems are closed asynchronously
+	private static void assertClosed(FileSystem fileSystem) throws InterruptedException {
+		for (int i = 0; i < 100 && fileSystem.isOpen(); i++) {
+			Thread.sleep(50);
+		}
+		assertFalse(fileSystem.isOpen());
+	}
+
+	@Test
+	public void testFileSystemIsSharedBetweenLeases() throws IOException {
+		ZipFileSystemProviderWithCache cache = new ZipFileSystemProviderWithCache(10);
+		Path jar = writeJar("a.jar", "a", 1_000_000);
+		FileSystemProvider lease1 = cache.newLease();
+		FileSystemProvider lease2 = cache.newLease();
+		FileSystem fileSystem = lease1.newFileSystem(jar, Map.of());
+		assertSame(fileSystem, lease2.newFileSystem(jar, Map.of()));
+		assertEquals("a", read(fileSystem));
+		assertEquals(new Statistics(1, 1, 0, Files.size(jar)), cache.getStatistics());
+
+		cache.release(lease1);
+		assertEquals("Still used by the other lease", new Statistics(1, 1, 0, Files.size(jar)), cache.getStatistics());
+		cache.release(lease2);
+		assertEquals("Kept open for reuse", new Statistics(1, 0, 0, Files.size(jar)), cache.getStatistics());
+		assertTrue(fileSystem.isOpen());
+		assertSame(fileSystem, cache.newLease().newFileSystem(jar, Map.of()));
+	}
+
+	@Test
+	public void testUnusedFileSystemsAreBounded() throws IOException, InterruptedException {
+		ZipFileSystemProviderWithCache cache = new ZipFileSystemProviderWithCache(2);
+		FileSystemProvider lease = cache.newLease();
+		FileSystem a = lease.newFileSystem(writeJar("a.jar", "a", 1_000_000), Map.of());
+		FileSystem b = lease.newFileSystem(writeJar("b.jar", "b", 1_000_000), Map.of());
+		FileSystem c = lease.newFileSystem(writeJar("c.jar", "c", 1_000_000), Map.of());
+		assertEquals("Filesystems in use are never closed", 3, cache.getStatistics().openArchives());
+		assertEquals(3, cache.getStatistics().inUseArchives());
+
+		FileSystemProvider other = cache.newLease();
+		other.newFileSystem(this.folder.resolve("b.jar"), Map.of());
+		other.newFileSystem(this.folder.resolve("c.jar"), Map.of());
+		cache.release(lease);
+		Statistics statistics = cache.getStatistics();
+		assertEquals(2, statistics.openArchives());
+		assertEquals(2, statistics.inUseArchives());
+		// the least recently used one is closed
+		assertClosed(a);
+		assertTrue(b.isOpen());
+		assertTrue(c.isOpen());
+
+		cache.release(other);
+		cache.newLease().newFileSystem(writeJar("d.jar", "d", 1_000_000), Map.of());
+		assertEquals(2, cache.getStatistics().openArchives());
+		assertClosed(b);
+		assertTrue(c.isOpen());
+	}
+
+	@Test
+	public void testChangedArchiveIsReopened() throws IOException, InterruptedException {
+		ZipFileSystemProviderWithCache cache = new ZipFileSystemProviderWithCache(10);
+		Path jar = writeJar("a.jar", "old", 1_000_000);
+		FileSystemProvider oldLease = cache.newLease();
+		FileSystem oldFileSystem = oldLease.newFileSystem(jar, Map.of());
+		assertEquals("old", read(oldFileSystem));
+
+		writeJar("a.jar", "new", 2_000_000);
+		FileSystemProvider newLease = cache.newLease();
+		FileSystem newFileSystem = newLease.newFileSystem(jar, Map.of());
+		assertNotSame(oldFileSystem, newFileSystem);
+		assertEquals("new", read(newFileSystem));
+		// the former filesystem is still used by the old lease
+		assertTrue(oldFileSystem.isOpen());
+		assertEquals("old", read(oldFileSystem));
+		assertEquals(2, cache.getStatistics().openArchives());
+		assertEquals(1, cache.getStatistics().supersededArchives());
+
+		cache.release(oldLease);
+		assertEquals(1, cache.getStatistics().openArchives());
+		assertEquals(0, cache.getStatistics().supersededArchives());
+		assertClosed(oldFileSystem);
+		assertTrue(newFileSystem.isOpen());
+	}
+
+	@Test
+	public void testClosedFileSystemIsReopened() throws IOException {
+		ZipFileSystemProviderWithCache cache = new ZipFileSystemProviderWithCache(10);
+		Path jar = writeJar("a.jar", "a", 1_000_000);
+		FileSystemProvider lease = cache.newLease();
+		FileSystem fileSystem = lease.newFileSystem(jar, Map.of());
+		fileSystem.close();
+		FileSystem reopened = lease.newFileSystem(jar, Map.of());
+		assertNotSame(fileSystem, reopened);
+		assertTrue(reopened.isOpen());
+		assertEquals("a", read(reopened));
+		assertEquals(1, cache.getStatistics().openArchives());
+		cache.release(lease);
+	}
+}
@@ -0,0 +1,337 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import junit.framework.Test;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.internal.core.index.DiskIndex;
+import org.eclipse.jdt.internal.core.index.EntryResult;
+import org.eclipse.jdt.internal.core.index.FileIndexLocation;
+import org.eclipse.jdt.internal.core.index.Index;
+import org.eclipse.jdt.internal.core.search.indexing.IIndexConstants;
+
+/**
+ * Tests reading and writing index files directly, without going through the index manager.
+ */
+public class DiskIndexTests extends AbstractJavaModelTests {
+
+	private static final String MAPPED_PROPERTY = DiskIndex.class.getSimpleName() + ".MAPPED";
+	private static final char[][] CATEGORIES = { IIndexConstants.TYPE_DECL, IIndexConstants.REF };
+	private static final String[] WORD_PARTS = { "Array", "List", "array", "list", "Hash", "Map", "X", "x", "Über", "€uro", "Node" };
+
+	private File indexFile;
+	private String wasMapped;
+
+	public DiskIndexTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return buildModelTestSuite(DiskIndexTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.indexFile = new File(getExternalResourcePath("DiskIndexTests.index"));
+		this.indexFile.delete();
+		this.wasMapped = System.getProperty(MAPPED_PROPERTY);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (this.wasMapped == null) {
+			System.clearProperty(MAPPED_PROPERTY);
+		} else {
+			System.setProperty(MAPPED_PROPERTY, this.wasMapped);
+		}
+		this.indexFile.delete();
+		super.tearDown();
+	}
+
+	private Index newIndex(boolean reuseExistingFile) throws IOException {
+		return new Index(new FileIndexLocation(this.indexFile), "", reuseExistingFile);
+	}
+
+	private static void save(Index index) throws IOException {
+		index.monitor.enterWrite();
+		try {
+			index.save();
+		} finally {
+			index.monitor.exitWrite();
+		}
+	}
+
+	/*
+	 * Words made of a few parts, so that many of them share prefixes and humps, with different cases.
+	 */
+	private static String word(int i) {
+		StringBuilder word = new StringBuilder();
+		for (int n = i; ; n /= WORD_PARTS.length) {
+			word.append(WORD_PARTS[n % WORD_PARTS.length]);
+			if (n < WORD_PARTS.length)
+				break;
+		}
+		return word.toString();
+	}
+
+	/*
+	 * Indexes the given range of documents, each one referring to a few words and to a word common to all of them.
+	 */
+	private static void addDocuments(Index index, int start, int end) {
+		for (int i = start; i < end; i++) {
+			String document = "p/X" + i + ".java";
+			for (int j = 0; j < 5; j++)
+				index.addIndexEntry(CATEGORIES[j % 2], word(i * 7 + j * 13).toCharArray(), document);
+			index.addIndexEntry(IIndexConstants.TYPE_DECL, "Common".toCharArray(), document);
+		}
+	}
+
+	/*
+	 * Returns the words matching the key in the given index, each with the sorted names of its documents.
+	 */
+	private static Map<String, TreeSet<String>> query(Index index, String key, int matchRule) throws IOException {
+		Map<String, TreeSet<String>> results = new TreeMap<>();
+		index.startQuery();
+		try {
+			EntryResult[] entries = index.query(CATEGORIES, key == null ? null : key.toCharArray(), matchRule);
+			if (entries != null) {
+				for (EntryResult entry : entries)
+					results.computeIfAbsent(new String(entry.getWord()), w -> new TreeSet<>()).addAll(Arrays.asList(entry.getDocumentNames(index)));
+			}
+		} finally {
+			index.stopQuery();
+		}
+		return results;
+	}
+
+	private Map<String, TreeSet<String>> query(boolean mapped, String key, int matchRule) throws IOException {
+		System.setProperty(MAPPED_PROPERTY, String.valueOf(mapped));
+		return query(newIndex(true), key, matchRule);
+	}
+
+	private static final String[] KEYS = { "Array", "array", "ArrayList", "AL", "AL*", "A*L*", "*List", "Hash?ap*", "x", "X",
+			"Ü", "€", "Common", "ListArray", "NotIndexed", "HM" };
+	private static final int[] MATCH_RULES = {
+			SearchPattern.R_EXACT_MATCH,
+			SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE,
+			SearchPattern.R_PREFIX_MATCH,
+			SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE,
+			SearchPattern.R_PATTERN_MATCH,
+			SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE,
+			SearchPattern.R_CAMELCASE_MATCH,
+			SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_CASE_SENSITIVE,
+			SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH,
+			SearchPattern.R_SUBSTRING_MATCH,
+			SearchPattern.R_SUBWORD_MATCH };
+
+	private void assertSameResultsMappedOrNot() throws IOException {
+		assertEquals("All entries", query(false, null, SearchPattern.R_EXACT_MATCH), query(true, null, SearchPattern.R_EXACT_MATCH));
+		for (String key : KEYS) {
+			for (int matchRule : MATCH_RULES) {
+				assertEquals("Key " + key + ", match rule " + matchRule, query(false, key, matchRule), query(true, key, matchRule));
+			}
+		}
+		assertEquals("Regular expression", query(false, "Arr.*", SearchPattern.R_REGEXP_MATCH), query(true, "Arr.*", SearchPattern.R_REGEXP_MATCH));
+	}
+
+	/*
+	 * The memory mapping is used to look words up in place, it must give the same results as reading the index through streams.
+	 */
+	public void testMappedIndex() throws IOException {
+		if (File.separatorChar != '/')
+			return; // never mapped on Windows
+		Index index = newIndex(false);
+		addDocuments(index, 0, 600);
+		save(index);
+		assertEquals("Common word with a large array of documents", 600, query(true, "Common", SearchPattern.R_EXACT_MATCH).get("Common").size());
+		assertSameResultsMappedOrNot();
+
+		// merged index
+		for (int i = 0; i < 600; i += 7)
+			index.remove("p/X" + i + ".java");
+		addDocuments(index, 600, 700);
+		save(index);
+		assertSameResultsMappedOrNot();
+	}
+
+	/*
+	 * Documents changed in memory hide their entries on disk, whether it's mapped or not.
+	 */
+	public void testMappedIndexWithUnsavedChanges() throws IOException {
+		if (File.separatorChar != '/')
+			return; // never mapped on Windows
+		Index index = newIndex(false);
+		addDocuments(index, 0, 50);
+		save(index);
+		for (boolean mapped : new boolean[] { false, true }) {
+			System.setProperty(MAPPED_PROPERTY, String.valueOf(mapped));
+			Index reread = newIndex(true);
+			reread.remove("p/X0.java");
+			reread.addIndexEntry(IIndexConstants.TYPE_DECL, "Unsaved".toCharArray(), "p/X1.java");
+			Map<String, TreeSet<String>> common = query(reread, "Common", SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+			assertEquals("Mapped: " + mapped, 48, common.get("Common").size());
+			assertFalse("Mapped: " + mapped, common.get("Common").contains("p/X0.java"));
+			assertEquals("Mapped: " + mapped, Map.of("Unsaved", new TreeSet<>(Arrays.asList("p/X1.java"))),
+					query(reread, "Uns", SearchPattern.R_PREFIX_MATCH));
+		}
+	}
+
+	/*
+	 * Returns the given entries whose word matches the key, as a scan of all the words of the index finds them.
+	 */
+	private static Map<String, TreeSet<String>> filter(Map<String, TreeSet<String>> entries, String key, int matchRule) {
+		Map<String, TreeSet<String>> results = new TreeMap<>();
+		for (Map.Entry<String, TreeSet<String>> entry : entries.entrySet()) {
+			if (Index.isMatch(key.toCharArray(), entry.getKey().toCharArray(), matchRule))
+				results.put(entry.getKey(), entry.getValue());
+		}
+		return results;
+	}
+
+	/*
+	 * The words are kept in dictionary order on disk and looked up by binary search, which must find the same
+	 * words as a scan of the whole category tables.
+	 */
+	private void assertSortedLookups(String[] keys, int[] matchRules) throws IOException {
+		for (boolean mapped : new boolean[] { false, true }) {
+			Map<String, TreeSet<String>> all = query(mapped, null, SearchPattern.R_EXACT_MATCH);
+			Index index = newIndex(true);
+			for (int pass = 0; pass < 2; pass++) { // the second pass reuses the words read by the first one
+				for (String key : keys) {
+					for (int matchRule : matchRules) {
+						assertEquals("Key " + key + ", match rule " + matchRule + ", mapped: " + mapped,
+								filter(all, key, matchRule), query(index, key, matchRule));
+					}
+				}
+			}
+		}
+	}
+
+	private static Set<String> words(Map<String, TreeSet<String>> results) {
+		return results.keySet();
+	}
+
+	public void testSortedPrefixQueries() throws IOException {
+		Index index = newIndex(false);
+		addDocuments(index, 0, 300);
+		save(index);
+		assertSortedLookups(
+				new String[] { "A", "a", "Arr", "array", "ArrayList", "arrayli", "ListArrayMap", "Ü", "über", "€", "€uro", "x", "X",
+						"Common", "common", "Node", "Zz", "0" },
+				new int[] {
+						SearchPattern.R_EXACT_MATCH,
+						SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE,
+						SearchPattern.R_PREFIX_MATCH,
+						SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE });
+	}
+
+	public void testSortedPatternQueries() throws IOException {
+		Index index = newIndex(false);
+		addDocuments(index, 0, 300);
+		save(index);
+		assertSortedLookups(
+				new String[] { "Arr*", "arr*L*", "*List", "?rray*", "A?ray", "*", "Li*t*x", "€*", "Ü*", "Array", "X*N*", "Zz*" },
+				new int[] {
+						SearchPattern.R_PATTERN_MATCH,
+						SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE });
+	}
+
+	public void testSortedCamelCaseQueries() throws IOException {
+		Index index = newIndex(false);
+		addDocuments(index, 0, 300);
+		save(index);
+		assertSortedLookups(
+				new String[] { "A", "AL", "ArrL", "ArrayL", "arrL", "ALi", "ALA", "HM", "HaM", "ÜL", "XN", "xN", "X", "Li", "€A", "Node" },
+				new int[] {
+						SearchPattern.R_CAMELCASE_MATCH,
+						SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_CASE_SENSITIVE,
+						SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH,
+						SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH | SearchPattern.R_CASE_SENSITIVE });
+	}
+
+	/*
+	 * Words only differing by case are next to each other in the sorted tables.
+	 */
+	public void testCaseInsensitiveQueries() throws IOException {
+		Index index = newIndex(false);
+		String[] words = { "ArrayList", "arrayList", "ARRAYLIST", "Arraylist", "ArrayMap", "Arrays", "Array", "Ar", "B", "arrlist", "Ärray" };
+		for (int i = 0; i < words.length; i++)
+			index.addIndexEntry(IIndexConstants.TYPE_DECL, words[i].toCharArray(), "p/X" + i + ".java");
+		save(index);
+		for (boolean mapped : new boolean[] { false, true }) {
+			assertEquals("Mapped: " + mapped, Set.of("ArrayList", "arrayList", "ARRAYLIST", "Arraylist"),
+					words(query(mapped, "arraylist", SearchPattern.R_EXACT_MATCH)));
+			assertEquals("Mapped: " + mapped, Set.of("arrayList"),
+					words(query(mapped, "arrayList", SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE)));
+			assertEquals("Mapped: " + mapped, Set.of("ArrayList", "arrayList", "ARRAYLIST", "Arraylist", "ArrayMap", "Arrays", "Array"),
+					words(query(mapped, "ARRAY", SearchPattern.R_PREFIX_MATCH)));
+			assertEquals("Mapped: " + mapped, Set.of("ArrayList", "Arraylist", "ArrayMap", "Arrays", "Array"),
+					words(query(mapped, "Array", SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE)));
+			assertEquals("Mapped: " + mapped, Set.of("ArrayList", "arrlist"),
+					words(query(mapped, "ArrL", SearchPattern.R_CAMELCASE_MATCH)));
+			assertEquals("Mapped: " + mapped, Set.of("ArrayList"),
+					words(query(mapped, "ArrL", SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_CASE_SENSITIVE)));
+			assertEquals("Mapped: " + mapped, Set.of("ArrayList", "arrayList", "ARRAYLIST", "Arraylist", "arrlist"),
+					words(query(mapped, "a*l*t", SearchPattern.R_PATTERN_MATCH)));
+			assertEquals("Mapped: " + mapped, Set.of("Ärray"), words(query(mapped, "ärr", SearchPattern.R_PREFIX_MATCH)));
+		}
+	}
+
+	/*
+	 * Merging the changes of the memory index rewrites the sorted tables, with words inserted between the existing ones
+	 * and removed words left out.
+	 */
+	public void testMergedSortedTables() throws IOException {
+		String[] keys = { "A", "Arr", "ArrayLista", "Arraz", "ab", "Äb", "AL", "ArrL", "A*L*", "*a", "Common", "Inserted" };
+		int[] matchRules = {
+				SearchPattern.R_EXACT_MATCH,
+				SearchPattern.R_PREFIX_MATCH,
+				SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE,
+				SearchPattern.R_PATTERN_MATCH,
+				SearchPattern.R_CAMELCASE_MATCH,
+				SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_CASE_SENSITIVE };
+		Index index = newIndex(false);
+		addDocuments(index, 0, 300);
+		save(index);
+
+		String[] inserted = { "ArrayLista", "Arraz", "Ab", "Äb", "Inserted", "A", "zzz" };
+		for (int i = 0; i < 300; i += 3)
+			index.remove("p/X" + i + ".java");
+		for (int i = 0; i < inserted.length; i++)
+			index.addIndexEntry(CATEGORIES[i % 2], inserted[i].toCharArray(), "p/Y" + i + ".java");
+		save(index);
+		Map<String, TreeSet<String>> all = query(false, null, SearchPattern.R_EXACT_MATCH);
+		for (String word : inserted)
+			assertTrue("Inserted word " + word, all.containsKey(word));
+		assertEquals("Common word after removals", 200, all.get("Common").size());
+		assertSortedLookups(keys, matchRules);
+
+		// rewrite again, removing some of the inserted words and all the documents of others
+		index = newIndex(true);
+		index.remove("p/Y0.java");
+		index.remove("p/Y4.java");
+		addDocuments(index, 300, 350);
+		save(index);
+		all = query(false, null, SearchPattern.R_EXACT_MATCH);
+		assertFalse(all.containsKey("ArrayLista"));
+		assertFalse(all.containsKey("Inserted"));
+		assertTrue(all.containsKey("Arraz"));
+		assertSortedLookups(keys, matchRules);
+	}
+}
@@ -29,10 +29,19 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
 import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.core.CompilationUnit;
+import org.eclipse.jdt.internal.core.DefaultWorkingCopyOwner;
 import org.eclipse.jdt.internal.core.JavaModelManager;
 import org.eclipse.jdt.internal.core.index.EntryResult;
 import org.eclipse.jdt.internal.core.index.Index;
@@ -40,6 +49,7 @@ import org.eclipse.jdt.internal.core.index.MetaIndex;
 import org.eclipse.jdt.internal.core.search.indexing.IIndexConstants;
 import org.eclipse.jdt.internal.core.search.indexing.IndexManager;
 import org.eclipse.jdt.internal.core.search.indexing.ReadWriteMonitor;
+import org.eclipse.jdt.internal.core.search.indexing.SourceIndexer;
 
 public class IndexManagerTests extends ModifyingResourceTests {
 	private static final boolean SKIP_TESTS = Boolean.parseBoolean(System.getProperty("org.eclipse.jdt.disableMetaIndex", "false"));
@@ -176,6 +186,159 @@ public class IndexManagerTests extends ModifyingResourceTests {
 		assertEquals("No results found", 1, indexNames.get().size());
 	}
 
+	public void testReconciledASTIsIndexed() throws CoreException {
+		String property = SourceIndexer.class.getSimpleName() + ".DOM_BASED_INDEXER";
+		String wasDOMBased = System.getProperty(property);
+		System.setProperty(property, "true");
+		ICompilationUnit unit = getCompilationUnit("/IndexProject/src/app/Q1.java");
+		try {
+			createFolder("/IndexProject/src/app");
+			createFile("/IndexProject/src/app/Q1.java",
+					"package app;\n" +
+					"public class Q1 {\n" +
+					"	Runnable r1 = Q1::m;\n" +
+					"	Runnable r2 = () -> m();\n" +
+					"	static void m() {}\n" +
+					"}");
+			waitUntilIndexesReady();
+			List<String> expected = searchDeclarationsAndReferences("Q*");
+			assertFalse("No matches", expected.isEmpty());
+
+			unit.becomeWorkingCopy(null);
+			((CompilationUnit) unit).getOrBuildAST(DefaultWorkingCopyOwner.PRIMARY);
+			long reused = SourceIndexer.getReusedASTCount();
+			reindex("/IndexProject/src/app/Q1.java");
+			assertTrue("The AST of the working copy should be indexed", SourceIndexer.getReusedASTCount() > reused);
+			assertEquals(expected, searchDeclarationsAndReferences("Q*"));
+
+			// the index is about the file contents
+			unit.getBuffer().append("\n// changed");
+			((CompilationUnit) unit).getOrBuildAST(DefaultWorkingCopyOwner.PRIMARY);
+			reused = SourceIndexer.getReusedASTCount();
+			reindex("/IndexProject/src/app/Q1.java");
+			assertEquals("The AST of a changed working copy should not be indexed", reused, SourceIndexer.getReusedASTCount());
+			assertEquals(expected, searchDeclarationsAndReferences("Q*"));
+		} finally {
+			unit.discardWorkingCopy();
+			restoreProperty(property, wasDOMBased);
+		}
+	}
+
+	public void testSourcesIndexedByBatches() throws CoreException {
+		String property = SourceIndexer.class.getSimpleName() + ".DOM_BASED_INDEXER";
+		String batchSizeProperty = SourceIndexer.class.getSimpleName() + ".DOM_BATCH_SIZE";
+		String wasDOMBased = System.getProperty(property);
+		String wasBatchSize = System.getProperty(batchSizeProperty);
+		System.setProperty(property, "true");
+		try {
+			createFolder("/IndexProject/src/app");
+			int count = 7;
+			for (int i = 0; i < count; i++) {
+				createFile("/IndexProject/src/app/U" + i + ".java",
+						"package app;\n" +
+						"public class U" + i + " {\n" +
+						(i % 2 == 0
+							? "	Runnable r = U" + (count - 1 - i) + "::m;\n"
+							: "	Runnable r = () -> U" + (count - 1 - i) + ".m();\n") +
+						"	static void m() {}\n" +
+						"}");
+			}
+			List<String> expected = null;
+			// one document per batch is what was done before batches, then batches with a partial last one, then all at once
+			for (int batchSize : new int[] { 1, 3, 500 }) {
+				System.setProperty(batchSizeProperty, Integer.toString(batchSize));
+				this.indexManager.removeIndex(this.project.getPath());
+				this.indexManager.indexAll(this.project.getProject());
+				waitUntilIndexesReady();
+				List<String> matches = searchDeclarationsAndReferences("U*");
+				if (expected == null) {
+					expected = matches;
+					for (int i = 0; i < count; i++) {
+						String name = "U" + i + ".java";
+						assertTrue("No match in " + name, expected.stream().anyMatch(match -> match.startsWith(name)));
+					}
+				} else {
+					assertEquals("Batch size: " + batchSize, expected, matches);
+				}
+			}
+		} finally {
+			restoreProperty(batchSizeProperty, wasBatchSize);
+			restoreProperty(property, wasDOMBased);
+		}
+	}
+
+	public void testOpenedUnitsIndexedByBatches() throws CoreException {
+		String property = SourceIndexer.class.getSimpleName() + ".DOM_BASED_INDEXER";
+		String wasDOMBased = System.getProperty(property);
+		System.setProperty(property, "true");
+		ICompilationUnit unit = getCompilationUnit("/IndexProject/src/app/V0.java");
+		try {
+			createFolder("/IndexProject/src/app");
+			String source =
+					"package app;\n" +
+					"public class V0 {\n" +
+					"	Runnable r = () -> V1.m();\n" +
+					"}";
+			createFile("/IndexProject/src/app/V0.java", source);
+			createFile("/IndexProject/src/app/V1.java",
+					"package app;\n" +
+					"public class V1 {\n" +
+					"	static void m() {}\n" +
+					"}");
+			this.indexManager.removeIndex(this.project.getPath());
+			this.indexManager.indexAll(this.project.getProject());
+			waitUntilIndexesReady();
+			List<String> expected = searchDeclarationsAndReferences("V*");
+			String lambda = "V0.java [" + source.indexOf("() ->") + "]";
+			assertTrue("No lambda in " + expected, expected.stream().anyMatch(match -> match.startsWith(lambda)));
+
+			// saved, so its AST is indexed, including the lambda of the resolved pass
+			unit.becomeWorkingCopy(null);
+			((CompilationUnit) unit).getOrBuildAST(DefaultWorkingCopyOwner.PRIMARY);
+			long reused = SourceIndexer.getReusedASTCount();
+			this.indexManager.removeIndex(this.project.getPath());
+			this.indexManager.indexAll(this.project.getProject());
+			waitUntilIndexesReady();
+			assertTrue("The AST of the working copy should be indexed", SourceIndexer.getReusedASTCount() > reused);
+			assertEquals(expected, searchDeclarationsAndReferences("V*"));
+		} finally {
+			unit.discardWorkingCopy();
+			restoreProperty(property, wasDOMBased);
+		}
+	}
+
+	private static void restoreProperty(String property, String value) {
+		if (value == null) {
+			System.clearProperty(property);
+		} else {
+			System.setProperty(property, value);
+		}
+	}
+
+	private void reindex(String path) {
+		this.indexManager.addSource(getFile(path), this.project.getProject().getFullPath(), null);
+		waitUntilIndexesReady();
+	}
+
+	private List<String> searchDeclarationsAndReferences(String typeNamePattern) throws CoreException {
+		SearchPattern pattern = SearchPattern.createOrPattern(
+				SearchPattern.createPattern(typeNamePattern, IJavaSearchConstants.TYPE, IJavaSearchConstants.ALL_OCCURRENCES, SearchPattern.R_PATTERN_MATCH),
+				SearchPattern.createOrPattern(
+						SearchPattern.createPattern("m", IJavaSearchConstants.METHOD, IJavaSearchConstants.ALL_OCCURRENCES, SearchPattern.R_EXACT_MATCH),
+						// lambdas are only indexed from the resolved document
+						SearchPattern.createPattern("java.lang.Runnable", IJavaSearchConstants.TYPE, IJavaSearchConstants.IMPLEMENTORS, SearchPattern.R_EXACT_MATCH)));
+		List<String> matches = new ArrayList<>();
+		new SearchEngine().search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() },
+				SearchEngine.createJavaSearchScope(new IJavaElement[] { this.project }), new SearchRequestor() {
+					@Override
+					public void acceptSearchMatch(SearchMatch match) {
+						matches.add(match.getResource().getName() + " [" + match.getOffset() + "] " + match.getAccuracy());
+					}
+				}, null);
+		Collections.sort(matches);
+		return matches;
+	}
+
 	private void changeFile(String path, String content) {
 		IFile file = getFile(path);
 		if (!file.exists()) {
@@ -14,8 +14,12 @@
 package org.eclipse.jdt.core.tests.model;
 
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import junit.framework.Test;
 import org.eclipse.core.resources.IProject;
@@ -62,6 +66,8 @@ public class SearchTests extends ModifyingResourceTests implements IJavaSearchCo
 		System.out.print("}");
 	 */
 	static final byte[] EMPTY_JAR = {80, 75, 3, 4, 20, 0, 8, 0, 8, 0, 106, -100, 116, 46, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 20, 0, 4, 0, 77, 69, 84, 65, 45, 73, 78, 70, 47, 77, 65, 78, 73, 70, 69, 83, 84, 46, 77, 70, -2, -54, 0, 0, -29, -27, 2, 0, 80, 75, 7, 8, -84, -123, -94, 20, 4, 0, 0, 0, 2, 0, 0, 0, 80, 75, 1, 2, 20, 0, 20, 0, 8, 0, 8, 0, 106, -100, 116, 46, -84, -123, -94, 20, 4, 0, 0, 0, 2, 0, 0, 0, 20, 0, 4, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 77, 69, 84, 65, 45, 73, 78, 70, 47, 77, 65, 78, 73, 70, 69, 83, 84, 46, 77, 70, -2, -54, 0, 0, 80, 75, 5, 6, 0, 0, 0, 0, 1, 0, 1, 0, 70, 0, 0, 0, 74, 0, 0, 0, 0, 0, };
+	/* number of index jobs run at once, see JobManager#getConcurrentJobs() */
+	private static final String CONCURRENT_JOBS_PROPERTY = "org.eclipse.jdt.index_threads";
 	static class WaitUntilReadyMonitor implements IProgressMonitor {
 		public Semaphore sem = new Semaphore();
 		public void beginTask(String name, int totalWork) {
@@ -255,6 +261,57 @@ public class SearchTests extends ModifyingResourceTests implements IJavaSearchCo
 			JavaModelManager.getIndexManager().enable();
 		}
 	}
+	/*
+	 * A job recording when it runs, and waiting for the jobs expected to run at the same time
+	 */
+	static class ConcurrentJob implements IJob {
+		private final String name;
+		private final Object key;
+		private final List<String> events;
+		private final CountDownLatch together;
+		private final CountDownLatch done;
+		ConcurrentJob(String name, Object key, List<String> events, CountDownLatch together, CountDownLatch done) {
+			this.name = name;
+			this.key = key;
+			this.events = events;
+			this.together = together;
+			this.done = done;
+		}
+		public boolean belongsTo(String jobFamily) {
+			return false;
+		}
+		public void cancel() {
+		}
+		public void ensureReadyToRun() {
+		}
+		public boolean execute(IProgressMonitor progress) {
+			this.events.add("start " + this.name);
+			try {
+				if (this.together != null) {
+					this.together.countDown();
+					if (!this.together.await(30, TimeUnit.SECONDS)) {
+						this.events.add("not concurrent " + this.name);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			this.events.add("end " + this.name);
+			this.done.countDown();
+			return true;
+		}
+		public String getJobFamily() {
+			return "SearchTests.Concurrent";
+		}
+		@Override
+		public Object getConcurrencyKey() {
+			return this.key;
+		}
+		@Override
+		public String toString() {
+			return "ConcurrentJob " + this.name;
+		}
+	}
 static {
 	//TESTS_PREFIX = "testSearchPatternValidateMatchRule";
 }
@@ -594,6 +651,135 @@ public void _2551_testConcurrentJob() throws Exception {
 		deleteProject("P1");
 	}
 }
+private static void restoreConcurrentJobs(String wasConcurrentJobs) {
+	if (wasConcurrentJobs == null) {
+		System.clearProperty(CONCURRENT_JOBS_PROPERTY);
+	} else {
+		System.setProperty(CONCURRENT_JOBS_PROPERTY, wasConcurrentJobs);
+	}
+}
+/*
+ * Runs the given jobs, once all of them are queued, and answers the events they recorded.
+ */
+private List<String> runJobs(int concurrentJobs, List<String> events, CountDownLatch done, IJob... jobs) throws InterruptedException {
+	IndexManager indexManager = JavaModelManager.getIndexManager();
+	String wasConcurrentJobs = System.getProperty(CONCURRENT_JOBS_PROPERTY);
+	boolean indexDisabled = isIndexDisabledForTest();
+	if (indexDisabled) {
+		enableIndexer();
+	}
+	try {
+		System.setProperty(CONCURRENT_JOBS_PROPERTY, String.valueOf(concurrentJobs));
+		waitUntilIndexesReady();
+		while (indexManager.isEnabled()) {
+			indexManager.disable();
+		}
+		for (IJob job : jobs) {
+			indexManager.request(job);
+		}
+		while (!indexManager.isEnabled()) {
+			indexManager.enable();
+		}
+		assertTrue("Jobs should be done", done.await(2, TimeUnit.MINUTES));
+		waitUntilIndexesReady();
+		return new ArrayList<>(events);
+	} finally {
+		restoreConcurrentJobs(wasConcurrentJobs);
+		if (indexDisabled) {
+			disableIndexer();
+		}
+	}
+}
+/*
+ * Ensures that consecutive jobs with different keys run together, but that jobs with the same key
+ * and jobs without key still run in the order they were requested.
+ */
+public void testConcurrentJobs() throws InterruptedException {
+	List<String> events = Collections.synchronizedList(new ArrayList<>());
+	CountDownLatch together = new CountDownLatch(3);
+	CountDownLatch done = new CountDownLatch(6);
+	List<String> actual = runJobs(3, events, done,
+		new ConcurrentJob("a1", "a", events, together, done),
+		new ConcurrentJob("b", "b", events, together, done),
+		new ConcurrentJob("c", "c", events, together, done),
+		new ConcurrentJob("a2", "a", events, null, done),
+		new ConcurrentJob("alone", null, events, null, done),
+		new ConcurrentJob("d", "d", events, null, done));
+	assertFalse(actual.toString(), actual.stream().anyMatch(event -> event.startsWith("not concurrent")));
+	int lastOfFirstRun = Math.max(actual.indexOf("end a1"), Math.max(actual.indexOf("end b"), actual.indexOf("end c")));
+	assertTrue(actual.toString(), lastOfFirstRun < actual.indexOf("start a2"));
+	assertEquals(actual.toString(),
+		List.of("start a2", "end a2", "start alone", "end alone", "start d", "end d"),
+		actual.subList(actual.size() - 6, actual.size()));
+}
+/*
+ * Ensures that jobs run one at a time by default, even if they could run concurrently.
+ */
+public void testConcurrentJobsDisabled() throws InterruptedException {
+	List<String> events = Collections.synchronizedList(new ArrayList<>());
+	CountDownLatch done = new CountDownLatch(3);
+	List<IJob> timed = Collections.synchronizedList(new ArrayList<>());
+	JavaModelManager.getIndexManager().setJobTimingListener((job, duration) -> timed.add(job));
+	try {
+		IJob[] jobs = {
+			new ConcurrentJob("a", "a", events, null, done),
+			new ConcurrentJob("b", "b", events, null, done),
+			new ConcurrentJob("c", "c", events, null, done)
+		};
+		List<String> actual = runJobs(1, events, done, jobs);
+		assertEquals(List.of("start a", "end a", "start b", "end b", "start c", "end c"), actual);
+		assertTrue(timed.toString(), timed.containsAll(List.of(jobs)));
+	} finally {
+		JavaModelManager.getIndexManager().setJobTimingListener(null);
+	}
+}
+/*
+ * Ensures that jars indexed concurrently are all searchable.
+ */
+public void testConcurrentJarIndexing() throws CoreException, IOException {
+	String wasConcurrentJobs = System.getProperty(CONCURRENT_JOBS_PROPERTY);
+	boolean indexDisabled = isIndexDisabledForTest();
+	if (indexDisabled) {
+		enableIndexer();
+	}
+	try {
+		System.setProperty(CONCURRENT_JOBS_PROPERTY, "3");
+		IJavaProject project = createJavaProject("P1", new String[0], new String[] {"JCL18_LIB"}, "bin", "1.8");
+		for (int i = 0; i < 6; i++) {
+			addLibrary(project, "lib" + i + ".jar", null, new String[] {
+				"p" + i + "/X" + i + ".java",
+				"package p" + i + ";\n" +
+				"public class X" + i + " {\n" +
+				"	public class Member" + i + " {}\n" +
+				"}"
+			}, "1.8");
+		}
+		waitUntilIndexesReady();
+		IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] {project});
+		SearchTypeNameRequestor requestor = new SearchTypeNameRequestor();
+		new SearchEngine().searchAllTypeNames(
+			null,
+			SearchPattern.R_EXACT_MATCH,
+			"X".toCharArray(),
+			SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE,
+			TYPE,
+			scope,
+			requestor,
+			WAIT_UNTIL_READY_TO_SEARCH,
+			null);
+		StringBuilder expectedTypes = new StringBuilder();
+		for (int i = 0; i < 6; i++) {
+			expectedTypes.append(i == 0 ? "" : "\n").append("p" + i + ".X" + i);
+		}
+		assertEquals(expectedTypes.toString(), requestor.toString());
+	} finally {
+		restoreConcurrentJobs(wasConcurrentJobs);
+		deleteProject("P1");
+		if (indexDisabled) {
+			disableIndexer();
+		}
+	}
+}
 /*
  * Ensures that passing a null progress monitor with a CANCEL_IF_NOT_READY_TO_SEARCH
  * waiting policy doesn't throw a NullPointerException but an OperationCanceledException.
@@ -518,6 +518,14 @@ public org.eclipse.jdt.core.dom.CompilationUnit getOrBuildAST(WorkingCopyOwner w
 	return this.ast;
 }
 
+/**
+ * @return the AST kept by this working copy from its last reconcile or {@link #getOrBuildAST(WorkingCopyOwner)},
+ *         as long as the buffer didn't change since, or {@code null}. It must not be modified.
+ */
+public org.eclipse.jdt.core.dom.CompilationUnit getCachedAST() {
+	return this.ast;
+}
+
 @Override
 public void bufferChanged(BufferChangedEvent event) {
 	this.ast = null;
@@ -27,6 +27,8 @@ package org.eclipse.jdt.internal.core;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.MessageFormat;
 import java.time.Instant;
 import java.util.*;
@@ -112,6 +114,9 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	private static final Integer SAVE_THREAD_COUNT = Integer.getInteger("org.eclipse.jdt.model_save_threads"); //$NON-NLS-1$
 	/** should the state.dat be gzip compressed? **/
 	private static final boolean SAVE_ZIPPED = !Boolean.getBoolean("org.eclipse.jdt.disable_gzip"); //$NON-NLS-1$
+	/** should the state.dat be saved uncompressed, to be read lazily from its memory mapping? Not on Windows, where a mapped file can't be replaced **/
+	private static final boolean SAVE_MAPPED = Boolean.getBoolean("org.eclipse.jdt.map_state") && File.separatorChar == '/'; //$NON-NLS-1$
+	private static final String MAPPED_STATE = "MAPPED_STATE"; //$NON-NLS-1$
 	private static ServiceRegistration<DebugOptionsListener> DEBUG_REGISTRATION;
 	private static final String NON_CHAINING_JARS_CACHE = "nonChainingJarsCache"; //$NON-NLS-1$
 	private static final String EXTERNAL_FILES_CACHE = "externalFilesCache";  //$NON-NLS-1$
@@ -4132,6 +4137,15 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 				if (!pluginID.equals(JavaCore.PLUGIN_ID))
 					throw new IOException(Messages.build_wrongFileFormat);
 				String kind = in.readUTF();
+				if (kind.equals(MAPPED_STATE)) {
+					if (SAVE_MAPPED)
+						return JavaBuilder.readMappedState(project, file);
+					// would be overwritten in place while still mapped
+					if (JavaBuilder.DEBUG) {
+						trace("Ignoring mapped state for " + project.getName()); //$NON-NLS-1$
+					}
+					return null;
+				}
 				if (!kind.equals("STATE")) //$NON-NLS-1$
 					throw new IOException(Messages.build_wrongFileFormat);
 				if (in.readBoolean())
@@ -4366,14 +4380,18 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		if (file == null) return;
 		long t = System.currentTimeMillis();
 		try {
-			try (DataOutputStream out = new DataOutputStream(createOutputStream(file))) {
-				out.writeUTF(JavaCore.PLUGIN_ID);
-				out.writeUTF("STATE"); //$NON-NLS-1$
-				if (info.savedState == null) {
-					out.writeBoolean(false);
-				} else {
-					out.writeBoolean(true);
-					JavaBuilder.writeState(info.savedState, out);
+			if (SAVE_MAPPED) {
+				saveMappedState(info, file);
+			} else {
+				try (DataOutputStream out = new DataOutputStream(createOutputStream(file))) {
+					out.writeUTF(JavaCore.PLUGIN_ID);
+					out.writeUTF("STATE"); //$NON-NLS-1$
+					if (info.savedState == null) {
+						out.writeBoolean(false);
+					} else {
+						out.writeBoolean(true);
+						JavaBuilder.writeState(info.savedState, out);
+					}
 				}
 			}
 		} catch (RuntimeException | IOException e) {
@@ -4392,6 +4410,30 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		}
 	}
 
+	/**
+	 * Saves the built state uncompressed into a temporary file then moves it in place, so that the previous
+	 * file is left unchanged for the states still mapped from it.
+	 */
+	private void saveMappedState(PerProjectInfo info, File file) throws IOException {
+		File tempFile = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeUTF(JavaCore.PLUGIN_ID);
+				if (info.savedState == null) {
+					out.writeUTF("STATE"); //$NON-NLS-1$
+					out.writeBoolean(false);
+				} else {
+					out.writeUTF(MAPPED_STATE);
+					out.writeBoolean(true);
+					JavaBuilder.writeMappedState(info.savedState, out);
+				}
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			tempFile.delete(); // no-op once moved
+		}
+	}
+
 	private InputStream createInputStream(File file) throws IOException {
 		InputStream in = new FileInputStream(file);
 		try {
@@ -19,7 +19,6 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
-import java.util.Map.Entry;
 import java.util.Set;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -69,6 +68,21 @@ protected boolean makeOutputFolderConsistent;
 private IncrementalImageBuilder testImageBuilder;
 
 public static int MaxCompileLoop = 5; // perform a full build if it takes more than ? incremental compile loops
+/*
+ * Whether the files affected by changed names are found through the reference index of the state instead of
+ * scanning all its references, unless -DIncrementalImageBuilder.USE_REFERENCE_INDEX=false.
+ */
+private static boolean isUsingReferenceIndex() {
+	return Boolean.parseBoolean(System.getProperty(IncrementalImageBuilder.class.getSimpleName() + ".USE_REFERENCE_INDEX", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+}
+/*
+ * Whether changes to private fields and methods are left out of the structural changes of a class file, using
+ * -DIncrementalImageBuilder.IGNORE_PRIVATE_CHANGES=true: they can only be referenced from their own compilation unit,
+ * so they don't require to recompile the dependents of the type.
+ */
+private static boolean isIgnoringPrivateChanges() {
+	return Boolean.getBoolean(IncrementalImageBuilder.class.getSimpleName() + ".IGNORE_PRIVATE_CHANGES"); //$NON-NLS-1$
+}
 
 protected IncrementalImageBuilder(JavaBuilder javaBuilder, State buildState, CompilationGroup compilationGroup) {
 	super(javaBuilder, true, buildState, compilationGroup);
@@ -259,11 +273,16 @@ protected void addAffectedSourceFiles(Set<String> qualifiedSet, Set<String> simp
 		internedSimpleNames = null;
 	char[][] internedRootNames = ReferenceCollection.internSimpleNames(rootSet, false);
 
-	next: for (Entry<String, ReferenceCollection> entry : this.newState.references.entrySet()) {
-		String typeLocator = entry.getKey();
+	// only look at the type locators referencing one of the names instead of walking all the references
+	Set<String> typeLocators = isUsingReferenceIndex()
+			? this.newState.getReferencingLocators(internedQualifiedNames, internedSimpleNames, internedRootNames)
+			: null;
+	if (typeLocators == null)
+		typeLocators = this.newState.references.keySet();
+	next: for (String typeLocator : typeLocators) {
 		if (affectedTypes != null && !affectedTypes.contains(typeLocator)) continue next;
-		ReferenceCollection refs = entry.getValue();
-		if (refs.includes(internedQualifiedNames, internedSimpleNames, internedRootNames)) {
+		ReferenceCollection refs = this.newState.references.get(typeLocator);
+		if (refs != null && refs.includes(internedQualifiedNames, internedSimpleNames, internedRootNames)) {
 			IFile file = this.javaBuilder.currentProject.getFile(typeLocator);
 			SourceFile sourceFile = findSourceFile(file, true);
 			if (sourceFile == null) continue next;
@@ -961,7 +980,7 @@ protected boolean classFileChanged(IFile file, String fileName, byte[] newBytes)
 		String filePath = location.getSchemeSpecificPart();
 		ClassFileReader reader = new ClassFileReader(oldBytes, filePath.toCharArray());
 		// ignore local types since they're only visible inside a single method
-		if (!(reader.isLocal() || reader.isAnonymous()) && reader.hasStructuralChanges(newBytes)) {
+		if (!(reader.isLocal() || reader.isAnonymous()) && reader.hasStructuralChanges(newBytes, true, true, isIgnoringPrivateChanges())) {
 			if (JavaBuilder.DEBUG)
 				System.out.println("Type has structural changes " + fileName); //$NON-NLS-1$
 			addDependentsOf(new Path(fileName), true);
@@ -18,6 +18,7 @@ import static org.eclipse.jdt.internal.core.JavaModelManager.trace;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -195,6 +196,14 @@ public static void writeState(Object state, DataOutputStream out) throws IOExcep
 	((State) state).write(out);
 }
 
+public static State readMappedState(IProject project, File file) throws IOException, CoreException {
+	return State.readMapped(project, file);
+}
+
+public static void writeMappedState(Object state, DataOutputStream out) throws IOException {
+	((State) state).writeMapped(out);
+}
+
 @Override
 protected IProject[] build(int kind, Map ignored, IProgressMonitor monitor) throws CoreException {
 	this.currentProject = getProject();
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.eclipse.jdt.core.compiler.CharOperation;
+
+/**
+ * Memory mapping of a build state written by {@link State#writeMapped(java.io.DataOutputStream)}, from which the
+ * entries of the references table and of the inverted reference index are decoded when first used.
+ */
+class MappedState {
+
+static final int QUALIFIED_NAMES = 0;
+static final int SIMPLE_NAMES = 1;
+static final int ROOT_NAMES = 2;
+
+private final ByteBuffer mapped;
+private final State.PersistedNames names;
+private final int tableOffset;
+// offsets of the lists of type locator ids referencing each qualified, simple and root name
+private final int[] locatorsOffsets;
+// ids of the names as found in the reference collections, by kind, computed on first use
+private final Map<String, Integer>[] nameIds;
+
+@SuppressWarnings("unchecked")
+MappedState(ByteBuffer mapped, State.PersistedNames names, int tableOffset) {
+	this.mapped = mapped;
+	this.names = names;
+	this.tableOffset = tableOffset;
+	int offset = tableOffset + 4 + mapped.getInt(tableOffset) * 8;
+	this.locatorsOffsets = new int[3];
+	this.locatorsOffsets[QUALIFIED_NAMES] = offset;
+	this.locatorsOffsets[SIMPLE_NAMES] = offset += names.qualifiedNames().length * 4;
+	this.locatorsOffsets[ROOT_NAMES] = offset + names.simpleNames().length * 4;
+	this.nameIds = new Map[3];
+}
+
+/**
+ * Answers the references table, with the entries left undecoded.
+ */
+Map<String, ReferenceCollection> readReferencesTable() {
+	int length = this.mapped.getInt(this.tableOffset);
+	LinkedHashMap<String, Object> table = new LinkedHashMap<>((int) (length / 0.75 + 1));
+	for (int i = 0, position = this.tableOffset + 4; i < length; i++, position += 8)
+		table.put(this.names.typeLocators()[this.mapped.getInt(position)], Integer.valueOf(this.mapped.getInt(position + 4)));
+	return new MappedReferenceTable(this, table);
+}
+
+ReferenceCollection readReferences(int offset) {
+	try {
+		return State.readReferences(new CompressedReader(new DataInputStream(new MappedInputStream(this.mapped, offset))), this.names);
+	} catch (IOException e) {
+		throw new UncheckedIOException("Corrupted build state", e); //$NON-NLS-1$
+	}
+}
+
+/**
+ * Answers the type locators whose persisted references include the given name, as a new mutable set.
+ *
+ * @param kind one of {@link #QUALIFIED_NAMES}, {@link #SIMPLE_NAMES} or {@link #ROOT_NAMES}
+ * @param name the name, with its segments separated by dots if qualified
+ */
+Set<String> readReferencingLocators(int kind, String name) {
+	Set<String> typeLocators = new LinkedHashSet<>(3);
+	Integer id = getNameIds(kind).get(name);
+	if (id != null) {
+		int offset = this.mapped.getInt(this.locatorsOffsets[kind] + id.intValue() * 4);
+		for (int i = 0, length = this.mapped.getInt(offset); i < length; i++)
+			typeLocators.add(this.names.typeLocators()[this.mapped.getInt(offset + 4 + i * 4)]);
+	}
+	return typeLocators;
+}
+
+private synchronized Map<String, Integer> getNameIds(int kind) {
+	Map<String, Integer> ids = this.nameIds[kind];
+	if (ids == null) {
+		if (kind == QUALIFIED_NAMES) {
+			char[][][] qualifiedNames = this.names.qualifiedNames();
+			ids = new HashMap<>((int) (qualifiedNames.length / 0.75 + 1));
+			for (int i = 0; i < qualifiedNames.length; i++)
+				ids.put(CharOperation.toString(qualifiedNames[i]), Integer.valueOf(i));
+		} else {
+			char[][] simpleNames = kind == SIMPLE_NAMES ? this.names.simpleNames() : this.names.rootNames();
+			ids = new HashMap<>((int) (simpleNames.length / 0.75 + 1));
+			for (int i = 0; i < simpleNames.length; i++)
+				ids.put(new String(simpleNames[i]), Integer.valueOf(i));
+		}
+		this.nameIds[kind] = ids;
+	}
+	return ids;
+}
+
+/**
+ * References table whose entries are decoded from the mapping on first access.
+ */
+static class MappedReferenceTable extends AbstractMap<String, ReferenceCollection> {
+
+	private final MappedState state;
+	// value is either the decoded ReferenceCollection, or the Integer offset of its entry in the mapping
+	private final LinkedHashMap<String, Object> table;
+
+	MappedReferenceTable(MappedState state, LinkedHashMap<String, Object> table) {
+		this.state = state;
+		this.table = table;
+	}
+
+	synchronized MappedReferenceTable copy() {
+		return new MappedReferenceTable(this.state, new LinkedHashMap<>(this.table));
+	}
+
+	private ReferenceCollection decode(Object value) {
+		return value instanceof Integer offset ? this.state.readReferences(offset.intValue()) : (ReferenceCollection) value;
+	}
+
+	synchronized ReferenceCollection decode(Map.Entry<String, Object> entry) {
+		Object value = entry.getValue();
+		if (value instanceof Integer) {
+			ReferenceCollection refs = decode(value);
+			// replacing the value of an entry doesn't break iterations
+			entry.setValue(refs);
+			return refs;
+		}
+		return (ReferenceCollection) value;
+	}
+
+	@Override
+	public int size() {
+		return this.table.size();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return this.table.containsKey(key);
+	}
+
+	@Override
+	public synchronized ReferenceCollection get(Object key) {
+		Object value = this.table.get(key);
+		if (value instanceof Integer) {
+			ReferenceCollection refs = decode(value);
+			this.table.put((String) key, refs);
+			return refs;
+		}
+		return (ReferenceCollection) value;
+	}
+
+	@Override
+	public synchronized ReferenceCollection put(String key, ReferenceCollection value) {
+		return decode(this.table.put(key, value));
+	}
+
+	@Override
+	public synchronized ReferenceCollection remove(Object key) {
+		return decode(this.table.remove(key));
+	}
+
+	@Override
+	public void clear() {
+		this.table.clear();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return this.table.keySet();
+	}
+
+	@Override
+	public Set<Map.Entry<String, ReferenceCollection>> entrySet() {
+		return new AbstractSet<>() {
+			@Override
+			public int size() {
+				return MappedReferenceTable.this.table.size();
+			}
+
+			@Override
+			public Iterator<Map.Entry<String, ReferenceCollection>> iterator() {
+				Iterator<Map.Entry<String, Object>> entries = MappedReferenceTable.this.table.entrySet().iterator();
+				return new Iterator<>() {
+					@Override
+					public boolean hasNext() {
+						return entries.hasNext();
+					}
+
+					@Override
+					public Map.Entry<String, ReferenceCollection> next() {
+						return new LazyEntry(entries.next());
+					}
+
+					@Override
+					public void remove() {
+						entries.remove();
+					}
+				};
+			}
+		};
+	}
+
+	private class LazyEntry implements Map.Entry<String, ReferenceCollection> {
+		private final Map.Entry<String, Object> entry;
+
+		LazyEntry(Map.Entry<String, Object> entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public String getKey() {
+			return this.entry.getKey();
+		}
+
+		@Override
+		public ReferenceCollection getValue() {
+			return decode(this.entry);
+		}
+
+		@Override
+		public ReferenceCollection setValue(ReferenceCollection value) {
+			synchronized (MappedReferenceTable.this) {
+				return decode(this.entry.setValue(value));
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Map.Entry<?, ?> other
+					&& Objects.equals(getKey(), other.getKey())
+					&& Objects.equals(getValue(), other.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+		}
+	}
+}
+
+/**
+ * Reads the mapping from a given offset, without moving the position of the mapping itself.
+ */
+static class MappedInputStream extends InputStream {
+	private final ByteBuffer buffer;
+
+	MappedInputStream(ByteBuffer mapped, int offset) {
+		this.buffer = mapped.duplicate().position(offset);
+	}
+
+	@Override
+	public int read() {
+		return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) {
+		if (length == 0)
+			return 0;
+		int remaining = this.buffer.remaining();
+		if (remaining == 0)
+			return -1;
+		length = Math.min(length, remaining);
+		this.buffer.get(bytes, offset, length);
+		return length;
+	}
+}
+}
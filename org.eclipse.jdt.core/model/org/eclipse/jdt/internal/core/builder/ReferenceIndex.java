@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc. and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.eclipse.jdt.core.compiler.CharOperation;
+
+/**
+ * Inverted view of the references table of a {@link State}: for each qualified, simple and root name,
+ * the type locators whose {@link ReferenceCollection} contains it.
+ *
+ * Answers a superset of the type locators which may include a given set of names, which callers
+ * still check with {@link ReferenceCollection#includes(char[][][], char[][], char[][])}.
+ *
+ * When the state was read from a {@link MappedState}, the type locators referencing a name are only
+ * read from the mapping when the name is first used, which is always before any update of the name.
+ */
+class ReferenceIndex {
+
+// keyed by the names as found in the reference collections, value is the set of type locators referencing them
+private final Map<String, Set<String>> qualifiedNames;
+private final Map<String, Set<String>> simpleNames;
+private final Map<String, Set<String>> rootNames;
+// source of the names not looked up yet, if any
+private final MappedState mappedState;
+
+ReferenceIndex(Map<String, ReferenceCollection> references) {
+	int size = references.size() * 4 + 1;
+	this.qualifiedNames = new HashMap<>(size);
+	this.simpleNames = new HashMap<>(size);
+	this.rootNames = new HashMap<>(7);
+	this.mappedState = null;
+	for (Entry<String, ReferenceCollection> entry : references.entrySet())
+		add(entry.getKey(), entry.getValue());
+}
+
+ReferenceIndex(ReferenceIndex other) {
+	this.qualifiedNames = copy(other.qualifiedNames);
+	this.simpleNames = copy(other.simpleNames);
+	this.rootNames = copy(other.rootNames);
+	this.mappedState = other.mappedState;
+}
+
+ReferenceIndex(MappedState mappedState) {
+	this.qualifiedNames = new HashMap<>();
+	this.simpleNames = new HashMap<>();
+	this.rootNames = new HashMap<>(7);
+	this.mappedState = mappedState;
+}
+
+private static Map<String, Set<String>> copy(Map<String, Set<String>> map) {
+	Map<String, Set<String>> result = new HashMap<>((int) (map.size() / 0.75 + 1));
+	for (Entry<String, Set<String>> entry : map.entrySet())
+		result.put(entry.getKey(), new LinkedHashSet<>(entry.getValue()));
+	return result;
+}
+
+void add(String typeLocator, ReferenceCollection refs) {
+	for (char[][] qName : refs.qualifiedNameReferences)
+		getLocators(MappedState.QUALIFIED_NAMES, CharOperation.toString(qName)).add(typeLocator);
+	for (char[] sName : refs.simpleNameReferences)
+		getLocators(MappedState.SIMPLE_NAMES, new String(sName)).add(typeLocator);
+	for (char[] rName : refs.rootReferences)
+		getLocators(MappedState.ROOT_NAMES, new String(rName)).add(typeLocator);
+}
+
+void remove(String typeLocator, ReferenceCollection refs) {
+	for (char[][] qName : refs.qualifiedNameReferences)
+		remove(MappedState.QUALIFIED_NAMES, CharOperation.toString(qName), typeLocator);
+	for (char[] sName : refs.simpleNameReferences)
+		remove(MappedState.SIMPLE_NAMES, new String(sName), typeLocator);
+	for (char[] rName : refs.rootReferences)
+		remove(MappedState.ROOT_NAMES, new String(rName), typeLocator);
+}
+
+private void remove(int kind, String name, String typeLocator) {
+	Set<String> typeLocators = getLocators(kind, name);
+	// empty sets are kept when backed by a mapping, so that the persisted locators aren't read again
+	if (typeLocators.remove(typeLocator) && typeLocators.isEmpty() && this.mappedState == null)
+		getMap(kind).remove(name);
+}
+
+private Map<String, Set<String>> getMap(int kind) {
+	switch (kind) {
+		case MappedState.QUALIFIED_NAMES :
+			return this.qualifiedNames;
+		case MappedState.SIMPLE_NAMES :
+			return this.simpleNames;
+		default :
+			return this.rootNames;
+	}
+}
+
+private Set<String> getLocators(int kind, String name) {
+	return getMap(kind).computeIfAbsent(name, n -> this.mappedState == null ? new LinkedHashSet<>(3) : this.mappedState.readReferencingLocators(kind, n));
+}
+
+/**
+ * Answers the type locators which may include the given names, following the semantics of
+ * {@link ReferenceCollection#includes(char[][][], char[][], char[][])}: a <code>null</code> set of
+ * qualified or simple names stands for a well known name, which matches any collection.
+ */
+Set<String> getCandidates(char[][][] qualifiedNamesToFind, char[][] simpleNamesToFind, char[][] rootNamesToFind) {
+	Set<String> candidates = new LinkedHashSet<>();
+	if (simpleNamesToFind != null) {
+		// any match must include one of the simple names
+		for (char[] sName : simpleNamesToFind)
+			addAll(candidates, MappedState.SIMPLE_NAMES, new String(sName));
+	} else if (qualifiedNamesToFind != null) {
+		// any match must include one of the qualified names, or one of the single segment ones as a simple name
+		for (char[][] qName : qualifiedNamesToFind) {
+			addAll(candidates, MappedState.QUALIFIED_NAMES, CharOperation.toString(qName));
+			if (qName.length == 1)
+				addAll(candidates, MappedState.SIMPLE_NAMES, new String(qName[0]));
+		}
+	} else if (rootNamesToFind != null) {
+		// only well known names, so any collection inside one of the roots matches
+		for (char[] rName : rootNamesToFind)
+			addAll(candidates, MappedState.ROOT_NAMES, new String(rName));
+	} else {
+		return null;
+	}
+	return candidates;
+}
+
+private void addAll(Set<String> candidates, int kind, String name) {
+	Set<String> typeLocators = this.mappedState == null ? getMap(kind).get(name) : getLocators(kind, name);
+	if (typeLocators != null)
+		candidates.addAll(typeLocators);
+}
+}
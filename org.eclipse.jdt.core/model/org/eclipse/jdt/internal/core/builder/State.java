@@ -22,7 +22,12 @@ import static org.eclipse.jdt.internal.core.JavaModelManager.trace;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -55,6 +60,7 @@ import org.eclipse.jdt.internal.compiler.env.IUpdatableModule.UpdateKind;
 import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
 import org.eclipse.jdt.internal.compiler.util.Util;
 import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.builder.MappedState.MappedReferenceTable;
 import org.eclipse.jdt.internal.core.util.DeduplicationUtil;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
@@ -70,6 +76,8 @@ public ClasspathLocation[] testBinaryLocations;
 Map<String, ReferenceCollection> references;
 // keyed by qualified type name "p1/p2/A", value is the project relative path which defines this type "src1/p1/p2/A.java"
 public Map<String, String> typeLocators;
+// inverted view of the references, not persisted since it's derived from them: built on first use, then kept up to date
+private ReferenceIndex referenceIndex;
 
 int buildNumber;
 long lastStructuralBuildTime;
@@ -83,6 +91,13 @@ public static int MaxStructurallyChangedTypes = 100; // keep track of ? structur
 
 public static final byte VERSION = 0x0026;
 
+// names the entries of the references table refer to by id in the persisted state
+record PersistedNames(String[] typeLocators, char[][] rootNames, char[][] simpleNames, char[][][] qualifiedNames) {
+}
+// ids of the names while writing the state
+private record InternedIds(SimpleLookupTable typeLocators, SimpleLookupTable rootNames, SimpleLookupTable simpleNames, SimpleLookupTable qualifiedNames) {
+}
+
 static final byte SOURCE_FOLDER = 1;
 static final byte BINARY_FOLDER = 2;
 static final byte EXTERNAL_JAR = 3;
@@ -129,8 +144,11 @@ void copyFrom(State lastState) {
 	this.lastStructuralBuildTime = lastState.lastStructuralBuildTime;
 	this.structuralBuildTimes = lastState.structuralBuildTimes;
 
-	this.references = new LinkedHashMap<>(lastState.references);
+	this.references = lastState.references instanceof MappedReferenceTable mappedReferences
+			? mappedReferences.copy() // don't decode all the entries
+			: new LinkedHashMap<>(lastState.references);
 	this.typeLocators = new LinkedHashMap<>(lastState.typeLocators);
+	this.referenceIndex = lastState.referenceIndex == null ? null : new ReferenceIndex(lastState.referenceIndex);
 }
 
 /**
@@ -177,6 +195,16 @@ public Map<String, ReferenceCollection> getReferences() {
 	return this.references;
 }
 
+/**
+ * Answers the type locators whose references may include the given names, or <code>null</code> if all
+ * of them may, see {@link ReferenceIndex#getCandidates(char[][][], char[][], char[][])}.
+ */
+Set<String> getReferencingLocators(char[][][] qualifiedNames, char[][] simpleNames, char[][] rootNames) {
+	if (this.referenceIndex == null)
+		this.referenceIndex = new ReferenceIndex(this.references);
+	return this.referenceIndex.getCandidates(qualifiedNames, simpleNames, rootNames);
+}
+
 StringSet getStructurallyChangedTypes(State prereqState) {
 	if (prereqState != null && prereqState.previousStructuralBuildTime > 0) {
 		Object o = this.structuralBuildTimes.get(prereqState.javaProjectName);
@@ -229,15 +257,32 @@ boolean isSourceFolderEmpty(IContainer sourceFolder) {
 }
 
 void record(String typeLocator, char[][][] qualifiedRefs, char[][] simpleRefs, char[][] rootRefs, char[] mainTypeName, ArrayList typeNames) {
+	ReferenceCollection collection;
 	if (typeNames.size() == 1 && CharOperation.equals(mainTypeName, (char[]) typeNames.get(0))) {
-		this.references.put(typeLocator, new ReferenceCollection(qualifiedRefs, simpleRefs, rootRefs));
+		collection = new ReferenceCollection(qualifiedRefs, simpleRefs, rootRefs);
 	} else {
 		char[][] definedTypeNames = new char[typeNames.size()][]; // can be empty when no types are defined
 		typeNames.toArray(definedTypeNames);
-		this.references.put(typeLocator, new AdditionalTypeCollection(definedTypeNames, qualifiedRefs, simpleRefs, rootRefs));
+		collection = new AdditionalTypeCollection(definedTypeNames, qualifiedRefs, simpleRefs, rootRefs);
+	}
+	ReferenceCollection previous = this.references.put(typeLocator, collection);
+	if (this.referenceIndex != null) {
+		if (previous != null)
+			this.referenceIndex.remove(typeLocator, previous);
+		this.referenceIndex.add(typeLocator, collection);
 	}
 }
 
+void recordDependencies(String typeLocator, String[] typeNameDependencies) {
+	ReferenceCollection refs = this.references.get(typeLocator);
+	if (refs == null) return;
+	if (this.referenceIndex != null)
+		this.referenceIndex.remove(typeLocator, refs);
+	refs.addDependencies(typeNameDependencies);
+	if (this.referenceIndex != null)
+		this.referenceIndex.add(typeLocator, refs);
+}
+
 void recordLocatorForType(String qualifiedTypeName, String typeLocator) {
 	this.knownPackageNames = null;
 	// in the common case, the qualifiedTypeName is a substring of the typeLocator so share the char[] by using String.substring()
@@ -255,7 +300,9 @@ void recordStructuralDependency(IProject prereqProject, State prereqState) {
 
 void removeLocator(String typeLocatorToRemove) {
 	this.knownPackageNames = null;
-	this.references.remove(typeLocatorToRemove);
+	ReferenceCollection previous = this.references.remove(typeLocatorToRemove);
+	if (previous != null && this.referenceIndex != null)
+		this.referenceIndex.remove(typeLocatorToRemove, previous);
 	this.typeLocators.values().removeIf(v -> typeLocatorToRemove.equals(v));
 }
 
@@ -284,6 +331,58 @@ static State read(IProject project, DataInputStream input) throws IOException, C
 	if (JavaBuilder.DEBUG) {
 		trace("About to read state " + project.getName()); //$NON-NLS-1$
 	}
+	State newState = new State();
+	PersistedNames names = readHeader(project, in, newState);
+	if (names == null)
+		return null;
+
+	int length = in.readInt();
+	newState.references = new LinkedHashMap((int) (length / 0.75 + 1));
+	for (int i = 0; i < length; i++) {
+		String typeLocator = names.typeLocators()[in.readInt()];
+		newState.references.put(typeLocator, readReferences(in, names));
+	}
+	if (JavaBuilder.DEBUG) {
+		trace("Successfully read state for " + newState.javaProjectName); //$NON-NLS-1$
+	}
+	return newState;
+}
+
+/*
+ * Reads a state written by writeMapped(DataOutputStream) from the memory mapping of the given file, with its
+ * references left in the mapping until used.
+ */
+static State readMapped(IProject project, File file) throws IOException, CoreException {
+	if (JavaBuilder.DEBUG) {
+		trace("About to read mapped state " + project.getName()); //$NON-NLS-1$
+	}
+	ByteBuffer mapped;
+	try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+		// the mapping stays valid once the channel is closed
+		mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+	}
+	int limit = mapped.limit();
+	CompressedReader in = new CompressedReader(new DataInputStream(new MappedState.MappedInputStream(mapped, mapped.getInt(limit - 8))));
+	State newState = new State();
+	PersistedNames names = readHeader(project, in, newState);
+	if (names == null)
+		return null;
+
+	MappedState mappedState = new MappedState(mapped, names, mapped.getInt(limit - 4));
+	newState.references = mappedState.readReferencesTable();
+	// must track the changes to the references from the start, since the mapping won't
+	newState.referenceIndex = new ReferenceIndex(mappedState);
+	if (JavaBuilder.DEBUG) {
+		trace("Successfully read mapped state for " + newState.javaProjectName); //$NON-NLS-1$
+	}
+	return newState;
+}
+
+/*
+ * Reads everything but the references table into the given state, and answers the names the entries of the
+ * table refer to by id, or null if the state isn't compatible
+ */
+private static PersistedNames readHeader(IProject project, CompressedReader in, State newState) throws IOException, CoreException {
 	if (VERSION != in.readByte()) {
 		if (JavaBuilder.DEBUG) {
 			trace("Found non-compatible state version... answered null for " + project.getName()); //$NON-NLS-1$
@@ -291,7 +390,6 @@ static State read(IProject project, DataInputStream input) throws IOException, C
 		return null;
 	}
 
-	State newState = new State();
 	newState.javaProjectName = in.readStringUsingDictionary();
 	if (!project.getName().equals(newState.javaProjectName)) {
 		if (JavaBuilder.DEBUG) {
@@ -341,44 +439,36 @@ static State read(IProject project, DataInputStream input) throws IOException, C
 		internedQualifiedNames[i] = qName;
 	}
 	internedQualifiedNames = ReferenceCollection.internQualifiedNames(internedQualifiedNames, false /* drop well known */, false /* do not sort */);
+	return new PersistedNames(internedTypeLocators, internedRootNames, internedSimpleNames, internedQualifiedNames);
+}
 
-	length = in.readInt();
-	newState.references = new LinkedHashMap((int) (length / 0.75 + 1));
-	for (int i = 0; i < length; i++) {
-		String typeLocator = internedTypeLocators[in.readInt()];
-		ReferenceCollection collection = null;
-		switch (in.readByte()) {
-			case 1 :
-				char[][] additionalTypeNames = readNames(in);
-				char[][][] qualifiedNames = new char[in.readInt()][][];
-				for (int j = 0, m = qualifiedNames.length; j < m; j++)
-					qualifiedNames[j] = internedQualifiedNames[in.readIntInRange(internedQualifiedNames.length)];
-				char[][] simpleNames = new char[in.readInt()][];
-				for (int j = 0, m = simpleNames.length; j < m; j++)
-					simpleNames[j] = internedSimpleNames[in.readIntInRange(internedSimpleNames.length)];
-				char[][] rootNames = new char[in.readInt()][];
-				for (int j = 0, m = rootNames.length; j < m; j++)
-					rootNames[j] = internedRootNames[in.readIntInRange(internedRootNames.length)];
-				collection = new AdditionalTypeCollection(additionalTypeNames, qualifiedNames, simpleNames, rootNames);
-				break;
-			case 2 :
-				char[][][] qNames = new char[in.readInt()][][];
-				for (int j = 0, m = qNames.length; j < m; j++)
-					qNames[j] = internedQualifiedNames[in.readIntInRange(internedQualifiedNames.length)];
-				char[][] sNames = new char[in.readInt()][];
-				for (int j = 0, m = sNames.length; j < m; j++)
-					sNames[j] = internedSimpleNames[in.readIntInRange(internedSimpleNames.length)];
-				char[][] rNames = new char[in.readInt()][];
-				for (int j = 0, m = rNames.length; j < m; j++)
-					rNames[j] = internedRootNames[in.readIntInRange(internedRootNames.length)];
-				collection = new ReferenceCollection(qNames, sNames, rNames);
-		}
-		newState.references.put(typeLocator, collection);
+static ReferenceCollection readReferences(CompressedReader in, PersistedNames names) throws IOException {
+	switch (in.readByte()) {
+		case 1 :
+			char[][] additionalTypeNames = readNames(in);
+			char[][][] qualifiedNames = new char[in.readInt()][][];
+			for (int j = 0, m = qualifiedNames.length; j < m; j++)
+				qualifiedNames[j] = names.qualifiedNames()[in.readIntInRange(names.qualifiedNames().length)];
+			char[][] simpleNames = new char[in.readInt()][];
+			for (int j = 0, m = simpleNames.length; j < m; j++)
+				simpleNames[j] = names.simpleNames()[in.readIntInRange(names.simpleNames().length)];
+			char[][] rootNames = new char[in.readInt()][];
+			for (int j = 0, m = rootNames.length; j < m; j++)
+				rootNames[j] = names.rootNames()[in.readIntInRange(names.rootNames().length)];
+			return new AdditionalTypeCollection(additionalTypeNames, qualifiedNames, simpleNames, rootNames);
+		case 2 :
+			char[][][] qNames = new char[in.readInt()][][];
+			for (int j = 0, m = qNames.length; j < m; j++)
+				qNames[j] = names.qualifiedNames()[in.readIntInRange(names.qualifiedNames().length)];
+			char[][] sNames = new char[in.readInt()][];
+			for (int j = 0, m = sNames.length; j < m; j++)
+				sNames[j] = names.simpleNames()[in.readIntInRange(names.simpleNames().length)];
+			char[][] rNames = new char[in.readInt()][];
+			for (int j = 0, m = rNames.length; j < m; j++)
+				rNames[j] = names.rootNames()[in.readIntInRange(names.rootNames().length)];
+			return new ReferenceCollection(qNames, sNames, rNames);
 	}
-	if (JavaBuilder.DEBUG) {
-		trace("Successfully read state for " + newState.javaProjectName); //$NON-NLS-1$
-	}
-	return newState;
+	return null;
 }
 
 private static ClasspathMultiDirectory[] readSourceLocations(IProject project, CompressedReader in, List<ClasspathLocation> allLocationsForEEA) throws IOException {
@@ -526,6 +616,116 @@ void wasStructurallyChanged(String typeName) {
 
 void write(DataOutputStream output) throws IOException {
 	CompressedWriter out=new CompressedWriter(output);
+	InternedIds ids = writeHeader(out);
+
+/*
+ * References table
+ * int		interned locator id
+ * ReferenceCollection
+*/
+	int length;
+	out.writeInt(length = this.references.size());
+	if (length > 0) {
+		for (Entry<String, ReferenceCollection> entry : this.references.entrySet()) {
+			length--;
+			Integer index = (Integer) ids.typeLocators().get(entry.getKey());
+			out.writeInt(index.intValue());
+			writeReferences(entry.getValue(), ids, out);
+		}
+		if (JavaBuilder.DEBUG && length != 0) {
+			trace("references table is inconsistent"); //$NON-NLS-1$
+		}
+	}
+}
+
+/*
+ * Same as write(DataOutputStream), but laid out for readMapped(IProject, File) to only decode the header, and each
+ * entry of the references table or of the inverted reference index once used. The output must start at the
+ * beginning of the file since offsets are counted from there.
+ *
+ * header		as in write(DataOutputStream)
+ * ReferenceCollection[]	entries of the references table
+ * int		number of entries
+ * (int		interned locator id
+ *  int		offset of the entry)[]
+ * int[]	offsets of the locator ids referencing each interned qualified name, then simple name, then root name
+ * (int		number of locators
+ *  int[]	interned locator ids)[]
+ * int		offset of the header
+ * int		offset of the number of entries
+ */
+void writeMapped(DataOutputStream output) throws IOException {
+	int headerOffset = output.size();
+	CompressedWriter out = new CompressedWriter(output);
+	InternedIds ids = writeHeader(out);
+
+	int length = this.references.size();
+	int[] table = new int[length * 2];
+	List<Integer>[] qualifiedLocators = new List[ids.qualifiedNames().elementSize];
+	List<Integer>[] simpleLocators = new List[ids.simpleNames().elementSize];
+	List<Integer>[] rootLocators = new List[ids.rootNames().elementSize];
+	int i = 0;
+	for (Entry<String, ReferenceCollection> entry : this.references.entrySet()) {
+		Integer locatorId = (Integer) ids.typeLocators().get(entry.getKey());
+		ReferenceCollection collection = entry.getValue();
+		table[i++] = locatorId.intValue();
+		table[i++] = output.size();
+		writeReferences(collection, ids, out);
+		for (char[][] qName : collection.qualifiedNameReferences)
+			addLocator(qualifiedLocators, ids.qualifiedNames().get(qName), locatorId);
+		for (char[] sName : collection.simpleNameReferences)
+			addLocator(simpleLocators, ids.simpleNames().get(sName), locatorId);
+		for (char[] rName : collection.rootReferences)
+			addLocator(rootLocators, ids.rootNames().get(rName), locatorId);
+	}
+
+	int tableOffset = output.size();
+	output.writeInt(length);
+	for (int value : table)
+		output.writeInt(value);
+	int offset = tableOffset + 4 + table.length * 4 + (qualifiedLocators.length + simpleLocators.length + rootLocators.length) * 4;
+	offset = writeLocatorsOffsets(qualifiedLocators, offset, output);
+	offset = writeLocatorsOffsets(simpleLocators, offset, output);
+	writeLocatorsOffsets(rootLocators, offset, output);
+	writeLocators(qualifiedLocators, output);
+	writeLocators(simpleLocators, output);
+	writeLocators(rootLocators, output);
+
+	output.writeInt(headerOffset);
+	output.writeInt(tableOffset);
+}
+
+private static void addLocator(List<Integer>[] locators, Object nameId, Integer locatorId) {
+	int id = ((Integer) nameId).intValue();
+	if (locators[id] == null)
+		locators[id] = new ArrayList<>(3);
+	locators[id].add(locatorId);
+}
+
+private static int writeLocatorsOffsets(List<Integer>[] locators, int offset, DataOutputStream output) throws IOException {
+	for (List<Integer> locatorIds : locators) {
+		output.writeInt(offset);
+		offset += 4 + (locatorIds == null ? 0 : locatorIds.size() * 4);
+	}
+	return offset;
+}
+
+private static void writeLocators(List<Integer>[] locators, DataOutputStream output) throws IOException {
+	for (List<Integer> locatorIds : locators) {
+		if (locatorIds == null) {
+			output.writeInt(0);
+			continue;
+		}
+		output.writeInt(locatorIds.size());
+		for (Integer locatorId : locatorIds)
+			output.writeInt(locatorId.intValue());
+	}
+}
+
+/*
+ * Writes everything but the references table, and answers the ids of the names its entries refer to
+ */
+private InternedIds writeHeader(CompressedWriter out) throws IOException {
 	int length;
 	Object[] keyTable;
 	Object[] valueTable;
@@ -704,51 +904,37 @@ void write(DataOutputStream output) throws IOException {
 		}
 	}
 
-/*
- * References table
- * int		interned locator id
- * ReferenceCollection
-*/
-	out.writeInt(length = this.references.size());
-	if (length > 0) {
-		for (Entry<String, ReferenceCollection> entry : this.references.entrySet()) {
-			String key = entry.getKey();
-			length--;
-			Integer index = (Integer) internedTypeLocators.get(key);
-			out.writeInt(index.intValue());
-			ReferenceCollection collection = entry.getValue();
-			if (collection instanceof AdditionalTypeCollection) {
-				out.writeByte(1);
-				AdditionalTypeCollection atc = (AdditionalTypeCollection) collection;
-				writeNames(atc.definedTypeNames, out);
-			} else {
-				out.writeByte(2);
-			}
-			char[][][] qNames = collection.qualifiedNameReferences;
-			int qLength = qNames.length;
-			out.writeInt(qLength);
-			for (int j = 0; j < qLength; j++) {
-				index = (Integer) internedQualifiedNames.get(qNames[j]);
-				out.writeIntInRange(index.intValue(), internedQualifiedNames.elementSize);
-			}
-			char[][] sNames = collection.simpleNameReferences;
-			int sLength = sNames.length;
-			out.writeInt(sLength);
-			for (int j = 0; j < sLength; j++) {
-				index = (Integer) internedSimpleNames.get(sNames[j]);
-				out.writeIntInRange(index.intValue(), internedSimpleNames.elementSize);
-			}
-			char[][] rNames = collection.rootReferences;
-			int rLength = rNames.length;
-			out.writeInt(rLength);
-			for (int j = 0; j < rLength; j++) {
-				index = (Integer) internedRootNames.get(rNames[j]);
-				out.writeIntInRange(index.intValue(), internedRootNames.elementSize);
-			}
-		}
-		if (JavaBuilder.DEBUG && length != 0) {
-			trace("references table is inconsistent"); //$NON-NLS-1$
-		}
+	return new InternedIds(internedTypeLocators, internedRootNames, internedSimpleNames, internedQualifiedNames);
+}
+
+private void writeReferences(ReferenceCollection collection, InternedIds ids, CompressedWriter out) throws IOException {
+	if (collection instanceof AdditionalTypeCollection) {
+		out.writeByte(1);
+		AdditionalTypeCollection atc = (AdditionalTypeCollection) collection;
+		writeNames(atc.definedTypeNames, out);
+	} else {
+		out.writeByte(2);
+	}
+	char[][][] qNames = collection.qualifiedNameReferences;
+	int qLength = qNames.length;
+	out.writeInt(qLength);
+	for (int j = 0; j < qLength; j++) {
+		Integer index = (Integer) ids.qualifiedNames().get(qNames[j]);
+		out.writeIntInRange(index.intValue(), ids.qualifiedNames().elementSize);
+	}
+	char[][] sNames = collection.simpleNameReferences;
+	int sLength = sNames.length;
+	out.writeInt(sLength);
+	for (int j = 0; j < sLength; j++) {
+		Integer index = (Integer) ids.simpleNames().get(sNames[j]);
+		out.writeIntInRange(index.intValue(), ids.simpleNames().elementSize);
+	}
+	char[][] rNames = collection.rootReferences;
+	int rLength = rNames.length;
+	out.writeInt(rLength);
+	for (int j = 0; j < rLength; j++) {
+		Integer index = (Integer) ids.rootNames().get(rNames[j]);
+		out.writeIntInRange(index.intValue(), ids.rootNames().elementSize);
 	}
 }
 
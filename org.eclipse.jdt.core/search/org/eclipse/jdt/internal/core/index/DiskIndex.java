@@ -21,12 +21,18 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 import org.eclipse.core.runtime.ILog;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.internal.compiler.parser.ScannerHelper;
 import org.eclipse.jdt.internal.compiler.util.HashtableOfIntValues;
 import org.eclipse.jdt.internal.compiler.util.HashtableOfObject;
 import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
@@ -52,6 +58,7 @@ private HashtableOfIntValues categoryOffsets, categoryEnds;
 private int cacheUserCount;
 private String[][] cachedChunks; // decompressed chunks of document names
 private HashtableOfObject categoryTables; // category name -> HashtableOfObject(words -> int[] of document #'s) or offset if not read yet
+private HashtableOfObject categoryWords; // category name -> char[][] of the words of its cached table, in dictionary order
 private char[] cachedCategoryName;
 
 private static final int DEFAULT_BUFFER_SIZE = 2048;
@@ -60,9 +67,22 @@ private static final int BUFFER_WRITE_SIZE = DEFAULT_BUFFER_SIZE;
 private byte[] streamBuffer;
 private int bufferIndex, bufferEnd; // used when reading from the file into the streamBuffer
 private int streamEnd; // used when writing data from the streamBuffer to the file
+private volatile ByteBuffer mappedIndex; // whole index file when read from its memory mapping, NOT_MAPPED if read through streams
+private HashtableOfObject mappedEntries; // category name -> int[] of the offsets of its table entries in the mapping, in dictionary order
 char separator = Index.DEFAULT_SEPARATOR;
 
-public static final String INDEX_VERSION = "1.134"; //$NON-NLS-1$
+/*
+ * Whether index files are read from their memory mapping rather than through streams, using
+ * -DDiskIndex.MAPPED=true. Not on Windows, where a mapped file can't be deleted or replaced until
+ * the mapping is garbage collected. A change only applies to indexes initialized afterwards.
+ */
+private static boolean isMapped() {
+	return Boolean.getBoolean(DiskIndex.class.getSimpleName() + ".MAPPED") //$NON-NLS-1$
+		&& File.separatorChar == '/';
+}
+private static final ByteBuffer NOT_MAPPED = ByteBuffer.allocate(0);
+
+public static final String INDEX_VERSION = "1.135"; //$NON-NLS-1$
 public static final String SIGNATURE = "INDEX VERSION " + INDEX_VERSION; //$NON-NLS-1$
 private static final char[] SIGNATURE_CHARS = SIGNATURE.toCharArray();
 public static boolean DEBUG = false;
@@ -99,6 +119,144 @@ int[] asArray() {
 }
 }
 
+/**
+ * Decodes the index file from its memory mapping, in the same format as the readStream* methods.
+ * Each reader has its own position, so that the same index can be read by several threads at once.
+ */
+static class MappedReader {
+
+final ByteBuffer buffer;
+int position;
+
+MappedReader(ByteBuffer buffer, int position) {
+	this.buffer = buffer;
+	this.position = position;
+}
+private void ensureAvailable(int length) throws EOFException {
+	if (this.position < 0 || this.position + length > this.buffer.limit())
+		throw new EOFException();
+}
+int readUnsignedByte() throws EOFException {
+	ensureAvailable(1);
+	return this.buffer.get(this.position++) & 0xFF;
+}
+int readInt() throws EOFException {
+	ensureAvailable(4);
+	int val = this.buffer.getInt(this.position); // big endian, as written by writeStreamInt()
+	this.position += 4;
+	return val;
+}
+char[] readChars() throws IOException {
+	ensureAvailable(2);
+	int length = (this.buffer.get(this.position++) & 0xFF) << 8;
+	length += this.buffer.get(this.position++) & 0xFF;
+	char[] word = new char[length];
+	int i = 0;
+	// at most 3 bytes per char, bounds are only checked when getting close to the end
+	boolean checkBounds = this.position + length * 3 > this.buffer.limit();
+	while (i < length) {
+		if (checkBounds)
+			ensureAvailable(1);
+		byte b = this.buffer.get(this.position++);
+		switch (b & 0xF0) {
+			case 0x00 :
+			case 0x10 :
+			case 0x20 :
+			case 0x30 :
+			case 0x40 :
+			case 0x50 :
+			case 0x60 :
+			case 0x70 :
+				word[i++] = (char) b;
+				break;
+			case 0xC0 :
+			case 0xD0 :
+				if (checkBounds)
+					ensureAvailable(1);
+				char next = (char) this.buffer.get(this.position++);
+				if ((next & 0xC0) != 0x80) {
+					throw new UTFDataFormatException();
+				}
+				char ch = (char) ((b & 0x1F) << 6);
+				ch |= next & 0x3F;
+				word[i++] = ch;
+				break;
+			case 0xE0 :
+				if (checkBounds)
+					ensureAvailable(2);
+				char first = (char) this.buffer.get(this.position++);
+				char second = (char) this.buffer.get(this.position++);
+				if ((first & second & 0xC0) != 0x80) {
+					throw new UTFDataFormatException();
+				}
+				ch = (char) ((b & 0x0F) << 12);
+				ch |= ((first& 0x3F) << 6);
+				ch |= second & 0x3F;
+				word[i++] = ch;
+				break;
+			default:
+				throw new UTFDataFormatException();
+		}
+	}
+	return word;
+}
+void skipChars() throws IOException {
+	ensureAvailable(2);
+	int length = (this.buffer.get(this.position++) & 0xFF) << 8;
+	length += this.buffer.get(this.position++) & 0xFF;
+	for (int i = 0; i < length; i++) {
+		ensureAvailable(1);
+		switch (this.buffer.get(this.position) & 0xF0) {
+			case 0xC0 :
+			case 0xD0 :
+				this.position += 2;
+				break;
+			case 0xE0 :
+				this.position += 3;
+				break;
+			default:
+				this.position++;
+		}
+	}
+}
+/*
+ * Skips the document numbers of a category table entry, see readMappedEntryDocuments().
+ */
+void skipEntryDocuments(int documentReferenceSize) throws EOFException {
+	int arrayOffset = readInt();
+	if (arrayOffset <= 0) {
+		return;
+	} else if (arrayOffset < 256) {
+		this.position += arrayOffset * (documentReferenceSize <= 2 ? documentReferenceSize : 4);
+	} else {
+		this.position += 4;
+	}
+	ensureAvailable(0);
+}
+int[] readDocumentArray(int arraySize, int documentReferenceSize) throws EOFException {
+	int[] indexes = new int[arraySize];
+	switch (documentReferenceSize) {
+		case 1 :
+			ensureAvailable(arraySize);
+			for (int i = 0; i < arraySize; i++)
+				indexes[i] = this.buffer.get(this.position++) & 0xFF;
+			break;
+		case 2 :
+			ensureAvailable(arraySize * 2);
+			for (int i = 0; i < arraySize; i++) {
+				indexes[i] = this.buffer.getShort(this.position) & 0xFFFF;
+				this.position += 2;
+			}
+			break;
+		default :
+			for (int i = 0; i < arraySize; i++)
+				indexes[i] = readInt();
+			break;
+	}
+	return indexes;
+}
+}
+
 
 DiskIndex() {
 	this.headerInfoOffset = -1;
@@ -109,6 +267,7 @@ DiskIndex() {
 	this.cacheUserCount = -1;
 	this.cachedChunks = null;
 	this.categoryTables = null;
+	this.categoryWords = null;
 	this.cachedCategoryName = null;
 	this.categoryOffsets = null;
 	this.categoryEnds = null;
@@ -177,6 +336,9 @@ private HashtableOfObject addQueryResult(HashtableOfObject results, char[] word,
 HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule, MemoryIndex memoryIndex) throws IOException {
 	// assumes sender has called startQuery() & will call stopQuery() when finished
 	if (this.categoryOffsets == null) return null; // file is empty
+	ByteBuffer mapped = mappedIndex();
+	if (mapped != null)
+		return addMappedQueryResults(mapped, categories, key, matchRule, memoryIndex);
 
 	HashtableOfObject results = null; // initialized if needed
 
@@ -214,12 +376,9 @@ HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule
 				for (char[] category : categories) {
 					HashtableOfObject wordsToDocNumbers = readCategoryTable(category, false);
 					if (wordsToDocNumbers != null) {
-						char[][] words = wordsToDocNumbers.keyTable;
-						Object[] values = wordsToDocNumbers.valueTable;
-						for (int j = 0, m = words.length; j < m; j++) {
-							char[] word = words[j];
+						for (char[] word : getCandidateWords(category, wordsToDocNumbers, key, matchRule)) {
 							if (word != null && key[0] == word[0] && CharOperation.prefixEquals(key, word))
-								results = addQueryResult(results, word, values[j], memoryIndex, prevResults);
+								results = addQueryResult(results, word, wordsToDocNumbers.get(word), memoryIndex, prevResults);
 						}
 					}
 					prevResults = results != null;
@@ -245,12 +404,9 @@ HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule
 				for (char[] category : categories) {
 					HashtableOfObject wordsToDocNumbers = readCategoryTable(category, false);
 					if (wordsToDocNumbers != null) {
-						char[][] words = wordsToDocNumbers.keyTable;
-						Object[] values = wordsToDocNumbers.valueTable;
-						for (int j = 0, m = words.length; j < m; j++) {
-							char[] word = words[j];
+						for (char[] word : getCandidateWords(category, wordsToDocNumbers, key, matchRule)) {
 							if (word != null && Index.isMatch(key, word, matchRule))
-								results = addQueryResult(results, word, values[j], memoryIndex, prevResults);
+								results = addQueryResult(results, word, wordsToDocNumbers.get(word), memoryIndex, prevResults);
 						}
 					}
 					prevResults = results != null;
@@ -260,7 +416,208 @@ HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule
 
 	return results;
 }
+/*
+ * Same as addQueryResults() but looks the words up in place in the memory mapping: the entries of the category
+ * tables are binary searched and only the candidate words are decoded, without materializing the tables.
+ */
+private HashtableOfObject addMappedQueryResults(ByteBuffer mapped, char[][] categories, char[] key, int matchRule, MemoryIndex memoryIndex) throws IOException {
+	HashtableOfObject results = null; // initialized if needed
+	boolean prevResults = false;
+	Pattern pattern = key != null && matchRule == SearchPattern.R_REGEXP_MATCH ? Pattern.compile(new String(key)) : null;
+	int prefixLength = key == null ? 0 : getLiteralPrefixLength(key, matchRule);
+	try {
+		for (char[] category : categories) {
+			int[] entries = getMappedEntries(category, mapped);
+			if (entries != null) {
+				MappedReader reader = new MappedReader(mapped, 0);
+				int start = 0, end = entries.length;
+				if (prefixLength > 0) {
+					start = findMappedEntry(reader, entries, key, prefixLength, false);
+					end = findMappedEntry(reader, entries, key, prefixLength, true);
+				}
+				for (int i = start; i < end; i++) {
+					reader.position = entries[i];
+					char[] word = reader.readChars();
+					if (pattern != null ? pattern.matcher(new String(word)).matches() : Index.isMatch(key, word, matchRule))
+						results = addQueryResult(results, word, readMappedEntryDocuments(reader, mapped, key == null), memoryIndex, prevResults);
+				}
+			}
+			prevResults = results != null;
+		}
+	} catch (UTFDataFormatException ue) {
+		ILog.get().warn("Java Index broken - will be automatically deleted to repair: " + this.indexLocation, ue); //$NON-NLS-1$
+		// index is broken. automatically delete it
+		// https://github.com/eclipse-jdt/eclipse.jdt.core/issues/460
+		this.indexLocation.delete();
+		return null;
+	}
+	return results;
+}
+/*
+ * Returns the index of the first entry whose word starts with the given prefix, or, if after is true, of the first
+ * entry whose word comes after all the words starting with it, in the order of compareWords().
+ */
+private static int findMappedEntry(MappedReader reader, int[] entries, char[] prefix, int prefixLength, boolean after) throws IOException {
+	int low = 0, high = entries.length;
+	while (low < high) {
+		int mid = (low + high) >>> 1;
+		reader.position = entries[mid];
+		int comparison = comparePrefix(reader.readChars(), prefix, prefixLength);
+		if (after ? comparison <= 0 : comparison < 0)
+			low = mid + 1;
+		else
+			high = mid;
+	}
+	return low;
+}
+/*
+ * Returns the offsets of the entries of the given category table in the mapping, in file (dictionary) order.
+ * They are computed by skipping over the table once, and kept as long as the mapping: they are much smaller than
+ * the decoded table, which is never built for queries on a mapped index.
+ */
+private int[] getMappedEntries(char[] categoryName, ByteBuffer mapped) throws IOException {
+	// result will be null if categoryName is unknown
+	int offset = this.categoryOffsets.get(categoryName);
+	if (offset == HashtableOfIntValues.NO_VALUE)
+		return null;
+	synchronized (this) {
+		if (this.mappedEntries != null) {
+			int[] entries = (int[]) this.mappedEntries.get(categoryName);
+			if (entries != null)
+				return entries;
+		}
+	}
+	MappedReader reader = new MappedReader(mapped, offset);
+	int size = reader.readInt();
+	if (size < 0 || size > mapped.limit()) {
+		throw new UTFDataFormatException("Failed to read index data from " + this.indexLocation + " at offset " + offset //$NON-NLS-1$ //$NON-NLS-2$
+				+ " and size " + size); //$NON-NLS-1$
+	}
+	int[] entries = new int[size];
+	for (int i = 0; i < size; i++) {
+		entries[i] = reader.position;
+		reader.skipChars();
+		reader.skipEntryDocuments(this.documentReferenceSize);
+	}
+	synchronized (this) {
+		if (this.mappedEntries == null)
+			this.mappedEntries = new HashtableOfObject(3);
+		this.mappedEntries.put(INTERNED_CATEGORY_NAMES.get(categoryName), entries);
+	}
+	return entries;
+}
+/*
+ * Reads the document numbers following the word of a category table entry, in the same encoding as
+ * readStreamCategoryTable(): returns the offset of large arrays unless readDocNumbers is true.
+ */
+private Object readMappedEntryDocuments(MappedReader reader, ByteBuffer mapped, boolean readDocNumbers) throws IOException {
+	int arrayOffset = reader.readInt();
+	if (arrayOffset <= 0)
+		return new int[] {-arrayOffset};
+	if (arrayOffset < 256)
+		return reader.readDocumentArray(arrayOffset, this.documentReferenceSize);
+	arrayOffset = reader.readInt();
+	return readDocNumbers ? readMappedDocumentNumbers(mapped, arrayOffset) : Integer.valueOf(arrayOffset);
+}
+/*
+ * Compares words in dictionary order: ignoring case first, so that all the words starting with
+ * some characters are next to each other whatever their case.
+ */
+static int compareWords(char[] word1, char[] word2) {
+	int length1 = word1.length;
+	int length2 = word2.length;
+	for (int i = 0, min = Math.min(length1, length2); i < min; i++) {
+		int diff = ScannerHelper.toLowerCase(word1[i]) - ScannerHelper.toLowerCase(word2[i]);
+		if (diff != 0)
+			return diff;
+	}
+	if (length1 != length2)
+		return length1 - length2;
+	return CharOperation.compareTo(word1, word2);
+}
+/*
+ * Compares the start of the given word with the given prefix, ignoring case, in the order of compareWords().
+ */
+private static int comparePrefix(char[] word, char[] prefix, int prefixLength) {
+	for (int i = 0, min = Math.min(word.length, prefixLength); i < min; i++) {
+		int diff = ScannerHelper.toLowerCase(word[i]) - ScannerHelper.toLowerCase(prefix[i]);
+		if (diff != 0)
+			return diff;
+	}
+	return word.length < prefixLength ? -1 : 0;
+}
+/*
+ * Returns the number of leading characters of the key that any word matching it starts with, ignoring case.
+ */
+static int getLiteralPrefixLength(char[] key, int matchRule) {
+	if ((matchRule & (SearchPattern.R_SUBSTRING_MATCH | SearchPattern.R_SUBWORD_MATCH)) != 0)
+		return 0;
+	switch (matchRule & Index.MATCH_RULE_INDEX_MASK & ~SearchPattern.R_CASE_SENSITIVE) {
+		case SearchPattern.R_EXACT_MATCH :
+		case SearchPattern.R_PREFIX_MATCH :
+			return key.length;
+		case SearchPattern.R_PATTERN_MATCH :
+			for (int i = 0, l = key.length; i < l; i++)
+				if (key[i] == '*' || key[i] == '?')
+					return i;
+			return key.length;
+		case SearchPattern.R_CAMELCASE_MATCH :
+		case SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH :
+			// the first hump of a camel case pattern must match exactly (see CharOperation.camelCaseMatch()), and so
+			// must the whole key for the prefix match it falls back to
+			int length = Math.min(key.length, 1);
+			while (length < key.length && !isHumpStart(key[length]))
+				length++;
+			return length;
+		default :
+			return 0;
+	}
+}
+/*
+ * Whether the given character of a camel case pattern starts a new hump, as opposed to the characters that
+ * must match the name exactly, in the same way as CharOperation.camelCaseMatch().
+ */
+private static boolean isHumpStart(char c) {
+	if (c < ScannerHelper.MAX_OBVIOUS)
+		return (ScannerHelper.OBVIOUS_IDENT_CHAR_NATURES[c] & (ScannerHelper.C_UPPER_LETTER | ScannerHelper.C_DIGIT)) != 0;
+	return !Character.isJavaIdentifierPart(c) || Character.isUpperCase(c) || Character.isDigit(c);
+}
+/*
+ * Returns the words of the given category table that can match the given key: the range of the words kept
+ * in dictionary order which start with the literal prefix of the key, found by binary search. Returns all
+ * the words of the table when any word may match, like for substring or regular expression queries.
+ */
+private char[][] getCandidateWords(char[] categoryName, HashtableOfObject wordsToDocNumbers, char[] key, int matchRule) {
+	int prefixLength = getLiteralPrefixLength(key, matchRule);
+	char[][] sortedWords;
+	synchronized (this) {
+		sortedWords = this.categoryWords == null ? null : (char[][]) this.categoryWords.get(categoryName);
+	}
+	if (prefixLength == 0 || sortedWords == null || sortedWords.length != wordsToDocNumbers.elementSize)
+		return wordsToDocNumbers.keyTable;
+
+	int low = 0, high = sortedWords.length;
+	while (low < high) { // first word not before the prefix
+		int mid = (low + high) >>> 1;
+		if (comparePrefix(sortedWords[mid], key, prefixLength) < 0)
+			low = mid + 1;
+		else
+			high = mid;
+	}
+	int start = low;
+	high = sortedWords.length;
+	while (low < high) { // first word after the prefix
+		int mid = (low + high) >>> 1;
+		if (comparePrefix(sortedWords[mid], key, prefixLength) <= 0)
+			low = mid + 1;
+		else
+			high = mid;
+	}
+	return Arrays.copyOfRange(sortedWords, start, low);
+}
 private synchronized void cacheDocumentNames() throws IOException {
+	if (mappedIndex() != null)
+		return; // names are decoded on demand by readDocumentName(int), without any I/O
 	// will need all document names so get them now
 	this.cachedChunks = new String[this.numberOfChunks][];
 	try (InputStream stream = this.indexLocation.getInputStream()) {
@@ -401,6 +758,8 @@ private void copyQueryResults(HashtableOfObject categoryToWords, int newPosition
 	}
 }
 void initialize(boolean reuseExistingFile) throws IOException {
+	this.mappedIndex = null;
+	this.mappedEntries = null;
 	if (this.indexLocation.exists()) {
 		if (reuseExistingFile) {
 			try (InputStream stream = this.indexLocation.getInputStream()) {
@@ -479,6 +838,7 @@ private void mergeCategories(DiskIndex onDisk, int[] positions, FileOutputStream
 		if (categoryName != null)
 			mergeCategory(categoryName, onDisk, positions, stream);
 	this.categoryTables = null;
+	this.categoryWords = null;
 }
 private void mergeCategory(char[] categoryName, DiskIndex onDisk, int[] positions, FileOutputStream stream) throws IOException {
 	HashtableOfObject wordsToDocs = (HashtableOfObject) this.categoryTables.get(categoryName);
@@ -624,11 +984,49 @@ DiskIndex mergeWith(MemoryIndex memoryIndex) throws IOException {
 		newDiskIndex.indexLocation = this.indexLocation;
 	return newDiskIndex;
 }
+/*
+ * Returns the memory mapping of the whole index file, or null if the index is read through streams.
+ */
+private ByteBuffer mappedIndex() {
+	ByteBuffer mapped = this.mappedIndex;
+	if (mapped == null) {
+		synchronized (this) {
+			mapped = this.mappedIndex;
+			if (mapped == null)
+				this.mappedIndex = mapped = isMapped() ? mapIndexFile() : NOT_MAPPED;
+		}
+	}
+	return mapped == NOT_MAPPED ? null : mapped;
+}
+private ByteBuffer mapIndexFile() {
+	File file = this.indexLocation.getIndexFile();
+	if (file == null)
+		return NOT_MAPPED; // index inside a jar
+	try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE)
+			return NOT_MAPPED;
+		// the mapping stays valid once the channel is closed
+		return channel.map(MapMode.READ_ONLY, 0, size);
+	} catch (IOException e) {
+		if (DEBUG)
+			System.out.println("Failed to map index " + this.indexLocation + ", reading it through streams"); //$NON-NLS-1$ //$NON-NLS-2$
+		return NOT_MAPPED;
+	}
+}
 private synchronized String[] readAllDocumentNames() throws IOException {
 	if (this.numberOfChunks <= 0)
 		return CharOperation.NO_STRINGS;
 
 	try {
+		ByteBuffer mapped = mappedIndex();
+		if (mapped != null) {
+			int lastIndex = this.numberOfChunks - 1;
+			String[] docNames = new String[lastIndex * CHUNK_SIZE + this.sizeOfLastChunk];
+			for (int i = 0; i < this.numberOfChunks; i++)
+				readChunk(docNames, new MappedReader(mapped, this.chunkOffsets[i]), i * CHUNK_SIZE, i < lastIndex ? CHUNK_SIZE : this.sizeOfLastChunk);
+			return docNames;
+		}
 		try (InputStream stream = this.indexLocation.getInputStream();) {
 			int offset = this.chunkOffsets[0];
 			stream.skip(offset);
@@ -652,29 +1050,98 @@ private synchronized String[] readAllDocumentNames() throws IOException {
 		return CharOperation.NO_STRINGS;
 	}
 }
-private synchronized HashtableOfObject readCategoryTable(char[] categoryName, boolean readDocNumbers) throws IOException {
+private HashtableOfObject readCategoryTable(char[] categoryName, boolean readDocNumbers) throws IOException {
+	ByteBuffer mapped = mappedIndex();
+	if (mapped == null)
+		return readStreamCategoryTable(categoryName, readDocNumbers);
+
 	// result will be null if categoryName is unknown
 	int offset = this.categoryOffsets.get(categoryName);
 	if (offset == HashtableOfIntValues.NO_VALUE) {
 		return null;
 	}
+	HashtableOfObject categoryTable;
+	synchronized (this) {
+		categoryTable = getCachedCategoryTable(categoryName, readDocNumbers);
+	}
+	if (categoryTable != null)
+		return categoryTable;
 
+	// decoded without holding the lock, so that queries on other categories are not blocked
+	try {
+		return readMappedCategoryTable(categoryName, mapped, offset, readDocNumbers);
+	} catch (UTFDataFormatException ue) {
+		ILog.get().warn("Java Index broken - will be automatically deleted to repair: " + this.indexLocation, ue); //$NON-NLS-1$
+		// index is broken. automatically delete it
+		// https://github.com/eclipse-jdt/eclipse.jdt.core/issues/460
+		this.indexLocation.delete();
+		return null;
+	}
+}
+private void cacheCategoryTable(char[] categoryName, HashtableOfObject categoryTable, char[][] words) {
+	char[] internedName = INTERNED_CATEGORY_NAMES.get(categoryName);
+	this.categoryTables.put(internedName, categoryTable);
+	if (this.categoryWords == null)
+		this.categoryWords = new HashtableOfObject(3);
+	this.categoryWords.put(internedName, words);
+	// cache the table as long as its not too big
+	// in practice, some tables can be greater than 500K when they contain more than 10K elements
+	this.cachedCategoryName = categoryTable.elementSize < 20000 ? categoryName : null;
+}
+private HashtableOfObject getCachedCategoryTable(char[] categoryName, boolean readDocNumbers) throws IOException {
 	if (this.categoryTables == null) {
 		this.categoryTables = new HashtableOfObject(3);
-	} else {
-		HashtableOfObject cachedTable = (HashtableOfObject) this.categoryTables.get(categoryName);
-		if (cachedTable != null) {
-			if (readDocNumbers) { // must cache remaining document number arrays
-				Object[] arrayOffsets = cachedTable.valueTable;
-				for (int i = 0, l = arrayOffsets.length; i < l; i++)
-					if (arrayOffsets[i] instanceof Integer)
-						arrayOffsets[i] = readDocumentNumbers(arrayOffsets[i]);
-			}
-			return cachedTable;
-		}
+		return null;
+	}
+	HashtableOfObject cachedTable = (HashtableOfObject) this.categoryTables.get(categoryName);
+	if (cachedTable != null && readDocNumbers) { // must cache remaining document number arrays
+		Object[] arrayOffsets = cachedTable.valueTable;
+		for (int i = 0, l = arrayOffsets.length; i < l; i++)
+			if (arrayOffsets[i] instanceof Integer)
+				arrayOffsets[i] = readDocumentNumbers(arrayOffsets[i]);
+	}
+	return cachedTable;
+}
+private HashtableOfObject readMappedCategoryTable(char[] categoryName, ByteBuffer mapped, int offset, boolean readDocNumbers) throws IOException {
+	MappedReader reader = new MappedReader(mapped, offset);
+	int size = reader.readInt();
+	HashtableOfObject categoryTable;
+	try {
+		categoryTable = new HashtableOfObject(size);
+	} catch (NegativeArraySizeException | OutOfMemoryError e) {
+		String message = "Failed to read index data from " + this.indexLocation + " at offset " + offset //$NON-NLS-1$ //$NON-NLS-2$
+				+ " and size " + size; //$NON-NLS-1$
+		UTFDataFormatException ue = new UTFDataFormatException(message);
+		ue.initCause(e);
+		throw ue;
 	}
+	char[][] words = new char[size][];
+	for (int i = 0; i < size; i++) {
+		char[] word = words[i] = reader.readChars();
+		// no need to read the large arrays in file order as the whole file is mapped
+		categoryTable.putUnsafely(word, readMappedEntryDocuments(reader, mapped, readDocNumbers));
+	}
+	synchronized (this) {
+		HashtableOfObject cachedTable = getCachedCategoryTable(categoryName, readDocNumbers);
+		if (cachedTable != null)
+			return cachedTable; // read by another query in the meantime
+		cacheCategoryTable(categoryName, categoryTable, words);
+	}
+	return categoryTable;
+}
+private synchronized HashtableOfObject readStreamCategoryTable(char[] categoryName, boolean readDocNumbers) throws IOException {
+	// result will be null if categoryName is unknown
+	int offset = this.categoryOffsets.get(categoryName);
+	if (offset == HashtableOfIntValues.NO_VALUE) {
+		return null;
+	}
+
+	HashtableOfObject cachedTable = getCachedCategoryTable(categoryName, readDocNumbers);
+	if (cachedTable != null)
+		return cachedTable;
 
 	HashtableOfObject categoryTable = null;
+	char[][] words = null;
 	char[][] matchingWords = null;
 	int count = 0;
 	int firstOffset = -1;
@@ -694,9 +1161,10 @@ private synchronized HashtableOfObject readCategoryTable(char[] categoryName, bo
 				ue.initCause(e);
 				throw ue;
 			}
+			words = new char[size][];
 			int largeArraySize = 256;
 			for (int i = 0; i < size; i++) {
-				char[] word = readStreamChars(stream);
+				char[] word = words[i] = readStreamChars(stream);
 				int arrayOffset = readStreamInt(stream);
 				// if arrayOffset is:
 				//		<= 0 then the array size == 1 with the value -> -arrayOffset
@@ -718,10 +1186,7 @@ private synchronized HashtableOfObject readCategoryTable(char[] categoryName, bo
 					categoryTable.putUnsafely(word, Integer.valueOf(arrayOffset)); // offset to array in the file
 				}
 			}
-			this.categoryTables.put(INTERNED_CATEGORY_NAMES.get(categoryName), categoryTable);
-			// cache the table as long as its not too big
-			// in practice, some tables can be greater than 500K when they contain more than 10K elements
-			this.cachedCategoryName = categoryTable.elementSize < 20000 ? categoryName : null;
+			cacheCategoryTable(categoryName, categoryTable, words);
 		} catch (IOException ioe) {
 			this.streamBuffer = null;
 			throw ioe;
@@ -765,23 +1230,58 @@ private void readChunk(String[] docNames, InputStream stream, int index, int siz
 		}
 		int start = this.streamBuffer[this.bufferIndex++] & 0xFF;
 		int end = this.streamBuffer[this.bufferIndex++] & 0xFF;
-		String next  = new String(readStreamChars(stream));
-		if (start > 0) {
-			if (end > 0) {
-				int length = current.length();
-				next = current.substring(0, start) + next + current.substring(length - end, length);
-			} else {
-				next = current.substring(0, start) + next;
-			}
-		} else if (end > 0) {
-			int length = current.length();
-			next = next + current.substring(length - end, length);
+		current = docNames[index++] = readDocumentName(current, start, end, new String(readStreamChars(stream)));
+	}
+}
+private void readChunk(String[] docNames, MappedReader reader, int index, int size) throws IOException {
+	String current = new String(reader.readChars());
+	docNames[index++] = current;
+	for (int i = 1; i < size; i++) {
+		int start = reader.readUnsignedByte();
+		int end = reader.readUnsignedByte();
+		current = docNames[index++] = readDocumentName(current, start, end, new String(reader.readChars()));
+	}
+}
+private static String readDocumentName(String previous, int start, int end, String next) {
+	// document names share their first start and last end characters with the previous name
+	if (start > 0) {
+		if (end > 0) {
+			int length = previous.length();
+			return previous.substring(0, start) + next + previous.substring(length - end, length);
+		}
+		return previous.substring(0, start) + next;
+	} else if (end > 0) {
+		int length = previous.length();
+		return next + previous.substring(length - end, length);
+	}
+	return next;
+}
+String readDocumentName(int docNumber) throws IOException {
+	ByteBuffer mapped = mappedIndex();
+	if (mapped == null)
+		return readStreamDocumentName(docNumber);
+
+	int chunkNumber = docNumber / CHUNK_SIZE;
+	String[][] chunks;
+	String[] chunk;
+	synchronized (this) {
+		if (this.cachedChunks == null)
+			this.cachedChunks = new String[this.numberOfChunks][];
+		chunks = this.cachedChunks;
+		chunk = chunks[chunkNumber];
+	}
+	if (chunk == null) {
+		// concurrent queries may decode the same chunk, which is cheap from the mapping
+		int numberOfNames = chunkNumber == this.numberOfChunks - 1 ? this.sizeOfLastChunk : CHUNK_SIZE;
+		chunk = new String[numberOfNames];
+		readChunk(chunk, new MappedReader(mapped, this.chunkOffsets[chunkNumber]), 0, numberOfNames);
+		synchronized (this) {
+			chunks[chunkNumber] = chunk;
 		}
-		docNames[index++] = next;
-		current = next;
 	}
+	return chunk[docNumber - (chunkNumber * CHUNK_SIZE)];
 }
-synchronized String readDocumentName(int docNumber) throws IOException {
+private synchronized String readStreamDocumentName(int docNumber) throws IOException {
 	if (this.cachedChunks == null)
 		this.cachedChunks = new String[this.numberOfChunks][];
 
@@ -809,7 +1309,7 @@ synchronized String readDocumentName(int docNumber) throws IOException {
 		int numberOfNames = isLastChunk ? this.sizeOfLastChunk : CHUNK_SIZE;
 		chunk = new String[numberOfNames];
 		try {
-			readChunk(chunk, null, 0, numberOfNames);
+			readChunk(chunk, (InputStream) null, 0, numberOfNames);
 		} catch (IOException ioe) {
 			this.streamBuffer = null;
 			throw ioe;
@@ -819,14 +1319,22 @@ synchronized String readDocumentName(int docNumber) throws IOException {
 	this.streamBuffer = null;
 	return chunk[docNumber - (chunkNumber * CHUNK_SIZE)];
 }
-synchronized int[] readDocumentNumbers(Object arrayOffset) throws IOException {
+int[] readDocumentNumbers(Object arrayOffset) throws IOException {
 	// arrayOffset is either a cached array of docNumbers or an Integer offset in the file
 	if (arrayOffset instanceof int[])
 		return (int[]) arrayOffset;
 
+	int offset = ((Integer) arrayOffset).intValue();
+	ByteBuffer mapped = mappedIndex();
+	return mapped != null ? readMappedDocumentNumbers(mapped, offset) : readStreamDocumentNumbers(offset);
+}
+private int[] readMappedDocumentNumbers(ByteBuffer mapped, int offset) throws IOException {
+	MappedReader reader = new MappedReader(mapped, offset);
+	return reader.readDocumentArray(reader.readInt(), this.documentReferenceSize);
+}
+private synchronized int[] readStreamDocumentNumbers(int offset) throws IOException {
 	InputStream stream = this.indexLocation.getInputStream();
 	try (stream) {
-		int offset = ((Integer) arrayOffset).intValue();
 		stream.skip(offset);
 		this.streamBuffer = new byte[BUFFER_READ_SIZE];
 		this.bufferIndex = 0;
@@ -893,10 +1401,16 @@ synchronized void stopQuery() {
 		if (this.categoryTables != null) {
 			if (this.cachedCategoryName == null) {
 				this.categoryTables = null;
+				this.categoryWords = null;
 			} else if (this.categoryTables.elementSize > 1) {
 				HashtableOfObject newTables = new HashtableOfObject(3);
 				newTables.put(this.cachedCategoryName, this.categoryTables.get(this.cachedCategoryName));
 				this.categoryTables = newTables;
+				if (this.categoryWords != null) {
+					HashtableOfObject newWords = new HashtableOfObject(3);
+					newWords.put(this.cachedCategoryName, this.categoryWords.get(this.cachedCategoryName));
+					this.categoryWords = newWords;
+				}
 			}
 		}
 	}
@@ -1124,26 +1638,34 @@ private void writeCategories(FileOutputStream stream) throws IOException {
 		if (categoryNames[i] != null)
 			writeCategoryTable(categoryNames[i], (HashtableOfObject) tables[i], stream);
 	this.categoryTables = null;
+	this.categoryWords = null;
 }
 private void writeCategoryTable(char[] categoryName, HashtableOfObject wordsToDocs, FileOutputStream stream) throws IOException {
 	// the format of a category table is as follows:
 	// any document number arrays with >= 256 elements are written before the table (the offset to each array is remembered)
 	// then the number of word->int[] pairs in the table is written
-	// for each word -> int[] pair, the word is written followed by:
+	// for each word -> int[] pair, in dictionary order (see compareWords()), the word is written followed by:
 	//		an int <= 0 if the array size == 1
 	//		an int > 1 & < 256 for the size of the array if its > 1 & < 256, the document array follows immediately
 	//		256 if the array size >= 256 followed by another int which is the offset to the array (written prior to the table)
 
+	char[][] words = new char[wordsToDocs.elementSize][];
+	int count = 0;
+	for (char[] word : wordsToDocs.keyTable)
+		if (word != null)
+			words[count++] = word;
+	Arrays.sort(words, 0, count, DiskIndex::compareWords);
+
+	// the large arrays are written in the order of the table, so that they can be read in sequence
 	int largeArraySize = 256;
-	Object[] values = wordsToDocs.valueTable;
-	for (int i = 0, l = values.length; i < l; i++) {
-		Object o = values[i];
+	for (int i = 0; i < count; i++) {
+		Object o = wordsToDocs.get(words[i]);
 		if (o != null) {
 			if (o instanceof IntList)
-				o = values[i] = ((IntList) values[i]).asArray();
+				wordsToDocs.put(words[i], o = ((IntList) o).asArray());
 			int[] documentNumbers = (int[]) o;
 			if (documentNumbers.length >= largeArraySize) {
-				values[i] = Integer.valueOf(this.streamEnd);
+				wordsToDocs.put(words[i], Integer.valueOf(this.streamEnd));
 				writeDocumentNumbers(documentNumbers, stream);
 			}
 		}
@@ -1152,9 +1674,8 @@ private void writeCategoryTable(char[] categoryName, HashtableOfObject wordsToDo
 	this.categoryOffsets.put(categoryName, this.streamEnd); // remember the offset to the start of the table
 	this.categoryTables.put(categoryName, null); // flush cached table
 	writeStreamInt(stream, wordsToDocs.elementSize);
-	char[][] words = wordsToDocs.keyTable;
-	for (int i = 0, l = words.length; i < l; i++) {
-		Object o = values[i];
+	for (int i = 0; i < count; i++) {
+		Object o = wordsToDocs.get(words[i]);
 		if (o != null) {
 			writeStreamChars(stream, words[i]);
 			if (o instanceof int[]) {
@@ -15,6 +15,8 @@ package org.eclipse.jdt.internal.core.search.indexing;
 
 import static org.eclipse.jdt.internal.core.JavaModelManager.trace;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -62,6 +64,7 @@ class AddFolderToIndex extends IndexRequest {
 			final IPath container = this.containerPath;
 			final IndexManager indexManager = this.manager;
 			final SourceElementParser parser = indexManager.getSourceElementParser(JavaCore.create(this.project), null/*requestor will be set by indexer*/);
+			final List<IFile> sources = new ArrayList<>();
 			if (this.exclusionPatterns == null && this.inclusionPatterns == null) {
 				folder.accept(
 					new IResourceProxyVisitor() {
@@ -69,7 +72,7 @@ class AddFolderToIndex extends IndexRequest {
 						public boolean visit(IResourceProxy proxy) /* throws CoreException */{
 							if (proxy.getType() == IResource.FILE) {
 								if (org.eclipse.jdt.internal.core.util.Util.isJavaLikeFileName(proxy.getName()))
-									indexManager.addSource((IFile) proxy.requestResource(), container, parser);
+									sources.add((IFile) proxy.requestResource());
 								return false;
 							}
 							return true;
@@ -87,7 +90,7 @@ class AddFolderToIndex extends IndexRequest {
 									if (org.eclipse.jdt.internal.core.util.Util.isJavaLikeFileName(proxy.getName())) {
 										IResource resource = proxy.requestResource();
 										if (!Util.isExcluded(resource, AddFolderToIndex.this.inclusionPatterns, AddFolderToIndex.this.exclusionPatterns))
-											indexManager.addSource((IFile)resource, container, parser);
+											sources.add((IFile) resource);
 									}
 									return false;
 								case IResource.FOLDER :
@@ -103,6 +106,7 @@ class AddFolderToIndex extends IndexRequest {
 					IResource.NONE
 				);
 			}
+			indexManager.addSources(sources, container, parser);
 		} catch (CoreException e) {
 			if (JobManager.VERBOSE) {
 				trace("-> failed to add " + this.folderPath + " to index because of the following exception:", e); //$NON-NLS-1$ //$NON-NLS-2$
@@ -33,6 +33,15 @@ class DOMToIndexVisitor extends ASTVisitor {
 		return this.enclosingTypes.get(this.enclosingTypes.size() - 1);
 	}
 
+	@Override
+	public boolean preVisit2(ASTNode node) {
+		if ((node instanceof LambdaExpression || node instanceof MethodReference) && !this.sourceIndexer.document.shouldIndexResolvedDocument()) {
+			// functional expressions are indexed from bindings, on a 2nd pass
+			this.sourceIndexer.document.requireIndexingResolvedDocument();
+		}
+		return true;
+	}
+
 	@Override
 	public boolean visit(PackageDeclaration packageDeclaration) {
 		this.packageName = packageDeclaration.getName().toString().toCharArray();
@@ -256,6 +256,49 @@ public void addSource(IFile resource, IPath containerPath, SourceElementParser p
 	IndexLocation indexLocation = computeIndexLocation(containerPath);
 	scheduleDocumentIndexing(document, containerPath, indexLocation, participant);
 }
+/**
+ * Trigger addition of resources of a same project to an index. With the DOM-based indexer, they are parsed
+ * together by batches rather than one by one.
+ * Note: the actual operation is performed in background
+ */
+public void addSources(List<IFile> resources, IPath containerPath, SourceElementParser parser) {
+	if (JavaCore.getPlugin() == null) return;
+	if (!SourceIndexer.isDOMBased()) {
+		for (IFile resource : resources)
+			addSource(resource, containerPath, parser);
+		return;
+	}
+	SearchParticipant participant = SearchEngine.getDefaultSearchParticipant();
+	IndexLocation indexLocation = computeIndexLocation(containerPath);
+	int batchSize = Math.max(1, SourceIndexer.getDOMBatchSize());
+	for (int start = 0, size = resources.size(); start < size; start += batchSize) {
+		List<SearchDocument> documents = new ArrayList<>();
+		for (IFile resource : resources.subList(start, Math.min(start + batchSize, size)))
+			documents.add(participant.getDocument(resource.getFullPath().toString()));
+		request(new IndexRequest(containerPath, this) {
+			@Override
+			public boolean execute(IProgressMonitor progressMonitor) {
+				if (this.isCancelled || progressMonitor != null && progressMonitor.isCanceled()) return true;
+
+				Index index = getIndex(this.containerPath, indexLocation, true, /*reuse index file*/ true /*create if none*/);
+				if (index == null) return true;
+				if (index.monitor == null) return true; // index got deleted since acquired
+				// the write lock is taken for each document, not while parsing
+				SourceIndexer.indexDocumentsFromDOM(documents, index, () -> this.isCancelled);
+				updateMetaIndex(index);
+				return true;
+			}
+			@Override
+			public String toString() {
+				return "indexing " + documents.size() + " documents of " + this.containerPath; //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			@Override
+			public boolean waitNeeded() {
+				return false;
+			}
+		});
+	}
+}
 /**
  * Removes unused indexes from disk.
  */
@@ -15,6 +15,13 @@ package org.eclipse.jdt.internal.core.search.indexing;
 
 import static org.eclipse.jdt.internal.core.JavaModelManager.trace;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -25,11 +32,11 @@ import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
-import org.eclipse.jdt.core.dom.ASTVisitor;
-import org.eclipse.jdt.core.dom.MethodReference;
+import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.search.SearchDocument;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
 import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
@@ -59,8 +66,10 @@ import org.eclipse.jdt.internal.compiler.util.SuffixConstants;
 import org.eclipse.jdt.internal.core.DefaultWorkingCopyOwner;
 import org.eclipse.jdt.internal.core.JavaModel;
 import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.JavaModelManager.PerWorkingCopyInfo;
 import org.eclipse.jdt.internal.core.JavaProject;
 import org.eclipse.jdt.internal.core.SourceTypeElementInfo;
+import org.eclipse.jdt.internal.core.index.Index;
 import org.eclipse.jdt.internal.core.jdom.CompilationUnit;
 import org.eclipse.jdt.internal.core.search.JavaSearchDocument;
 import org.eclipse.jdt.internal.core.search.matching.JavaSearchNameEnvironment;
@@ -90,14 +99,26 @@ public class SourceIndexer extends AbstractIndexer implements ITypeRequestor, Su
 	private CompilationUnit compilationUnit;
 	private CompilationUnitDeclaration cud;
 	private static final boolean DEBUG = false;
+	private static final AtomicLong reusedASTs = new AtomicLong();
+	/**
+	 * Default maximum number of documents parsed at once by {@link #indexDocumentsFromDOM(List, Index, BooleanSupplier)}
+	 */
+	static final int DOM_BATCH_SIZE = 500;
 
 	public SourceIndexer(SearchDocument document) {
 		super(document);
 		this.requestor = new SourceIndexerRequestor(this);
 	}
+	static boolean isDOMBased() {
+		return Boolean.getBoolean(SourceIndexer.class.getSimpleName() + ".DOM_BASED_INDEXER"); //$NON-NLS-1$
+	}
+	static int getDOMBatchSize() {
+		return Integer.getInteger(SourceIndexer.class.getSimpleName() + ".DOM_BATCH_SIZE", DOM_BATCH_SIZE).intValue(); //$NON-NLS-1$
+	}
+
 	@Override
 	public void indexDocument() {
-		if (Boolean.getBoolean(getClass().getSimpleName() + ".DOM_BASED_INDEXER")) { //$NON-NLS-1$
+		if (isDOMBased()) {
 			indexDocumentFromDOM();
 			return;
 		}
@@ -226,7 +247,7 @@ public class SourceIndexer extends AbstractIndexer implements ITypeRequestor, Su
 
 	@Override
 	public void indexResolvedDocument() {
-		if (Boolean.getBoolean(getClass().getSimpleName() + ".DOM_BASED_INDEXER")) { //$NON-NLS-1$
+		if (isDOMBased()) {
 			// just re-run indexing, but with the resolved document (and its bindings)
 			indexDocumentFromDOM();
 			return;
@@ -300,34 +321,22 @@ public class SourceIndexer extends AbstractIndexer implements ITypeRequestor, Su
 			try {
 				if (JavaProject.hasJavaNature(file.getProject())) {
 					IJavaProject javaProject = JavaCore.create(file.getProject());
-					// Do NOT call javaProject.getElement(pathToJavaFile) as it can loop inside index
-					// when there are multiple package root/source folders, and then cause deadlock
-					// so we go finer grain by picking the right fragment first (so index call shouldn't happen)
-					IPackageFragment fragment = javaProject.findPackageFragment(file.getFullPath().removeLastSegments(1));
-					if (fragment.getCompilationUnit(file.getName()) instanceof org.eclipse.jdt.internal.core.CompilationUnit modelUnit) {
-						// TODO check element info: if has AST and flags are set sufficiently, just reuse instead of rebuilding
-						ASTParser astParser = ASTParser.newParser(AST.getJLSLatest()); // we don't seek exact compilation the more tolerant the better here
-						astParser.setSource(modelUnit);
-						astParser.setStatementsRecovery(true);
-						astParser.setResolveBindings(this.document.shouldIndexResolvedDocument());
-						astParser.setProject(javaProject);
-						org.eclipse.jdt.core.dom.ASTNode dom = astParser.createAST(null);
+					org.eclipse.jdt.internal.core.CompilationUnit modelUnit = getModelUnit(javaProject, file);
+					if (modelUnit != null) {
+						org.eclipse.jdt.core.dom.ASTNode dom = getReconciledAST(modelUnit);
+						if (dom != null) {
+							reusedASTs.incrementAndGet();
+						} else {
+							ASTParser astParser = ASTParser.newParser(AST.getJLSLatest()); // we don't seek exact compilation the more tolerant the better here
+							astParser.setSource(modelUnit);
+							astParser.setStatementsRecovery(true);
+							astParser.setResolveBindings(this.document.shouldIndexResolvedDocument());
+							astParser.setProject(javaProject);
+							dom = astParser.createAST(null);
+						}
 						if (dom != null) {
+							// also requires indexing the resolved document if there are lambdas or method references
 							dom.accept(new DOMToIndexVisitor(this));
-							dom.accept(
-									new ASTVisitor() {
-										@Override
-										public boolean preVisit2(org.eclipse.jdt.core.dom.ASTNode node) {
-											if (SourceIndexer.this.document.shouldIndexResolvedDocument()) {
-												return false; // interrupt
-											}
-											if (node instanceof MethodReference || node instanceof org.eclipse.jdt.core.dom.LambdaExpression) {
-												SourceIndexer.this.document.requireIndexingResolvedDocument();
-												return false;
-											}
-											return true;
-										}
-									});
 							return true;
 						}
 					}
@@ -339,4 +348,141 @@ public class SourceIndexer extends AbstractIndexer implements ITypeRequestor, Su
 		ILog.get().warn("Could not convert DOM to Index for " + this.document.getPath()); //$NON-NLS-1$
 		return false;
 	}
+
+	/**
+	 * Indexes the given documents of a same project from DOM, like {@link #indexDocumentFromDOM()}, but parsing them all
+	 * at once so that the AST parser sets up its compiler (e.g. a javac context) once for all of them. The documents with
+	 * lambdas or method references are then parsed again at once, with bindings.
+	 */
+	static void indexDocumentsFromDOM(List<SearchDocument> documents, Index index, BooleanSupplier cancelled) {
+		Map<org.eclipse.jdt.core.ICompilationUnit, SourceIndexer> toParse = new LinkedHashMap<>();
+		Map<org.eclipse.jdt.core.ICompilationUnit, SourceIndexer> toResolve = new LinkedHashMap<>();
+		IJavaProject javaProject = null;
+		for (SearchDocument document : documents) {
+			if (!(document instanceof JavaSearchDocument javaSearchDoc)) {
+				continue;
+			}
+			SourceIndexer indexer = new SourceIndexer(document);
+			IFile file = javaSearchDoc.getFile();
+			try {
+				if (javaProject == null) {
+					if (!JavaProject.hasJavaNature(file.getProject())) {
+						return;
+					}
+					javaProject = JavaCore.create(file.getProject());
+				}
+				org.eclipse.jdt.internal.core.CompilationUnit modelUnit = getModelUnit(javaProject, file);
+				if (modelUnit == null) {
+					ILog.get().warn("Could not convert DOM to Index for " + document.getPath()); //$NON-NLS-1$
+				} else if (indexer.getReconciledAST(modelUnit) instanceof org.eclipse.jdt.core.dom.CompilationUnit ast) {
+					reusedASTs.incrementAndGet();
+					indexer.indexDOM(ast, index, false);
+					if (indexer.document.shouldIndexResolvedDocument()) {
+						if (ast.getAST().hasResolvedBindings()) {
+							indexer.indexDOM(ast, index, true);
+						} else {
+							toResolve.put(modelUnit, indexer);
+						}
+					}
+				} else {
+					toParse.put(modelUnit, indexer);
+				}
+			} catch (Exception ex) {
+				ILog.get().error("Failed to index document from DOM for " + document.getPath(), ex); //$NON-NLS-1$
+			}
+		}
+		if (javaProject == null || cancelled.getAsBoolean()) {
+			return;
+		}
+		indexDocumentsFromDOM(javaProject, toParse, false, index, cancelled);
+
+		toParse.forEach((unit, indexer) -> {
+			if (indexer.document.shouldIndexResolvedDocument()) {
+				toResolve.put(unit, indexer);
+			}
+		});
+		if (!toResolve.isEmpty() && !cancelled.getAsBoolean()) {
+			indexDocumentsFromDOM(javaProject, toResolve, true, index, cancelled);
+		}
+	}
+	private static void indexDocumentsFromDOM(IJavaProject javaProject, Map<org.eclipse.jdt.core.ICompilationUnit, SourceIndexer> indexers, boolean resolveBindings, Index index, BooleanSupplier cancelled) {
+		if (indexers.isEmpty()) {
+			return;
+		}
+		Set<org.eclipse.jdt.core.ICompilationUnit> notIndexed = new HashSet<>(indexers.keySet());
+		try {
+			ASTParser astParser = ASTParser.newParser(AST.getJLSLatest()); // we don't seek exact compilation the more tolerant the better here
+			astParser.setStatementsRecovery(true);
+			astParser.setResolveBindings(resolveBindings);
+			astParser.setProject(javaProject);
+			astParser.createASTs(indexers.keySet().toArray(org.eclipse.jdt.core.ICompilationUnit[]::new), new String[0], new ASTRequestor() {
+				@Override
+				public void acceptAST(org.eclipse.jdt.core.ICompilationUnit source, org.eclipse.jdt.core.dom.CompilationUnit ast) {
+					SourceIndexer indexer = indexers.get(source);
+					if (indexer != null && !cancelled.getAsBoolean()) {
+						indexer.indexDOM(ast, index, resolveBindings);
+						notIndexed.remove(source);
+					}
+				}
+			}, null);
+		} catch (Exception ex) {
+			ILog.get().error("Failed to index documents from DOM for " + javaProject.getElementName(), ex); //$NON-NLS-1$
+		}
+		if (!notIndexed.isEmpty() && !cancelled.getAsBoolean()) {
+			ILog.get().warn("Could not convert DOM to Index for " + notIndexed.size() + " documents of " + javaProject.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+	private void indexDOM(org.eclipse.jdt.core.dom.CompilationUnit ast, Index index, boolean resolved) {
+		ReadWriteMonitor monitor = index.monitor;
+		if (monitor == null) {
+			return; // index got deleted since acquired
+		}
+		try {
+			monitor.enterWrite(); // ask permission to write
+			this.document.setIndex(index);
+			if (!resolved) {
+				this.document.removeAllIndexEntries(); // in case the document was already indexed
+			}
+			// also requires indexing the resolved document if there are lambdas or method references
+			ast.accept(new DOMToIndexVisitor(this));
+		} finally {
+			this.document.setIndex(null);
+			monitor.exitWrite(); // free write lock
+		}
+	}
+
+	private static org.eclipse.jdt.internal.core.CompilationUnit getModelUnit(IJavaProject javaProject, IFile file) throws JavaModelException {
+		// Do NOT call javaProject.getElement(pathToJavaFile) as it can loop inside index
+		// when there are multiple package root/source folders, and then cause deadlock
+		// so we go finer grain by picking the right fragment first (so index call shouldn't happen)
+		IPackageFragment fragment = javaProject.findPackageFragment(file.getFullPath().removeLastSegments(1));
+		return fragment != null && fragment.getCompilationUnit(file.getName()) instanceof org.eclipse.jdt.internal.core.CompilationUnit modelUnit
+				? modelUnit
+				: null;
+	}
+
+	/**
+	 * @return the AST kept by the opened working copy of the given unit, if it has no unsaved changes and has bindings
+	 *         when the resolved document is indexed, or {@code null}
+	 */
+	private org.eclipse.jdt.core.dom.CompilationUnit getReconciledAST(org.eclipse.jdt.internal.core.CompilationUnit modelUnit) throws JavaModelException {
+		PerWorkingCopyInfo info = JavaModelManager.getJavaModelManager().getPerWorkingCopyInfo(modelUnit, false, false, null);
+		if (info == null || !(info.getWorkingCopy() instanceof org.eclipse.jdt.internal.core.CompilationUnit workingCopy)) {
+			return null;
+		}
+		org.eclipse.jdt.core.dom.CompilationUnit ast = workingCopy.getCachedAST();
+		if (ast == null
+			|| workingCopy.hasUnsavedChanges() // the index is about the file contents
+			|| (this.document.shouldIndexResolvedDocument() && !ast.getAST().hasResolvedBindings())) {
+			return null;
+		}
+		return ast;
+	}
+
+	/**
+	 * @return the number of DOM parses avoided by indexing the AST of an opened working copy instead
+	 */
+	public static long getReusedASTCount() {
+		return reusedASTs.get();
+	}
 }
@@ -58,4 +58,16 @@ public interface IJob {
 	public default boolean waitNeeded() {
 		return false;
 	}
+
+	/**
+	 * Answers a key identifying what this job updates, when it can run concurrently with jobs having a different key.
+	 * Jobs with the same key, and jobs answering {@code null}, always run in the order they were requested. Default
+	 * implementation returns {@code null}.
+	 *
+	 * @return the key of the job, or {@code null} if it must run alone
+	 * @see JobManager#getConcurrentJobs()
+	 */
+	public default Object getConcurrencyKey() {
+		return null;
+	}
 }
@@ -15,11 +15,21 @@ package org.eclipse.jdt.internal.core.search.processing;
 
 import static org.eclipse.jdt.internal.core.JavaModelManager.trace;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjLongConsumer;
 import java.util.function.Predicate;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -33,6 +43,18 @@ import org.eclipse.jdt.internal.core.util.Util;
 
 public abstract class JobManager {
 
+	/**
+	 * Maximum number of background jobs executed at the same time - if any value is set. Any value <= 1 will disable
+	 * concurrent execution.
+	 * <br>
+	 * Only consecutive jobs of the queue answering different {@link IJob#getConcurrencyKey() keys} are executed
+	 * together, so jobs with the same key, and jobs which must run alone, still run in the order they were requested.
+	 * Set with <code>-Dorg.eclipse.jdt.index_threads=&lt;n&gt;</code>.
+	 */
+	public static int getConcurrentJobs() {
+		return Integer.getInteger("org.eclipse.jdt.index_threads", 1).intValue(); //$NON-NLS-1$
+	}
+
 	/**
 	 * queue of jobs to execute
 	 * <br>
@@ -72,6 +94,22 @@ public abstract class JobManager {
 
 	private final Object idleMonitor = new Object();
 
+	/**
+	 * jobs of the queue being executed by the concurrentExecutor, next to the current job
+	 * <br>
+	 * synchronized by JobManager.this
+	 */
+	private List<IJob> concurrentJobs = List.of();
+
+	/**
+	 * threads executing the concurrent jobs, created on demand
+	 * <br>
+	 * synchronized by JobManager.this
+	 */
+	private ThreadPoolExecutor concurrentExecutor;
+
+	private volatile ObjLongConsumer<IJob> jobTimingListener;
+
 	private synchronized Thread getProcessingThread() {
 		return this.processingThread;
 	}
@@ -142,20 +180,29 @@ public abstract class JobManager {
 
 		try {
 			IJob currentJob;
-			// cancel current job if it belongs to the given family
+			List<IJob> runningJobs = new ArrayList<>();
+			// cancel current jobs if they belong to the given family
 			synchronized(this){
 				currentJob = currentJob();
+				if (currentJob != null)
+					runningJobs.add(currentJob);
+				runningJobs.addAll(this.concurrentJobs);
 				disable();
 			}
-			if (currentJob != null && (jobFamily == null || currentJob.belongsTo(jobFamily))) {
-				currentJob.cancel();
-
+			boolean cancelled = false;
+			for (IJob runningJob : runningJobs) {
+				if (jobFamily == null || runningJob.belongsTo(jobFamily)) {
+					runningJob.cancel();
+					cancelled = true;
+				}
+			}
+			if (cancelled) {
 				synchronized (this) {
-					// wait until current active job has finished
+					// wait until current active jobs have finished
 					while (getProcessingThread() != null && this.executing){
 						try {
 							if (VERBOSE) {
-								trace("-> waiting end of current background job - " + currentJob); //$NON-NLS-1$
+								trace("-> waiting end of current background jobs - " + runningJobs); //$NON-NLS-1$
 							}
 							this.wait(50);
 						} catch(InterruptedException e){
@@ -218,6 +265,9 @@ public abstract class JobManager {
 			if(job == first) {
 				break;
 			}
+			if (isConcurrentJob(job)) {
+				continue; // already started too
+			}
 			if (request.test(job)) {
 				return true;
 			}
@@ -225,6 +275,128 @@ public abstract class JobManager {
 		return false;
 	}
 
+	private boolean isConcurrentJob(IJob job) {
+		for (IJob concurrentJob : this.concurrentJobs) {
+			if (concurrentJob == job) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Starts executing the jobs following the current one in the queue which can run concurrently with it, if enabled
+	 * by {@link #getConcurrentJobs()}.
+	 *
+	 * @return the results of the started jobs, to be awaited before moving to the next job
+	 */
+	private synchronized List<Future<?>> startConcurrentJobs(IJob currentJob) {
+		Object currentKey = currentJob.getConcurrencyKey();
+		int concurrentJobCount = getConcurrentJobs();
+		if (concurrentJobCount <= 1 || currentKey == null || this.awaitingJobs.isEmpty() || this.awaitingJobs.get(0) != currentJob) {
+			return List.of();
+		}
+		Set<Object> keys = new HashSet<>();
+		keys.add(currentKey);
+		List<IJob> jobs = new ArrayList<>();
+		Iterator<IJob> iterator = this.awaitingJobs.iterator();
+		iterator.next(); // current job
+		while (iterator.hasNext() && jobs.size() < concurrentJobCount - 1) {
+			IJob job = iterator.next();
+			Object key = job.getConcurrencyKey();
+			if (key == null || !keys.add(key)) {
+				break; // must run after the jobs before it
+			}
+			jobs.add(job);
+		}
+		if (jobs.isEmpty()) {
+			return List.of();
+		}
+		int threads = concurrentJobCount - 1;
+		if (this.concurrentExecutor == null) {
+			AtomicInteger threadCount = new AtomicInteger();
+			this.concurrentExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+				Thread t = new Thread(runnable, processName() + " #" + threadCount.incrementAndGet()); //$NON-NLS-1$
+				t.setDaemon(true);
+				t.setPriority(Thread.NORM_PRIORITY-1);
+				t.setContextClassLoader(this.getClass().getClassLoader());
+				return t;
+			});
+		} else if (this.concurrentExecutor.getCorePoolSize() != threads) {
+			// the setting changed since the pool was created, all the started jobs must run at once
+			if (threads > this.concurrentExecutor.getMaximumPoolSize()) {
+				this.concurrentExecutor.setMaximumPoolSize(threads);
+				this.concurrentExecutor.setCorePoolSize(threads);
+			} else {
+				this.concurrentExecutor.setCorePoolSize(threads);
+				this.concurrentExecutor.setMaximumPoolSize(threads);
+			}
+		}
+		this.concurrentJobs = jobs;
+		List<Future<?>> results = new ArrayList<>(jobs.size());
+		for (IJob job : jobs) {
+			if (VERBOSE) {
+				trace("STARTING concurrent background job - " + job); //$NON-NLS-1$
+			}
+			results.add(this.concurrentExecutor.submit(() -> executeJob(job)));
+		}
+		return results;
+	}
+	/**
+	 * Waits for the jobs started by {@link #startConcurrentJobs(IJob)}, and removes them from the queue.
+	 */
+	private void finishConcurrentJobs(List<Future<?>> results) {
+		if (results.isEmpty()) {
+			return;
+		}
+		boolean interrupted = false;
+		for (Future<?> result : results) {
+			while (true) {
+				try {
+					result.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true; // they must finish anyway before moving to the next job
+				} catch (ExecutionException e) {
+					Util.log(e.getCause(), "Background Indexer Concurrent Job Failure"); //$NON-NLS-1$
+					break;
+				}
+			}
+		}
+		synchronized (this) {
+			this.awaitingJobs.removeIf(this::isConcurrentJob);
+			this.concurrentJobs = List.of();
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	private void executeJob(IJob job) {
+		long start = System.nanoTime();
+		try {
+			job.execute(null);
+		} finally {
+			long duration = System.nanoTime() - start;
+			if (VERBOSE) {
+				trace("FINISHED background job in " + duration / 1_000_000 + "ms - " + job); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			ObjLongConsumer<IJob> listener = this.jobTimingListener;
+			if (listener != null) {
+				listener.accept(job, duration);
+			}
+		}
+	}
+	/**
+	 * Sets a listener told about each background job once it has been executed, with its execution time in
+	 * nanoseconds. It may be called by several threads at once when jobs are executed concurrently.
+	 *
+	 * @param listener
+	 *            the listener, or {@code null} to remove it
+	 */
+	public void setJobTimingListener(ObjLongConsumer<IJob> listener) {
+		this.jobTimingListener = listener;
+	}
+
 	/**
 	 * Advance to the next available job, once the current one has been completed.
 	 * Note: clients awaiting until the job count is zero are still waiting at this point.
@@ -538,12 +710,14 @@ public abstract class JobManager {
 							JavaModelManager.getJavaModelManager().cacheZipFiles(this);
 							cacheZipFiles = true;
 						}
-						job.execute(null); // may enqueue a new job
+						List<Future<?>> concurrentResults = startConcurrentJobs(job);
+						try {
+							executeJob(job); // may enqueue a new job
+						} finally {
+							finishConcurrentJobs(concurrentResults);
+						}
 					} finally {
 						this.executing = false;
-						if (VERBOSE) {
-							trace("FINISHED background job - " + job); //$NON-NLS-1$
-						}
 						moveToNextJob();
 						if (this.awaitingClients.get() == 0 && job.waitNeeded()) {
 							if (VERBOSE) {
@@ -604,6 +778,14 @@ public abstract class JobManager {
 				// in case processing thread is handling a job
 				thread.join();
 			}
+			ExecutorService executor;
+			synchronized (this) {
+				executor = this.concurrentExecutor;
+				this.concurrentExecutor = null;
+			}
+			if (executor != null) {
+				executor.shutdown();
+			}
 			Job job = this.progressJob;
 			if (job != null) {
 				job.cancel();